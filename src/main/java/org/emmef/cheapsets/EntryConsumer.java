@@ -0,0 +1,18 @@
+package org.emmef.cheapsets;
+
+/**
+ * Receives the key and value of each mapping of a map.
+ * 
+ * @param <K> type of keys
+ * @param <V> type of values
+ * @see UniverseBasedMap#forEach(EntryConsumer)
+ */
+public interface EntryConsumer<K, V> {
+	/**
+	 * Accepts the key and value of a mapping.
+	 * 
+	 * @param key the key
+	 * @param value the value
+	 */
+	void accept(K key, V value);
+}
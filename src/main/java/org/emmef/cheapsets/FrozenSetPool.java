@@ -0,0 +1,74 @@
+package org.emmef.cheapsets;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+/**
+ * Interns {@link FrozenUniverseBasedSet}s, so that equal sets over the same
+ * universe are the same instance.
+ * <p>
+ * When many sets are duplicates of a few distinct ones, interning keeps only
+ * one copy of each and makes {@link FrozenUniverseBasedSet#equals(Object)}
+ * between interned sets a reference check.
+ * <p>
+ * Sets are referenced weakly: a set that is no longer used by anything else
+ * is removed from the pool. The pool is thread-safe.
+ */
+public final class FrozenSetPool {
+	/**
+	 * Pool that is used by {@link UniverseBasedSets#intern(UniverseBasedSet)}.
+	 */
+	public static final FrozenSetPool DEFAULT = new FrozenSetPool();
+
+	private final Interner<FrozenUniverseBasedSet<?>> interner = Interners.newWeakInterner();
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * Returns the canonical frozen set in this pool that is equal to
+	 *     {@code set}, freezing a copy of {@code set} if there is none yet.
+	 *
+	 * @param set set to intern
+	 * @return a {@code non-null} {@link FrozenUniverseBasedSet} over the
+	 *     universe of {@code set}
+	 * @throws NullPointerException if {@code set} is {@code null}
+	 */
+	public <E> FrozenUniverseBasedSet<E> intern(UniverseBasedSet<E> set) {
+		checkNotNull(set, "set");
+		if (set instanceof FrozenUniverseBasedSet && ((FrozenUniverseBasedSet<E>)set).pool() == this) {
+			hits.incrementAndGet();
+			return (FrozenUniverseBasedSet<E>)set;
+		}
+		FrozenUniverseBasedSet<E> candidate = set instanceof FrozenUniverseBasedSet && ((FrozenUniverseBasedSet<E>)set).pool() == null ? (FrozenUniverseBasedSet<E>)set : new FrozenUniverseBasedSet<E>(set);
+		@SuppressWarnings("unchecked")
+		FrozenUniverseBasedSet<E> interned = (FrozenUniverseBasedSet<E>)interner.intern(candidate);
+		if (interned != candidate) {
+			hits.incrementAndGet();
+			return interned;
+		}
+		misses.incrementAndGet();
+		candidate.internedIn(this);
+		
+		return candidate;
+	}
+
+	/**
+	 * Returns the number of calls to {@link #intern(UniverseBasedSet)} that
+	 *     returned an existing set.
+	 */
+	public long hits() {
+		return hits.get();
+	}
+
+	/**
+	 * Returns the number of calls to {@link #intern(UniverseBasedSet)} that
+	 *     added a set to the pool.
+	 */
+	public long misses() {
+		return misses.get();
+	}
+}
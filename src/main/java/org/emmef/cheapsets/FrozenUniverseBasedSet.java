@@ -0,0 +1,204 @@
+package org.emmef.cheapsets;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Set;
+
+import org.emmef.cheapsets.indexsets.IndexSetBuilder;
+import org.emmef.cheapsets.universes.AppendableIndexedUniverse;
+
+import com.google.common.collect.Iterators;
+
+/**
+ * {@link UniverseBasedSet} that cannot be modified.
+ * <p>
+ * The hash code is computed once, when the set is frozen. The elements are
+ * stored in the most compact index set for their number: universes with an
+ * index boundary above 256 use an adaptive index set that keeps a few
+ * elements as a sorted array.
+ * <p>
+ * Frozen sets that are interned in the same {@link FrozenSetPool} are equal
+ * only if they are the same instance, so {@link #equals(Object)} between them
+ * is a reference check.
+ *
+ * @param <E> type of elements
+ * @see UniverseBasedSets#freeze(UniverseBasedSet)
+ * @see FrozenSetPool
+ */
+public final class FrozenUniverseBasedSet<E> extends UniverseBasedSet<E> {
+	private FrozenSetPool pool;
+
+	FrozenUniverseBasedSet(UniverseBasedSet<E> set) {
+		super(set.subSet(), compactCopy(set));
+	}
+
+	FrozenUniverseBasedSet(IndexedUniverse<E> universe, IndexSet indexSet, int hash) {
+		super(universe, indexSet, hash);
+	}
+
+	/**
+	 * Not supported.
+	 *
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public boolean add(E e) {
+		throw unsupported();
+	}
+
+	/**
+	 * Not supported.
+	 *
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public boolean addAll(Collection<? extends E> c) {
+		throw unsupported();
+	}
+
+	/**
+	 * Not supported.
+	 *
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public boolean remove(Object o) {
+		throw unsupported();
+	}
+
+	/**
+	 * Not supported.
+	 *
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public boolean removeAll(Collection<?> c) {
+		throw unsupported();
+	}
+
+	/**
+	 * Not supported.
+	 *
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public boolean retainAll(Collection<?> c) {
+		throw unsupported();
+	}
+
+	/**
+	 * Not supported.
+	 *
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public boolean retainIndexRange(int fromIndex, int toIndex) {
+		throw unsupported();
+	}
+
+	/**
+	 * Not supported.
+	 *
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public boolean setWordAt(int wordIndex, long word) {
+		throw unsupported();
+	}
+
+	/**
+	 * Not supported.
+	 *
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public void clear() {
+		throw unsupported();
+	}
+
+	/**
+	 * Returns this set, as it cannot be modified.
+	 */
+	@Override
+	public FrozenUniverseBasedSet<E> snapshot() {
+		return this;
+	}
+
+	@Override
+	public Iterator<E> iterator() {
+		return Iterators.unmodifiableIterator(super.iterator());
+	}
+
+	@Override
+	public Set<E> indexRange(int fromIndex, int toIndex) {
+		return Collections.unmodifiableSet(super.indexRange(fromIndex, toIndex));
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (o == this) {
+			return true;
+		}
+		if (!(o instanceof FrozenUniverseBasedSet)) {
+			return super.equals(o);
+		}
+		FrozenUniverseBasedSet<?> other = (FrozenUniverseBasedSet<?>)o;
+		if (other.subSet() != subSet()) {
+			return super.equals(o);
+		}
+		if (pool != null && pool == other.pool) {
+			return false;
+		}
+		if (hashCode() != other.hashCode()) {
+			return false;
+		}
+		IndexSet indexSet = indexSet();
+		IndexSet otherIndexSet = other.indexSet();
+		int wordCount = indexSet.wordCount();
+		if (wordCount != otherIndexSet.wordCount()) {
+			return super.equals(o);
+		}
+		for (int wordIndex = 0; wordIndex < wordCount; wordIndex++) {
+			if (indexSet.wordAt(wordIndex) != otherIndexSet.wordAt(wordIndex)) {
+				return false;
+			}
+		}
+		
+		return true;
+	}
+
+	/**
+	 * Returns the pool that this set is the canonical instance in, or
+	 * {@code null} if it was not interned.
+	 */
+	final FrozenSetPool pool() {
+		return pool;
+	}
+
+	/**
+	 * Marks this set as the canonical instance in {@code pool}, after the pool
+	 * accepted it.
+	 */
+	final void internedIn(FrozenSetPool pool) {
+		this.pool = pool;
+	}
+
+	private UnsupportedOperationException unsupported() {
+		return new UnsupportedOperationException(getClass().getSimpleName() + " cannot be modified");
+	}
+
+	private static IndexSet compactCopy(UniverseBasedSet<?> set) {
+		IndexedUniverse<?> universe = set.subSet();
+		IndexSet copy;
+		if (universe instanceof AppendableIndexedUniverse || universe.indexBoundary() <= 256) {
+			copy = IndexSetBuilder.emptyFor(universe);
+		}
+		else {
+			copy = IndexSetBuilder.adaptiveFor(universe);
+		}
+		copy.addAll(set.indexSet());
+		
+		return copy;
+	}
+}
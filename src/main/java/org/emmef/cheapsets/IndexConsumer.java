@@ -0,0 +1,17 @@
+package org.emmef.cheapsets;
+
+/**
+ * Receives indices of present elements, for example from 
+ * {@link IndexSet#forEachIndex(IndexConsumer)}.
+ * 
+ * @see IndexSet
+ * @see UniverseBasedSet#forEachIndex(IndexConsumer)
+ */
+public interface IndexConsumer {
+	/**
+	 * Accepts the index of a present element.
+	 * 
+	 * @param index index of the element
+	 */
+	void accept(int index);
+}
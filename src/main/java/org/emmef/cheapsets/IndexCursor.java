@@ -0,0 +1,24 @@
+package org.emmef.cheapsets;
+
+/**
+ * Walks the present indices of an {@link IndexSet} without allocating.
+ * <p>
+ * A cursor is obtained once, through {@link IndexSet#cursor()} or
+ * {@link UniverseBasedSet#indexCursor()}, and can be reused by calling 
+ * {@link #reset()}.
+ * 
+ * @see IndexSet
+ */
+public interface IndexCursor {
+	/**
+	 * Returns the next present index, or -1 if there are no more present indices.
+	 * 
+	 * @return an index or -1
+	 */
+	int next();
+	
+	/**
+	 * Positions the cursor before the first index again.
+	 */
+	void reset();
+}
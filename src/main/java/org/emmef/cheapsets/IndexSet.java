@@ -27,6 +27,14 @@ public interface IndexSet extends Cloneable {
 	 */
 	int count();
 	
+	/**
+	 * Returns the exclusive upper bound of the indices supported by this set.
+	 * 
+	 * @return a positive integer
+	 * @documented 2026-10-19
+	 */
+	int bound();
+	
 	/**
 	 * Returns whether the set is empty.
 	 * <p>
@@ -69,6 +77,42 @@ public interface IndexSet extends Cloneable {
 	 */
 	boolean removeAt(int index);
 	
+	/**
+	 * Returns the lowest index that is present and greater than or equal to 
+	 *     {@code fromIndex}, or -1 if there is no such index.
+	 * <p>
+	 * Values of {@code fromIndex} that are at or beyond {@link #bound()}
+	 * yield -1.
+	 * 
+	 * @param fromIndex index to start searching from, inclusive
+	 * @return the next present index or -1
+	 * @throws IndexOutOfBoundsException if {@code fromIndex} is negative
+	 * @documented 2026-10-19
+	 */
+	int nextPresent(int fromIndex);
+	
+	/**
+	 * Passes each present index to the provided consumer, without allocating.
+	 * <p>
+	 * The behavior is undefined if the set is modified by the consumer.
+	 * 
+	 * @param consumer receives each present index
+	 * @documented 2026-10-19
+	 */
+	void forEachIndex(IndexConsumer consumer);
+	
+	/**
+	 * Returns a cursor over the present indices of this set.
+	 * <p>
+	 * The cursor reads this set directly and can be reused by calling 
+	 * {@link IndexCursor#reset()}. Removing the index that was last returned 
+	 * by the cursor is allowed while iterating.
+	 * 
+	 * @return a {@code non-null} {@link IndexCursor}
+	 * @documented 2026-10-19
+	 */
+	IndexCursor cursor();
+	
 	/**
 	 * Returns if all elements that are present in the provided set are also present
 	 *     in this set.
@@ -108,6 +152,103 @@ public interface IndexSet extends Cloneable {
 	 */
 	boolean removeAll(IndexSet set);
 	
+	/**
+	 * Marks all elements with an index between {@code fromIndex} (inclusive) and 
+	 *     {@code toIndex} (exclusive) present.
+	 * 
+	 * @param fromIndex first index of the range
+	 * @param toIndex index after the last index of the range
+	 * @throws IndexOutOfBoundsException if {@code fromIndex} is negative, {@code toIndex}
+	 *     is larger than {@link #bound()} or {@code fromIndex} is larger than {@code toIndex}
+	 * @documented 2026-10-19
+	 */
+	void setRange(int fromIndex, int toIndex);
+	
+	/**
+	 * Marks all elements with an index between {@code fromIndex} (inclusive) and 
+	 *     {@code toIndex} (exclusive) NOT present.
+	 * 
+	 * @param fromIndex first index of the range
+	 * @param toIndex index after the last index of the range
+	 * @throws IndexOutOfBoundsException if {@code fromIndex} is negative, {@code toIndex}
+	 *     is larger than {@link #bound()} or {@code fromIndex} is larger than {@code toIndex}
+	 * @documented 2026-10-19
+	 */
+	void clearRange(int fromIndex, int toIndex);
+	
+	/**
+	 * Inverts the presence of all elements with an index between {@code fromIndex} 
+	 *     (inclusive) and {@code toIndex} (exclusive).
+	 * 
+	 * @param fromIndex first index of the range
+	 * @param toIndex index after the last index of the range
+	 * @throws IndexOutOfBoundsException if {@code fromIndex} is negative, {@code toIndex}
+	 *     is larger than {@link #bound()} or {@code fromIndex} is larger than {@code toIndex}
+	 * @documented 2026-10-19
+	 */
+	void flipRange(int fromIndex, int toIndex);
+	
+	/**
+	 * Inverts the presence of all elements, between 0 (inclusive) and 
+	 *     {@link #bound()} (exclusive).
+	 * <p>
+	 * The bound can be larger than the index boundary of a universe and a 
+	 * universe can have indices without an element, so a complement that is 
+	 * used for a universe needs to be limited to its elements.
+	 * 
+	 * @documented 2026-10-19
+	 */
+	void complement();
+	
+	/**
+	 * Returns the number of 64-bit words that are needed to hold the presence 
+	 *     of all indices below {@link #bound()}.
+	 * 
+	 * @return a positive number
+	 * @documented 2026-10-19
+	 */
+	int wordCount();
+	
+	/**
+	 * Returns the presence of the indices {@code 64 * wordIndex} up to 
+	 *     {@code 64 * (wordIndex + 1)} as a word, where the lowest bit 
+	 *     corresponds to the lowest index.
+	 * <p>
+	 * The word layout is the same as that of {@link java.util.BitSet#toLongArray()}.
+	 * 
+	 * @param wordIndex index of the word
+	 * @return the word
+	 * @throws IndexOutOfBoundsException if {@code wordIndex} is negative or not 
+	 *     smaller than {@link #wordCount()}
+	 * @documented 2026-10-19
+	 */
+	long wordAt(int wordIndex);
+	
+	/**
+	 * Returns a new array of {@link #wordCount()} words, that contains the 
+	 *     presence of all indices, see {@link #wordAt(int)}.
+	 * 
+	 * @return a {@code non-null} array
+	 * @documented 2026-10-19
+	 */
+	long[] toLongArray();
+	
+	/**
+	 * Replaces the presence of all indices by the {@link #wordCount()} words in 
+	 *     {@code words}, starting at {@code offset}. 
+	 * <p>
+	 * The word layout is that of {@link #wordAt(int)}.
+	 * 
+	 * @param words the words to copy
+	 * @param offset the position of the first word to copy in {@code words}
+	 * @throws IndexOutOfBoundsException if {@code words} does not contain 
+	 *     {@link #wordCount()} words from {@code offset}
+	 * @throws IllegalArgumentException if the words mark indices present that 
+	 *     are not smaller than {@link #bound()}
+	 * @documented 2026-10-19
+	 */
+	void setWords(long[] words, int offset);
+	
 	/**
 	 * Sets all elements to NOT present.
 	 * @documented 2013-07-26
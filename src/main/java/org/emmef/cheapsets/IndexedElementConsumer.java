@@ -0,0 +1,17 @@
+package org.emmef.cheapsets;
+
+/**
+ * Receives present elements together with their index in the universe.
+ * 
+ * @param <E> type of elements
+ * @see UniverseBasedSet#forEachIndexed(IndexedElementConsumer)
+ */
+public interface IndexedElementConsumer<E> {
+	/**
+	 * Accepts a present element and its index.
+	 * 
+	 * @param element the element
+	 * @param index index of the element in the universe
+	 */
+	void accept(E element, int index);
+}
@@ -0,0 +1,20 @@
+package org.emmef.cheapsets;
+
+/**
+ * Receives the key and value of each mapping of a map, together with the 
+ * index of the key in the universe.
+ * 
+ * @param <K> type of keys
+ * @param <V> type of values
+ * @see UniverseBasedMap#forEachIndexed(IndexedEntryConsumer)
+ */
+public interface IndexedEntryConsumer<K, V> {
+	/**
+	 * Accepts the key and value of a mapping and the index of the key.
+	 * 
+	 * @param index index of the key in the universe
+	 * @param key the key
+	 * @param value the value
+	 */
+	void accept(int index, K key, V value);
+}
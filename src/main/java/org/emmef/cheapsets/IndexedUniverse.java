@@ -52,6 +52,39 @@ public interface IndexedUniverse<T> {
 	 */
 	T elementAt(int index);
 	
+	/**
+	 * Looks up the index of each element in {@code elements} and stores it at the 
+	 *     same position in {@code indices}.
+	 * <p>
+	 * The result is the same as calling {@link #indexOf(Object)} for each element: 
+	 * elements that are not in the universe get index -1. Implementations can 
+	 * process the elements in batches, so that memory accesses for 
+	 * different elements overlap.
+	 * 
+	 * @param elements elements to look up
+	 * @param indices receives the index of each element, must be at least as long as {@code elements}
+	 * @return the number of elements that are not in this universe
+	 * @throws IllegalArgumentException if {@code indices} is shorter than {@code elements}
+	 * @documented 2026-10-19
+	 */
+	int indexOfAll(Object[] elements, int[] indices);
+	
+	/**
+	 * Looks up the element at each index in {@code indices} and stores it at the 
+	 *     same position in {@code elements}.
+	 * <p>
+	 * Index -1, as produced by {@link #indexOfAll(Object[], int[])} for missing 
+	 * elements, and indices without an element yield {@code null}.
+	 * 
+	 * @param indices indices to look up
+	 * @param elements receives the element at each index, must be at least as long as {@code indices}
+	 * @return the number of indices that yielded {@code null}
+	 * @throws IllegalArgumentException if {@code elements} is shorter than {@code indices}
+	 * @throws IndexOutOfBoundsException if an index is smaller than -1 or not smaller than {@link #indexBoundary()}
+	 * @documented 2026-10-19
+	 */
+	int elementsAt(int[] indices, Object[] elements);
+	
 	/**
 	 * Returns the size of this universe.
 	 * <p>
@@ -0,0 +1,67 @@
+package org.emmef.cheapsets;
+
+/**
+ * Walks the mappings of a map without allocating an entry per mapping.
+ * <p>
+ * A cursor is obtained once, through {@link UniverseBasedMap#cursor()}, and 
+ * can be reused by calling {@link #reset()}. The key and value methods refer 
+ * to the mapping that the last successful call to {@link #next()} moved to.
+ * 
+ * @param <K> type of keys
+ * @param <V> type of values
+ * @see UniverseBasedMap
+ */
+public interface MapCursor<K, V> {
+	/**
+	 * Moves to the next mapping.
+	 * 
+	 * @return {@code true} if there was a next mapping, {@code false} otherwise
+	 */
+	boolean next();
+	
+	/**
+	 * Returns the index of the key of the current mapping in the universe.
+	 * 
+	 * @return an index
+	 * @throws IllegalStateException if the cursor is not on a mapping
+	 */
+	int index();
+	
+	/**
+	 * Returns the key of the current mapping.
+	 * 
+	 * @return the key
+	 * @throws IllegalStateException if the cursor is not on a mapping
+	 */
+	K key();
+	
+	/**
+	 * Returns the value of the current mapping.
+	 * 
+	 * @return the value
+	 * @throws IllegalStateException if the cursor is not on a mapping
+	 */
+	V value();
+	
+	/**
+	 * Replaces the value of the current mapping.
+	 * 
+	 * @param value the new value
+	 * @return the previous value
+	 * @throws IllegalStateException if the cursor is not on a mapping
+	 */
+	V setValue(V value);
+	
+	/**
+	 * Removes the current mapping. The cursor stays in place, so that the 
+	 * next call to {@link #next()} moves to the mapping after it.
+	 * 
+	 * @throws IllegalStateException if the cursor is not on a mapping
+	 */
+	void remove();
+	
+	/**
+	 * Positions the cursor before the first mapping again.
+	 */
+	void reset();
+}
@@ -0,0 +1,69 @@
+package org.emmef.cheapsets;
+
+import org.emmef.cheapsets.indexsets.MiniIndexSet;
+
+/**
+ * {@link UniverseBasedSet} for universes with an index boundary of at most 32.
+ * <p>
+ * The index set is referenced by its exact, final type, so that the 
+ * frequently used methods are statically bound and can be inlined completely.
+ * Sets over larger universes are plain {@link UniverseBasedSet}s, which 
+ * spend relatively less time on these calls.
+ * 
+ * @param <E> type of elements
+ * @see UniverseBasedSets
+ */
+final class MiniUniverseBasedSet<E> extends UniverseBasedSet<E> {
+	private final IndexedUniverse<E> universe;
+	private final MiniIndexSet bits;
+
+	MiniUniverseBasedSet(IndexedUniverse<E> universe, MiniIndexSet bits) {
+		super(universe, bits);
+		this.universe = universe;
+		this.bits = bits;
+	}
+	
+	@Override
+	public boolean add(E e) {
+		int index = validIndexOf(e);
+		if (bits.setAt(index)) {
+			indexAdded(index);
+			return true;
+		}
+		return false;
+	}
+	
+	@Override
+	public boolean contains(Object o) {
+		int indexOf = universe.indexOf(o);
+		
+		return indexOf >= 0 && bits.presentAt(indexOf);
+	}
+	
+	@Override
+	public boolean remove(Object o) {
+		int indexOf = universe.indexOf(o);
+		
+		if (indexOf >= 0 && bits.removeAt(indexOf)) {
+			indexRemoved(indexOf);
+			return true;
+		}
+		return false;
+	}
+	
+	@Override
+	public int size() {
+		return bits.count();
+	}
+	
+	@Override
+	public boolean isEmpty() {
+		return bits.isEmpty();
+	}
+	
+	@Override
+	public void clear() {
+		bits.clear();
+		allRemoved();
+	}
+}
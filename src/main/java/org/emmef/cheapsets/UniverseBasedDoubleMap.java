@@ -0,0 +1,121 @@
+package org.emmef.cheapsets;
+
+import java.util.Arrays;
+import java.util.Set;
+
+import org.emmef.cheapsets.universes.IndexedUniverses;
+
+/**
+ * Maps keys inside an {@link IndexedUniverse} to {@code double} values, without 
+ * boxing them.
+ * <p>
+ * The value of an absent key is reported as {@code 0.0}, unless a default is 
+ * provided with {@link #getOrDefault(Object, double)}. Use 
+ * {@link #containsKey(Object)} to distinguish an absent key from a key that 
+ * maps to {@code 0.0}.
+ * 
+ * @param <K> type of keys
+ * @see UniverseBasedPrimitiveMap
+ */
+public class UniverseBasedDoubleMap<K> extends UniverseBasedPrimitiveMap<K> {
+	private double[] values;
+
+	/**
+	 * Creates a map that can only have keys from the provided {@link IndexedUniverse}.
+	 *  
+	 * @param universe indexed universe that contains all possible keys 
+	 */
+	public UniverseBasedDoubleMap(IndexedUniverse<K> universe) {
+		super(universe);
+		this.values = new double[universe.indexBoundary()];
+	}
+	
+	/**
+	 * Creates a map that can only have keys from the provided set.
+	 *  
+	 * @param universe set that contains all possible keys 
+	 */
+	public UniverseBasedDoubleMap(Set<K> universe) {
+		this(IndexedUniverses.create(universe));
+	}
+	
+	/**
+	 * Returns the value of {@code key}, or {@code 0.0} if the key is not present.
+	 */
+	public double get(Object key) {
+		return getOrDefault(key, 0.0);
+	}
+	
+	/**
+	 * Returns the value of {@code key}, or {@code defaultValue} if the key is not present.
+	 */
+	public double getOrDefault(Object key, double defaultValue) {
+		int indexOf = indexOf(key);
+		
+		return indexOf >= 0 && present().presentAt(indexOf) ? values[indexOf] : defaultValue;
+	}
+	
+	/**
+	 * Maps {@code key} to {@code value}.
+	 * 
+	 * @return the previous value of {@code key}, or {@code 0.0} if the key was not present
+	 * @throws ElementNotInUniverseException if the key is not in the universe
+	 */
+	public double put(K key, double value) {
+		int indexOf = validIndexOf(key);
+		double previous = present().setAt(indexOf) ? 0.0 : values[indexOf];
+		values[indexOf] = value;
+		
+		return previous;
+	}
+	
+	/**
+	 * Adds {@code increment} to the value of {@code key}, where an absent key 
+	 * counts as {@code 0.0}.
+	 * 
+	 * @return the previous value of {@code key}, or {@code 0.0} if the key was not present
+	 * @throws ElementNotInUniverseException if the key is not in the universe
+	 */
+	public double addTo(K key, double increment) {
+		int indexOf = validIndexOf(key);
+		double previous = present().setAt(indexOf) ? 0.0 : values[indexOf];
+		values[indexOf] = previous + increment;
+		
+		return previous;
+	}
+	
+	/**
+	 * Removes the mapping of {@code key}, if present.
+	 * 
+	 * @return the previous value of {@code key}, or {@code 0.0} if the key was not present
+	 */
+	public double remove(Object key) {
+		int indexOf = indexOf(key);
+		
+		return indexOf >= 0 && present().removeAt(indexOf) ? values[indexOf] : 0.0;
+	}
+	
+	@Override
+	void ensureCapacity(int capacity) {
+		if (capacity > values.length) {
+			values = Arrays.copyOf(values, Math.max(capacity, values.length + (values.length >> 1)));
+		}
+	}
+	
+	@Override
+	int valueHashAt(int index) {
+		long bits = Double.doubleToLongBits(values[index]);
+		
+		return (int)(bits ^ (bits >>> 32));
+	}
+	
+	@Override
+	boolean sameValueAt(int index, UniverseBasedPrimitiveMap<?> other, int otherIndex) {
+		return Double.doubleToLongBits(values[index]) == Double.doubleToLongBits(((UniverseBasedDoubleMap<?>)other).values[otherIndex]);
+	}
+	
+	@Override
+	void appendValueAt(StringBuilder text, int index) {
+		text.append(values[index]);
+	}
+}
@@ -0,0 +1,295 @@
+package org.emmef.cheapsets;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import org.emmef.cheapsets.indexsets.IndexSetBuilder;
+import org.emmef.cheapsets.universes.IndexedUniverses;
+
+/**
+ * Maps pairs of a row key inside one {@link IndexedUniverse} and a column key
+ * inside another to {@code double} values, without boxing them.
+ * <p>
+ * All cells are kept in one array, that is indexed by
+ * {@code rowIndex * columnBoundary + columnIndex}, so this is a dense matrix
+ * that also records which cells are present. The value of an absent cell is
+ * reported as {@code 0.0}, unless a default is provided with
+ * {@link #getOrDefault(Object, Object, double)}.
+ *
+ * @param <R> type of row keys
+ * @param <C> type of column keys
+ * @see UniverseBasedTable
+ * @see UniverseBasedDoubleMap
+ */
+public class UniverseBasedDoubleTable<R, C> {
+	private final IndexedUniverse<R> rows;
+	private final IndexedUniverse<C> columns;
+	private final int columnBoundary;
+	private final double[] cells;
+	private final IndexSet[] rowPresence;
+
+	/**
+	 * Creates a table that can only have row keys and column keys from the
+	 * provided universes.
+	 *
+	 * @param rows universe that contains all possible row keys
+	 * @param columns universe that contains all possible column keys
+	 * @throws IllegalArgumentException if the number of cells does not fit in an array,
+	 *     or if either universe can grow
+	 */
+	public UniverseBasedDoubleTable(IndexedUniverse<R> rows, IndexedUniverse<C> columns) {
+		this.rows = IndexedUniverses.checkNotGrowing(checkNotNull(rows, "rows"));
+		this.columns = IndexedUniverses.checkNotGrowing(checkNotNull(columns, "columns"));
+		this.columnBoundary = columns.indexBoundary();
+		long cellCount = (long)rows.indexBoundary() * columnBoundary;
+		checkArgument(cellCount <= Integer.MAX_VALUE, "Too many cells for a dense table: %s", cellCount);
+		this.cells = new double[(int)cellCount];
+		this.rowPresence = new IndexSet[rows.indexBoundary()];
+		for (int row = 0; row < rowPresence.length; row++) {
+			rowPresence[row] = IndexSetBuilder.emptyFor(columnBoundary);
+		}
+	}
+
+	/**
+	 * Returns the number of present cells.
+	 */
+	public int size() {
+		int size = 0;
+		for (IndexSet presence : rowPresence) {
+			size += presence.count();
+		}
+		return size;
+	}
+
+	public boolean isEmpty() {
+		for (IndexSet presence : rowPresence) {
+			if (!presence.isEmpty()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public boolean contains(Object rowKey, Object columnKey) {
+		return cellIndexOf(rowKey, columnKey) >= 0;
+	}
+
+	/**
+	 * Returns the value of the cell, or {@code 0.0} if the cell is not present.
+	 */
+	public double get(Object rowKey, Object columnKey) {
+		return getOrDefault(rowKey, columnKey, 0.0);
+	}
+
+	/**
+	 * Returns the value of the cell, or {@code defaultValue} if the cell is not present.
+	 */
+	public double getOrDefault(Object rowKey, Object columnKey, double defaultValue) {
+		int cell = cellIndexOf(rowKey, columnKey);
+		
+		return cell >= 0 ? cells[cell] : defaultValue;
+	}
+
+	/**
+	 * Sets the value of the cell.
+	 *
+	 * @return the previous value of the cell, or {@code 0.0} if the cell was not present
+	 * @throws ElementNotInUniverseException if a key is not in its universe
+	 */
+	public double put(R rowKey, C columnKey, double value) {
+		int row = validIndexOf(rows, rowKey);
+		int column = validIndexOf(columns, columnKey);
+		int cell = row * columnBoundary + column;
+		double previous = rowPresence[row].setAt(column) ? 0.0 : cells[cell];
+		cells[cell] = value;
+		
+		return previous;
+	}
+
+	/**
+	 * Adds {@code increment} to the value of the cell, where an absent cell
+	 * counts as {@code 0.0}.
+	 *
+	 * @return the previous value of the cell, or {@code 0.0} if the cell was not present
+	 * @throws ElementNotInUniverseException if a key is not in its universe
+	 */
+	public double addTo(R rowKey, C columnKey, double increment) {
+		int row = validIndexOf(rows, rowKey);
+		int column = validIndexOf(columns, columnKey);
+		int cell = row * columnBoundary + column;
+		double previous = rowPresence[row].setAt(column) ? 0.0 : cells[cell];
+		cells[cell] = previous + increment;
+		
+		return previous;
+	}
+
+	/**
+	 * Removes the cell, if present.
+	 *
+	 * @return the previous value of the cell, or {@code 0.0} if the cell was not present
+	 */
+	public double remove(Object rowKey, Object columnKey) {
+		int row = rows.indexOf(rowKey);
+		int column = columns.indexOf(columnKey);
+		
+		return row >= 0 && column >= 0 && rowPresence[row].removeAt(column) ? cells[row * columnBoundary + column] : 0.0;
+	}
+
+	public void clear() {
+		for (IndexSet presence : rowPresence) {
+			presence.clear();
+		}
+	}
+
+	/**
+	 * Returns the column keys of the present cells in the row of {@code rowKey}.
+	 * <p>
+	 * The set is a view: removing column keys removes cells from the table,
+	 * but adding column keys is not supported.
+	 *
+	 * @throws ElementNotInUniverseException if the row key is not in its universe
+	 */
+	public UniverseBasedSet<C> columnKeySet(R rowKey) {
+		return new UniverseBasedKeySet<>(columns, rowPresence[validIndexOf(rows, rowKey)]);
+	}
+
+	/**
+	 * Returns the sum of the present cells in the row of {@code rowKey}.
+	 *
+	 * @throws ElementNotInUniverseException if the row key is not in its universe
+	 */
+	public double rowSum(R rowKey) {
+		int row = validIndexOf(rows, rowKey);
+		IndexSet presence = rowPresence[row];
+		int offset = row * columnBoundary;
+		double sum = 0.0;
+		for (int column = presence.nextPresent(0); column >= 0; column = presence.nextPresent(column + 1)) {
+			sum += cells[offset + column];
+		}
+		return sum;
+	}
+
+	/**
+	 * Returns the sum of the present cells in the column of {@code columnKey}.
+	 *
+	 * @throws ElementNotInUniverseException if the column key is not in its universe
+	 */
+	public double columnSum(C columnKey) {
+		int column = validIndexOf(columns, columnKey);
+		double sum = 0.0;
+		for (int row = 0, cell = column; row < rowPresence.length; row++, cell += columnBoundary) {
+			if (rowPresence[row].presentAt(column)) {
+				sum += cells[cell];
+			}
+		}
+		return sum;
+	}
+
+	@Override
+	public int hashCode() {
+		int hashCode = 0;
+		for (int row = 0; row < rowPresence.length; row++) {
+			IndexSet presence = rowPresence[row];
+			if (presence.isEmpty()) {
+				continue;
+			}
+			int rowHash = rows.elementAt(row).hashCode();
+			for (int column = presence.nextPresent(0); column >= 0; column = presence.nextPresent(column + 1)) {
+				long bits = Double.doubleToLongBits(cells[row * columnBoundary + column]);
+				hashCode += rowHash ^ columns.elementAt(column).hashCode() ^ (int)(bits ^ (bits >>> 32));
+			}
+		}
+		return hashCode;
+	}
+
+	/**
+	 * Returns whether {@code obj} is a {@link UniverseBasedDoubleTable} with the
+	 * same cells and values, where values are compared like
+	 * {@link Double#equals(Object)} does.
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (obj == this) {
+			return true;
+		}
+		if (!(obj instanceof UniverseBasedDoubleTable)) {
+			return false;
+		}
+		UniverseBasedDoubleTable<?, ?> other = (UniverseBasedDoubleTable<?, ?>)obj;
+		if (size() != other.size()) {
+			return false;
+		}
+		for (int row = 0; row < rowPresence.length; row++) {
+			IndexSet presence = rowPresence[row];
+			if (presence.isEmpty()) {
+				continue;
+			}
+			int otherRow = other.rows.indexOf(rows.elementAt(row));
+			if (otherRow < 0) {
+				return false;
+			}
+			for (int column = presence.nextPresent(0); column >= 0; column = presence.nextPresent(column + 1)) {
+				int otherColumn = other.columns.indexOf(columns.elementAt(column));
+				if (otherColumn < 0 || !other.rowPresence[otherRow].presentAt(otherColumn)) {
+					return false;
+				}
+				double value = cells[row * columnBoundary + column];
+				double otherValue = other.cells[otherRow * other.columnBoundary + otherColumn];
+				if (Double.doubleToLongBits(value) != Double.doubleToLongBits(otherValue)) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder text = new StringBuilder();
+		text.append('{');
+		boolean firstRow = true;
+		for (int row = 0; row < rowPresence.length; row++) {
+			IndexSet presence = rowPresence[row];
+			if (presence.isEmpty()) {
+				continue;
+			}
+			if (!firstRow) {
+				text.append(", ");
+			}
+			firstRow = false;
+			text.append(rows.elementAt(row)).append("={");
+			int firstColumn = presence.nextPresent(0);
+			for (int column = firstColumn; column >= 0; column = presence.nextPresent(column + 1)) {
+				if (column != firstColumn) {
+					text.append(", ");
+				}
+				text.append(columns.elementAt(column)).append('=').append(cells[row * columnBoundary + column]);
+			}
+			text.append('}');
+		}
+		text.append('}');
+		
+		return text.toString();
+	}
+
+	private int cellIndexOf(Object rowKey, Object columnKey) {
+		int row = rows.indexOf(rowKey);
+		if (row < 0) {
+			return -1;
+		}
+		int column = columns.indexOf(columnKey);
+		
+		return column >= 0 && rowPresence[row].presentAt(column) ? row * columnBoundary + column : -1;
+	}
+
+	private static <T> int validIndexOf(IndexedUniverse<T> universe, T key) {
+		if (key == null) {
+			throw new NullPointerException(UniverseBasedDoubleTable.class.getSimpleName() + " cannot contain null keys");
+		}
+		int indexOf = universe.indexOf(key);
+		if (indexOf >= 0) {
+			return indexOf;
+		}
+		throw new ElementNotInUniverseException(UniverseBasedDoubleTable.class.getSimpleName() + ": key not in universe: " + key);
+	}
+}
@@ -0,0 +1,119 @@
+package org.emmef.cheapsets;
+
+import java.util.Arrays;
+import java.util.Set;
+
+import org.emmef.cheapsets.universes.IndexedUniverses;
+
+/**
+ * Maps keys inside an {@link IndexedUniverse} to {@code int} values, without 
+ * boxing them.
+ * <p>
+ * The value of an absent key is reported as {@code 0}, unless a default is 
+ * provided with {@link #getOrDefault(Object, int)}. Use 
+ * {@link #containsKey(Object)} to distinguish an absent key from a key that 
+ * maps to {@code 0}.
+ * 
+ * @param <K> type of keys
+ * @see UniverseBasedPrimitiveMap
+ */
+public class UniverseBasedIntMap<K> extends UniverseBasedPrimitiveMap<K> {
+	private int[] values;
+
+	/**
+	 * Creates a map that can only have keys from the provided {@link IndexedUniverse}.
+	 *  
+	 * @param universe indexed universe that contains all possible keys 
+	 */
+	public UniverseBasedIntMap(IndexedUniverse<K> universe) {
+		super(universe);
+		this.values = new int[universe.indexBoundary()];
+	}
+	
+	/**
+	 * Creates a map that can only have keys from the provided set.
+	 *  
+	 * @param universe set that contains all possible keys 
+	 */
+	public UniverseBasedIntMap(Set<K> universe) {
+		this(IndexedUniverses.create(universe));
+	}
+	
+	/**
+	 * Returns the value of {@code key}, or {@code 0} if the key is not present.
+	 */
+	public int get(Object key) {
+		return getOrDefault(key, 0);
+	}
+	
+	/**
+	 * Returns the value of {@code key}, or {@code defaultValue} if the key is not present.
+	 */
+	public int getOrDefault(Object key, int defaultValue) {
+		int indexOf = indexOf(key);
+		
+		return indexOf >= 0 && present().presentAt(indexOf) ? values[indexOf] : defaultValue;
+	}
+	
+	/**
+	 * Maps {@code key} to {@code value}.
+	 * 
+	 * @return the previous value of {@code key}, or {@code 0} if the key was not present
+	 * @throws ElementNotInUniverseException if the key is not in the universe
+	 */
+	public int put(K key, int value) {
+		int indexOf = validIndexOf(key);
+		int previous = present().setAt(indexOf) ? 0 : values[indexOf];
+		values[indexOf] = value;
+		
+		return previous;
+	}
+	
+	/**
+	 * Adds {@code increment} to the value of {@code key}, where an absent key 
+	 * counts as {@code 0}.
+	 * 
+	 * @return the previous value of {@code key}, or {@code 0} if the key was not present
+	 * @throws ElementNotInUniverseException if the key is not in the universe
+	 */
+	public int addTo(K key, int increment) {
+		int indexOf = validIndexOf(key);
+		int previous = present().setAt(indexOf) ? 0 : values[indexOf];
+		values[indexOf] = previous + increment;
+		
+		return previous;
+	}
+	
+	/**
+	 * Removes the mapping of {@code key}, if present.
+	 * 
+	 * @return the previous value of {@code key}, or {@code 0} if the key was not present
+	 */
+	public int remove(Object key) {
+		int indexOf = indexOf(key);
+		
+		return indexOf >= 0 && present().removeAt(indexOf) ? values[indexOf] : 0;
+	}
+	
+	@Override
+	void ensureCapacity(int capacity) {
+		if (capacity > values.length) {
+			values = Arrays.copyOf(values, Math.max(capacity, values.length + (values.length >> 1)));
+		}
+	}
+	
+	@Override
+	int valueHashAt(int index) {
+		return values[index];
+	}
+	
+	@Override
+	boolean sameValueAt(int index, UniverseBasedPrimitiveMap<?> other, int otherIndex) {
+		return values[index] == ((UniverseBasedIntMap<?>)other).values[otherIndex];
+	}
+	
+	@Override
+	void appendValueAt(StringBuilder text, int index) {
+		text.append(values[index]);
+	}
+}
@@ -0,0 +1,107 @@
+package org.emmef.cheapsets;
+
+import java.util.Collection;
+
+/**
+ * Key set of a map keyed by a universe, that shares the index set that 
+ * records the present keys with the map.
+ * <p>
+ * Removing keys removes their mappings, as the map only considers values of 
+ * present keys. Adding keys is not supported, as there would be no value.
+ * 
+ * @param <K> type of keys
+ */
+class UniverseBasedKeySet<K> extends UniverseBasedSet<K> {
+	private final UniverseBasedMap<K, ?> map;
+	
+	UniverseBasedKeySet(IndexedUniverse<K> universe, IndexSet present) {
+		this(universe, present, null);
+	}
+	
+	/**
+	 * Creates a key set that tells {@code map} which keys are removed through
+	 * it, so that the map can maintain its hash code.
+	 */
+	UniverseBasedKeySet(IndexedUniverse<K> universe, IndexSet present, UniverseBasedMap<K, ?> map) {
+		super(universe, present);
+		this.map = map;
+	}
+	
+	/**
+	 * Not supported.
+	 * 
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public boolean add(K e) {
+		throw new UnsupportedOperationException(getClass().getSimpleName() + ": cannot add keys without values");
+	}
+	
+	/**
+	 * Not supported.
+	 * 
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public boolean addAll(Collection<? extends K> c) {
+		throw new UnsupportedOperationException(getClass().getSimpleName() + ": cannot add keys without values");
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * @throws UnsupportedOperationException if {@code word} adds keys
+	 */
+	@Override
+	public boolean setWordAt(int wordIndex, long word) {
+		if ((word & ~wordAt(wordIndex)) != 0) {
+			throw new UnsupportedOperationException(getClass().getSimpleName() + ": cannot add keys without values");
+		}
+		return super.setWordAt(wordIndex, word);
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * As the owner of the index set adds and removes keys without this set 
+	 * knowing, the hash code is computed from the cached hash codes of the 
+	 * keys, word by word.
+	 */
+	@Override
+	public int hashCode() {
+		return hashOf(indexSet());
+	}
+	
+	@Override
+	void indexAdded(int index) {
+	}
+	
+	@Override
+	void indexRemoved(int index) {
+		if (map != null) {
+			map.keyRemoved(index);
+		}
+	}
+	
+	@Override
+	void wordAdded(int wordIndex, long word) {
+	}
+	
+	@Override
+	void wordRemoved(int wordIndex, long word) {
+		if (map != null) {
+			int offset = wordIndex << 6;
+			while (word != 0) {
+				map.keyRemoved(offset + Long.numberOfTrailingZeros(word));
+				word &= word - 1;
+			}
+		}
+	}
+	
+	@Override
+	void allRemoved() {
+		if (map != null) {
+			map.keysCleared();
+		}
+	}
+}
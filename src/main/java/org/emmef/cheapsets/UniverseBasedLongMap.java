@@ -0,0 +1,121 @@
+package org.emmef.cheapsets;
+
+import java.util.Arrays;
+import java.util.Set;
+
+import org.emmef.cheapsets.universes.IndexedUniverses;
+
+/**
+ * Maps keys inside an {@link IndexedUniverse} to {@code long} values, without 
+ * boxing them.
+ * <p>
+ * The value of an absent key is reported as {@code 0L}, unless a default is 
+ * provided with {@link #getOrDefault(Object, long)}. Use 
+ * {@link #containsKey(Object)} to distinguish an absent key from a key that 
+ * maps to {@code 0L}.
+ * 
+ * @param <K> type of keys
+ * @see UniverseBasedPrimitiveMap
+ */
+public class UniverseBasedLongMap<K> extends UniverseBasedPrimitiveMap<K> {
+	private long[] values;
+
+	/**
+	 * Creates a map that can only have keys from the provided {@link IndexedUniverse}.
+	 *  
+	 * @param universe indexed universe that contains all possible keys 
+	 */
+	public UniverseBasedLongMap(IndexedUniverse<K> universe) {
+		super(universe);
+		this.values = new long[universe.indexBoundary()];
+	}
+	
+	/**
+	 * Creates a map that can only have keys from the provided set.
+	 *  
+	 * @param universe set that contains all possible keys 
+	 */
+	public UniverseBasedLongMap(Set<K> universe) {
+		this(IndexedUniverses.create(universe));
+	}
+	
+	/**
+	 * Returns the value of {@code key}, or {@code 0L} if the key is not present.
+	 */
+	public long get(Object key) {
+		return getOrDefault(key, 0L);
+	}
+	
+	/**
+	 * Returns the value of {@code key}, or {@code defaultValue} if the key is not present.
+	 */
+	public long getOrDefault(Object key, long defaultValue) {
+		int indexOf = indexOf(key);
+		
+		return indexOf >= 0 && present().presentAt(indexOf) ? values[indexOf] : defaultValue;
+	}
+	
+	/**
+	 * Maps {@code key} to {@code value}.
+	 * 
+	 * @return the previous value of {@code key}, or {@code 0L} if the key was not present
+	 * @throws ElementNotInUniverseException if the key is not in the universe
+	 */
+	public long put(K key, long value) {
+		int indexOf = validIndexOf(key);
+		long previous = present().setAt(indexOf) ? 0L : values[indexOf];
+		values[indexOf] = value;
+		
+		return previous;
+	}
+	
+	/**
+	 * Adds {@code increment} to the value of {@code key}, where an absent key 
+	 * counts as {@code 0L}.
+	 * 
+	 * @return the previous value of {@code key}, or {@code 0L} if the key was not present
+	 * @throws ElementNotInUniverseException if the key is not in the universe
+	 */
+	public long addTo(K key, long increment) {
+		int indexOf = validIndexOf(key);
+		long previous = present().setAt(indexOf) ? 0L : values[indexOf];
+		values[indexOf] = previous + increment;
+		
+		return previous;
+	}
+	
+	/**
+	 * Removes the mapping of {@code key}, if present.
+	 * 
+	 * @return the previous value of {@code key}, or {@code 0L} if the key was not present
+	 */
+	public long remove(Object key) {
+		int indexOf = indexOf(key);
+		
+		return indexOf >= 0 && present().removeAt(indexOf) ? values[indexOf] : 0L;
+	}
+	
+	@Override
+	void ensureCapacity(int capacity) {
+		if (capacity > values.length) {
+			values = Arrays.copyOf(values, Math.max(capacity, values.length + (values.length >> 1)));
+		}
+	}
+	
+	@Override
+	int valueHashAt(int index) {
+		long value = values[index];
+		
+		return (int)(value ^ (value >>> 32));
+	}
+	
+	@Override
+	boolean sameValueAt(int index, UniverseBasedPrimitiveMap<?> other, int otherIndex) {
+		return values[index] == ((UniverseBasedLongMap<?>)other).values[otherIndex];
+	}
+	
+	@Override
+	void appendValueAt(StringBuilder text, int index) {
+		text.append(values[index]);
+	}
+}
@@ -2,18 +2,38 @@ package org.emmef.cheapsets;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
-import java.lang.instrument.UnmodifiableClassException;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
 
+import org.emmef.cheapsets.indexsets.IndexSetBuilder;
+import org.emmef.cheapsets.universes.AppendableIndexedUniverse;
+import org.emmef.cheapsets.universes.IndexTranslation;
 import org.emmef.cheapsets.universes.IndexedUniverses;
+import org.emmef.cheapsets.universes.UniverseHashes;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.Maps;
 
 /**
  * Maps keys inside an {@link IndexedUniverse} to values.
  * <p>
- * Only keys that are in the subset are allowed and for both 
- * keys and values cannot be {@code null}.
+ * Only keys that are in the subset are allowed and keys cannot be {@code null}. 
+ * Values cannot be {@code null} either, unless the map is created with 
+ * {@link #withNullValues(IndexedUniverse)}.
+ * <p>
+ * An {@link IndexSet} records which keys are present. Iteration and bulk 
+ * operations on keys scan that index set word by word and {@link #keySet()}
+ * is a {@link UniverseBasedSet} that shares it.
+ * <p>
+ * The map maintains its hash code while mappings change, using the key hash 
+ * codes that are cached per universe (see {@link UniverseHashes}), so that 
+ * {@link #hashCode()} takes constant time. The hash code of each entry is 
+ * taken and kept when its value is put, and subtracted again when the entry is
+ * removed or replaced: a value whose hash code changes while it is mapped 
+ * leaves the hash code of the map stale until that entry is removed or 
+ * replaced.
  *
  * @param <K> type of keys
  * @param <V> type of values
@@ -22,8 +42,14 @@ import org.emmef.cheapsets.universes.IndexedUniverses;
  */
 public class UniverseBasedMap<K, V> implements Map<K, V> {
 	private final IndexedUniverse<K> universe;
-	private final Object[] values;
-	private int size;
+	private Object[] values;
+	private int[] entryHashes;
+	private final IndexSet present;
+	private final boolean nullValues;
+	private final boolean epochClear;
+	private final UniverseBasedSet<K> keySet;
+	private UniverseHashes keyHashes;
+	private int hash;
 
 	/**
 	 * Creates a map that can only have key values from the provided {@link IndexedUniverse}.
@@ -31,9 +57,17 @@ public class UniverseBasedMap<K, V> implements Map<K, V> {
 	 * @param universe indexed universe that contains all possible key values 
 	 */
 	public UniverseBasedMap(IndexedUniverse<K> universe) {
+		this(universe, false, false);
+	}
+	
+	private UniverseBasedMap(IndexedUniverse<K> universe, boolean epochClear, boolean nullValues) {
 		this.universe = checkNotNull(universe, "subset");
 		this.values = new Object[universe.indexBoundary()];
-		this.size = 0;
+		this.entryHashes = new int[values.length];
+		this.present = epochClear ? IndexSetBuilder.epochFor(universe) : IndexSetBuilder.emptyFor(universe);
+		this.nullValues = nullValues;
+		this.epochClear = epochClear;
+		this.keySet = new UniverseBasedKeySet<K>(universe, present, this);
 	}
 	
 	/**
@@ -42,48 +76,102 @@ public class UniverseBasedMap<K, V> implements Map<K, V> {
 	 * @param universe indexed universe that contains all possible key values 
 	 */
 	public UniverseBasedMap(Set<K> universe) {
-		checkNotNull(universe, "subset");
-		this.universe = IndexedUniverses.create(universe);
-		this.values = new Object[this.universe.indexBoundary()];
-		this.size = 0;
+		this(IndexedUniverses.create(checkNotNull(universe, "subset")));
+	}
+	
+	/**
+	 * Creates a map that can only have key values from the provided {@link IndexedUniverse}
+	 * and that can be cleared in constant time.
+	 * <p>
+	 * The map records present keys in an index set that keeps a generation 
+	 * stamp per key, see {@link IndexSetBuilder#epochFor(IndexedUniverse)}. 
+	 * {@link #clear()} starts a new generation instead of removing every value. 
+	 * Values of cleared mappings stay referenced until their key is used again, 
+	 * so this suits reusable scratch maps.
+	 * 
+	 * @param universe indexed universe that contains all possible key values 
+	 * @return a new, empty {@link UniverseBasedMap}
+	 */
+	public static <K, V> UniverseBasedMap<K, V> withEpochClear(IndexedUniverse<K> universe) {
+		return new UniverseBasedMap<>(universe, true, false);
+	}
+	
+	/**
+	 * Creates a map that can only have key values from the provided {@link IndexedUniverse}
+	 * and that allows {@code null} values.
+	 * <p>
+	 * As with any map that allows {@code null} values, {@link #get(Object)} 
+	 * returning {@code null} does not mean that the key is absent: use 
+	 * {@link #containsKey(Object)} for that.
+	 * 
+	 * @param universe indexed universe that contains all possible key values 
+	 * @return a new, empty {@link UniverseBasedMap}
+	 */
+	public static <K, V> UniverseBasedMap<K, V> withNullValues(IndexedUniverse<K> universe) {
+		return new UniverseBasedMap<>(universe, false, true);
 	}
 	
 	@Override
 	public final int size() {
-		return size;
+		return present.count();
 	}
 
 	@Override
 	public final boolean isEmpty() {
-		return size == 0;
+		return present.isEmpty();
 	}
 
 	@Override
 	public boolean containsKey(Object key) {
 		int indexOf = universe.indexOf(key);
 		
-		return indexOf >= 0 && values[indexOf] != null;
+		return indexOf >= 0 && present.presentAt(indexOf);
 	}
 
+	/**
+	 * Returns whether the key with universe index {@code index} is present, 
+	 *     without looking up or creating the key.
+	 * 
+	 * @throws IndexOutOfBoundsException if {@code index} lies outside the index 
+	 *     boundary of the universe
+	 */
+	public boolean containsIndex(int index) {
+		checkIndex(index);
+		
+		return present.presentAt(index);
+	}
+	
+	/**
+	 * Returns the value of the key with universe index {@code index}, or 
+	 *     {@code null} if that key is not present.
+	 * 
+	 * @throws IndexOutOfBoundsException if {@code index} lies outside the index 
+	 *     boundary of the universe
+	 */
+	public V getByIndex(int index) {
+		checkIndex(index);
+		
+		return getAt(index);
+	}
+	
 	@Override
 	public boolean containsValue(Object value) {
-		if (value == null) {
+		if (value == null && !nullValues) {
 			return false;
 		}
-		for (int i = 0; i < values.length; i++) {
-			if (value.equals(values[i])) {
+		for (int i = present.nextPresent(0); i >= 0; i = present.nextPresent(i + 1)) {
+			if (Objects.equal(value, values[i])) {
 				return true;
 			}
 		}
 		return false;
 	}
 
-	@SuppressWarnings("unchecked")
 	@Override
 	public V get(Object key) {
 		int indexOf = universe.indexOf(key);
 		
-		return indexOf >= 0 ? (V)values[indexOf] : null;
+		return indexOf >= 0 ? getAt(indexOf) : null;
 	}
 
 	/**
@@ -97,14 +185,13 @@ public class UniverseBasedMap<K, V> implements Map<K, V> {
 		if (key == null) {
 			throw new NullPointerException(getClass().getSimpleName() + " cannot contain null keys");
 		}
-		if (value == null) {
+		if (value == null && !nullValues) {
 			throw new NullPointerException(getClass().getSimpleName() + " cannot contain null values");
 		}
 		int indexOf = universe.indexOf(key);
 		
 		if (indexOf >= 0) {
-			V existing = setAt(indexOf, value);
-			return existing;
+			return putAt(indexOf, value);
 		}
 		throw new ElementNotInUniverseException(getClass().getSimpleName() + ": key not backed by subset that this maps key values are limited to: " + key);
 	}
@@ -118,7 +205,7 @@ public class UniverseBasedMap<K, V> implements Map<K, V> {
 		int indexOf = universe.indexOf(key);
 		
 		if (indexOf >= 0) {
-			return setAt(indexOf, null);
+			return removeAt(indexOf);
 		}
 
 		return null;
@@ -132,13 +219,36 @@ public class UniverseBasedMap<K, V> implements Map<K, V> {
 	 */
 	@Override
 	public void putAll(Map<? extends K, ? extends V> m) {
-		if (m instanceof UniverseBasedMap && ((UniverseBasedMap<? extends K, ? extends V>)m).universe == universe) {
-			Object[] otherValues = ((UniverseBasedMap<? extends K, ? extends V>)m).values;
-			for (int i = 0; i < universe.indexBoundary(); i++) {
-				@SuppressWarnings("unchecked")
-				V otherValue = (V)otherValues[i];
-				if (otherValue != null) {
-					setAt(i, otherValue);
+		if (m instanceof UniverseBasedMap) {
+			UniverseBasedMap<? extends K, ? extends V> other = (UniverseBasedMap<? extends K, ? extends V>)m;
+			if (other.nullValues && !nullValues && other.containsValue(null)) {
+				throw new NullPointerException(getClass().getSimpleName() + " cannot contain null values");
+			}
+			ensureCapacity(universe.indexBoundary());
+			if (other.universe == universe) {
+				IndexCursor cursor = other.present.cursor();
+				for (int i = cursor.next(); i >= 0; i = cursor.next()) {
+					if (present.presentAt(i)) {
+						removeEntryHash(i);
+					}
+					values[i] = other.values[i];
+					addEntryHash(i, values[i]);
+				}
+				present.addAll(other.present);
+			}
+			else {
+				IndexTranslation translation = IndexTranslation.between(other.universe, universe);
+				IndexCursor cursor = other.present.cursor();
+				for (int i = cursor.next(); i >= 0; i = cursor.next()) {
+					int translated = translation.translate(i);
+					if (translated < 0) {
+						throw new ElementNotInUniverseException(getClass().getSimpleName() + ": key not backed by subset that this maps key values are limited to: " + other.universe.elementAt(i));
+					}
+					if (!present.setAt(translated)) {
+						removeEntryHash(translated);
+					}
+					values[translated] = other.values[i];
+					addEntryHash(translated, values[translated]);
 				}
 			}
 		}
@@ -149,26 +259,42 @@ public class UniverseBasedMap<K, V> implements Map<K, V> {
 		}
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * A map that was created with {@link #withEpochClear(IndexedUniverse)} 
+	 * clears in constant time and keeps the values referenced.
+	 */
 	@Override
 	public void clear() {
-		for (int i = 0; i < universe.indexBoundary(); i++) {
-			values[i] = null;
+		if (!epochClear) {
+			for (int i = present.nextPresent(0); i >= 0; i = present.nextPresent(i + 1)) {
+				values[i] = null;
+			}
 		}
-		size = 0;
+		present.clear();
+		hash = 0;
 	}
 
 	/**
-	 * Returns an unmodifiable set with all keys.
-	 * @return a {@code non-null} {@link Set}
+	 * Returns the keys of this map as a set that shares the index set of 
+	 * present keys with this map, so that set operations on keys work on whole 
+	 * words.
+	 * <p>
+	 * Removing keys from the set removes their mappings and releases their 
+	 * values, except that clearing the key set of a map that was created with
+	 * {@link #withEpochClear(IndexedUniverse)} keeps the values referenced, as 
+	 * {@link #clear()} does. Adding keys is not supported.
+	 * 
+	 * @return a {@code non-null} {@link UniverseBasedSet}
 	 */
 	@Override
-	public Set<K> keySet() {
-		return new UniverseBasedMapKeySet<K, V>(this);
+	public UniverseBasedSet<K> keySet() {
+		return keySet;
 	}
 
 	/**
-	 * Returns an {@link UnmodifiableClassException} collection with 
-	 * all the values.
+	 * Returns a collection with all the values, that supports removal.
 	 * @return a {@code non-null} {@link Collection}
 	 */
 	@Override
@@ -177,7 +303,7 @@ public class UniverseBasedMap<K, V> implements Map<K, V> {
 	}
 
 	/**
-	 * Returns an unmodifiable set with all key-value entries.
+	 * Returns a set with all key-value entries, that supports removal.
 	 * @return a {@code non-null} {@link Set} of {@link Map.Entry}
 	 */
 	@Override
@@ -185,6 +311,73 @@ public class UniverseBasedMap<K, V> implements Map<K, V> {
 		return new UniverseBasedMapEntrySet<K, V>(this);
 	}
 	
+	/**
+	 * Passes the key and value of each mapping to the provided consumer, in 
+	 * the order of the key indices.
+	 * <p>
+	 * This does not allocate.
+	 * 
+	 * @param consumer receives each key and value
+	 * @throws NullPointerException if {@code consumer} is {@code null}
+	 */
+	public void forEach(EntryConsumer<? super K, ? super V> consumer) {
+		checkNotNull(consumer, "consumer");
+		for (int i = present.nextPresent(0); i >= 0; i = present.nextPresent(i + 1)) {
+			consumer.accept(universe.elementAt(i), valueAt(i));
+		}
+	}
+	
+	/**
+	 * Passes the index, key and value of each mapping to the provided consumer, 
+	 * in the order of the key indices.
+	 * <p>
+	 * This does not allocate.
+	 * 
+	 * @param consumer receives each index, key and value
+	 * @throws NullPointerException if {@code consumer} is {@code null}
+	 */
+	public void forEachIndexed(IndexedEntryConsumer<? super K, ? super V> consumer) {
+		checkNotNull(consumer, "consumer");
+		for (int i = present.nextPresent(0); i >= 0; i = present.nextPresent(i + 1)) {
+			consumer.accept(i, universe.elementAt(i), valueAt(i));
+		}
+	}
+	
+	/**
+	 * Replaces the value of each mapping by the result of the provided transformer.
+	 * <p>
+	 * This does not allocate, apart from what the transformer allocates.
+	 * 
+	 * @param transformer returns the new value for each key and value
+	 * @throws NullPointerException if {@code transformer} is {@code null}, or if 
+	 *     it returns {@code null} and this map does not allow {@code null} values
+	 */
+	public void replaceAll(Maps.EntryTransformer<? super K, ? super V, ? extends V> transformer) {
+		checkNotNull(transformer, "transformer");
+		for (int i = present.nextPresent(0); i >= 0; i = present.nextPresent(i + 1)) {
+			V value = transformer.transformEntry(universe.elementAt(i), valueAt(i));
+			if (value == null && !nullValues) {
+				throw new NullPointerException(getClass().getSimpleName() + " cannot contain null values");
+			}
+			removeEntryHash(i);
+			values[i] = value;
+			addEntryHash(i, value);
+		}
+	}
+	
+	/**
+	 * Returns a cursor over the mappings of this map, in the order of the key 
+	 * indices.
+	 * <p>
+	 * The cursor reflects this map directly and can be reused by calling 
+	 * {@link MapCursor#reset()}.
+	 * 
+	 * @return a {@code non-null} {@link MapCursor}
+	 */
+	public MapCursor<K, V> cursor() {
+		return new UniverseBasedMapCursor<>(this);
+	}
+	
 	/**
 	 * @see Map#equals(Object)
 	 */
@@ -196,8 +389,23 @@ public class UniverseBasedMap<K, V> implements Map<K, V> {
 		if (!(obj instanceof Map)) {
 			return false;
 		}
+		Map<?, ?> other = (Map<?, ?>)obj;
+		if (other.size() != size()) {
+			return false;
+		}
+		if (other instanceof UniverseBasedMap) {
+			return equalsMap((UniverseBasedMap<?, ?>)other);
+		}
+		for (int i = present.nextPresent(0); i >= 0; i = present.nextPresent(i + 1)) {
+			K key = universe.elementAt(i);
+			Object value = values[i];
+			Object otherValue = other.get(key);
+			if (value == null ? otherValue != null || !other.containsKey(key) : !value.equals(otherValue)) {
+				return false;
+			}
+		}
 		
-		return entrySet().equals(((Map<?,?>)obj).entrySet()); 
+		return true;
 	}
 	
 	@Override
@@ -207,62 +415,150 @@ public class UniverseBasedMap<K, V> implements Map<K, V> {
 		}
 		StringBuilder text = new StringBuilder();
 		text.append('[');
-		int indexSize = universe.indexBoundary();
 		boolean first = true;
-		for (int i = 0; i < indexSize; i++) {
-			Object value = values[i];
-			if (value != null) {
-				if (first) {
-					first = false;
-				}
-				else {
-					text.append(',');
-				}
-				text.append(universe.elementAt(i));
-				text.append('=');
-				text.append(value);
+		for (int i = present.nextPresent(0); i >= 0; i = present.nextPresent(i + 1)) {
+			if (first) {
+				first = false;
+			}
+			else {
+				text.append(',');
 			}
+			text.append(universe.elementAt(i));
+			text.append('=');
+			text.append(values[i]);
 		}
 		text.append(']');
 		return text.toString();
 	}
 	
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The hash code is maintained while mappings change, so this takes 
+	 * constant time.
+	 */
 	@Override
 	public int hashCode() {
-		return entrySet().hashCode();
+		return hash;
 	}
 
-	final V setAt(int indexOf, V value) {
-		@SuppressWarnings("unchecked")
-		V existing = (V)values[indexOf];
-		
-		if (value == null) {
-			values[indexOf] = null;
-			if (existing != null) {
-				size--;
-			}
-			return existing;
+	final V putAt(int indexOf, V value) {
+		ensureCapacity(indexOf + 1);
+		V existing = null;
+		if (!present.setAt(indexOf)) {
+			existing = valueAt(indexOf);
+			removeEntryHash(indexOf);
 		}
-		
 		values[indexOf] = value;
-		if (existing == null) {
-			size++;
+		addEntryHash(indexOf, value);
+		
+		return existing;
+	}
+	
+	final V removeAt(int indexOf) {
+		if (!present.removeAt(indexOf)) {
+			return null;
 		}
+		@SuppressWarnings("unchecked")
+		V existing = (V)values[indexOf];
+		values[indexOf] = null;
+		removeEntryHash(indexOf);
+		
 		return existing;
 	}
 	
+	/**
+	 * Called by the key set when it removes the key at {@code indexOf}.
+	 */
+	final void keyRemoved(int indexOf) {
+		values[indexOf] = null;
+		removeEntryHash(indexOf);
+	}
+	
+	/**
+	 * Called by the key set after it removed all keys. Like {@link #clear()},
+	 * this keeps the values referenced for a map with epoch clear.
+	 */
+	final void keysCleared() {
+		if (!epochClear) {
+			Arrays.fill(values, null);
+		}
+		hash = 0;
+	}
+	
 	@SuppressWarnings("unchecked")
 	final V getAt(int indexOf) {
-		try {
-			return (V) values[indexOf];
-		}
-		catch (ArrayIndexOutOfBoundsException e) {
-			System.err.println();
-			throw e;
-		}
+		return present.presentAt(indexOf) ? (V) values[indexOf] : null;
+	}
+	
+	/**
+	 * Returns the value at {@code indexOf}, that must be present.
+	 */
+	@SuppressWarnings("unchecked")
+	final V valueAt(int indexOf) {
+		return (V) values[indexOf];
+	}
+	
+	final boolean presentAt(int indexOf) {
+		return present.presentAt(indexOf);
+	}
+	
+	final int nextPresent(int fromIndex) {
+		return present.nextPresent(fromIndex);
+	}
+	
+	final boolean allowsNullValues() {
+		return nullValues;
 	}
 	
 	IndexedUniverse<K> getSubset() {
 		return universe;
 	}
+	
+	private boolean equalsMap(UniverseBasedMap<?, ?> other) {
+		IndexTranslation translation = other.universe != universe ? IndexTranslation.between(universe, other.universe) : null;
+		for (int i = present.nextPresent(0); i >= 0; i = present.nextPresent(i + 1)) {
+			int otherIndex = translation != null ? translation.translate(i) : i;
+			if (otherIndex < 0 || !other.present.presentAt(otherIndex) || !Objects.equal(values[i], other.values[otherIndex])) {
+				return false;
+			}
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Adds the hash code of the entry at {@code indexOf} to the hash code of 
+	 * this map and keeps it, so that it can be subtracted even if the hash code
+	 * of the value changed in the mean time.
+	 */
+	private void addEntryHash(int indexOf, Object value) {
+		if (keyHashes == null) {
+			keyHashes = UniverseHashes.of(universe);
+		}
+		int entryHash = keyHashes.hashAt(indexOf) ^ (value != null ? value.hashCode() : 0);
+		entryHashes[indexOf] = entryHash;
+		hash += entryHash;
+	}
+	
+	private void removeEntryHash(int indexOf) {
+		hash -= entryHashes[indexOf];
+	}
+	
+	private void checkIndex(int index) {
+		if (index < 0 || index >= universe.indexBoundary()) {
+			throw new IndexOutOfBoundsException("Index " + index + " must lie within [0, " + universe.indexBoundary() + ")");
+		}
+	}
+	
+	/**
+	 * Grows the values for a universe that grew since this map was created, 
+	 * see {@link AppendableIndexedUniverse}.
+	 */
+	private void ensureCapacity(int capacity) {
+		if (capacity > values.length) {
+			values = Arrays.copyOf(values, Math.max(capacity, values.length + (values.length >> 1)));
+			entryHashes = Arrays.copyOf(entryHashes, values.length);
+		}
+	}
 }
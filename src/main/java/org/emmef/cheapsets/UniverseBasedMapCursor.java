@@ -0,0 +1,74 @@
+package org.emmef.cheapsets;
+
+/**
+ * {@link MapCursor} over the present keys of a {@link UniverseBasedMap}.
+ * 
+ * @param <K> type of keys
+ * @param <V> type of values
+ */
+final class UniverseBasedMapCursor<K, V> implements MapCursor<K, V> {
+	private final UniverseBasedMap<K, V> map;
+	private int position = -1;
+	private boolean onMapping = false;
+	
+	UniverseBasedMapCursor(UniverseBasedMap<K, V> map) {
+		this.map = map;
+	}
+
+	@Override
+	public boolean next() {
+		int next = map.nextPresent(position + 1);
+		if (next < 0) {
+			onMapping = false;
+			return false;
+		}
+		position = next;
+		onMapping = true;
+		
+		return true;
+	}
+
+	@Override
+	public int index() {
+		return validPosition();
+	}
+
+	@Override
+	public K key() {
+		return map.getSubset().elementAt(validPosition());
+	}
+
+	@Override
+	public V value() {
+		return map.valueAt(validPosition());
+	}
+
+	@Override
+	public V setValue(V value) {
+		int index = validPosition();
+		if (value == null && !map.allowsNullValues()) {
+			throw new NullPointerException(map.getClass().getSimpleName() + " cannot contain null values");
+		}
+		
+		return map.putAt(index, value);
+	}
+
+	@Override
+	public void remove() {
+		map.removeAt(validPosition());
+		onMapping = false;
+	}
+
+	@Override
+	public void reset() {
+		position = -1;
+		onMapping = false;
+	}
+	
+	private int validPosition() {
+		if (onMapping) {
+			return position;
+		}
+		throw new IllegalStateException("Cursor is not on a mapping");
+	}
+}
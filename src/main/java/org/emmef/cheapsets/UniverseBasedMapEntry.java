@@ -21,7 +21,7 @@ final class UniverseBasedMapEntry<K, V> implements Entry<K, V> {
 		this.map = map;
 		this.index = index;
 		
-		this.value = (V) map.getAt(index);
+		this.value = map.valueAt(index);
 	}
 
 	@Override
@@ -36,7 +36,10 @@ final class UniverseBasedMapEntry<K, V> implements Entry<K, V> {
 
 	@Override
 	public V setValue(V value) {
-		V previousValue = map.setAt(index, value);
+		if (value == null && !map.allowsNullValues()) {
+			throw new NullPointerException(map.getClass().getSimpleName() + " cannot contain null values");
+		}
+		V previousValue = map.putAt(index, value);
 		this.value = value;
 		return previousValue;
 	}
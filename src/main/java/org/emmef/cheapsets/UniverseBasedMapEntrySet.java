@@ -17,20 +17,20 @@ class UniverseBasedMapEntrySet<K, V> extends UniverseBasedMapSetView<K, V, Map.E
 		Map.Entry<?, ?> entry = (Map.Entry<?, ?>)o;
 		int indexOf = getSubSet().indexOf(entry.getKey());
 		
-		return indexOf >= 0 && Objects.equal(getMap().getAt(indexOf),entry.getValue());
+		return indexOf >= 0 && getMap().presentAt(indexOf) && Objects.equal(getMap().valueAt(indexOf), entry.getValue());
 	}
 
 	@Override
 	protected java.util.Map.Entry<K, V> elementAt(final int index) {
-		return getMap().getAt(index) != null ? new UniverseBasedMapEntry<K, V>(getMap(), index) : null;
+		return new UniverseBasedMapEntry<K, V>(getMap(), index);
 	}
 	
 	@Override
 	public boolean remove(Object object) {
-		if (object instanceof Map.Entry) {
-			Map.Entry<?, ?> entry = (Map.Entry<?, ?>)object;
+		if (contains(object)) {
+			getMap().removeAt(getSubSet().indexOf(((Map.Entry<?, ?>)object).getKey()));
 			
-			return getMap().remove(entry.getKey()) != null;
+			return true;
 		}
 		
 		return false;
@@ -39,30 +39,23 @@ class UniverseBasedMapEntrySet<K, V> extends UniverseBasedMapSetView<K, V, Map.E
 	@Override
 	boolean modifyAllFromEquivalent(UniverseBasedMapEntrySet<K, V> equivalent, Modification modification) {
 		boolean modified = false;
-		int indexSize = getSubSet().indexBoundary();
+		UniverseBasedMap<K, V> map = getMap();
+		UniverseBasedMap<K, V> other = equivalent.getMap();
 		
 		switch (modification) {
 		case REMOVE:
-			for (int i = 0; i < indexSize; i++) {
-				V value = equivalent.getMap().getAt(i);
-				if (value != null && value.equals(getMap().getAt(i))) {
+			for (int i = map.nextPresent(0); i >= 0; i = map.nextPresent(i + 1)) {
+				if (other.presentAt(i) && Objects.equal(other.valueAt(i), map.valueAt(i))) {
 					modified = true;
-					getMap().setAt(i, null);
+					map.removeAt(i);
 				}
 			}
 			break;
 		case RETAIN:
-			for (int i = 0; i < indexSize; i++) {
-				V value = equivalent.getMap().getAt(i);
-				if (value == null) {
-					modified |= getMap().setAt(i, null) != null;
-				}
-				else {
-					Object myValue = getMap().getAt(i);
-					if (!value.equals(myValue)) {
-						modified = true;
-						getMap().setAt(i, null);
-					}
+			for (int i = map.nextPresent(0); i >= 0; i = map.nextPresent(i + 1)) {
+				if (!other.presentAt(i) || !Objects.equal(other.valueAt(i), map.valueAt(i))) {
+					modified = true;
+					map.removeAt(i);
 				}
 			}
 			break;
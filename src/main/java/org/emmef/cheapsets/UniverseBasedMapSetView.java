@@ -32,8 +32,8 @@ abstract class UniverseBasedMapSetView<K, V, T, U extends UniverseBasedMapSetVie
 	@Override
 	public final int hashCode() {
 		int hash = 0;
-		int indexSize = getSubSet().indexBoundary();
-		for (int i = 0; i < indexSize; i++) {
+		UniverseBasedMap<K, V> map = getMap();
+		for (int i = map.nextPresent(0); i >= 0; i = map.nextPresent(i + 1)) {
 			Object o = elementAt(i);
 			hash += o != null ? o.hashCode() : 0;
 		}
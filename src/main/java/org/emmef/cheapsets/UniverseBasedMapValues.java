@@ -15,23 +15,22 @@ class UniverseBasedMapValues<K, V> extends UniverseBasedMapView<K, V, V, Univers
 
 	@Override
 	protected V elementAt(int index) {
-		return getMap().getAt(index);
+		return getMap().valueAt(index);
 	}
 	
 	@Override
 	public boolean remove(Object o) {
-		if (o == null) {
+		UniverseBasedMap<K, V> map = getMap();
+		if (o == null && !map.allowsNullValues()) {
 			return false;
 		}
-		boolean modified = false;
-		int indexSize = getSubSet().indexBoundary();
-		for (int i = 0; i < indexSize; i++) {
-			Object value = getMap().getAt(i);
-			if (value != null && o.equals(value)) {
-				modified = getMap().setAt(i, null) != null;
+		for (int i = map.nextPresent(0); i >= 0; i = map.nextPresent(i + 1)) {
+			if (Objects.equal(o, map.valueAt(i))) {
+				map.removeAt(i);
+				return true;
 			}
 		}
-		return modified;
+		return false;
 	}
 
 	@Override
@@ -52,7 +51,7 @@ class UniverseBasedMapValues<K, V> extends UniverseBasedMapView<K, V, V, Univers
 		UniverseBasedMap<K, V> myMap = getMap();
 		UniverseBasedMap<?,?> otherMap = set.getMap();
 		for (int i = 0; i < indexSize; i++) {
-			if (!Objects.equal(myMap.getAt(i), otherMap.getAt(i))) {
+			if (myMap.presentAt(i) != otherMap.presentAt(i) || !Objects.equal(myMap.getAt(i), otherMap.getAt(i))) {
 				return false;
 			}
 		}
@@ -62,9 +61,9 @@ class UniverseBasedMapValues<K, V> extends UniverseBasedMapView<K, V, V, Univers
 	@Override
 	public int hashCode() {
 		int hash = 17;
-		int indexSize = getSubSet().indexBoundary();
-		for (int i = 0; i < indexSize; i++) {
-			Object o = elementAt(i);
+		UniverseBasedMap<K, V> map = getMap();
+		for (int i = map.nextPresent(0); i >= 0; i = map.nextPresent(i + 1)) {
+			Object o = map.valueAt(i);
 			hash += o != null ? o.hashCode() : 0;
 			hash *= 31;
 		}
@@ -35,43 +35,29 @@ abstract class UniverseBasedMapView<K, V, T, U extends UniverseBasedMapView<K, V
 	@Override
 	public Iterator<T> iterator() {
 		return new Iterator<T>() {
-			final int maxPosition = map.getSubset().indexBoundary() - 1;
-			int position = 0;
+			int next = map.nextPresent(0);
 			int removeAt = -1;
-			T next;
 
 			@Override
 			public boolean hasNext() {
-				if (next != null) {
-					return true;
-				}
-				if (position >= maxPosition) {
-					return false;
-				}
-				next = elementAt(position);
-				while (next == null && position < maxPosition) {
-					position++;
-					next = elementAt(position);
-				}
-				
-				return next != null;
+				return next >= 0;
 			}
 
 			@Override
 			public T next() {
-				if (hasNext()) {
-					T result = next;
-					next = null;
-					removeAt = position++;
-					return result;
+				if (next < 0) {
+					throw new NoSuchElementException();
 				}
-				throw new NoSuchElementException();
+				removeAt = next;
+				next = map.nextPresent(next + 1);
+				
+				return elementAt(removeAt);
 			}
 
 			@Override
 			public void remove() {
 				if (removeAt >= 0) {
-					map.setAt(removeAt, null);
+					map.removeAt(removeAt);
 					removeAt = -1;
 					return;
 				}
@@ -84,13 +70,9 @@ abstract class UniverseBasedMapView<K, V, T, U extends UniverseBasedMapView<K, V
 	public Object[] toArray() {
 		int size = map.size();
 		Object[] result = new Object[size];
-		int indexSize = map.getSubset().indexBoundary();
 		int idx = 0;
-		for (int i = 0; i < indexSize; i++) {
-			Object element = elementAt(i);
-			if (element != null) {
-				result[idx++] = element;
-			}
+		for (int i = map.nextPresent(0); i >= 0 && idx < size; i = map.nextPresent(i + 1)) {
+			result[idx++] = elementAt(i);
 		}
 		if (idx == size) {
 			return result;
@@ -114,13 +96,8 @@ abstract class UniverseBasedMapView<K, V, T, U extends UniverseBasedMapView<K, V
 		}
 		
 		int idx = 0;
-		int indexSize = map.getSubset().indexBoundary();
-		
-		for (int i = 0; i < indexSize; i++) {
-			W element = (W)elementAt(i);
-			if (element != null) {
-				result[idx++] = element;
-			}
+		for (int i = map.nextPresent(0); i >= 0 && idx < size; i = map.nextPresent(i + 1)) {
+			result[idx++] = (W)elementAt(i);
 		}
 		
 		if (idx == size) {
@@ -182,6 +159,9 @@ abstract class UniverseBasedMapView<K, V, T, U extends UniverseBasedMapView<K, V
 		return map;
 	}
 	
+	/**
+	 * Returns the element of this view for the present key at {@code index}.
+	 */
 	protected abstract T elementAt(int index);
 	abstract boolean modifyAllFromEquivalent(U equivalent, Modification modification);
 	
@@ -195,18 +175,14 @@ abstract class UniverseBasedMapView<K, V, T, U extends UniverseBasedMapView<K, V
 		
 		text.append('[');
 		boolean first = true;
-		int indexSize = map.getSubset().indexBoundary();
-		for (int i = 0; i < indexSize; i++) {
-			T elementAt = elementAt(i);
-			if (elementAt != null) {
-				if (first) {
-					first = false;
-				}
-				else {
-					text.append(',');
-				}
-				text.append(elementAt);
+		for (int i = map.nextPresent(0); i >= 0; i = map.nextPresent(i + 1)) {
+			if (first) {
+				first = false;
+			}
+			else {
+				text.append(',');
 			}
+			text.append(elementAt(i));
 		}
 		text.append(']');
 		return text.toString();
@@ -231,13 +207,11 @@ abstract class UniverseBasedMapView<K, V, T, U extends UniverseBasedMapView<K, V
 	}
 	
 	protected boolean retainFromCollection(Collection<?> c) {
-		int indexSize = map.getSubset().indexBoundary();
 		boolean modified = false;
-		for (int i = 0; i < indexSize; i++) {
-			T elementAt = elementAt(i);
-			if (elementAt != null && !c.contains(elementAt)) {
+		for (int i = map.nextPresent(0); i >= 0; i = map.nextPresent(i + 1)) {
+			if (!c.contains(elementAt(i))) {
 				modified = true;
-				map.setAt(i, null);
+				map.removeAt(i);
 			}
 		}
 		return modified;
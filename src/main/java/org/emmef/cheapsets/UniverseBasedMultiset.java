@@ -0,0 +1,580 @@
+package org.emmef.cheapsets;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.emmef.cheapsets.universes.IndexedUniverses;
+
+import com.google.common.collect.Multiset;
+import com.google.common.collect.Multisets;
+
+/**
+ * Counts occurrences of elements inside an {@link IndexedUniverse}.
+ * <p>
+ * The counts are kept in a primitive array that is indexed by the universe
+ * index of each element, so that {@link #add(Object, int)} and
+ * {@link #count(Object)} do not allocate. Elements are iterated in the order
+ * of their index.
+ * <p>
+ * A multiset that is created with {@link #packed(IndexedUniverse, int, Overflow)}
+ * packs 4, 8 or 16 bit counters into words. What happens if a count does not
+ * fit in a counter, is determined by its {@link Overflow} policy.
+ * <p>
+ * The multiset does not allow {@code null} elements, nor elements that are
+ * not in the universe.
+ *
+ * @param <E> type of elements
+ * @see IndexedUniverse
+ * @see UniverseBasedSet
+ */
+public class UniverseBasedMultiset<E> extends AbstractCollection<E> implements Multiset<E> {
+	/**
+	 * Determines what a packed multiset does with a count that does not fit
+	 * in its counters.
+	 */
+	public enum Overflow {
+		/**
+		 * The count is stored as the largest value that fits in the counter.
+		 * Counts are no longer exact once they saturate, but the memory use
+		 * does not change.
+		 */
+		SATURATE,
+		/**
+		 * All counters are widened, until the count fits. After 16 bits,
+		 * the multiset uses a 32-bit counter per index.
+		 */
+		PROMOTE
+	}
+	
+	private final IndexedUniverse<E> universe;
+	private final Overflow overflow;
+	private int[] counts;
+	private long[] packed;
+	private int bits;
+	private int distinct;
+	private long total;
+	
+	/**
+	 * Creates a multiset that can only contain elements from the provided
+	 * {@link IndexedUniverse} and that keeps an {@code int} count per index.
+	 *
+	 * @param universe indexed universe that contains all possible elements
+	 * @throws IllegalArgumentException if {@code universe} can grow
+	 */
+	public UniverseBasedMultiset(IndexedUniverse<E> universe) {
+		this(universe, 32, Overflow.PROMOTE);
+	}
+	
+	private UniverseBasedMultiset(IndexedUniverse<E> universe, int bits, Overflow overflow) {
+		this.universe = IndexedUniverses.checkNotGrowing(checkNotNull(universe, "universe"));
+		this.overflow = overflow;
+		this.bits = bits;
+		if (bits == 32) {
+			this.counts = new int[universe.indexBoundary()];
+		}
+		else {
+			this.packed = new long[(universe.indexBoundary() * bits + 63) >> 6];
+		}
+	}
+	
+	/**
+	 * Creates a multiset that can only contain elements from the provided
+	 * {@link IndexedUniverse} and that packs counters of {@code bitsPerCounter}
+	 * bits into words.
+	 *
+	 * @param universe indexed universe that contains all possible elements
+	 * @param bitsPerCounter the number of bits per counter: 4, 8 or 16
+	 * @param overflow what to do with counts that do not fit in a counter
+	 * @return a new, empty {@link UniverseBasedMultiset}
+	 * @throws IllegalArgumentException if {@code bitsPerCounter} is not 4, 8 or 16,
+	 *     or if {@code universe} can grow
+	 */
+	public static <E> UniverseBasedMultiset<E> packed(IndexedUniverse<E> universe, int bitsPerCounter, Overflow overflow) {
+		checkArgument(bitsPerCounter == 4 || bitsPerCounter == 8 || bitsPerCounter == 16, "Bits per counter (%s) must be 4, 8 or 16", bitsPerCounter);
+		
+		return new UniverseBasedMultiset<>(universe, bitsPerCounter, checkNotNull(overflow, "overflow"));
+	}
+	
+	/**
+	 * Returns the number of bits per counter, which can change for a packed
+	 * multiset that promotes on overflow.
+	 *
+	 * @return 4, 8, 16 or 32
+	 */
+	public final int bitsPerCounter() {
+		return bits;
+	}
+	
+	@Override
+	public int count(Object element) {
+		int indexOf = universe.indexOf(element);
+		
+		return indexOf >= 0 ? countAt(indexOf) : 0;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * A packed multiset that saturates does not throw if the count becomes too
+	 * large, but keeps the largest count that fits in its counters.
+	 *
+	 * @throws ElementNotInUniverseException if the element is not in the universe
+	 */
+	@Override
+	public int add(E element, int occurrences) {
+		if (occurrences < 0) {
+			throw new IllegalArgumentException("Occurrences (" + occurrences + ") cannot be negative");
+		}
+		int indexOf = validIndexOf(element);
+		int count = countAt(indexOf);
+		if (occurrences != 0) {
+			long newCount = (long)count + occurrences;
+			if (newCount > Integer.MAX_VALUE) {
+				throw new IllegalArgumentException("Too many occurrences: " + newCount);
+			}
+			setCountAt(indexOf, count, (int)newCount);
+		}
+		
+		return count;
+	}
+	
+	@Override
+	public int remove(Object element, int occurrences) {
+		if (occurrences < 0) {
+			throw new IllegalArgumentException("Occurrences (" + occurrences + ") cannot be negative");
+		}
+		int indexOf = universe.indexOf(element);
+		if (indexOf < 0) {
+			return 0;
+		}
+		int count = countAt(indexOf);
+		if (occurrences != 0 && count != 0) {
+			setCountAt(indexOf, count, Math.max(0, count - occurrences));
+		}
+		
+		return count;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 *
+	 * @throws ElementNotInUniverseException if the element is not in the universe
+	 */
+	@Override
+	public int setCount(E element, int count) {
+		if (count < 0) {
+			throw new IllegalArgumentException("Count (" + count + ") cannot be negative");
+		}
+		int indexOf = validIndexOf(element);
+		int oldCount = countAt(indexOf);
+		setCountAt(indexOf, oldCount, count);
+		
+		return oldCount;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 *
+	 * @throws ElementNotInUniverseException if the element is not in the universe
+	 */
+	@Override
+	public boolean setCount(E element, int oldCount, int newCount) {
+		if (oldCount < 0) {
+			throw new IllegalArgumentException("Old count (" + oldCount + ") cannot be negative");
+		}
+		if (newCount < 0) {
+			throw new IllegalArgumentException("New count (" + newCount + ") cannot be negative");
+		}
+		int indexOf = validIndexOf(element);
+		int count = countAt(indexOf);
+		if (count != oldCount) {
+			return false;
+		}
+		setCountAt(indexOf, count, newCount);
+		
+		return true;
+	}
+	
+	@Override
+	public int size() {
+		return (int)Math.min(total, Integer.MAX_VALUE);
+	}
+	
+	@Override
+	public boolean isEmpty() {
+		return total == 0;
+	}
+	
+	@Override
+	public boolean contains(Object element) {
+		return count(element) > 0;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 *
+	 * @throws ElementNotInUniverseException if the element is not in the universe
+	 */
+	@Override
+	public boolean add(E element) {
+		add(element, 1);
+		
+		return true;
+	}
+	
+	@Override
+	public boolean remove(Object element) {
+		return remove(element, 1) > 0;
+	}
+	
+	@Override
+	public boolean removeAll(Collection<?> c) {
+		checkNotNull(c, "collection");
+		boolean changed = false;
+		for (Object element : c) {
+			int indexOf = universe.indexOf(element);
+			if (indexOf >= 0) {
+				int count = countAt(indexOf);
+				if (count != 0) {
+					setCountAt(indexOf, count, 0);
+					changed = true;
+				}
+			}
+		}
+		
+		return changed;
+	}
+	
+	@Override
+	public boolean retainAll(Collection<?> c) {
+		checkNotNull(c, "collection");
+		boolean changed = false;
+		for (int i = nextCounted(0); i >= 0; i = nextCounted(i + 1)) {
+			if (!c.contains(universe.elementAt(i))) {
+				setCountAt(i, countAt(i), 0);
+				changed = true;
+			}
+		}
+		
+		return changed;
+	}
+	
+	@Override
+	public void clear() {
+		if (counts != null) {
+			Arrays.fill(counts, 0);
+		}
+		else {
+			Arrays.fill(packed, 0);
+		}
+		distinct = 0;
+		total = 0;
+	}
+	
+	@Override
+	public Iterator<E> iterator() {
+		return new Iterator<E>() {
+			private int index = -1;
+			private int remaining = 0;
+			private boolean removable = false;
+			
+			@Override
+			public boolean hasNext() {
+				return remaining > 0 || nextCounted(index + 1) >= 0;
+			}
+			
+			@Override
+			public E next() {
+				if (remaining == 0) {
+					int next = nextCounted(index + 1);
+					if (next < 0) {
+						throw new NoSuchElementException();
+					}
+					index = next;
+					remaining = countAt(index);
+				}
+				remaining--;
+				removable = true;
+				
+				return universe.elementAt(index);
+			}
+			
+			@Override
+			public void remove() {
+				checkState(removable, "Can only call remove() ONCE, directly after a call to next()");
+				int count = countAt(index);
+				setCountAt(index, count, count - 1);
+				removable = false;
+			}
+		};
+	}
+	
+	@Override
+	public Set<E> elementSet() {
+		return new AbstractSet<E>() {
+			@Override
+			public boolean contains(Object o) {
+				return count(o) > 0;
+			}
+			
+			@Override
+			public boolean remove(Object o) {
+				int indexOf = universe.indexOf(o);
+				if (indexOf < 0) {
+					return false;
+				}
+				int count = countAt(indexOf);
+				if (count == 0) {
+					return false;
+				}
+				setCountAt(indexOf, count, 0);
+				
+				return true;
+			}
+			
+			@Override
+			public void clear() {
+				UniverseBasedMultiset.this.clear();
+			}
+			
+			@Override
+			public int size() {
+				return distinct;
+			}
+			
+			@Override
+			public Iterator<E> iterator() {
+				return new CountedIndexIterator<E>() {
+					@Override
+					E valueAt(int index) {
+						return universe.elementAt(index);
+					}
+				};
+			}
+		};
+	}
+	
+	@Override
+	public Set<Entry<E>> entrySet() {
+		return new AbstractSet<Entry<E>>() {
+			@Override
+			public boolean contains(Object o) {
+				if (!(o instanceof Entry)) {
+					return false;
+				}
+				Entry<?> entry = (Entry<?>)o;
+				
+				return entry.getCount() > 0 && count(entry.getElement()) == entry.getCount();
+			}
+			
+			@Override
+			public boolean remove(Object o) {
+				if (!contains(o)) {
+					return false;
+				}
+				int indexOf = universe.indexOf(((Entry<?>)o).getElement());
+				setCountAt(indexOf, countAt(indexOf), 0);
+				
+				return true;
+			}
+			
+			@Override
+			public void clear() {
+				UniverseBasedMultiset.this.clear();
+			}
+			
+			@Override
+			public int size() {
+				return distinct;
+			}
+			
+			@Override
+			public Iterator<Entry<E>> iterator() {
+				return new CountedIndexIterator<Entry<E>>() {
+					@Override
+					Entry<E> valueAt(int index) {
+						return Multisets.immutableEntry(universe.elementAt(index), countAt(index));
+					}
+				};
+			}
+		};
+	}
+	
+	@Override
+	public int hashCode() {
+		return entrySet().hashCode();
+	}
+	
+	@Override
+	public boolean equals(Object o) {
+		if (o == this) {
+			return true;
+		}
+		if (!(o instanceof Multiset)) {
+			return false;
+		}
+		Multiset<?> other = (Multiset<?>)o;
+		if (size() != other.size() || distinct != other.entrySet().size()) {
+			return false;
+		}
+		for (Entry<?> entry : other.entrySet()) {
+			if (count(entry.getElement()) != entry.getCount()) {
+				return false;
+			}
+		}
+		
+		return true;
+	}
+	
+	@Override
+	public String toString() {
+		return entrySet().toString();
+	}
+	
+	private int countAt(int index) {
+		if (counts != null) {
+			return counts[index];
+		}
+		int perWordShift = 6 - Integer.numberOfTrailingZeros(bits);
+		int shift = (index & ((1 << perWordShift) - 1)) * bits;
+		
+		return (int)((packed[index >> perWordShift] >>> shift) & ((1L << bits) - 1));
+	}
+	
+	private void setCountAt(int index, int oldCount, int newCount) {
+		if (counts != null) {
+			counts[index] = newCount;
+		}
+		else {
+			int max = (1 << bits) - 1;
+			while (newCount > max && overflow == Overflow.PROMOTE) {
+				promote();
+				if (counts != null) {
+					counts[index] = newCount;
+					updateTotals(oldCount, newCount);
+					return;
+				}
+				max = (1 << bits) - 1;
+			}
+			int stored = Math.min(newCount, max);
+			int perWordShift = 6 - Integer.numberOfTrailingZeros(bits);
+			int shift = (index & ((1 << perWordShift) - 1)) * bits;
+			int word = index >> perWordShift;
+			packed[word] = (packed[word] & ~((long)max << shift)) | ((long)stored << shift);
+			newCount = stored;
+		}
+		updateTotals(oldCount, newCount);
+	}
+	
+	private void updateTotals(int oldCount, int newCount) {
+		total += newCount - oldCount;
+		if (oldCount == 0) {
+			if (newCount != 0) {
+				distinct++;
+			}
+		}
+		else if (newCount == 0) {
+			distinct--;
+		}
+	}
+	
+	private void promote() {
+		int boundary = universe.indexBoundary();
+		int[] oldCounts = new int[boundary];
+		for (int i = 0; i < boundary; i++) {
+			oldCounts[i] = countAt(i);
+		}
+		bits <<= 1;
+		if (bits == 32) {
+			counts = oldCounts;
+			packed = null;
+			return;
+		}
+		long[] newPacked = new long[(boundary * bits + 63) >> 6];
+		int perWordShift = 6 - Integer.numberOfTrailingZeros(bits);
+		for (int i = 0; i < boundary; i++) {
+			newPacked[i >> perWordShift] |= (long)oldCounts[i] << ((i & ((1 << perWordShift) - 1)) * bits);
+		}
+		packed = newPacked;
+	}
+	
+	/**
+	 * Returns the first index at or after {@code fromIndex} with a non-zero
+	 * count, or -1 if there is none. Packed counters skip empty words at once.
+	 */
+	private int nextCounted(int fromIndex) {
+		int boundary = universe.indexBoundary();
+		if (counts != null) {
+			for (int i = fromIndex; i < boundary; i++) {
+				if (counts[i] != 0) {
+					return i;
+				}
+			}
+			return -1;
+		}
+		int perWordShift = 6 - Integer.numberOfTrailingZeros(bits);
+		int index = fromIndex;
+		while (index < boundary) {
+			if (packed[index >> perWordShift] == 0) {
+				index = ((index >> perWordShift) + 1) << perWordShift;
+			}
+			else if (countAt(index) != 0) {
+				return index;
+			}
+			else {
+				index++;
+			}
+		}
+		return -1;
+	}
+	
+	private int validIndexOf(E element) {
+		if (element == null) {
+			throw new NullPointerException(getClass().getSimpleName() + " cannot contain null elements");
+		}
+		int indexOf = universe.indexOf(element);
+		if (indexOf >= 0) {
+			return indexOf;
+		}
+		throw new ElementNotInUniverseException(getClass().getSimpleName() + ": element not in universe: " + element);
+	}
+	
+	private abstract class CountedIndexIterator<T> implements Iterator<T> {
+		private int next = nextCounted(0);
+		private int removePosition = -1;
+		
+		abstract T valueAt(int index);
+		
+		@Override
+		public boolean hasNext() {
+			return next >= 0;
+		}
+		
+		@Override
+		public T next() {
+			if (next < 0) {
+				throw new NoSuchElementException();
+			}
+			removePosition = next;
+			next = nextCounted(next + 1);
+			
+			return valueAt(removePosition);
+		}
+		
+		@Override
+		public void remove() {
+			checkState(removePosition >= 0, "Can only call remove() ONCE, directly after a call to next()");
+			setCountAt(removePosition, countAt(removePosition), 0);
+			removePosition = -1;
+		}
+	}
+}
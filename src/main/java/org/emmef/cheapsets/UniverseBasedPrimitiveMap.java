@@ -0,0 +1,154 @@
+package org.emmef.cheapsets;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import org.emmef.cheapsets.indexsets.IndexSetBuilder;
+import org.emmef.cheapsets.universes.AppendableIndexedUniverse;
+
+/**
+ * Base class of maps that map keys inside an {@link IndexedUniverse} to 
+ * primitive values.
+ * <p>
+ * The values are kept in a primitive array that is indexed by the universe 
+ * index of the keys. An {@link IndexSet} records which keys are present, so 
+ * that any value, including zero, is a real value. Keys cannot be {@code null}.
+ * <p>
+ * For an {@link AppendableIndexedUniverse}, the values grow when a key is put 
+ * whose index lies beyond them.
+ * 
+ * @param <K> type of keys
+ * @see UniverseBasedIntMap
+ * @see UniverseBasedLongMap
+ * @see UniverseBasedDoubleMap
+ */
+public abstract class UniverseBasedPrimitiveMap<K> {
+	private final IndexedUniverse<K> universe;
+	private final IndexSet present;
+	private final UniverseBasedSet<K> keySet;
+
+	UniverseBasedPrimitiveMap(IndexedUniverse<K> universe) {
+		this.universe = checkNotNull(universe, "universe");
+		this.present = IndexSetBuilder.emptyFor(universe);
+		this.keySet = new UniverseBasedKeySet<>(universe, present);
+	}
+	
+	public final int size() {
+		return present.count();
+	}
+	
+	public final boolean isEmpty() {
+		return present.isEmpty();
+	}
+	
+	public final boolean containsKey(Object key) {
+		int indexOf = universe.indexOf(key);
+		
+		return indexOf >= 0 && present.presentAt(indexOf);
+	}
+	
+	public final void clear() {
+		present.clear();
+	}
+	
+	/**
+	 * Returns the keys of this map as a set that shares its index set with this 
+	 * map, so that set operations on keys work on whole words.
+	 * <p>
+	 * Removing keys from the set removes their mappings. Adding keys is not 
+	 * supported.
+	 * 
+	 * @return a {@code non-null} {@link UniverseBasedSet}
+	 */
+	public final UniverseBasedSet<K> keySet() {
+		return keySet;
+	}
+	
+	@Override
+	public final int hashCode() {
+		int hash = 0;
+		for (int i = present.nextPresent(0); i >= 0; i = present.nextPresent(i + 1)) {
+			hash += universe.elementAt(i).hashCode() ^ valueHashAt(i);
+		}
+		
+		return hash;
+	}
+	
+	/**
+	 * Returns whether {@code obj} is a map of the same type, with the same keys 
+	 *     that are mapped to the same values.
+	 */
+	@Override
+	public final boolean equals(Object obj) {
+		if (obj == this) {
+			return true;
+		}
+		if (obj == null || obj.getClass() != getClass()) {
+			return false;
+		}
+		UniverseBasedPrimitiveMap<?> other = (UniverseBasedPrimitiveMap<?>)obj;
+		if (other.size() != size()) {
+			return false;
+		}
+		for (int i = present.nextPresent(0); i >= 0; i = present.nextPresent(i + 1)) {
+			int otherIndex = other.universe.indexOf(universe.elementAt(i));
+			if (otherIndex < 0 || !other.present.presentAt(otherIndex) || !sameValueAt(i, other, otherIndex)) {
+				return false;
+			}
+		}
+		
+		return true;
+	}
+	
+	@Override
+	public final String toString() {
+		StringBuilder text = new StringBuilder();
+		text.append('[');
+		for (int i = present.nextPresent(0); i >= 0; i = present.nextPresent(i + 1)) {
+			if (text.length() > 1) {
+				text.append(',');
+			}
+			text.append(universe.elementAt(i));
+			text.append('=');
+			appendValueAt(text, i);
+		}
+		text.append(']');
+		
+		return text.toString();
+	}
+	
+	/**
+	 * Grows the values for a universe that grew since this map was created, 
+	 * see {@link AppendableIndexedUniverse}.
+	 */
+	abstract void ensureCapacity(int capacity);
+	
+	abstract int valueHashAt(int index);
+	
+	abstract boolean sameValueAt(int index, UniverseBasedPrimitiveMap<?> other, int otherIndex);
+	
+	abstract void appendValueAt(StringBuilder text, int index);
+	
+	final IndexSet present() {
+		return present;
+	}
+	
+	final int indexOf(Object key) {
+		return universe.indexOf(key);
+	}
+	
+	/**
+	 * Returns the index of {@code key}, after making sure that the values can 
+	 * hold a value at that index.
+	 */
+	final int validIndexOf(K key) {
+		if (key == null) {
+			throw new NullPointerException(getClass().getSimpleName() + " cannot contain null keys");
+		}
+		int indexOf = universe.indexOf(key);
+		if (indexOf >= 0) {
+			ensureCapacity(indexOf + 1);
+			return indexOf;
+		}
+		throw new ElementNotInUniverseException(getClass().getSimpleName() + ": key not in universe: " + key);
+	}
+}
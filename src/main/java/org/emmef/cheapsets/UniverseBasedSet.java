@@ -8,15 +8,25 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.SortedSet;
 
 import org.emmef.cheapsets.indexsets.IndexSetBuilder;
+import org.emmef.cheapsets.indexsets.PersistentIndexSet;
+import org.emmef.cheapsets.universes.IndexTranslation;
 import org.emmef.cheapsets.universes.IndexedUniverses;
+import org.emmef.cheapsets.universes.ProductIndexedUniverse;
+import org.emmef.cheapsets.universes.SortedIndexedUniverse;
+import org.emmef.cheapsets.universes.UniverseHashes;
 /**
  * Creates a set, whose members are limited to those in an {@link IndexedUniverse}.
  * <p>
  * An attempt to add elements that are not in the subset will cause an 
  * {@link ElementNotInUniverseException} to be thrown. Further, the set 
  * behaves as a normal {@link Set}.
+ * <p>
+ * The set maintains its hash code while elements are added and removed, using
+ * the element hash codes that are cached per universe (see 
+ * {@link UniverseHashes}), so that {@link #hashCode()} takes constant time.
  * 
  * @param <E> type of elements
  * @see Set
@@ -25,10 +35,28 @@ import org.emmef.cheapsets.universes.IndexedUniverses;
 public class UniverseBasedSet<E> implements Set<E>, Cloneable {
 	private final IndexedUniverse<E> universe;
 	private final IndexSet indexSet;
+	private UniverseHashes hashes;
+	private int hash;
 	
+	/**
+	 * Creates a set that adopts the provided index set, without copying it.
+	 */
 	UniverseBasedSet(IndexedUniverse<E> universe, IndexSet indexSet) {
 		this.universe = checkNotNull(universe, "universe");
-		this.indexSet = indexSet.clone();
+		this.indexSet = checkNotNull(indexSet, "indexSet");
+		if (!indexSet.isEmpty()) {
+			this.hash = hashOf(indexSet);
+		}
+	}
+	
+	/**
+	 * Creates a set that adopts the provided index set, without copying it, 
+	 * and whose elements have the provided hash code.
+	 */
+	UniverseBasedSet(IndexedUniverse<E> universe, IndexSet indexSet, int hash) {
+		this.universe = checkNotNull(universe, "universe");
+		this.indexSet = checkNotNull(indexSet, "indexSet");
+		this.hash = hash;
 	}
 	
 	/**
@@ -72,7 +100,12 @@ public class UniverseBasedSet<E> implements Set<E>, Cloneable {
 	 */
 	@Override
 	public boolean add(E e) {
-		return indexSet.setAt(validIndexOf(e));
+		int index = validIndexOf(e);
+		if (indexSet.setAt(index)) {
+			indexAdded(index);
+			return true;
+		}
+		return false;
 	}
 
 	
@@ -85,20 +118,54 @@ public class UniverseBasedSet<E> implements Set<E>, Cloneable {
 	 */
 	@Override
 	public boolean addAll(Collection<? extends E> c) {
-		if (c instanceof UniverseBasedSet && ((UniverseBasedSet<?>) c).universe == universe) {
-			return indexSet.addAll(((UniverseBasedSet<?>) c).indexSet);
+		if (c instanceof UniverseBasedSet) {
+			UniverseBasedSet<?> other = (UniverseBasedSet<?>) c;
+			if (other.universe == universe) {
+				if (!hasWords(indexSet, other.indexSet)) {
+					boolean changed = false;
+					IndexCursor cursor = other.indexSet.cursor();
+					for (int i = cursor.next(); i >= 0; i = cursor.next()) {
+						changed |= setIndex(i);
+					}
+					
+					return changed;
+				}
+				int wordCount = Math.min(indexSet.wordCount(), other.indexSet.wordCount());
+				for (int wordIndex = 0; wordIndex < wordCount; wordIndex++) {
+					long added = other.indexSet.wordAt(wordIndex) & ~indexSet.wordAt(wordIndex);
+					if (added != 0) {
+						wordAdded(wordIndex, added);
+					}
+				}
+				return indexSet.addAll(other.indexSet);
+			}
+			IndexTranslation translation = IndexTranslation.between(other.universe, universe);
+			boolean changed = false;
+			IndexCursor cursor = other.indexSet.cursor();
+			for (int i = cursor.next(); i >= 0; i = cursor.next()) {
+				int translated = translation.translate(i);
+				if (translated < 0) {
+					throw new ElementNotInUniverseException("Element is not backed by " + IndexedUniverse.class.getSimpleName() + ": " + other.universe.elementAt(i));
+				}
+				if (indexSet.setAt(translated)) {
+					indexAdded(translated);
+					changed = true;
+				}
+			}
+			
+			return changed;
 		}
 		boolean changed = false;
 		if (c instanceof List) {
 			List<?> list = (List<?>) c;
 			int size = list.size();
 			for (int i = 0; i < size; i++) {
-				changed |= indexSet.setAt(validIndexOf(list.get(i)));
+				changed |= setIndex(validIndexOf(list.get(i)));
 			}
 		}
 		else {
 			for (Object o : c) {
-				changed |= indexSet.setAt(validIndexOf(o));			
+				changed |= setIndex(validIndexOf(o));			
 			}
 		}
 		
@@ -123,35 +190,40 @@ public class UniverseBasedSet<E> implements Set<E>, Cloneable {
 		return indexOf >= 0 && indexSet.presentAt(indexOf);
 	}
 
+	/**
+	 * Returns whether the element with universe index {@code index} is in 
+	 *     this set, without looking up or creating the element.
+	 * 
+	 * @param index universe index of the element
+	 * @return {@code true} if the element is in this set
+	 * @throws IndexOutOfBoundsException if {@code index} lies outside the index 
+	 *     boundary of the universe
+	 */
+	public boolean containsIndex(int index) {
+		if (index < 0 || index >= universe.indexBoundary()) {
+			throw new IndexOutOfBoundsException("Index " + index + " must lie within [0, " + universe.indexBoundary() + ")");
+		}
+		return indexSet.presentAt(index);
+	}
+
 	@Override
 	public Iterator<E> iterator() {
 		return new Iterator<E>() {
-			private int position = 0;
+			private final IndexCursor cursor = indexSet.cursor();
+			private int next = cursor.next();
 			private int deletePosition = -1;
-			private E next = null;
 
 			@Override
 			public boolean hasNext() {
-				if (next != null) {
-					return true;
-				}
-				while (next == null && position < universe.indexBoundary()) {
-					E element = universe.elementAt(position);
-					if (element != null && indexSet.presentAt(position)) {
-						next = element;
-						return true;
-					}
-					position++;
-				}
-				return false;
+				return next >= 0;
 			}
 
 			@Override
 			public E next() {
-				if (hasNext()) {
-					E result = next;
-					next = null;
-					deletePosition = position++;
+				if (next >= 0) {
+					E result = universe.elementAt(next);
+					deletePosition = next;
+					next = cursor.next();
 					return result;
 				}
 				
@@ -163,22 +235,147 @@ public class UniverseBasedSet<E> implements Set<E>, Cloneable {
 				if (deletePosition == -1) {
 					throw new IllegalStateException("Can only call remove() ONCE, directly after a call to next*(");
 				}
-				indexSet.removeAt(deletePosition);
+				removeIndex(deletePosition);
 				deletePosition = -1;
 			}
 		};
 	}
+	
+	/**
+	 * Passes the universe index of each element in this set to the provided consumer.
+	 * <p>
+	 * This does not allocate and does not look up the elements themselves.
+	 * 
+	 * @param consumer receives the index of each element in this set
+	 * @throws NullPointerException if {@code consumer} is {@code null}
+	 */
+	public void forEachIndex(IndexConsumer consumer) {
+		indexSet.forEachIndex(checkNotNull(consumer, "consumer"));
+	}
+	
+	/**
+	 * Passes each element in this set, together with its universe index, to 
+	 * the provided consumer.
+	 * 
+	 * @param consumer receives each element and its index
+	 * @throws NullPointerException if {@code consumer} is {@code null}
+	 */
+	public void forEachIndexed(IndexedElementConsumer<? super E> consumer) {
+		checkNotNull(consumer, "consumer");
+		IndexCursor cursor = indexSet.cursor();
+		for (int i = cursor.next(); i >= 0; i = cursor.next()) {
+			consumer.accept(universe.elementAt(i), i);
+		}
+	}
+	
+	/**
+	 * Returns a cursor over the universe indices of the elements in this set.
+	 * <p>
+	 * The cursor reflects this set directly and can be reused by calling 
+	 * {@link IndexCursor#reset()}.
+	 * 
+	 * @return a {@code non-null} {@link IndexCursor}
+	 */
+	public IndexCursor indexCursor() {
+		return indexSet.cursor();
+	}
+
+	/**
+	 * Returns the number of 64-bit words that hold the universe indices of the
+	 * elements of this set, see {@link IndexSet#wordCount()}.
+	 * 
+	 * @return a positive number
+	 */
+	public int wordCount() {
+		return indexSet.wordCount();
+	}
+	
+	/**
+	 * Returns the presence of the elements with universe indices 
+	 * {@code 64 * wordIndex} up to {@code 64 * (wordIndex + 1)} as a word, see
+	 * {@link IndexSet#wordAt(int)}.
+	 * 
+	 * @param wordIndex index of the word
+	 * @return the word
+	 * @throws IndexOutOfBoundsException if {@code wordIndex} is negative or not 
+	 *     smaller than {@link #wordCount()}
+	 */
+	public long wordAt(int wordIndex) {
+		return indexSet.wordAt(wordIndex);
+	}
+	
+	/**
+	 * Returns whether {@link #wordAt(int)} reads a stored word in constant 
+	 * time. Otherwise, each word is computed from the present indices and 
+	 * {@link #toLongArray()} is the cheaper way to read all words.
+	 * 
+	 * @return {@code true} if words can be read in constant time
+	 */
+	public boolean hasWordAccess() {
+		return IndexSetBuilder.hasWords(indexSet);
+	}
+	
+	/**
+	 * Replaces the presence of the elements with universe indices 
+	 * {@code 64 * wordIndex} up to {@code 64 * (wordIndex + 1)} by 
+	 * {@code word}, see {@link #wordAt(int)}.
+	 * <p>
+	 * Only the indices whose presence changes are set or removed, without 
+	 * looking up their elements.
+	 * 
+	 * @param wordIndex index of the word
+	 * @param word the new presence of the indices in the word
+	 * @return {@code true} if this set changed
+	 * @throws IndexOutOfBoundsException if {@code wordIndex} is negative or not 
+	 *     smaller than {@link #wordCount()}, or if {@code word} marks indices 
+	 *     at or beyond the index boundary
+	 */
+	public boolean setWordAt(int wordIndex, long word) {
+		long present = indexSet.wordAt(wordIndex);
+		long added = word & ~present;
+		long removed = present & ~word;
+		int offset = wordIndex << 6;
+		if (added != 0) {
+			int last = offset + 63 - Long.numberOfLeadingZeros(added);
+			if (last >= indexSet.bound()) {
+				throw new IndexOutOfBoundsException("Index (" + last + ") must be smaller than " + indexSet.bound());
+			}
+			wordAdded(wordIndex, added);
+			for (long bits = added; bits != 0; bits &= bits - 1) {
+				indexSet.setAt(offset + Long.numberOfTrailingZeros(bits));
+			}
+		}
+		if (removed != 0) {
+			wordRemoved(wordIndex, removed);
+			for (long bits = removed; bits != 0; bits &= bits - 1) {
+				indexSet.removeAt(offset + Long.numberOfTrailingZeros(bits));
+			}
+		}
+		
+		return (added | removed) != 0;
+	}
+	
+	/**
+	 * Returns the universe indices of the elements of this set as a new array 
+	 * of words, in the layout of {@link java.util.BitSet#toLongArray()}.
+	 * <p>
+	 * The words can be read back with 
+	 * {@link UniverseBasedSets#fromWords(IndexedUniverse, long[], int)}.
+	 * 
+	 * @return a {@code non-null} array of {@link #wordCount()} words
+	 */
+	public long[] toLongArray() {
+		return indexSet.toLongArray();
+	}
 
 	@Override
 	public Object[] toArray() {
 		int size = indexSet.count();
 		Object[] result = new Object[size];
-		int indexSize = universe.indexBoundary();
 		int idx = 0;
-		for (int i = 0; i < indexSize; i++) {
-			if (indexSet.presentAt(i)) {
-				result[idx++] = universe.elementAt(i);
-			}
+		IndexCursor cursor = indexSet.cursor();
+		for (int i = cursor.next(); i >= 0; i = cursor.next()) {
+			result[idx++] = universe.elementAt(i);
 		}
 		if (idx == size) {
 			return result;
@@ -200,12 +397,10 @@ public class UniverseBasedSet<E> implements Set<E>, Cloneable {
 				result[size] = null;
 			}
 		}
-		int indexSize = universe.indexBoundary();
 		int idx = 0;
-		for (int i = 0; i < indexSize; i++) {
-			if (indexSet.presentAt(i)) {
-				result[idx++] = (T)universe.elementAt(i);
-			}
+		IndexCursor cursor = indexSet.cursor();
+		for (int i = cursor.next(); i >= 0; i = cursor.next()) {
+			result[idx++] = (T)universe.elementAt(i);
 		}
 		
 		if (idx == size) {
@@ -219,14 +414,27 @@ public class UniverseBasedSet<E> implements Set<E>, Cloneable {
 	public boolean remove(Object o) {
 		int indexOf = universe.indexOf(o);
 		
-		return indexOf >= 0 && indexSet.removeAt(indexOf);
+		return indexOf >= 0 && removeIndex(indexOf);
 	}
 	
 
 	@Override
 	public boolean containsAll(Collection<?> c) {
-		if (c instanceof UniverseBasedSet && ((UniverseBasedSet<?>) c).universe == universe) {
-			return indexSet.containsAll(((UniverseBasedSet<?>) c).indexSet);
+		if (c instanceof UniverseBasedSet) {
+			UniverseBasedSet<?> other = (UniverseBasedSet<?>) c;
+			if (other.universe == universe) {
+				return indexSet.containsAll(other.indexSet);
+			}
+			IndexTranslation translation = IndexTranslation.between(other.universe, universe);
+			IndexCursor cursor = other.indexSet.cursor();
+			for (int i = cursor.next(); i >= 0; i = cursor.next()) {
+				int translated = translation.translate(i);
+				if (translated < 0 || !indexSet.presentAt(translated)) {
+					return false;
+				}
+			}
+			
+			return true;
 		}
 		if (c instanceof List) {
 			List<?> list = (List<?>) c;
@@ -251,13 +459,58 @@ public class UniverseBasedSet<E> implements Set<E>, Cloneable {
 
 	@Override
 	public boolean retainAll(Collection<?> c) {
-		if (c instanceof UniverseBasedSet && ((UniverseBasedSet<?>) c).universe == universe) {
-			return indexSet.retainAll(((UniverseBasedSet<?>) c).indexSet);
+		if (c instanceof UniverseBasedSetRange) {
+			UniverseBasedSetRange<?> range = (UniverseBasedSetRange<?>) c;
+			UniverseBasedSet<?> other = range.set();
+			if (other.universe == universe) {
+				boolean changed = retainIndexRange(range.fromIndex(), range.toIndex());
+				
+				return other != this ? retainAll(other) | changed : changed;
+			}
+		}
+		if (c instanceof UniverseBasedSet) {
+			UniverseBasedSet<?> other = (UniverseBasedSet<?>) c;
+			if (other.universe == universe) {
+				if (!hasWords(indexSet, other.indexSet)) {
+					boolean changed = false;
+					IndexCursor cursor = indexSet.cursor();
+					for (int i = cursor.next(); i >= 0; i = cursor.next()) {
+						if (!other.indexSet.presentAt(i)) {
+							removeIndex(i);
+							changed = true;
+						}
+					}
+					
+					return changed;
+				}
+				int wordCount = indexSet.wordCount();
+				int otherWordCount = other.indexSet.wordCount();
+				for (int wordIndex = 0; wordIndex < wordCount; wordIndex++) {
+					long removed = indexSet.wordAt(wordIndex) & (wordIndex < otherWordCount ? ~other.indexSet.wordAt(wordIndex) : -1L);
+					if (removed != 0) {
+						wordRemoved(wordIndex, removed);
+					}
+				}
+				return indexSet.retainAll(other.indexSet);
+			}
+			IndexTranslation translation = IndexTranslation.between(universe, other.universe);
+			boolean changed = false;
+			IndexCursor cursor = indexSet.cursor();
+			for (int i = cursor.next(); i >= 0; i = cursor.next()) {
+				int translated = translation.translate(i);
+				if (translated < 0 || !other.indexSet.presentAt(translated)) {
+					removeIndex(i);
+					changed = true;
+				}
+			}
+			
+			return changed;
 		}
 		boolean changed = false;
-		for (int i = 0; i < universe.indexBoundary(); i++) {
-			if (indexSet.presentAt(i) && !c.contains(universe.elementAt(i))) {
-				indexSet.removeAt(i);
+		IndexCursor cursor = indexSet.cursor();
+		for (int i = cursor.next(); i >= 0; i = cursor.next()) {
+			if (!c.contains(universe.elementAt(i))) {
+				removeIndex(i);
 				changed = true;
 			}
 		}
@@ -267,8 +520,38 @@ public class UniverseBasedSet<E> implements Set<E>, Cloneable {
 
 	@Override
 	public boolean removeAll(Collection<?> c) {
-		if (c instanceof UniverseBasedSet && ((UniverseBasedSet<?>) c).universe == universe) {
-			return indexSet.removeAll(((UniverseBasedSet<?>) c).indexSet);
+		if (c instanceof UniverseBasedSet) {
+			UniverseBasedSet<?> other = (UniverseBasedSet<?>) c;
+			if (other.universe == universe) {
+				if (!hasWords(indexSet, other.indexSet)) {
+					boolean changed = false;
+					IndexCursor cursor = other.indexSet.cursor();
+					for (int i = cursor.next(); i >= 0; i = cursor.next()) {
+						changed |= removeIndex(i);
+					}
+					
+					return changed;
+				}
+				int wordCount = Math.min(indexSet.wordCount(), other.indexSet.wordCount());
+				for (int wordIndex = 0; wordIndex < wordCount; wordIndex++) {
+					long removed = indexSet.wordAt(wordIndex) & other.indexSet.wordAt(wordIndex);
+					if (removed != 0) {
+						wordRemoved(wordIndex, removed);
+					}
+				}
+				return indexSet.removeAll(other.indexSet);
+			}
+			IndexTranslation translation = IndexTranslation.between(other.universe, universe);
+			boolean changed = false;
+			IndexCursor cursor = other.indexSet.cursor();
+			for (int i = cursor.next(); i >= 0; i = cursor.next()) {
+				int translated = translation.translate(i);
+				if (translated >= 0) {
+					changed |= removeIndex(translated);
+				}
+			}
+			
+			return changed;
 		}
 		boolean changed = false;
 		if (c instanceof List) {
@@ -277,7 +560,7 @@ public class UniverseBasedSet<E> implements Set<E>, Cloneable {
 			for (int i = 0; i < size; i++) {
 				int indexOf = universe.indexOf(list.get(i));
 				if (indexOf >= 0) {
-					changed |= indexSet.removeAt(indexOf);
+					changed |= removeIndex(indexOf);
 				}
 			}
 		}
@@ -285,7 +568,7 @@ public class UniverseBasedSet<E> implements Set<E>, Cloneable {
 			for (Object o : c) {
 				int indexOf = universe.indexOf(o);
 				if (indexOf >= 0) {
-					changed |= indexSet.removeAt(indexOf);
+					changed |= removeIndex(indexOf);
 				}
 			}
 		}
@@ -296,8 +579,157 @@ public class UniverseBasedSet<E> implements Set<E>, Cloneable {
 	@Override
 	public void clear() {
 		indexSet.clear();
+		allRemoved();
 	}
 
+	/**
+	 * Returns a new set that contains exactly the elements of the universe of
+	 *     {@code set} that are not in {@code set}.
+	 * <p>
+	 * The complement is computed with whole-word operations on the index set.
+	 * 
+	 * @param set set to take the complement of
+	 * @return a new {@link UniverseBasedSet} over the same universe
+	 * @throws NullPointerException if {@code set} is {@code null}
+	 */
+	public static <E> UniverseBasedSet<E> complementOf(UniverseBasedSet<E> set) {
+		IndexedUniverse<E> universe = checkNotNull(set, "set").universe;
+		IndexSet complement = set.indexSet.clone();
+		int boundary = universe.indexBoundary();
+		
+		complement.complement();
+		complement.clearRange(boundary, complement.bound());
+		if (universe.size() != boundary) {
+			for (int i = complement.nextPresent(0); i >= 0; i = complement.nextPresent(i + 1)) {
+				if (universe.elementAt(i) == null) {
+					complement.removeAt(i);
+				}
+			}
+		}
+		
+		return UniverseBasedSets.wrap(universe, complement);
+	}
+	
+	/**
+	 * Returns a view of the elements of this set that have an index between 
+	 *     {@code fromIndex} (inclusive) and {@code toIndex} (exclusive).
+	 * <p>
+	 * The view reflects changes to this set and vice versa. Adding an element 
+	 * whose index is outside the range to the view throws an 
+	 * {@link IllegalArgumentException}. Clearing the view clears the range with
+	 * whole-word operations. Retaining the view with {@link #retainAll(Collection)}
+	 * clears the indices outside the range the same way, see 
+	 * {@link #retainIndexRange(int, int)}.
+	 * 
+	 * @param fromIndex first index of the range
+	 * @param toIndex index after the last index of the range
+	 * @return a {@code non-null} view
+	 * @throws IndexOutOfBoundsException if the range does not lie within the 
+	 *     index boundary of the universe
+	 */
+	public Set<E> indexRange(int fromIndex, int toIndex) {
+		checkIndexRange(fromIndex, toIndex);
+		return new UniverseBasedSetRange<>(this, fromIndex, toIndex);
+	}
+	
+	/**
+	 * Removes the elements of this set whose index does not lie between 
+	 *     {@code fromIndex} (inclusive) and {@code toIndex} (exclusive).
+	 * <p>
+	 * The indices before and after the range are cleared with whole-word 
+	 * operations, so that for example intersecting with all tuples with a given 
+	 * leading component, see {@link #withLeading(Object)}, does not visit or 
+	 * create the elements.
+	 * 
+	 * @param fromIndex first index of the range
+	 * @param toIndex index after the last index of the range
+	 * @return {@code true} if this set changed
+	 * @throws IndexOutOfBoundsException if the range does not lie within the 
+	 *     index boundary of the universe
+	 */
+	public boolean retainIndexRange(int fromIndex, int toIndex) {
+		checkIndexRange(fromIndex, toIndex);
+		int bound = indexSet.bound();
+		int count = indexSet.count();
+		clearIndexRange(0, Math.min(fromIndex, bound));
+		clearIndexRange(Math.min(toIndex, bound), bound);
+		
+		return indexSet.count() != count;
+	}
+	
+	/**
+	 * Returns a view of the elements of this set that are strictly smaller than 
+	 *     {@code toElement}, see {@link SortedSet#headSet(Object)}.
+	 * <p>
+	 * This requires a set that is backed by a {@link SortedIndexedUniverse}, 
+	 * where the order of the indices is the order of the elements.
+	 * 
+	 * @param toElement upper bound (exclusive) of the elements in the view
+	 * @return a {@code non-null} view, see {@link #indexRange(int, int)}
+	 * @throws UnsupportedOperationException if the universe is not a {@link SortedIndexedUniverse}
+	 */
+	public Set<E> headSet(E toElement) {
+		return indexRange(0, sortedUniverse().indexAtOrAbove(toElement));
+	}
+	
+	/**
+	 * Returns a view of the elements of this set that are greater than or equal 
+	 *     to {@code fromElement}, see {@link SortedSet#tailSet(Object)}.
+	 * <p>
+	 * This requires a set that is backed by a {@link SortedIndexedUniverse}, 
+	 * where the order of the indices is the order of the elements.
+	 * 
+	 * @param fromElement lower bound (inclusive) of the elements in the view
+	 * @return a {@code non-null} view, see {@link #indexRange(int, int)}
+	 * @throws UnsupportedOperationException if the universe is not a {@link SortedIndexedUniverse}
+	 */
+	public Set<E> tailSet(E fromElement) {
+		return indexRange(sortedUniverse().indexAtOrAbove(fromElement), universe.indexBoundary());
+	}
+	
+	/**
+	 * Returns a view of the tuples in this set that have {@code leadingComponent} 
+	 *     as their first component.
+	 * <p>
+	 * This requires a set that is backed by a {@link ProductIndexedUniverse}, 
+	 * where these tuples occupy one consecutive range of indices.
+	 * 
+	 * @param leadingComponent first component of the tuples in the view
+	 * @return a {@code non-null} view, see {@link #indexRange(int, int)}
+	 * @throws UnsupportedOperationException if the universe is not a {@link ProductIndexedUniverse}
+	 * @throws ElementNotInUniverseException if {@code leadingComponent} is not 
+	 *     in the first component universe
+	 */
+	public Set<E> withLeading(Object leadingComponent) {
+		if (!(universe instanceof ProductIndexedUniverse)) {
+			throw new UnsupportedOperationException("Leading component ranges require a " + ProductIndexedUniverse.class.getSimpleName());
+		}
+		ProductIndexedUniverse product = (ProductIndexedUniverse)universe;
+		int start = product.leadingRangeStart(leadingComponent);
+		if (start < 0) {
+			throw new ElementNotInUniverseException("Leading component is not backed by " + IndexedUniverse.class.getSimpleName() + ": " + leadingComponent);
+		}
+		
+		return indexRange(start, start + product.leadingRangeLength());
+	}
+	
+	/**
+	 * Returns an unmodifiable snapshot of the elements that are in this set now.
+	 * <p>
+	 * For a set that was created with {@link UniverseBasedSets#withSnapshots(IndexedUniverse)},
+	 * this takes constant time and the snapshot shares the words of the index 
+	 * set until this set modifies them. Other sets are copied, see 
+	 * {@link UniverseBasedSets#freeze(UniverseBasedSet)}.
+	 * 
+	 * @return a {@code non-null} {@link FrozenUniverseBasedSet}
+	 */
+	public FrozenUniverseBasedSet<E> snapshot() {
+		if (indexSet instanceof PersistentIndexSet) {
+			return new FrozenUniverseBasedSet<>(universe, indexSet.clone(), hashCode());
+		}
+		return new FrozenUniverseBasedSet<>(this);
+	}
+	
 	static <E> UniverseBasedSet<E> copyOf(UniverseBasedSet<E> original) {
 		return new UniverseBasedSet<E>(original.universe, original.indexSet.clone());
 	}
@@ -306,15 +738,13 @@ public class UniverseBasedSet<E> implements Set<E>, Cloneable {
 		return new UniverseBasedSet<E>(original.universe);
 	}
 	
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The hash code is maintained while elements are added and removed, so 
+	 * this takes constant time.
+	 */
 	public int hashCode() {
-		int hash = 0;
-		int indexSize = universe.indexBoundary();
-		for (int i = 0; i < indexSize; i++) {
-			if (indexSet.presentAt(i)) {
-				hash += universe.elementAt(i).hashCode();
-			}
-		}
-
 		return hash;
 	};
 	
@@ -341,21 +771,19 @@ public class UniverseBasedSet<E> implements Set<E>, Cloneable {
 		}
 		
 		StringBuilder string = new StringBuilder();
-		int indexSize = universe.indexBoundary();
 		
 		boolean first = true;
-		for (int i = 0; i < indexSize; i++) {
-			if (indexSet.presentAt(i)) {
-				if (first) {
-					first = false;
-					string.append('[');
-				}
-				else {
-					string.append(',');
-				}
-				
-				string.append(universe.elementAt(i));
+		IndexCursor cursor = indexSet.cursor();
+		for (int i = cursor.next(); i >= 0; i = cursor.next()) {
+			if (first) {
+				first = false;
+				string.append('[');
+			}
+			else {
+				string.append(',');
 			}
+			
+			string.append(universe.elementAt(i));
 		}
 		string.append(']');
 		
@@ -366,7 +794,152 @@ public class UniverseBasedSet<E> implements Set<E>, Cloneable {
 		return universe;
 	}
 	
-	private int validIndexOf(Object element) {
+	final IndexSet indexSet() {
+		return indexSet;
+	}
+	
+	/**
+	 * Adds the element at {@code index} and maintains the hash code.
+	 */
+	final boolean setIndex(int index) {
+		if (indexSet.setAt(index)) {
+			indexAdded(index);
+			return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * Removes the element at {@code index} and maintains the hash code.
+	 */
+	final boolean removeIndex(int index) {
+		if (indexSet.removeAt(index)) {
+			indexRemoved(index);
+			return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * Removes the elements with an index in {@code [fromIndex, toIndex)} and 
+	 * maintains the hash code word by word.
+	 */
+	final void clearIndexRange(int fromIndex, int toIndex) {
+		if (fromIndex >= toIndex) {
+			return;
+		}
+		if (!IndexSetBuilder.hasWords(indexSet)) {
+			for (int i = indexSet.nextPresent(fromIndex); i >= 0 && i < toIndex; i = indexSet.nextPresent(i + 1)) {
+				removeIndex(i);
+			}
+			return;
+		}
+		int firstWord = fromIndex >> 6;
+		int lastWord = (toIndex - 1) >> 6;
+		for (int wordIndex = firstWord; wordIndex <= lastWord; wordIndex++) {
+			long mask = -1L;
+			if (wordIndex == firstWord) {
+				mask &= -1L << fromIndex;
+			}
+			if (wordIndex == lastWord) {
+				mask &= -1L >>> -toIndex;
+			}
+			long removed = indexSet.wordAt(wordIndex) & mask;
+			if (removed != 0) {
+				wordRemoved(wordIndex, removed);
+			}
+		}
+		indexSet.clearRange(fromIndex, toIndex);
+	}
+	
+	/**
+	 * Called after the element at {@code index} was added.
+	 */
+	void indexAdded(int index) {
+		hash += hashes().hashAt(index);
+	}
+	
+	/**
+	 * Called after the element at {@code index} was removed.
+	 */
+	void indexRemoved(int index) {
+		hash -= hashes().hashAt(index);
+	}
+	
+	/**
+	 * Called before the elements whose indices are set in {@code word} are 
+	 * added with a bulk operation.
+	 */
+	void wordAdded(int wordIndex, long word) {
+		hash += hashes().sumOfWord(wordIndex, word);
+	}
+	
+	/**
+	 * Called before the elements whose indices are set in {@code word} are 
+	 * removed with a bulk operation.
+	 */
+	void wordRemoved(int wordIndex, long word) {
+		hash -= hashes().sumOfWord(wordIndex, word);
+	}
+	
+	/**
+	 * Called after all elements were removed.
+	 */
+	void allRemoved() {
+		hash = 0;
+	}
+	
+	/**
+	 * Returns the sum of the hash codes of the elements in {@code set}.
+	 */
+	final int hashOf(IndexSet set) {
+		UniverseHashes hashes = hashes();
+		int sum = 0;
+		if (!IndexSetBuilder.hasWords(set)) {
+			IndexCursor cursor = set.cursor();
+			for (int i = cursor.next(); i >= 0; i = cursor.next()) {
+				sum += hashes.hashAt(i);
+			}
+			return sum;
+		}
+		int wordCount = set.wordCount();
+		for (int wordIndex = 0; wordIndex < wordCount; wordIndex++) {
+			sum += hashes.sumOfWord(wordIndex, set.wordAt(wordIndex));
+		}
+		
+		return sum;
+	}
+	
+	/**
+	 * Returns whether the words of both sets can be read in constant time, so
+	 * that bulk operations can maintain the hash code word by word. Otherwise,
+	 * they visit the present indices.
+	 */
+	private static boolean hasWords(IndexSet set, IndexSet other) {
+		return IndexSetBuilder.hasWords(set) && IndexSetBuilder.hasWords(other);
+	}
+	
+	private void checkIndexRange(int fromIndex, int toIndex) {
+		if (fromIndex < 0 || toIndex > universe.indexBoundary() || fromIndex > toIndex) {
+			throw new IndexOutOfBoundsException("Range [" + fromIndex + ", " + toIndex + ") must lie within [0, " + universe.indexBoundary() + ")");
+		}
+	}
+	
+	private UniverseHashes hashes() {
+		if (hashes == null) {
+			hashes = UniverseHashes.of(universe);
+		}
+		return hashes;
+	}
+	
+	private SortedIndexedUniverse<?> sortedUniverse() {
+		if (universe instanceof SortedIndexedUniverse) {
+			return (SortedIndexedUniverse<?>)universe;
+		}
+		throw new UnsupportedOperationException("Element ranges require a " + SortedIndexedUniverse.class.getSimpleName());
+	}
+	
+	final int validIndexOf(Object element) {
 		int indexOf = universe.indexOf(element);
 		
 		if (indexOf >= 0) {
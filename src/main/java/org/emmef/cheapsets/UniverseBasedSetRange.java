@@ -0,0 +1,128 @@
+package org.emmef.cheapsets;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * View of the elements of a {@link UniverseBasedSet} whose index lies in a range.
+ * 
+ * @param <E> type of elements
+ * @see UniverseBasedSet#indexRange(int, int)
+ */
+final class UniverseBasedSetRange<E> extends AbstractSet<E> {
+	private final UniverseBasedSet<E> set;
+	private final int fromIndex;
+	private final int toIndex;
+
+	UniverseBasedSetRange(UniverseBasedSet<E> set, int fromIndex, int toIndex) {
+		this.set = set;
+		this.fromIndex = fromIndex;
+		this.toIndex = toIndex;
+	}
+	
+	@Override
+	public boolean contains(Object o) {
+		int indexOf = set.subSet().indexOf(o);
+		
+		return inRange(indexOf) && set.indexSet().presentAt(indexOf);
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * @throws IllegalArgumentException if the index of the element is outside the range of this view
+	 * @throws ElementNotInUniverseException if the element is not in the universe
+	 */
+	@Override
+	public boolean add(E e) {
+		if (!inRange(set.validIndexOf(e))) {
+			throw new IllegalArgumentException("Element outside range of view: " + e);
+		}
+		return set.add(e);
+	}
+	
+	@Override
+	public boolean remove(Object o) {
+		int indexOf = set.subSet().indexOf(o);
+		
+		return inRange(indexOf) && set.removeIndex(indexOf);
+	}
+	
+	@Override
+	public void clear() {
+		set.clearIndexRange(fromIndex, toIndex);
+	}
+	
+	@Override
+	public boolean isEmpty() {
+		return nextPresent(fromIndex) < 0;
+	}
+
+	@Override
+	public int size() {
+		int size = 0;
+		for (int i = nextPresent(fromIndex); i >= 0; i = nextPresent(i + 1)) {
+			size++;
+		}
+		return size;
+	}
+
+	@Override
+	public Iterator<E> iterator() {
+		return new Iterator<E>() {
+			private int next = nextPresent(fromIndex);
+			private int deletePosition = -1;
+			
+			@Override
+			public boolean hasNext() {
+				return next >= 0;
+			}
+
+			@Override
+			public E next() {
+				if (next < 0) {
+					throw new NoSuchElementException();
+				}
+				deletePosition = next;
+				next = nextPresent(next + 1);
+				
+				return set.subSet().elementAt(deletePosition);
+			}
+
+			@Override
+			public void remove() {
+				if (deletePosition == -1) {
+					throw new IllegalStateException("Can only call remove() ONCE, directly after a call to next*(");
+				}
+				set.removeIndex(deletePosition);
+				deletePosition = -1;
+			}
+		};
+	}
+	
+	UniverseBasedSet<E> set() {
+		return set;
+	}
+	
+	int fromIndex() {
+		return fromIndex;
+	}
+	
+	int toIndex() {
+		return toIndex;
+	}
+	
+	private boolean inRange(int index) {
+		return index >= fromIndex && index < toIndex;
+	}
+	
+	private int nextPresent(int index) {
+		if (index >= toIndex) {
+			return -1;
+		}
+		int next = set.indexSet().nextPresent(index);
+		
+		return next < toIndex ? next : -1;
+	}
+}
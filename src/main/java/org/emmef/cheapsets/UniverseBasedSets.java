@@ -0,0 +1,323 @@
+package org.emmef.cheapsets;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Set;
+
+import org.emmef.cheapsets.indexsets.IndexSetBuilder;
+import org.emmef.cheapsets.indexsets.MiniIndexSet;
+import org.emmef.cheapsets.query.Query;
+import org.emmef.cheapsets.universes.IndexedUniverses;
+import org.emmef.cheapsets.universes.ProjectedIndexedUniverse;
+
+/**
+ * Creates {@link UniverseBasedSet}s.
+ * <p>
+ * A plain {@link UniverseBasedSet} calls its index set through the {@link IndexSet} 
+ * interface. Sets over universes with an index boundary of at most 32, the most 
+ * common case for small enumerations of values, are created as a final class that 
+ * binds to {@link MiniIndexSet}, so that {@link Set#contains(Object)}, 
+ * {@link Set#add(Object)} and {@link Set#remove(Object)} stay monomorphic for them.
+ * 
+ * @see UniverseBasedSet
+ */
+public class UniverseBasedSets {
+	/**
+	 * Creates an empty set for the provided universe, using the implementation
+	 * that best fits the index boundary of the universe.
+	 * 
+	 * @param universe universe of possible elements
+	 * @return a new, empty {@link UniverseBasedSet}
+	 * @throws NullPointerException if {@code universe} is {@code null}
+	 */
+	public static <E> UniverseBasedSet<E> create(IndexedUniverse<E> universe) {
+		checkNotNull(universe, "universe");
+		
+		return wrap(universe, IndexSetBuilder.emptyFor(universe));
+	}
+	
+	/**
+	 * Creates an empty set for the provided universe that uses the provided 
+	 * index set, for example one that was created by 
+	 * {@link IndexSetBuilder#sparseFor(IndexedUniverse)}.
+	 * <p>
+	 * The set takes ownership of {@code emptyIndexSet}, which should not be used
+	 * by the caller afterwards.
+	 * 
+	 * @param universe universe of possible elements
+	 * @param emptyIndexSet empty index set that records the elements
+	 * @return a new, empty {@link UniverseBasedSet}
+	 * @throws NullPointerException if {@code universe} or {@code emptyIndexSet} is {@code null}
+	 * @throws IllegalArgumentException if {@code emptyIndexSet} is not empty or its bound
+	 *     is smaller than the index boundary of the universe
+	 */
+	public static <E> UniverseBasedSet<E> create(IndexedUniverse<E> universe, IndexSet emptyIndexSet) {
+		checkNotNull(universe, "universe");
+		checkNotNull(emptyIndexSet, "emptyIndexSet");
+		checkArgument(emptyIndexSet.isEmpty(), "Index set must be empty");
+		checkArgument(emptyIndexSet.bound() >= universe.indexBoundary(), "Index set bound (%s) is smaller than universe index boundary (%s)", emptyIndexSet.bound(), universe.indexBoundary());
+		
+		return wrap(universe, emptyIndexSet);
+	}
+	
+	/**
+	 * Creates an empty set for the provided universe that can be cleared in 
+	 * constant time, see {@link IndexSetBuilder#epochFor(IndexedUniverse)}.
+	 * 
+	 * @param universe universe of possible elements
+	 * @return a new, empty {@link UniverseBasedSet}
+	 * @throws NullPointerException if {@code universe} is {@code null}
+	 */
+	public static <E> UniverseBasedSet<E> withEpochClear(IndexedUniverse<E> universe) {
+		checkNotNull(universe, "universe");
+		
+		return new UniverseBasedSet<>(universe, IndexSetBuilder.epochFor(universe));
+	}
+	
+	/**
+	 * Creates an empty set for the provided universe that takes snapshots in 
+	 * constant time, see {@link UniverseBasedSet#snapshot()} and 
+	 * {@link IndexSetBuilder#persistentFor(IndexedUniverse)}.
+	 * 
+	 * @param universe universe of possible elements
+	 * @return a new, empty {@link UniverseBasedSet}
+	 * @throws NullPointerException if {@code universe} is {@code null}
+	 * @throws IllegalArgumentException if the universe can grow
+	 */
+	public static <E> UniverseBasedSet<E> withSnapshots(IndexedUniverse<E> universe) {
+		checkNotNull(universe, "universe");
+		
+		return new UniverseBasedSet<>(universe, IndexSetBuilder.persistentFor(universe));
+	}
+	
+	/**
+	 * Creates a set for the provided universe that contains the elements whose 
+	 * universe index is set in the words, as written by 
+	 * {@link UniverseBasedSet#toLongArray()}.
+	 * <p>
+	 * The words are copied into the index set of the new set as a whole, 
+	 * without looking up the elements.
+	 * 
+	 * @param universe universe of possible elements
+	 * @param words words that contain the universe indices of the elements
+	 * @param offset position of the first word in {@code words}
+	 * @return a new {@link UniverseBasedSet}
+	 * @throws NullPointerException if {@code universe} or {@code words} is {@code null}
+	 * @throws IndexOutOfBoundsException if {@code words} does not contain enough 
+	 *     words from {@code offset}
+	 * @throws IllegalArgumentException if the words contain indices that do not 
+	 *     correspond with an element of the universe
+	 */
+	public static <E> UniverseBasedSet<E> fromWords(IndexedUniverse<E> universe, long[] words, int offset) {
+		checkNotNull(universe, "universe");
+		checkNotNull(words, "words");
+		IndexSet indexSet = IndexSetBuilder.emptyFor(universe);
+		int boundary = universe.indexBoundary();
+		
+		indexSet.setWords(words, offset);
+		checkArgument(boundary == indexSet.bound() || indexSet.nextPresent(boundary) < 0, "Words contain indices at or beyond index boundary (%s)", boundary);
+		if (universe.size() != boundary) {
+			for (int i = indexSet.nextPresent(0); i >= 0; i = indexSet.nextPresent(i + 1)) {
+				checkArgument(universe.elementAt(i) != null, "Words contain index (%s) without element", i);
+			}
+		}
+		
+		return wrap(universe, indexSet);
+	}
+	
+	/**
+	 * Returns an unmodifiable copy of {@code set}, with a hash code that is
+	 * computed once, see {@link FrozenUniverseBasedSet}.
+	 *
+	 * @param set set to copy
+	 * @return a {@code non-null} {@link FrozenUniverseBasedSet}, or {@code set}
+	 *     itself if it is already frozen
+	 * @throws NullPointerException if {@code set} is {@code null}
+	 */
+	public static <E> FrozenUniverseBasedSet<E> freeze(UniverseBasedSet<E> set) {
+		checkNotNull(set, "set");
+		if (set instanceof FrozenUniverseBasedSet) {
+			return (FrozenUniverseBasedSet<E>)set;
+		}
+		
+		return new FrozenUniverseBasedSet<>(set);
+	}
+	
+	/**
+	 * Returns the canonical frozen set that is equal to {@code set} from
+	 * {@link FrozenSetPool#DEFAULT}, see {@link FrozenSetPool#intern(UniverseBasedSet)}.
+	 *
+	 * @param set set to intern
+	 * @return a {@code non-null} {@link FrozenUniverseBasedSet}
+	 * @throws NullPointerException if {@code set} is {@code null}
+	 */
+	public static <E> FrozenUniverseBasedSet<E> intern(UniverseBasedSet<E> set) {
+		return FrozenSetPool.DEFAULT.intern(set);
+	}
+	
+	/**
+	 * Creates a set over {@code projection} that contains the elements of 
+	 * {@code set} that are in the projection.
+	 * <p>
+	 * The present indices are gathered word by word from the index set of 
+	 * {@code set}, or visited one by one if it has no 
+	 * {@link UniverseBasedSet#hasWordAccess() word access}, and mapped through
+	 * the projection, without looking up elements.
+	 * 
+	 * @param set set over the parent universe of the projection
+	 * @param projection projection to create the new set for
+	 * @return a new {@link UniverseBasedSet}
+	 * @throws IllegalArgumentException if {@code set} is not over the parent 
+	 *     universe of {@code projection}
+	 */
+	public static <E> UniverseBasedSet<E> project(UniverseBasedSet<E> set, final ProjectedIndexedUniverse<E> projection) {
+		checkNotNull(set, "set");
+		checkArgument(set.subSet() == checkNotNull(projection, "projection").parent(), "Set is not over the parent universe of the projection");
+		IndexSet source = set.indexSet();
+		final IndexSet target = IndexSetBuilder.emptyFor(projection);
+		if (!IndexSetBuilder.hasWords(source)) {
+			source.forEachIndex(new IndexConsumer() {
+				@Override
+				public void accept(int index) {
+					int projected = projection.projectedIndexOf(index);
+					if (projected >= 0) {
+						target.setAt(projected);
+					}
+				}
+			});
+			return wrap(projection, target);
+		}
+		int wordCount = source.wordCount();
+		for (int wordIndex = 0; wordIndex < wordCount; wordIndex++) {
+			long word = source.wordAt(wordIndex);
+			int offset = wordIndex << 6;
+			while (word != 0) {
+				int projected = projection.projectedIndexOf(offset + Long.numberOfTrailingZeros(word));
+				if (projected >= 0) {
+					target.setAt(projected);
+				}
+				word &= word - 1;
+			}
+		}
+		
+		return wrap(projection, target);
+	}
+	
+	/**
+	 * Creates a set over the parent universe of {@code projection} that 
+	 * contains the elements of {@code set}.
+	 * <p>
+	 * The present indices are scattered into the new index set through the 
+	 * projection, without looking up elements.
+	 * 
+	 * @param set set over the projection
+	 * @param projection projection that {@code set} is over
+	 * @return a new {@link UniverseBasedSet}
+	 * @throws IllegalArgumentException if {@code set} is not over {@code projection}
+	 */
+	public static <E> UniverseBasedSet<E> expand(UniverseBasedSet<E> set, final ProjectedIndexedUniverse<E> projection) {
+		checkNotNull(set, "set");
+		checkArgument(set.subSet() == checkNotNull(projection, "projection"), "Set is not over the projection");
+		IndexSet source = set.indexSet();
+		final IndexSet target = IndexSetBuilder.emptyFor(projection.parent());
+		if (!IndexSetBuilder.hasWords(source)) {
+			source.forEachIndex(new IndexConsumer() {
+				@Override
+				public void accept(int index) {
+					target.setAt(projection.parentIndexOf(index));
+				}
+			});
+			return wrap(projection.parent(), target);
+		}
+		int wordCount = source.wordCount();
+		for (int wordIndex = 0; wordIndex < wordCount; wordIndex++) {
+			long word = source.wordAt(wordIndex);
+			int offset = wordIndex << 6;
+			while (word != 0) {
+				target.setAt(projection.parentIndexOf(offset + Long.numberOfTrailingZeros(word)));
+				word &= word - 1;
+			}
+		}
+		
+		return wrap(projection.parent(), target);
+	}
+	
+	/**
+	 * Returns an unmodifiable view of the union of {@code first} and 
+	 * {@code second}, that is computed from the words of the operands when it 
+	 * is used.
+	 * <p>
+	 * The operands are {@link UniverseBasedSet}s or views that were returned 
+	 * by this or the other view methods, so that views can be combined into a 
+	 * tree that is evaluated in a single pass, see {@link Query}. Use 
+	 * {@link Query#toSet()} or {@link Query#materializeInto(UniverseBasedSet)}
+	 * to materialize the view.
+	 * 
+	 * @param first first operand
+	 * @param second second operand
+	 * @return a {@code non-null} view
+	 * @throws NullPointerException if either operand is {@code null}
+	 * @throws IllegalArgumentException if an operand is not a 
+	 *     {@link UniverseBasedSet} or view, or if the operands are over 
+	 *     different universes
+	 */
+	public static <E> Query<E> union(Set<E> first, Set<E> second) {
+		return Query.of(first).or(Query.of(second));
+	}
+	
+	/**
+	 * Returns an unmodifiable view of the intersection of {@code first} and 
+	 * {@code second}, see {@link #union(Set, Set)}.
+	 */
+	public static <E> Query<E> intersection(Set<E> first, Set<E> second) {
+		return Query.of(first).and(Query.of(second));
+	}
+	
+	/**
+	 * Returns an unmodifiable view of the elements of {@code first} that are 
+	 * not in {@code second}, see {@link #union(Set, Set)}.
+	 */
+	public static <E> Query<E> difference(Set<E> first, Set<E> second) {
+		return Query.of(first).andNot(Query.of(second));
+	}
+	
+	/**
+	 * Returns an unmodifiable view of the elements that are in either 
+	 * {@code first} or {@code second}, but not in both, see 
+	 * {@link #union(Set, Set)}.
+	 */
+	public static <E> Query<E> symmetricDifference(Set<E> first, Set<E> second) {
+		return Query.of(first).xor(Query.of(second));
+	}
+	
+	/**
+	 * Creates an empty set for a universe that is created from the provided 
+	 * elements, see {@link IndexedUniverses#create(Set)}.
+	 * 
+	 * @param universe the possible elements
+	 * @return a new, empty {@link UniverseBasedSet}
+	 * @throws NullPointerException if {@code universe} is {@code null}
+	 */
+	public static <E> UniverseBasedSet<E> create(Set<E> universe) {
+		checkNotNull(universe, "universe");
+		
+		if (universe instanceof UniverseBasedSet) {
+			return create(((UniverseBasedSet<E>)universe).subSet());
+		}
+		
+		return create(IndexedUniverses.create(universe));
+	}
+	
+	/**
+	 * Creates a set that adopts the provided index set, using the specialized 
+	 * implementation for its type if there is one.
+	 */
+	static <E> UniverseBasedSet<E> wrap(IndexedUniverse<E> universe, IndexSet indexSet) {
+		if (indexSet instanceof MiniIndexSet) {
+			return new MiniUniverseBasedSet<>(universe, (MiniIndexSet)indexSet);
+		}
+		
+		return new UniverseBasedSet<>(universe, indexSet);
+	}
+}
@@ -0,0 +1,873 @@
+package org.emmef.cheapsets;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.emmef.cheapsets.indexsets.IndexSetBuilder;
+import org.emmef.cheapsets.universes.IndexedUniverses;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Table;
+import com.google.common.collect.Tables;
+
+/**
+ * Maps pairs of a row key inside one {@link IndexedUniverse} and a column key
+ * inside another to values.
+ * <p>
+ * A dense table keeps all cells in one array, that is indexed by
+ * {@code rowIndex * columnBoundary + columnIndex}. A table that is created with
+ * {@link #sparse(IndexedUniverse, IndexedUniverse)} allocates the cells of a
+ * row when the first value is put in that row, which suits tables with a low
+ * fill rate. Both record the present columns of each row in an {@link IndexSet}.
+ * <p>
+ * Keys that are not in their universe are not allowed, and neither keys nor
+ * values can be {@code null}. Row views are fast; column views visit every row.
+ *
+ * @param <R> type of row keys
+ * @param <C> type of column keys
+ * @param <V> type of values
+ * @see UniverseBasedMap
+ * @see UniverseBasedDoubleTable
+ */
+public class UniverseBasedTable<R, C, V> implements Table<R, C, V> {
+	private final IndexedUniverse<R> rows;
+	private final IndexedUniverse<C> columns;
+	private final int columnBoundary;
+	private final Object[] cells;
+	private final Object[][] sparseRows;
+	private final IndexSet[] rowPresence;
+	private int size;
+
+	/**
+	 * Creates a dense table that can only have row keys and column keys from
+	 * the provided universes.
+	 *
+	 * @param rows universe that contains all possible row keys
+	 * @param columns universe that contains all possible column keys
+	 * @throws IllegalArgumentException if the number of cells does not fit in an array,
+	 *     or if either universe can grow
+	 */
+	public UniverseBasedTable(IndexedUniverse<R> rows, IndexedUniverse<C> columns) {
+		this(rows, columns, false);
+	}
+
+	private UniverseBasedTable(IndexedUniverse<R> rows, IndexedUniverse<C> columns, boolean sparse) {
+		this.rows = IndexedUniverses.checkNotGrowing(checkNotNull(rows, "rows"));
+		this.columns = IndexedUniverses.checkNotGrowing(checkNotNull(columns, "columns"));
+		this.columnBoundary = columns.indexBoundary();
+		this.rowPresence = new IndexSet[rows.indexBoundary()];
+		if (sparse) {
+			this.cells = null;
+			this.sparseRows = new Object[rows.indexBoundary()][];
+		}
+		else {
+			long cellCount = (long)rows.indexBoundary() * columnBoundary;
+			checkArgument(cellCount <= Integer.MAX_VALUE, "Too many cells for a dense table: %s", cellCount);
+			this.cells = new Object[(int)cellCount];
+			this.sparseRows = null;
+		}
+	}
+
+	/**
+	 * Creates a table that can only have row keys and column keys from the
+	 * provided universes and that allocates the cells of a row when the first
+	 * value is put in that row.
+	 *
+	 * @param rows universe that contains all possible row keys
+	 * @param columns universe that contains all possible column keys
+	 * @return a new, empty {@link UniverseBasedTable}
+	 * @throws IllegalArgumentException if either universe can grow
+	 */
+	public static <R, C, V> UniverseBasedTable<R, C, V> sparse(IndexedUniverse<R> rows, IndexedUniverse<C> columns) {
+		return new UniverseBasedTable<>(rows, columns, true);
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	@Override
+	public boolean contains(Object rowKey, Object columnKey) {
+		int row = rows.indexOf(rowKey);
+		int column = columns.indexOf(columnKey);
+		
+		return row >= 0 && column >= 0 && presentAt(row, column);
+	}
+
+	@Override
+	public boolean containsRow(Object rowKey) {
+		int row = rows.indexOf(rowKey);
+		
+		return row >= 0 && rowPresence[row] != null && !rowPresence[row].isEmpty();
+	}
+
+	@Override
+	public boolean containsColumn(Object columnKey) {
+		int column = columns.indexOf(columnKey);
+		
+		return column >= 0 && nextRowWithColumn(0, column) >= 0;
+	}
+
+	@Override
+	public boolean containsValue(Object value) {
+		if (value == null) {
+			return false;
+		}
+		for (int row = 0; row < rowPresence.length; row++) {
+			IndexSet presence = rowPresence[row];
+			if (presence != null) {
+				for (int column = presence.nextPresent(0); column >= 0; column = presence.nextPresent(column + 1)) {
+					if (value.equals(valueAt(row, column))) {
+						return true;
+					}
+				}
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public V get(Object rowKey, Object columnKey) {
+		int row = rows.indexOf(rowKey);
+		int column = columns.indexOf(columnKey);
+		
+		return row >= 0 && column >= 0 && presentAt(row, column) ? valueAt(row, column) : null;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * @throws ElementNotInUniverseException if a key is not in its universe
+	 */
+	@Override
+	public V put(R rowKey, C columnKey, V value) {
+		return putAt(validIndexOf(rows, rowKey), validIndexOf(columns, columnKey), checkNotNull(value, "value"));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * @throws ElementNotInUniverseException if a key is not in its universe
+	 */
+	@Override
+	public void putAll(Table<? extends R, ? extends C, ? extends V> table) {
+		for (Cell<? extends R, ? extends C, ? extends V> cell : table.cellSet()) {
+			put(cell.getRowKey(), cell.getColumnKey(), cell.getValue());
+		}
+	}
+
+	@Override
+	public V remove(Object rowKey, Object columnKey) {
+		int row = rows.indexOf(rowKey);
+		int column = columns.indexOf(columnKey);
+		
+		return row >= 0 && column >= 0 ? removeAt(row, column) : null;
+	}
+
+	@Override
+	public void clear() {
+		for (int row = 0; row < rowPresence.length; row++) {
+			clearRow(row);
+		}
+	}
+
+	/**
+	 * Returns a view of the cells in the row of {@code rowKey}, that supports
+	 * all map operations.
+	 *
+	 * @throws ElementNotInUniverseException if the row key is not in its universe
+	 */
+	@Override
+	public Map<C, V> row(R rowKey) {
+		return new Row(validIndexOf(rows, rowKey));
+	}
+
+	/**
+	 * Returns a view of the cells in the column of {@code columnKey}, that supports
+	 * all map operations. Operations on the view visit every row.
+	 *
+	 * @throws ElementNotInUniverseException if the column key is not in its universe
+	 */
+	@Override
+	public Map<R, V> column(C columnKey) {
+		return new Column(validIndexOf(columns, columnKey));
+	}
+
+	@Override
+	public Set<Cell<R, C, V>> cellSet() {
+		return new AbstractSet<Cell<R, C, V>>() {
+			@Override
+			public boolean contains(Object o) {
+				if (!(o instanceof Cell)) {
+					return false;
+				}
+				Cell<?, ?, ?> cell = (Cell<?, ?, ?>)o;
+				
+				return cell.getValue() != null && cell.getValue().equals(get(cell.getRowKey(), cell.getColumnKey()));
+			}
+			
+			@Override
+			public boolean remove(Object o) {
+				if (!contains(o)) {
+					return false;
+				}
+				Cell<?, ?, ?> cell = (Cell<?, ?, ?>)o;
+				UniverseBasedTable.this.remove(cell.getRowKey(), cell.getColumnKey());
+				
+				return true;
+			}
+			
+			@Override
+			public void clear() {
+				UniverseBasedTable.this.clear();
+			}
+			
+			@Override
+			public int size() {
+				return size;
+			}
+			
+			@Override
+			public Iterator<Cell<R, C, V>> iterator() {
+				return new CellIterator<Cell<R, C, V>>() {
+					@Override
+					Cell<R, C, V> valueAt(int row, int column) {
+						return Tables.immutableCell(rows.elementAt(row), columns.elementAt(column), UniverseBasedTable.this.valueAt(row, column));
+					}
+				};
+			}
+		};
+	}
+
+	@Override
+	public Set<R> rowKeySet() {
+		return rowMap().keySet();
+	}
+
+	@Override
+	public Set<C> columnKeySet() {
+		return columnMap().keySet();
+	}
+
+	@Override
+	public Collection<V> values() {
+		return new AbstractCollection<V>() {
+			@Override
+			public void clear() {
+				UniverseBasedTable.this.clear();
+			}
+			
+			@Override
+			public int size() {
+				return size;
+			}
+			
+			@Override
+			public Iterator<V> iterator() {
+				return new CellIterator<V>() {
+					@Override
+					V valueAt(int row, int column) {
+						return UniverseBasedTable.this.valueAt(row, column);
+					}
+				};
+			}
+		};
+	}
+
+	@Override
+	public Map<R, Map<C, V>> rowMap() {
+		return new AbstractMap<R, Map<C, V>>() {
+			@Override
+			public boolean containsKey(Object key) {
+				return containsRow(key);
+			}
+			
+			@Override
+			public Map<C, V> get(Object key) {
+				int row = rows.indexOf(key);
+				
+				return row >= 0 && containsRow(key) ? new Row(row) : null;
+			}
+			
+			@Override
+			public Map<C, V> remove(Object key) {
+				int row = rows.indexOf(key);
+				if (row < 0 || !containsRow(key)) {
+					return null;
+				}
+				Map<C, V> removed = new Row(row).snapshot();
+				clearRow(row);
+				
+				return removed;
+			}
+			
+			@Override
+			public Set<Map.Entry<R, Map<C, V>>> entrySet() {
+				return new AbstractSet<Map.Entry<R, Map<C, V>>>() {
+					@Override
+					public int size() {
+						int count = 0;
+						for (int row = nextNonEmptyRow(0); row >= 0; row = nextNonEmptyRow(row + 1)) {
+							count++;
+						}
+						return count;
+					}
+					
+					@Override
+					public Iterator<Map.Entry<R, Map<C, V>>> iterator() {
+						return new KeyIterator<Map.Entry<R, Map<C, V>>>() {
+							@Override
+							int nextKey(int fromIndex) {
+								return nextNonEmptyRow(fromIndex);
+							}
+							
+							@Override
+							Map.Entry<R, Map<C, V>> valueAt(int row) {
+								return new SimpleImmutableEntry<R, Map<C, V>>(rows.elementAt(row), new Row(row));
+							}
+							
+							@Override
+							void removeAt(int row) {
+								clearRow(row);
+							}
+						};
+					}
+				};
+			}
+		};
+	}
+
+	@Override
+	public Map<C, Map<R, V>> columnMap() {
+		return new AbstractMap<C, Map<R, V>>() {
+			@Override
+			public boolean containsKey(Object key) {
+				return containsColumn(key);
+			}
+			
+			@Override
+			public Map<R, V> get(Object key) {
+				int column = columns.indexOf(key);
+				
+				return column >= 0 && nextRowWithColumn(0, column) >= 0 ? new Column(column) : null;
+			}
+			
+			@Override
+			public Map<R, V> remove(Object key) {
+				int column = columns.indexOf(key);
+				if (column < 0 || nextRowWithColumn(0, column) < 0) {
+					return null;
+				}
+				Map<R, V> removed = new Column(column).snapshot();
+				clearColumn(column);
+				
+				return removed;
+			}
+			
+			@Override
+			public Set<Map.Entry<C, Map<R, V>>> entrySet() {
+				return new AbstractSet<Map.Entry<C, Map<R, V>>>() {
+					@Override
+					public int size() {
+						int count = 0;
+						for (int column = nextNonEmptyColumn(0); column >= 0; column = nextNonEmptyColumn(column + 1)) {
+							count++;
+						}
+						return count;
+					}
+					
+					@Override
+					public Iterator<Map.Entry<C, Map<R, V>>> iterator() {
+						return new KeyIterator<Map.Entry<C, Map<R, V>>>() {
+							@Override
+							int nextKey(int fromIndex) {
+								return nextNonEmptyColumn(fromIndex);
+							}
+							
+							@Override
+							Map.Entry<C, Map<R, V>> valueAt(int column) {
+								return new SimpleImmutableEntry<C, Map<R, V>>(columns.elementAt(column), new Column(column));
+							}
+							
+							@Override
+							void removeAt(int column) {
+								clearColumn(column);
+							}
+						};
+					}
+				};
+			}
+		};
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (obj == this) {
+			return true;
+		}
+		if (!(obj instanceof Table)) {
+			return false;
+		}
+		
+		return cellSet().equals(((Table<?, ?, ?>)obj).cellSet());
+	}
+
+	@Override
+	public int hashCode() {
+		return cellSet().hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return rowMap().toString();
+	}
+
+	private boolean presentAt(int row, int column) {
+		IndexSet presence = rowPresence[row];
+		
+		return presence != null && presence.presentAt(column);
+	}
+
+	@SuppressWarnings("unchecked")
+	private V valueAt(int row, int column) {
+		if (cells != null) {
+			return (V)cells[row * columnBoundary + column];
+		}
+		return (V)sparseRows[row][column];
+	}
+
+	private V putAt(int row, int column, V value) {
+		IndexSet presence = rowPresence[row];
+		if (presence == null) {
+			presence = IndexSetBuilder.emptyFor(columnBoundary);
+			rowPresence[row] = presence;
+			if (sparseRows != null) {
+				sparseRows[row] = new Object[columnBoundary];
+			}
+		}
+		V previous = presence.setAt(column) ? null : valueAt(row, column);
+		if (previous == null) {
+			size++;
+		}
+		if (cells != null) {
+			cells[row * columnBoundary + column] = value;
+		}
+		else {
+			sparseRows[row][column] = value;
+		}
+		
+		return previous;
+	}
+
+	private V removeAt(int row, int column) {
+		IndexSet presence = rowPresence[row];
+		if (presence == null || !presence.removeAt(column)) {
+			return null;
+		}
+		V previous = valueAt(row, column);
+		if (cells != null) {
+			cells[row * columnBoundary + column] = null;
+		}
+		else {
+			sparseRows[row][column] = null;
+		}
+		size--;
+		
+		return previous;
+	}
+
+	private void clearRow(int row) {
+		IndexSet presence = rowPresence[row];
+		if (presence == null) {
+			return;
+		}
+		for (int column = presence.nextPresent(0); column >= 0; column = presence.nextPresent(column + 1)) {
+			removeAt(row, column);
+		}
+		if (sparseRows != null) {
+			sparseRows[row] = null;
+			rowPresence[row] = null;
+		}
+	}
+
+	private void clearColumn(int column) {
+		for (int row = nextRowWithColumn(0, column); row >= 0; row = nextRowWithColumn(row + 1, column)) {
+			removeAt(row, column);
+		}
+	}
+
+	private int nextNonEmptyRow(int fromRow) {
+		for (int row = fromRow; row < rowPresence.length; row++) {
+			if (rowPresence[row] != null && !rowPresence[row].isEmpty()) {
+				return row;
+			}
+		}
+		return -1;
+	}
+
+	private int nextRowWithColumn(int fromRow, int column) {
+		for (int row = fromRow; row < rowPresence.length; row++) {
+			if (presentAt(row, column)) {
+				return row;
+			}
+		}
+		return -1;
+	}
+
+	private int nextNonEmptyColumn(int fromColumn) {
+		for (int column = fromColumn; column < columnBoundary; column++) {
+			if (nextRowWithColumn(0, column) >= 0) {
+				return column;
+			}
+		}
+		return -1;
+	}
+
+	private int nextColumnInRow(int row, int fromColumn) {
+		IndexSet presence = rowPresence[row];
+		
+		return presence != null ? presence.nextPresent(fromColumn) : -1;
+	}
+
+	private static <T> int validIndexOf(IndexedUniverse<T> universe, T key) {
+		if (key == null) {
+			throw new NullPointerException(UniverseBasedTable.class.getSimpleName() + " cannot contain null keys");
+		}
+		int indexOf = universe.indexOf(key);
+		if (indexOf >= 0) {
+			return indexOf;
+		}
+		throw new ElementNotInUniverseException(UniverseBasedTable.class.getSimpleName() + ": key not in universe: " + key);
+	}
+
+	/**
+	 * Iterates keys of a row or column map, where keys are identified by index.
+	 */
+	private abstract class KeyIterator<T> implements Iterator<T> {
+		private int next = nextKey(0);
+		private int removePosition = -1;
+		
+		abstract int nextKey(int fromIndex);
+		
+		abstract T valueAt(int index);
+		
+		abstract void removeAt(int index);
+		
+		@Override
+		public boolean hasNext() {
+			return next >= 0;
+		}
+		
+		@Override
+		public T next() {
+			if (next < 0) {
+				throw new NoSuchElementException();
+			}
+			removePosition = next;
+			next = nextKey(next + 1);
+			
+			return valueAt(removePosition);
+		}
+		
+		@Override
+		public void remove() {
+			checkState(removePosition >= 0, "Can only call remove() ONCE, directly after a call to next()");
+			removeAt(removePosition);
+			removePosition = -1;
+		}
+	}
+
+	/**
+	 * Iterates all present cells, row by row.
+	 */
+	private abstract class CellIterator<T> implements Iterator<T> {
+		private int nextRow = -1;
+		private int nextColumn = -1;
+		private int removeRow = -1;
+		private int removeColumn = -1;
+		
+		CellIterator() {
+			advance(0, 0);
+		}
+		
+		abstract T valueAt(int row, int column);
+		
+		@Override
+		public boolean hasNext() {
+			return nextRow >= 0;
+		}
+		
+		@Override
+		public T next() {
+			if (nextRow < 0) {
+				throw new NoSuchElementException();
+			}
+			removeRow = nextRow;
+			removeColumn = nextColumn;
+			advance(nextRow, nextColumn + 1);
+			
+			return valueAt(removeRow, removeColumn);
+		}
+		
+		@Override
+		public void remove() {
+			checkState(removeRow >= 0, "Can only call remove() ONCE, directly after a call to next()");
+			removeAt(removeRow, removeColumn);
+			removeRow = -1;
+		}
+		
+		private void advance(int fromRow, int fromColumn) {
+			int column = fromColumn;
+			for (int row = fromRow; row < rowPresence.length; row++) {
+				int next = nextColumnInRow(row, column);
+				if (next >= 0) {
+					nextRow = row;
+					nextColumn = next;
+					return;
+				}
+				column = 0;
+			}
+			nextRow = -1;
+		}
+	}
+
+	/**
+	 * View of the cells in one row.
+	 */
+	private final class Row extends AbstractMap<C, V> {
+		private final int row;
+		
+		Row(int row) {
+			this.row = row;
+		}
+		
+		@Override
+		public int size() {
+			IndexSet presence = rowPresence[row];
+			
+			return presence != null ? presence.count() : 0;
+		}
+		
+		@Override
+		public boolean containsKey(Object key) {
+			int column = columns.indexOf(key);
+			
+			return column >= 0 && presentAt(row, column);
+		}
+		
+		@Override
+		public V get(Object key) {
+			int column = columns.indexOf(key);
+			
+			return column >= 0 && presentAt(row, column) ? valueAt(row, column) : null;
+		}
+		
+		@Override
+		public V put(C key, V value) {
+			return putAt(row, validIndexOf(columns, key), checkNotNull(value, "value"));
+		}
+		
+		@Override
+		public V remove(Object key) {
+			int column = columns.indexOf(key);
+			
+			return column >= 0 ? removeAt(row, column) : null;
+		}
+		
+		@Override
+		public void clear() {
+			clearRow(row);
+		}
+		
+		@Override
+		public Set<Map.Entry<C, V>> entrySet() {
+			return new AbstractSet<Map.Entry<C, V>>() {
+				@Override
+				public int size() {
+					return Row.this.size();
+				}
+				
+				@Override
+				public Iterator<Map.Entry<C, V>> iterator() {
+					return new KeyIterator<Map.Entry<C, V>>() {
+						@Override
+						int nextKey(int fromIndex) {
+							return nextColumnInRow(row, fromIndex);
+						}
+						
+						@Override
+						Map.Entry<C, V> valueAt(int column) {
+							return new CellEntry<C>(columns.elementAt(column), row, column);
+						}
+						
+						@Override
+						void removeAt(int column) {
+							UniverseBasedTable.this.removeAt(row, column);
+						}
+					};
+				}
+			};
+		}
+		
+		Map<C, V> snapshot() {
+			return ImmutableMap.copyOf(this);
+		}
+	}
+
+	/**
+	 * View of the cells in one column.
+	 */
+	private final class Column extends AbstractMap<R, V> {
+		private final int column;
+		
+		Column(int column) {
+			this.column = column;
+		}
+		
+		@Override
+		public int size() {
+			int count = 0;
+			for (int row = nextRowWithColumn(0, column); row >= 0; row = nextRowWithColumn(row + 1, column)) {
+				count++;
+			}
+			return count;
+		}
+		
+		@Override
+		public boolean containsKey(Object key) {
+			int row = rows.indexOf(key);
+			
+			return row >= 0 && presentAt(row, column);
+		}
+		
+		@Override
+		public V get(Object key) {
+			int row = rows.indexOf(key);
+			
+			return row >= 0 && presentAt(row, column) ? valueAt(row, column) : null;
+		}
+		
+		@Override
+		public V put(R key, V value) {
+			return putAt(validIndexOf(rows, key), column, checkNotNull(value, "value"));
+		}
+		
+		@Override
+		public V remove(Object key) {
+			int row = rows.indexOf(key);
+			
+			return row >= 0 ? removeAt(row, column) : null;
+		}
+		
+		@Override
+		public void clear() {
+			clearColumn(column);
+		}
+		
+		@Override
+		public Set<Map.Entry<R, V>> entrySet() {
+			return new AbstractSet<Map.Entry<R, V>>() {
+				@Override
+				public int size() {
+					return Column.this.size();
+				}
+				
+				@Override
+				public Iterator<Map.Entry<R, V>> iterator() {
+					return new KeyIterator<Map.Entry<R, V>>() {
+						@Override
+						int nextKey(int fromIndex) {
+							return nextRowWithColumn(fromIndex, column);
+						}
+						
+						@Override
+						Map.Entry<R, V> valueAt(int row) {
+							return new CellEntry<R>(rows.elementAt(row), row, column);
+						}
+						
+						@Override
+						void removeAt(int row) {
+							UniverseBasedTable.this.removeAt(row, column);
+						}
+					};
+				}
+			};
+		}
+		
+		Map<R, V> snapshot() {
+			return ImmutableMap.copyOf(this);
+		}
+	}
+
+	/**
+	 * Entry of a row or column view, that writes through to its cell.
+	 */
+	private final class CellEntry<K> implements Map.Entry<K, V> {
+		private final K key;
+		private final int row;
+		private final int column;
+		private V value;
+		
+		CellEntry(K key, int row, int column) {
+			this.key = key;
+			this.row = row;
+			this.column = column;
+			this.value = UniverseBasedTable.this.valueAt(row, column);
+		}
+		
+		@Override
+		public K getKey() {
+			return key;
+		}
+		
+		@Override
+		public V getValue() {
+			return value;
+		}
+		
+		@Override
+		public V setValue(V value) {
+			V previous = putAt(row, column, checkNotNull(value, "value"));
+			this.value = value;
+			
+			return previous;
+		}
+		
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Map.Entry)) {
+				return false;
+			}
+			Map.Entry<?, ?> entry = (Map.Entry<?, ?>)obj;
+			
+			return Objects.equal(key, entry.getKey()) && Objects.equal(value, entry.getValue());
+		}
+		
+		@Override
+		public int hashCode() {
+			return key.hashCode() ^ value.hashCode();
+		}
+		
+		@Override
+		public String toString() {
+			return key + "=" + value;
+		}
+	}
+}
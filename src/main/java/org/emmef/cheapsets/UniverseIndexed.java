@@ -0,0 +1,30 @@
+package org.emmef.cheapsets;
+
+/**
+ * Element that knows its own index in one or more universes.
+ * <p>
+ * Universes ask elements that implement this interface for their index 
+ * before they compute a hash code or compare elements. A universe only uses 
+ * the returned index if it holds this very element at that index, so an 
+ * element that returns a wrong index is just looked up the usual way.
+ * <p>
+ * An element typically stores its index in a field when its universe is 
+ * created, for example:
+ * <pre>
+ * int indexIn(IndexedUniverse&lt;?&gt; universe) {
+ *     return universe == this.universe ? this.index : -1;
+ * }
+ * </pre>
+ * 
+ * @documented 2026-10-19
+ */
+public interface UniverseIndexed {
+	/**
+	 * Returns the index of this element in {@code universe}, or -1 if this 
+	 *     element does not know it.
+	 * 
+	 * @param universe universe that looks up this element
+	 * @return the index of this element in {@code universe}, or -1
+	 */
+	int indexIn(IndexedUniverse<?> universe);
+}
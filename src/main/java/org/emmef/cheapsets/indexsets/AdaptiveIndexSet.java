@@ -0,0 +1,450 @@
+package org.emmef.cheapsets.indexsets;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.emmef.cheapsets.IndexConsumer;
+import org.emmef.cheapsets.IndexCursor;
+import org.emmef.cheapsets.IndexSet;
+
+/**
+ * Implementation of {@link IndexSet} that switches between a sorted array 
+ * of indices and a bitmap, depending on the number of present indices.
+ * <p>
+ * The set starts as a sorted array, that takes 32 bits per present index. 
+ * Once that becomes larger than a bitmap over the whole bound, the set 
+ * converts to a bitmap. It only converts back when the array would be half 
+ * the size of the bitmap, so that sets around the threshold do not convert 
+ * back and forth. The array can always hold a few indices, so that sets with
+ * a small bound do not convert on their first index.
+ * <p>
+ * Clearing the set keeps its representation, so that scratch sets that are 
+ * cleared and refilled do not convert or allocate on every cycle.
+ * <p>
+ * The number of conversions of all adaptive sets is available through
+ * {@link #toBitmapConversions()} and {@link #toSortedConversions()}.
+ */
+public final class AdaptiveIndexSet implements IndexSet {
+	private static final int INITIAL_CAPACITY = 4;
+	private static final int MIN_SORTED_LIMIT = 8;
+	private static final AtomicLong TO_BITMAP_CONVERSIONS = new AtomicLong();
+	private static final AtomicLong TO_SORTED_CONVERSIONS = new AtomicLong();
+	
+	private final int bound;
+	private final int sortedLimit;
+	private int count;
+	private int[] sorted;
+	private long[] words;
+	
+	AdaptiveIndexSet(int bound) {
+		if (bound < 1) {
+			throw new IllegalArgumentException(AdaptiveIndexSet.class.getSimpleName() + ": bound (" + bound + ") must positive");
+		}
+		this.bound = bound;
+		this.sortedLimit = Math.max(bound >> 5, MIN_SORTED_LIMIT);
+		this.count = 0;
+		this.sorted = new int[Math.min(INITIAL_CAPACITY, bound)];
+		this.words = null;
+	}
+	
+	private AdaptiveIndexSet(AdaptiveIndexSet source) {
+		this.bound = source.bound;
+		this.sortedLimit = source.sortedLimit;
+		this.count = source.count;
+		this.sorted = source.sorted != null ? Arrays.copyOf(source.sorted, Math.max(source.count, Math.min(INITIAL_CAPACITY, bound))) : null;
+		this.words = source.words != null ? source.words.clone() : null;
+	}
+	
+	/**
+	 * Returns the number of times that any adaptive index set converted from 
+	 * a sorted array to a bitmap.
+	 * 
+	 * @return a zero or positive number
+	 */
+	public static long toBitmapConversions() {
+		return TO_BITMAP_CONVERSIONS.get();
+	}
+	
+	/**
+	 * Returns the number of times that any adaptive index set converted from 
+	 * a bitmap to a sorted array.
+	 * 
+	 * @return a zero or positive number
+	 */
+	public static long toSortedConversions() {
+		return TO_SORTED_CONVERSIONS.get();
+	}
+	
+	/**
+	 * Returns whether the set currently uses a bitmap.
+	 * 
+	 * @return {@code true} if the set uses a bitmap, {@code false} if it uses a sorted array.
+	 */
+	public boolean isBitmap() {
+		return words != null;
+	}
+
+	@Override
+	public int count() {
+		return count;
+	}
+
+	@Override
+	public int bound() {
+		return bound;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return count == 0;
+	}
+
+	@Override
+	public boolean presentAt(int index) {
+		validIndex(index);
+		if (words != null) {
+			return (words[index >> 6] & (1L << index)) != 0;
+		}
+		
+		return Arrays.binarySearch(sorted, 0, count, index) >= 0;
+	}
+
+	@Override
+	public boolean setAt(int index) {
+		validIndex(index);
+		if (words != null) {
+			int elem = index >> 6;
+			long old = words[elem];
+			words[elem] = old | (1L << index);
+			if (old == words[elem]) {
+				return false;
+			}
+			count++;
+			return true;
+		}
+		int search = Arrays.binarySearch(sorted, 0, count, index);
+		if (search >= 0) {
+			return false;
+		}
+		if (count + 1 > sortedLimit) {
+			convertToBitmap();
+			return setAt(index);
+		}
+		int insertAt = -search - 1;
+		if (count == sorted.length) {
+			sorted = Arrays.copyOf(sorted, Math.min(bound, count + (count >> 1) + 1));
+		}
+		System.arraycopy(sorted, insertAt, sorted, insertAt + 1, count - insertAt);
+		sorted[insertAt] = index;
+		count++;
+		
+		return true;
+	}
+
+	@Override
+	public boolean removeAt(int index) {
+		validIndex(index);
+		if (words != null) {
+			int elem = index >> 6;
+			long old = words[elem];
+			words[elem] = old & ~(1L << index);
+			if (old == words[elem]) {
+				return false;
+			}
+			count--;
+			if (count < sortedLimit >> 1) {
+				convertToSorted();
+			}
+			return true;
+		}
+		int search = Arrays.binarySearch(sorted, 0, count, index);
+		if (search < 0) {
+			return false;
+		}
+		System.arraycopy(sorted, search + 1, sorted, search, count - search - 1);
+		count--;
+		
+		return true;
+	}
+
+	@Override
+	public int nextPresent(int fromIndex) {
+		if (fromIndex < 0) {
+			throw new IndexOutOfBoundsException("Index (" + fromIndex + ") must not be negative");
+		}
+		if (fromIndex >= bound) {
+			return -1;
+		}
+		if (words == null) {
+			int search = Arrays.binarySearch(sorted, 0, count, fromIndex);
+			int position = search >= 0 ? search : -search - 1;
+			
+			return position < count ? sorted[position] : -1;
+		}
+		int elem = fromIndex >> 6;
+		long word = words[elem] & (-1L << fromIndex);
+		while (true) {
+			if (word != 0) {
+				return (elem << 6) + Long.numberOfTrailingZeros(word);
+			}
+			if (++elem == words.length) {
+				return -1;
+			}
+			word = words[elem];
+		}
+	}
+
+	@Override
+	public void forEachIndex(IndexConsumer consumer) {
+		if (words == null) {
+			for (int i = 0; i < count; i++) {
+				consumer.accept(sorted[i]);
+			}
+			return;
+		}
+		for (int i = 0; i < words.length; i++) {
+			long word = words[i];
+			int offset = i << 6;
+			while (word != 0) {
+				consumer.accept(offset + Long.numberOfTrailingZeros(word));
+				word &= word - 1;
+			}
+		}
+	}
+
+	@Override
+	public IndexCursor cursor() {
+		return new NextPresentCursor(this);
+	}
+
+	@Override
+	public boolean containsAll(IndexSet indexSet) {
+		if (words != null && indexSet instanceof AdaptiveIndexSet && ((AdaptiveIndexSet)indexSet).words != null) {
+			long[] otherWords = sameBound((AdaptiveIndexSet)indexSet).words;
+			for (int i = 0; i < words.length; i++) {
+				if ((otherWords[i] & ~words[i]) != 0) {
+					return false;
+				}
+			}
+			return true;
+		}
+		if (indexSet.count() > count) {
+			return false;
+		}
+		
+		return IndexSets.containsAll(this, indexSet);
+	}
+
+	@Override
+	public boolean addAll(IndexSet indexSet) {
+		if (words == null && count + indexSet.count() > sortedLimit) {
+			convertToBitmap();
+		}
+		if (words != null && indexSet instanceof AdaptiveIndexSet && ((AdaptiveIndexSet)indexSet).words != null) {
+			long[] otherWords = sameBound((AdaptiveIndexSet)indexSet).words;
+			boolean changed = false;
+			for (int i = 0; i < words.length; i++) {
+				long old = words[i];
+				words[i] = old | otherWords[i];
+				changed |= old != words[i];
+			}
+			recount();
+			return changed;
+		}
+		
+		return IndexSets.addAll(this, indexSet);
+	}
+
+	@Override
+	public boolean retainAll(IndexSet indexSet) {
+		if (words != null && indexSet instanceof AdaptiveIndexSet && ((AdaptiveIndexSet)indexSet).words != null) {
+			long[] otherWords = sameBound((AdaptiveIndexSet)indexSet).words;
+			boolean changed = false;
+			for (int i = 0; i < words.length; i++) {
+				long old = words[i];
+				words[i] = old & otherWords[i];
+				changed |= old != words[i];
+			}
+			recount();
+			return changed;
+		}
+		
+		return IndexSets.retainAll(this, indexSet);
+	}
+
+	@Override
+	public boolean removeAll(IndexSet indexSet) {
+		if (words != null && indexSet instanceof AdaptiveIndexSet && ((AdaptiveIndexSet)indexSet).words != null) {
+			long[] otherWords = sameBound((AdaptiveIndexSet)indexSet).words;
+			boolean changed = false;
+			for (int i = 0; i < words.length; i++) {
+				long old = words[i];
+				words[i] = old & ~otherWords[i];
+				changed |= old != words[i];
+			}
+			recount();
+			return changed;
+		}
+		
+		return IndexSets.removeAll(this, indexSet);
+	}
+
+	@Override
+	public void setRange(int fromIndex, int toIndex) {
+		IndexSets.checkRange(fromIndex, toIndex, bound);
+		if (words == null && count + (toIndex - fromIndex) > sortedLimit) {
+			convertToBitmap();
+		}
+		if (words == null) {
+			IndexSets.setRange(this, fromIndex, toIndex);
+			return;
+		}
+		IndexSets.setRange(words, fromIndex, toIndex);
+		recount();
+	}
+	
+	@Override
+	public void clearRange(int fromIndex, int toIndex) {
+		IndexSets.checkRange(fromIndex, toIndex, bound);
+		if (words == null) {
+			int start = nextPresent(fromIndex);
+			if (start < 0) {
+				return;
+			}
+			int first = Arrays.binarySearch(sorted, 0, count, start);
+			int last = first;
+			while (last < count && sorted[last] < toIndex) {
+				last++;
+			}
+			System.arraycopy(sorted, last, sorted, first, count - last);
+			count -= last - first;
+			return;
+		}
+		IndexSets.clearRange(words, fromIndex, toIndex);
+		recount();
+	}
+	
+	@Override
+	public void flipRange(int fromIndex, int toIndex) {
+		IndexSets.checkRange(fromIndex, toIndex, bound);
+		if (words == null && toIndex - fromIndex > sortedLimit) {
+			convertToBitmap();
+		}
+		if (words == null) {
+			IndexSets.flipRange(this, fromIndex, toIndex);
+			return;
+		}
+		IndexSets.flipRange(words, fromIndex, toIndex);
+		recount();
+	}
+	
+	@Override
+	public void complement() {
+		flipRange(0, bound);
+	}
+
+	@Override
+	public int wordCount() {
+		return IndexSets.wordCount(bound);
+	}
+
+	@Override
+	public long wordAt(int wordIndex) {
+		IndexSets.checkWordIndex(wordIndex, bound);
+		if (words != null) {
+			return words[wordIndex];
+		}
+		int offset = wordIndex << 6;
+		int search = Arrays.binarySearch(sorted, 0, count, offset);
+		long word = 0;
+		for (int i = search >= 0 ? search : -search - 1; i < count && sorted[i] < offset + 64; i++) {
+			word |= 1L << sorted[i];
+		}
+		
+		return word;
+	}
+
+	@Override
+	public long[] toLongArray() {
+		return words != null ? words.clone() : IndexSets.toLongArray(this);
+	}
+
+	@Override
+	public void setWords(long[] words, int offset) {
+		IndexSets.checkWords(words, offset, bound);
+		if (this.words == null) {
+			convertToBitmap();
+		}
+		System.arraycopy(words, offset, this.words, 0, this.words.length);
+		recount();
+	}
+
+	@Override
+	public void clear() {
+		count = 0;
+		if (words != null) {
+			Arrays.fill(words, 0L);
+		}
+	}
+
+	@Override
+	public AdaptiveIndexSet cloneEmpty() {
+		return new AdaptiveIndexSet(bound);
+	}
+
+	@Override
+	public AdaptiveIndexSet clone() {
+		return new AdaptiveIndexSet(this);
+	}
+	
+	private void convertToBitmap() {
+		long[] newWords = new long[(bound + 63) >> 6];
+		for (int i = 0; i < count; i++) {
+			int index = sorted[i];
+			newWords[index >> 6] |= 1L << index;
+		}
+		words = newWords;
+		sorted = null;
+		TO_BITMAP_CONVERSIONS.incrementAndGet();
+	}
+	
+	private void convertToSorted() {
+		int[] newSorted = new int[Math.max(count, Math.min(INITIAL_CAPACITY, bound))];
+		int position = 0;
+		for (int i = 0; i < words.length; i++) {
+			long word = words[i];
+			int offset = i << 6;
+			while (word != 0) {
+				newSorted[position++] = offset + Long.numberOfTrailingZeros(word);
+				word &= word - 1;
+			}
+		}
+		sorted = newSorted;
+		words = null;
+		TO_SORTED_CONVERSIONS.incrementAndGet();
+	}
+	
+	private void recount() {
+		int newCount = 0;
+		for (int i = 0; i < words.length; i++) {
+			newCount += Long.bitCount(words[i]);
+		}
+		count = newCount;
+		if (count < sortedLimit >> 1) {
+			convertToSorted();
+		}
+	}
+	
+	private AdaptiveIndexSet sameBound(AdaptiveIndexSet set) {
+		if (set.bound != bound) {
+			throw new IllegalArgumentException("Both " + AdaptiveIndexSet.class.getSimpleName() + "s must have the same bound");
+		}
+		return set;
+	}
+	
+	private void validIndex(int index) {
+		if (index < 0 || index >= bound) {
+			throw new IndexOutOfBoundsException("Index (" + index + ") must be between 0 and " + (bound - 1)); 
+		}
+	}
+}
@@ -0,0 +1,202 @@
+package org.emmef.cheapsets.indexsets;
+
+import java.util.Arrays;
+
+import org.emmef.cheapsets.IndexConsumer;
+import org.emmef.cheapsets.IndexCursor;
+import org.emmef.cheapsets.IndexSet;
+
+/**
+ * Implementation of {@link IndexSet} that can be cleared in constant time.
+ * <p>
+ * Every index has a generation stamp, and an index is only present if its 
+ * stamp equals the current generation of the set. Clearing the set just 
+ * starts a new generation, which makes all stamps stale at once. Only when 
+ * the generation counter runs out are the stamps reset, once every 
+ * {@link Integer#MAX_VALUE} clears.
+ * <p>
+ * The set uses an integer per index of the bound. It suits scratch sets that 
+ * are cleared much more often than they are iterated.
+ */
+class EpochIndexSet implements IndexSet {
+	private final int[] stamps;
+	private int generation;
+	private int count;
+	
+	EpochIndexSet(int bound) {
+		if (bound < 1) {
+			throw new IllegalArgumentException(EpochIndexSet.class.getSimpleName() + ": bound (" + bound + ") must positive");
+		}
+		this.stamps = new int[bound];
+		this.generation = 1;
+		this.count = 0;
+	}
+	
+	private EpochIndexSet(EpochIndexSet source) {
+		this.stamps = source.stamps.clone();
+		this.generation = source.generation;
+		this.count = source.count;
+	}
+
+	@Override
+	public int count() {
+		return count;
+	}
+
+	@Override
+	public int bound() {
+		return stamps.length;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return count == 0;
+	}
+
+	@Override
+	public boolean presentAt(int index) {
+		return stamps[validIndex(index)] == generation;
+	}
+
+	@Override
+	public boolean setAt(int index) {
+		if (stamps[validIndex(index)] == generation) {
+			return false;
+		}
+		stamps[index] = generation;
+		count++;
+		
+		return true;
+	}
+
+	@Override
+	public boolean removeAt(int index) {
+		if (stamps[validIndex(index)] != generation) {
+			return false;
+		}
+		stamps[index] = 0;
+		count--;
+		
+		return true;
+	}
+
+	@Override
+	public int nextPresent(int fromIndex) {
+		if (fromIndex < 0) {
+			throw new IndexOutOfBoundsException("Index (" + fromIndex + ") must not be negative");
+		}
+		if (count == 0) {
+			return -1;
+		}
+		for (int i = fromIndex; i < stamps.length; i++) {
+			if (stamps[i] == generation) {
+				return i;
+			}
+		}
+		
+		return -1;
+	}
+
+	@Override
+	public void forEachIndex(IndexConsumer consumer) {
+		int remaining = count;
+		for (int i = 0; remaining > 0 && i < stamps.length; i++) {
+			if (stamps[i] == generation) {
+				consumer.accept(i);
+				remaining--;
+			}
+		}
+	}
+
+	@Override
+	public IndexCursor cursor() {
+		return new NextPresentCursor(this);
+	}
+
+	@Override
+	public boolean containsAll(IndexSet set) {
+		return IndexSets.containsAll(this, set);
+	}
+
+	@Override
+	public boolean addAll(IndexSet set) {
+		return IndexSets.addAll(this, set);
+	}
+
+	@Override
+	public boolean retainAll(IndexSet set) {
+		return IndexSets.retainAll(this, set);
+	}
+
+	@Override
+	public boolean removeAll(IndexSet set) {
+		return IndexSets.removeAll(this, set);
+	}
+
+	@Override
+	public void setRange(int fromIndex, int toIndex) {
+		IndexSets.setRange(this, fromIndex, toIndex);
+	}
+	
+	@Override
+	public void clearRange(int fromIndex, int toIndex) {
+		IndexSets.clearRange(this, fromIndex, toIndex);
+	}
+	
+	@Override
+	public void flipRange(int fromIndex, int toIndex) {
+		IndexSets.flipRange(this, fromIndex, toIndex);
+	}
+	
+	@Override
+	public void complement() {
+		flipRange(0, bound());
+	}
+
+	@Override
+	public int wordCount() {
+		return IndexSets.wordCount(stamps.length);
+	}
+
+	@Override
+	public long wordAt(int wordIndex) {
+		return IndexSets.wordAt(this, wordIndex);
+	}
+
+	@Override
+	public long[] toLongArray() {
+		return IndexSets.toLongArray(this);
+	}
+
+	@Override
+	public void setWords(long[] words, int offset) {
+		IndexSets.setWords(this, words, offset);
+	}
+
+	@Override
+	public void clear() {
+		count = 0;
+		if (++generation == Integer.MAX_VALUE) {
+			Arrays.fill(stamps, 0);
+			generation = 1;
+		}
+	}
+
+	@Override
+	public EpochIndexSet cloneEmpty() {
+		return new EpochIndexSet(stamps.length);
+	}
+
+	@Override
+	public EpochIndexSet clone() {
+		return new EpochIndexSet(this);
+	}
+	
+	private int validIndex(int index) {
+		if (index >= 0 && index < stamps.length) {
+			return index;
+		}
+		
+		throw new IndexOutOfBoundsException("Index (" + index + ") must be between 0 and " + (stamps.length - 1)); 
+	}
+}
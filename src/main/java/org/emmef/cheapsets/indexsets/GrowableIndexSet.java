@@ -0,0 +1,282 @@
+package org.emmef.cheapsets.indexsets;
+
+import java.util.Arrays;
+
+import org.emmef.cheapsets.IndexConsumer;
+import org.emmef.cheapsets.IndexCursor;
+import org.emmef.cheapsets.IndexSet;
+import org.emmef.cheapsets.IndexedUniverse;
+
+/**
+ * Implementation of {@link IndexSet} for a universe that can grow, whose
+ * bound is the current index boundary of that universe.
+ * <p>
+ * The words are allocated lazily: indices beyond the allocated words are
+ * absent, and setting such an index grows the words. Sets created before
+ * the universe grew therefore stay valid.
+ */
+class GrowableIndexSet implements IndexSet {
+	private final IndexedUniverse<?> universe;
+	private long[] present;
+
+	GrowableIndexSet(IndexedUniverse<?> universe) {
+		this(universe, new long[IndexSets.wordCount(universe.indexBoundary())]);
+	}
+
+	private GrowableIndexSet(IndexedUniverse<?> universe, long[] present) {
+		this.universe = universe;
+		this.present = present;
+	}
+
+	@Override
+	public int count() {
+		int count = 0;
+		
+		for (int i = 0; i < present.length; i++) {
+			count += Long.bitCount(present[i]);
+		}
+		
+		return count;
+	}
+
+	@Override
+	public int bound() {
+		return universe.indexBoundary();
+	}
+
+	@Override
+	public boolean isEmpty() {
+		for (int i = 0; i < present.length; i++) {
+			if (present[i] != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public boolean presentAt(int index) {
+		int elem = validIndex(index) >> 6;
+		
+		return elem < present.length && (present[elem] & (1L << (index & 0x3f))) != 0;
+	}
+
+	@Override
+	public boolean setAt(int index) {
+		int elem = validIndex(index) >> 6;
+		ensureWords(elem + 1);
+		long oldPresent = present[elem];
+		long newPresent = oldPresent | (1L << (index & 0x3f));
+		
+		present[elem] = newPresent;
+		
+		return oldPresent != newPresent;
+	}
+
+	@Override
+	public boolean removeAt(int index) {
+		int elem = validIndex(index) >> 6;
+		if (elem >= present.length) {
+			return false;
+		}
+		long oldPresent = present[elem];
+		long newPresent = oldPresent & (-1L ^ (1L << (index & 0x3f)));
+		
+		present[elem] = newPresent;
+		
+		return oldPresent != newPresent;
+	}
+
+	@Override
+	public int nextPresent(int fromIndex) {
+		if (fromIndex < 0) {
+			throw new IndexOutOfBoundsException("Index (" + fromIndex + ") must not be negative");
+		}
+		int elem = fromIndex >> 6;
+		if (elem >= present.length) {
+			return -1;
+		}
+		long word = present[elem] & (-1L << (fromIndex & 0x3f));
+		while (true) {
+			if (word != 0) {
+				return (elem << 6) + Long.numberOfTrailingZeros(word);
+			}
+			if (++elem == present.length) {
+				return -1;
+			}
+			word = present[elem];
+		}
+	}
+
+	@Override
+	public void forEachIndex(IndexConsumer consumer) {
+		for (int i = 0; i < present.length; i++) {
+			long word = present[i];
+			int offset = i << 6;
+			while (word != 0) {
+				consumer.accept(offset + Long.numberOfTrailingZeros(word));
+				word &= word - 1;
+			}
+		}
+	}
+
+	@Override
+	public IndexCursor cursor() {
+		return new NextPresentCursor(this);
+	}
+
+	@Override
+	public boolean containsAll(IndexSet indexSet) {
+		if (!(indexSet instanceof GrowableIndexSet)) {
+			return IndexSets.containsAll(this, indexSet);
+		}
+		long[] other = ((GrowableIndexSet)indexSet).present;
+		for (int i = 0; i < other.length; i++) {
+			long word = i < present.length ? present[i] : 0L;
+			if ((other[i] & word) != other[i]) {
+				return false;
+			}
+		}
+		
+		return true;
+	}
+
+	@Override
+	public boolean addAll(IndexSet indexSet) {
+		if (!(indexSet instanceof GrowableIndexSet)) {
+			return IndexSets.addAll(this, indexSet);
+		}
+		long[] other = ((GrowableIndexSet)indexSet).present;
+		ensureWords(other.length);
+		boolean changed = false;
+		
+		for (int i = 0; i < other.length; i++) {
+			long oldPresent = present[i];
+			long newPresent = oldPresent | other[i];
+			present[i] = newPresent;
+			changed |= oldPresent != newPresent;
+		}
+		
+		return changed;
+	}
+
+	@Override
+	public boolean retainAll(IndexSet indexSet) {
+		if (!(indexSet instanceof GrowableIndexSet)) {
+			return IndexSets.retainAll(this, indexSet);
+		}
+		long[] other = ((GrowableIndexSet)indexSet).present;
+		boolean changed = false;
+		
+		for (int i = 0; i < present.length; i++) {
+			long oldPresent = present[i];
+			long newPresent = i < other.length ? oldPresent & other[i] : 0L;
+			present[i] = newPresent;
+			changed |= oldPresent != newPresent;
+		}
+		
+		return changed;
+	}
+
+	@Override
+	public boolean removeAll(IndexSet indexSet) {
+		if (!(indexSet instanceof GrowableIndexSet)) {
+			return IndexSets.removeAll(this, indexSet);
+		}
+		long[] other = ((GrowableIndexSet)indexSet).present;
+		boolean changed = false;
+		int length = Math.min(present.length, other.length);
+		
+		for (int i = 0; i < length; i++) {
+			long oldPresent = present[i];
+			long newPresent = oldPresent & (-1L ^ other[i]);
+			present[i] = newPresent;
+			changed |= oldPresent != newPresent;
+		}
+		
+		return changed;
+	}
+
+	@Override
+	public void setRange(int fromIndex, int toIndex) {
+		IndexSets.checkRange(fromIndex, toIndex, bound());
+		ensureWords(IndexSets.wordCount(toIndex));
+		IndexSets.setRange(present, fromIndex, toIndex);
+	}
+
+	@Override
+	public void clearRange(int fromIndex, int toIndex) {
+		IndexSets.checkRange(fromIndex, toIndex, bound());
+		IndexSets.clearRange(present, fromIndex, Math.min(toIndex, present.length << 6));
+	}
+
+	@Override
+	public void flipRange(int fromIndex, int toIndex) {
+		IndexSets.checkRange(fromIndex, toIndex, bound());
+		ensureWords(IndexSets.wordCount(toIndex));
+		IndexSets.flipRange(present, fromIndex, toIndex);
+	}
+
+	@Override
+	public void complement() {
+		int bound = bound();
+		ensureWords(IndexSets.wordCount(bound));
+		IndexSets.flipRange(present, 0, bound);
+	}
+
+	@Override
+	public int wordCount() {
+		return IndexSets.wordCount(bound());
+	}
+
+	@Override
+	public long wordAt(int wordIndex) {
+		IndexSets.checkWordIndex(wordIndex, bound());
+		return wordIndex < present.length ? present[wordIndex] : 0L;
+	}
+
+	@Override
+	public long[] toLongArray() {
+		return Arrays.copyOf(present, wordCount());
+	}
+
+	@Override
+	public void setWords(long[] words, int offset) {
+		int bound = bound();
+		IndexSets.checkWords(words, offset, bound);
+		int wordCount = IndexSets.wordCount(bound);
+		ensureWords(wordCount);
+		System.arraycopy(words, offset, present, 0, wordCount);
+	}
+
+	@Override
+	public void clear() {
+		for (int i = 0; i < present.length; i++) {
+			present[i] = 0;
+		}
+	}
+
+	@Override
+	public GrowableIndexSet cloneEmpty() {
+		return new GrowableIndexSet(universe);
+	}
+
+	@Override
+	public GrowableIndexSet clone() {
+		return new GrowableIndexSet(universe, present.clone());
+	}
+
+	private void ensureWords(int wordCount) {
+		if (wordCount > present.length) {
+			present = Arrays.copyOf(present, Math.max(wordCount, present.length + (present.length >> 1)));
+		}
+	}
+
+	private int validIndex(int index) {
+		if (index >= 0 && index < universe.indexBoundary()) {
+			return index;
+		}
+		
+		throw new IndexOutOfBoundsException("Index (" + index + ") must be between 0 and " + (universe.indexBoundary() - 1));
+	}
+}
@@ -1,19 +1,179 @@
 package org.emmef.cheapsets.indexsets;
 
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
 import org.emmef.cheapsets.IndexSet;
 import org.emmef.cheapsets.IndexedUniverse;
+import org.emmef.cheapsets.universes.AppendableIndexedUniverse;
+import org.emmef.cheapsets.universes.IndexedUniverses;
 
 public class IndexSetBuilder {
+	/**
+	 * Creates an empty index set for the provided universe, that uses the 
+	 * smallest representation that can hold all indices of the universe.
+	 * <p>
+	 * For an {@link AppendableIndexedUniverse}, the index set grows with the 
+	 * universe.
+	 * 
+	 * @param universe universe to create the index set for
+	 * @return a {@code non-null}, empty {@link IndexSet}
+	 */
 	public static IndexSet emptyFor(IndexedUniverse<?> universe) {
-		int bounday = universe.indexBoundary();
-		if (bounday <= 32) {
+		if (universe instanceof AppendableIndexedUniverse) {
+			return new GrowableIndexSet(universe);
+		}
+		return emptyFor(universe.indexBoundary());
+	}
+	
+	public static IndexSet emptyFor(int bound) {
+		if (bound <= 32) {
 			return new MiniIndexSet();
 		}
-		if (bounday  <= 64) {
+		if (bound  <= 64) {
 			return new SmallIndexSet();
 		}
+		if (bound <= 128) {
+			return new MediumIndexSet();
+		}
+		if (bound <= 256) {
+			return new LargeIndexSet();
+		}
+		
+		return new JumboIndexSet(bound);
+	}
+	
+	/**
+	 * Creates an empty sparse index set for the provided universe.
+	 * <p>
+	 * A sparse index set can be cleared in constant time and only visits present 
+	 * indices when iterating, at the cost of two integers per index of the 
+	 * universe. It suits scratch sets that are cleared often and contain only a 
+	 * few elements of a large universe.
+	 * 
+	 * @param universe universe to create the index set for
+	 * @return a {@code non-null}, empty {@link IndexSet}
+	 */
+	public static IndexSet sparseFor(IndexedUniverse<?> universe) {
+		return sparseFor(fixedBound(universe));
+	}
+	
+	public static IndexSet sparseFor(int bound) {
+		return new SparseIndexSet(bound);
+	}
+	
+	/**
+	 * Creates an empty index set for the provided universe that switches between
+	 * a sorted array and a bitmap, depending on the number of present indices.
+	 * 
+	 * @param universe universe to create the index set for
+	 * @return a {@code non-null}, empty {@link AdaptiveIndexSet}
+	 * @see AdaptiveIndexSet
+	 */
+	public static AdaptiveIndexSet adaptiveFor(IndexedUniverse<?> universe) {
+		return adaptiveFor(fixedBound(universe));
+	}
+	
+	public static AdaptiveIndexSet adaptiveFor(int bound) {
+		return new AdaptiveIndexSet(bound);
+	}
+	
+	/**
+	 * Creates an empty index set for the provided universe that can be cleared 
+	 * in constant time, at the cost of an integer per index of the universe.
+	 * 
+	 * @param universe universe to create the index set for
+	 * @return a {@code non-null}, empty {@link IndexSet}
+	 */
+	public static IndexSet epochFor(IndexedUniverse<?> universe) {
+		return epochFor(fixedBound(universe));
+	}
+	
+	public static IndexSet epochFor(int bound) {
+		return new EpochIndexSet(bound);
+	}
+	
+	/**
+	 * Creates an empty index set for the provided universe that shares its 
+	 * words with its clones until they are modified, so that cloning takes 
+	 * constant time.
+	 * 
+	 * @param universe universe to create the index set for
+	 * @return a {@code non-null}, empty {@link PersistentIndexSet}
+	 * @see PersistentIndexSet
+	 */
+	public static PersistentIndexSet persistentFor(IndexedUniverse<?> universe) {
+		return persistentFor(fixedBound(universe));
+	}
+	
+	public static PersistentIndexSet persistentFor(int bound) {
+		return new PersistentIndexSet(bound);
+	}
+	
+	/**
+	 * Creates an index set that uses {@code words} as its storage, without copying.
+	 * <p>
+	 * Changes to the index set are visible in {@code words} and vice versa. The 
+	 * bound of the index set is 64 times the length of {@code words}.
+	 * 
+	 * @param words words that contain the presence of the indices, see {@link IndexSet#wordAt(int)}
+	 * @return a {@code non-null} {@link IndexSet}
+	 * @throws IllegalArgumentException if {@code words} is empty
+	 */
+	public static IndexSet wrap(long[] words) {
+		return JumboIndexSet.wrap(checkNotNull(words, "words"));
+	}
+	
+	/**
+	 * Creates an index set for the provided universe that contains the indices 
+	 * that are set in {@code bits}.
+	 * <p>
+	 * A {@link BitSet} does not expose its words, so these are copied once.
+	 * 
+	 * @param universe universe to create the index set for
+	 * @param bits indices to mark present
+	 * @return a {@code non-null} {@link IndexSet}
+	 * @throws IllegalArgumentException if {@code bits} contains indices that are
+	 *     not smaller than the index boundary of the universe
+	 */
+	public static IndexSet copyOf(IndexedUniverse<?> universe, BitSet bits) {
+		int bound = universe.indexBoundary();
+		if (checkNotNull(bits, "bits").length() > bound) {
+			throw new IllegalArgumentException("Bits contain indices at or beyond index boundary (" + bound + ")");
+		}
+		IndexSet set = emptyFor(universe);
+		set.setWords(Arrays.copyOf(bits.toLongArray(), set.wordCount()), 0);
 		
-		return new JumboIndexSet(bounday);
+		return set;
+	}
+	
+	/**
+	 * Returns a new {@link BitSet} that contains the present indices of {@code set}.
+	 * 
+	 * @param set set to copy
+	 * @return a {@code non-null} {@link BitSet}
+	 */
+	public static BitSet toBitSet(IndexSet set) {
+		return BitSet.valueOf(set.toLongArray());
+	}
+	
+	/**
+	 * Returns whether {@code set} stores the presence of its indices as words,
+	 * so that {@link IndexSet#wordAt(int)} takes constant time.
+	 * <p>
+	 * Sparse and epoch index sets, and adaptive index sets that use a sorted
+	 * array, compute each word from their present indices.
+	 * 
+	 * @param set set to inspect
+	 * @return {@code true} if words can be read in constant time
+	 */
+	public static boolean hasWords(IndexSet set) {
+		if (set instanceof AdaptiveIndexSet) {
+			return ((AdaptiveIndexSet)set).isBitmap();
+		}
+		return !(set instanceof SparseIndexSet) && !(set instanceof EpochIndexSet);
 	}
 	
 	public static IndexSet clone(IndexSet set) {
@@ -23,4 +183,8 @@ public class IndexSetBuilder {
 	public static IndexSet cloneEmpty(IndexSet set) {
 		return set.cloneEmpty();
 	}
-}
\ No newline at end of file
+	
+	private static int fixedBound(IndexedUniverse<?> universe) {
+		return IndexedUniverses.checkNotGrowing(universe).indexBoundary();
+	}
+}
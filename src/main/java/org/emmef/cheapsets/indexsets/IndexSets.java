@@ -0,0 +1,209 @@
+package org.emmef.cheapsets.indexsets;
+
+import org.emmef.cheapsets.IndexCursor;
+import org.emmef.cheapsets.IndexSet;
+
+/**
+ * Bulk operations that work between any two {@link IndexSet} implementations.
+ * <p>
+ * The implementations use these when the other set is not of their own type, 
+ * which happens when sets over the same universe were created with different
+ * representations.
+ */
+final class IndexSets {
+	static void checkRange(int fromIndex, int toIndex, int bound) {
+		if (fromIndex < 0 || toIndex > bound || fromIndex > toIndex) {
+			throw new IndexOutOfBoundsException("Range [" + fromIndex + ", " + toIndex + ") must lie within [0, " + bound + ")");
+		}
+	}
+	
+	/**
+	 * Returns the bits of the word at {@code wordIndex} that correspond to indices 
+	 * between {@code fromIndex} (inclusive) and {@code toIndex} (exclusive).
+	 */
+	static long rangeMask(int wordIndex, int fromIndex, int toIndex) {
+		int offset = wordIndex << 6;
+		int start = fromIndex - offset;
+		int end = toIndex - offset;
+		if (end <= 0 || start >= 64 || start >= end) {
+			return 0;
+		}
+		long low = start <= 0 ? -1L : -1L << start;
+		long high = end >= 64 ? -1L : ~(-1L << end);
+		
+		return low & high;
+	}
+	
+	static void setRange(long[] words, int fromIndex, int toIndex) {
+		if (fromIndex < toIndex) {
+			for (int i = fromIndex >> 6; i <= (toIndex - 1) >> 6; i++) {
+				words[i] |= rangeMask(i, fromIndex, toIndex);
+			}
+		}
+	}
+	
+	static void clearRange(long[] words, int fromIndex, int toIndex) {
+		if (fromIndex < toIndex) {
+			for (int i = fromIndex >> 6; i <= (toIndex - 1) >> 6; i++) {
+				words[i] &= ~rangeMask(i, fromIndex, toIndex);
+			}
+		}
+	}
+	
+	static void flipRange(long[] words, int fromIndex, int toIndex) {
+		if (fromIndex < toIndex) {
+			for (int i = fromIndex >> 6; i <= (toIndex - 1) >> 6; i++) {
+				words[i] ^= rangeMask(i, fromIndex, toIndex);
+			}
+		}
+	}
+	
+	static int wordCount(int bound) {
+		return (bound + 63) >>> 6;
+	}
+	
+	static void checkWordIndex(int wordIndex, int bound) {
+		if (wordIndex < 0 || wordIndex >= wordCount(bound)) {
+			throw new IndexOutOfBoundsException("Word index (" + wordIndex + ") must be between 0 and " + (wordCount(bound) - 1));
+		}
+	}
+	
+	/**
+	 * Checks that {@code words} contains {@link #wordCount(int)} words from 
+	 * {@code offset} and that these have no bits set at or beyond {@code bound}.
+	 */
+	static void checkWords(long[] words, int offset, int bound) {
+		int wordCount = wordCount(bound);
+		if (offset < 0 || offset > words.length - wordCount) {
+			throw new IndexOutOfBoundsException("Need " + wordCount + " words from offset " + offset + " in an array of length " + words.length);
+		}
+		int lastBits = bound & 0x3f;
+		if (lastBits != 0 && (words[offset + wordCount - 1] & (-1L << lastBits)) != 0) {
+			throw new IllegalArgumentException("Words contain indices at or beyond bound (" + bound + ")");
+		}
+	}
+	
+	/**
+	 * Returns the word at {@code wordIndex} by probing the (at most) 64 indices 
+	 * it covers with {@link IndexSet#presentAt(int)}. 
+	 * <p>
+	 * Unlike a scan with {@link IndexSet#nextPresent(int)}, this never looks 
+	 * beyond the word, so it takes constant time for sets with a constant-time
+	 * {@link IndexSet#presentAt(int)}.
+	 */
+	static long wordAt(IndexSet target, int wordIndex) {
+		int bound = target.bound();
+		checkWordIndex(wordIndex, bound);
+		int offset = wordIndex << 6;
+		int end = Math.min(bound, offset + 64);
+		long word = 0;
+		for (int i = offset; i < end; i++) {
+			if (target.presentAt(i)) {
+				word |= 1L << i;
+			}
+		}
+		
+		return word;
+	}
+	
+	/**
+	 * Returns all words of {@code target}, built in a single pass of its 
+	 * {@link IndexSet#cursor() cursor}.
+	 */
+	static long[] toLongArray(IndexSet target) {
+		long[] words = new long[wordCount(target.bound())];
+		IndexCursor cursor = target.cursor();
+		for (int i = cursor.next(); i >= 0; i = cursor.next()) {
+			words[i >> 6] |= 1L << i;
+		}
+		
+		return words;
+	}
+	
+	static void setWords(IndexSet target, long[] words, int offset) {
+		int bound = target.bound();
+		checkWords(words, offset, bound);
+		target.clear();
+		int wordCount = wordCount(bound);
+		for (int i = 0; i < wordCount; i++) {
+			long word = words[offset + i];
+			int base = i << 6;
+			while (word != 0) {
+				target.setAt(base + Long.numberOfTrailingZeros(word));
+				word &= word - 1;
+			}
+		}
+	}
+	
+	static void setRange(IndexSet target, int fromIndex, int toIndex) {
+		checkRange(fromIndex, toIndex, target.bound());
+		for (int i = fromIndex; i < toIndex; i++) {
+			target.setAt(i);
+		}
+	}
+	
+	static void clearRange(IndexSet target, int fromIndex, int toIndex) {
+		checkRange(fromIndex, toIndex, target.bound());
+		for (int i = target.nextPresent(fromIndex); i >= 0 && i < toIndex; i = target.nextPresent(i + 1)) {
+			target.removeAt(i);
+		}
+	}
+	
+	static void flipRange(IndexSet target, int fromIndex, int toIndex) {
+		checkRange(fromIndex, toIndex, target.bound());
+		for (int i = fromIndex; i < toIndex; i++) {
+			if (!target.setAt(i)) {
+				target.removeAt(i);
+			}
+		}
+	}
+	
+	static boolean containsAll(IndexSet target, IndexSet set) {
+		int bound = target.bound();
+		IndexCursor cursor = set.cursor();
+		for (int i = cursor.next(); i >= 0; i = cursor.next()) {
+			if (i >= bound || !target.presentAt(i)) {
+				return false;
+			}
+		}
+		
+		return true;
+	}
+	
+	static boolean addAll(IndexSet target, IndexSet set) {
+		boolean changed = false;
+		IndexCursor cursor = set.cursor();
+		for (int i = cursor.next(); i >= 0; i = cursor.next()) {
+			changed |= target.setAt(i);
+		}
+		
+		return changed;
+	}
+	
+	static boolean retainAll(IndexSet target, IndexSet set) {
+		int bound = set.bound();
+		boolean changed = false;
+		IndexCursor cursor = target.cursor();
+		for (int i = cursor.next(); i >= 0; i = cursor.next()) {
+			if (i >= bound || !set.presentAt(i)) {
+				target.removeAt(i);
+				changed = true;
+			}
+		}
+		
+		return changed;
+	}
+	
+	static boolean removeAll(IndexSet target, IndexSet set) {
+		int bound = target.bound();
+		boolean changed = false;
+		IndexCursor cursor = set.cursor();
+		for (int i = cursor.next(); i >= 0; i = cursor.next()) {
+			if (i < bound) {
+				changed |= target.removeAt(i);
+			}
+		}
+		
+		return changed;
+	}
+}
@@ -1,5 +1,7 @@
 package org.emmef.cheapsets.indexsets;
 
+import org.emmef.cheapsets.IndexConsumer;
+import org.emmef.cheapsets.IndexCursor;
 import org.emmef.cheapsets.IndexSet;
 
 /**
@@ -13,7 +15,7 @@ class JumboIndexSet implements IndexSet {
 	private final long[] present;
 
 	private JumboIndexSet(long[] present) {
-		this.present = present.clone();
+		this.present = present;
 	}
 	
 	public JumboIndexSet(int size) {
@@ -23,6 +25,13 @@ class JumboIndexSet implements IndexSet {
 		this.present = new long [(size + 63) / 64];
 	}
 	
+	static JumboIndexSet wrap(long[] present) {
+		if (present.length < 1) {
+			throw new IllegalArgumentException(JumboIndexSet.class.getSimpleName() + ": need at least one word");
+		}
+		return new JumboIndexSet(present);
+	}
+	
 	@Override
 	public int count() {
 		int count = 0;
@@ -34,6 +43,11 @@ class JumboIndexSet implements IndexSet {
 		return count;
 	}
 	
+	@Override
+	public int bound() {
+		return present.length << 6;
+	}
+	
 	@Override
 	public boolean isEmpty() {
 		for (int i = 0; i < present.length; i++) {
@@ -81,8 +95,49 @@ class JumboIndexSet implements IndexSet {
 		return oldPresent != newPresent;
 	}
 
+	@Override
+	public int nextPresent(int fromIndex) {
+		if (fromIndex < 0) {
+			throw new IndexOutOfBoundsException("Index (" + fromIndex + ") must not be negative");
+		}
+		int elem = fromIndex >> 6;
+		if (elem >= present.length) {
+			return -1;
+		}
+		long word = present[elem] & (-1L << (fromIndex & 0x3f));
+		while (true) {
+			if (word != 0) {
+				return (elem << 6) + Long.numberOfTrailingZeros(word);
+			}
+			if (++elem == present.length) {
+				return -1;
+			}
+			word = present[elem];
+		}
+	}
+	
+	@Override
+	public void forEachIndex(IndexConsumer consumer) {
+		for (int i = 0; i < present.length; i++) {
+			long word = present[i];
+			int offset = i << 6;
+			while (word != 0) {
+				consumer.accept(offset + Long.numberOfTrailingZeros(word));
+				word &= word - 1;
+			}
+		}
+	}
+	
+	@Override
+	public IndexCursor cursor() {
+		return new NextPresentCursor(this);
+	}
+
 	@Override
 	public boolean containsAll(IndexSet indexSet) {
+		if (!(indexSet instanceof JumboIndexSet)) {
+			return IndexSets.containsAll(this, indexSet);
+		}
 		JumboIndexSet set = (JumboIndexSet)indexSet;
 		checkJumboArgument(set);
 		for (int i = 0; i < present.length; i++) {
@@ -97,6 +152,9 @@ class JumboIndexSet implements IndexSet {
 
 	@Override
 	public boolean addAll(IndexSet indexSet) {
+		if (!(indexSet instanceof JumboIndexSet)) {
+			return IndexSets.addAll(this, indexSet);
+		}
 		JumboIndexSet set = (JumboIndexSet)indexSet;
 		checkJumboArgument(set);
 		boolean changed = false;
@@ -104,6 +162,7 @@ class JumboIndexSet implements IndexSet {
 		for (int i = 0; i < present.length; i++) {
 			long oldPresent = present[i];
 			long newPresent = oldPresent | set.present[i];
+			present[i] = newPresent;
 			changed |= oldPresent != newPresent;
 		}
 		
@@ -112,6 +171,9 @@ class JumboIndexSet implements IndexSet {
 
 	@Override
 	public boolean retainAll(IndexSet indexSet) {
+		if (!(indexSet instanceof JumboIndexSet)) {
+			return IndexSets.retainAll(this, indexSet);
+		}
 		JumboIndexSet set = (JumboIndexSet)indexSet;
 		checkJumboArgument(set);
 		boolean changed = false;
@@ -119,6 +181,7 @@ class JumboIndexSet implements IndexSet {
 		for (int i = 0; i < present.length; i++) {
 			long oldPresent = present[i];
 			long newPresent = oldPresent & set.present[i];
+			present[i] = newPresent;
 			changed |= oldPresent != newPresent;
 		}
 		
@@ -127,6 +190,9 @@ class JumboIndexSet implements IndexSet {
 
 	@Override
 	public boolean removeAll(IndexSet indexSet) {
+		if (!(indexSet instanceof JumboIndexSet)) {
+			return IndexSets.removeAll(this, indexSet);
+		}
 		JumboIndexSet set = (JumboIndexSet)indexSet;
 		checkJumboArgument(set);
 		boolean changed = false;
@@ -134,12 +200,60 @@ class JumboIndexSet implements IndexSet {
 		for (int i = 0; i < present.length; i++) {
 			long oldPresent = present[i];
 			long newPresent = oldPresent & (-1L ^ set.present[i]);
+			present[i] = newPresent;
 			changed |= oldPresent != newPresent;
 		}
 		
 		return changed;
 	}
 	
+	@Override
+	public void setRange(int fromIndex, int toIndex) {
+		IndexSets.checkRange(fromIndex, toIndex, present.length << 6);
+		IndexSets.setRange(present, fromIndex, toIndex);
+	}
+	
+	@Override
+	public void clearRange(int fromIndex, int toIndex) {
+		IndexSets.checkRange(fromIndex, toIndex, present.length << 6);
+		IndexSets.clearRange(present, fromIndex, toIndex);
+	}
+	
+	@Override
+	public void flipRange(int fromIndex, int toIndex) {
+		IndexSets.checkRange(fromIndex, toIndex, present.length << 6);
+		IndexSets.flipRange(present, fromIndex, toIndex);
+	}
+	
+	@Override
+	public void complement() {
+		for (int i = 0; i < present.length; i++) {
+			present[i] = ~present[i];
+		}
+	}
+	
+	@Override
+	public int wordCount() {
+		return present.length;
+	}
+	
+	@Override
+	public long wordAt(int wordIndex) {
+		IndexSets.checkWordIndex(wordIndex, present.length << 6);
+		return present[wordIndex];
+	}
+	
+	@Override
+	public long[] toLongArray() {
+		return present.clone();
+	}
+	
+	@Override
+	public void setWords(long[] words, int offset) {
+		IndexSets.checkWords(words, offset, present.length << 6);
+		System.arraycopy(words, offset, present, 0, present.length);
+	}
+	
 	@Override
 	public void clear() {
 		for (int i = 0; i < present.length; i++) {
@@ -154,15 +268,15 @@ class JumboIndexSet implements IndexSet {
 	
 	@Override
 	public JumboIndexSet clone() {
-		return new JumboIndexSet(present);
+		return new JumboIndexSet(present.clone());
 	}
 	
 	private final int validIndex(int index) {
-		if (index >= 0 && index < (present.length >> 6)) {
+		if (index >= 0 && index < (present.length << 6)) {
 			return index;
 		}
 		
-		throw new IndexOutOfBoundsException("Index (" + index + ") must be between 0 and " + ((present.length >> 6) - 1)); 
+		throw new IndexOutOfBoundsException("Index (" + index + ") must be between 0 and " + ((present.length << 6) - 1)); 
 	}
 
 	private void checkJumboArgument(JumboIndexSet set) {
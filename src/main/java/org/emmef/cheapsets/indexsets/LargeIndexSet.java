@@ -0,0 +1,306 @@
+package org.emmef.cheapsets.indexsets;
+
+import org.emmef.cheapsets.IndexConsumer;
+import org.emmef.cheapsets.IndexCursor;
+import org.emmef.cheapsets.IndexSet;
+
+/**
+ * Implementation of {@link IndexSet} that has a bound of 256,
+ * and thus supports indices between 0 and 255.
+ * <p>
+ * The bits are kept in four fields instead of an array, so there is no 
+ * array header, bounds check or indirection.
+ */
+class LargeIndexSet implements IndexSet {
+	private long present0;
+	private long present1;
+	private long present2;
+	private long present3;
+
+	private LargeIndexSet(long present0, long present1, long present2, long present3) {
+		this.present0 = present0;
+		this.present1 = present1;
+		this.present2 = present2;
+		this.present3 = present3;
+	}
+	
+	LargeIndexSet() {
+		this(0, 0, 0, 0);
+	}
+
+	@Override
+	public int count() {
+		return Long.bitCount(present0) + Long.bitCount(present1) + Long.bitCount(present2) + Long.bitCount(present3);
+	}
+	
+	@Override
+	public int bound() {
+		return 256;
+	}
+	
+	@Override
+	public boolean isEmpty() {
+		return (present0 | present1 | present2 | present3) == 0;
+	}
+
+	@Override
+	public boolean presentAt(int index) {
+		return (word(index >> 6, index) & (1L << index)) != 0;
+	}
+
+	@Override
+	public boolean setAt(int index) {
+		long bit = 1L << index;
+		long old;
+		switch (index >> 6) {
+		case 0:
+			old = present0;
+			present0 |= bit;
+			return old != present0;
+		case 1:
+			old = present1;
+			present1 |= bit;
+			return old != present1;
+		case 2:
+			old = present2;
+			present2 |= bit;
+			return old != present2;
+		case 3:
+			old = present3;
+			present3 |= bit;
+			return old != present3;
+		default:
+			throw outOfBounds(index);
+		}
+	}
+
+	@Override
+	public boolean removeAt(int index) {
+		long mask = -1L ^ (1L << index);
+		long old;
+		switch (index >> 6) {
+		case 0:
+			old = present0;
+			present0 &= mask;
+			return old != present0;
+		case 1:
+			old = present1;
+			present1 &= mask;
+			return old != present1;
+		case 2:
+			old = present2;
+			present2 &= mask;
+			return old != present2;
+		case 3:
+			old = present3;
+			present3 &= mask;
+			return old != present3;
+		default:
+			throw outOfBounds(index);
+		}
+	}
+	
+	@Override
+	public int nextPresent(int fromIndex) {
+		if (fromIndex < 0) {
+			throw new IndexOutOfBoundsException("Index (" + fromIndex + ") must not be negative");
+		}
+		if (fromIndex >= 256) {
+			return -1;
+		}
+		int elem = fromIndex >> 6;
+		long remaining = word(elem, fromIndex) & (-1L << fromIndex);
+		while (true) {
+			if (remaining != 0) {
+				return (elem << 6) + Long.numberOfTrailingZeros(remaining);
+			}
+			if (++elem == 4) {
+				return -1;
+			}
+			remaining = word(elem, fromIndex);
+		}
+	}
+	
+	@Override
+	public void forEachIndex(IndexConsumer consumer) {
+		for (int elem = 0; elem < 4; elem++) {
+			long remaining = word(elem, elem << 6);
+			int offset = elem << 6;
+			while (remaining != 0) {
+				consumer.accept(offset + Long.numberOfTrailingZeros(remaining));
+				remaining &= remaining - 1;
+			}
+		}
+	}
+	
+	@Override
+	public IndexCursor cursor() {
+		return new NextPresentCursor(this);
+	}
+
+	@Override
+	public boolean containsAll(IndexSet indexSet) {
+		if (!(indexSet instanceof LargeIndexSet)) {
+			return IndexSets.containsAll(this, indexSet);
+		}
+		LargeIndexSet set = (LargeIndexSet)indexSet;
+		return ((set.present0 & ~present0) | (set.present1 & ~present1) | (set.present2 & ~present2) | (set.present3 & ~present3)) == 0;
+	}
+
+	@Override
+	public boolean addAll(IndexSet indexSet) {
+		if (!(indexSet instanceof LargeIndexSet)) {
+			return IndexSets.addAll(this, indexSet);
+		}
+		LargeIndexSet set = (LargeIndexSet)indexSet;
+		long old0 = present0;
+		long old1 = present1;
+		long old2 = present2;
+		long old3 = present3;
+		present0 |= set.present0;
+		present1 |= set.present1;
+		present2 |= set.present2;
+		present3 |= set.present3;
+		return ((old0 ^ present0) | (old1 ^ present1) | (old2 ^ present2) | (old3 ^ present3)) != 0;
+	}
+
+	@Override
+	public boolean retainAll(IndexSet indexSet) {
+		if (!(indexSet instanceof LargeIndexSet)) {
+			return IndexSets.retainAll(this, indexSet);
+		}
+		LargeIndexSet set = (LargeIndexSet)indexSet;
+		long old0 = present0;
+		long old1 = present1;
+		long old2 = present2;
+		long old3 = present3;
+		present0 &= set.present0;
+		present1 &= set.present1;
+		present2 &= set.present2;
+		present3 &= set.present3;
+		return ((old0 ^ present0) | (old1 ^ present1) | (old2 ^ present2) | (old3 ^ present3)) != 0;
+	}
+
+	@Override
+	public boolean removeAll(IndexSet indexSet) {
+		if (!(indexSet instanceof LargeIndexSet)) {
+			return IndexSets.removeAll(this, indexSet);
+		}
+		LargeIndexSet set = (LargeIndexSet)indexSet;
+		long old0 = present0;
+		long old1 = present1;
+		long old2 = present2;
+		long old3 = present3;
+		present0 &= ~set.present0;
+		present1 &= ~set.present1;
+		present2 &= ~set.present2;
+		present3 &= ~set.present3;
+		return ((old0 ^ present0) | (old1 ^ present1) | (old2 ^ present2) | (old3 ^ present3)) != 0;
+	}
+	
+	@Override
+	public void setRange(int fromIndex, int toIndex) {
+		IndexSets.checkRange(fromIndex, toIndex, 256);
+		present0 |= IndexSets.rangeMask(0, fromIndex, toIndex);
+		present1 |= IndexSets.rangeMask(1, fromIndex, toIndex);
+		present2 |= IndexSets.rangeMask(2, fromIndex, toIndex);
+		present3 |= IndexSets.rangeMask(3, fromIndex, toIndex);
+	}
+	
+	@Override
+	public void clearRange(int fromIndex, int toIndex) {
+		IndexSets.checkRange(fromIndex, toIndex, 256);
+		present0 &= ~IndexSets.rangeMask(0, fromIndex, toIndex);
+		present1 &= ~IndexSets.rangeMask(1, fromIndex, toIndex);
+		present2 &= ~IndexSets.rangeMask(2, fromIndex, toIndex);
+		present3 &= ~IndexSets.rangeMask(3, fromIndex, toIndex);
+	}
+	
+	@Override
+	public void flipRange(int fromIndex, int toIndex) {
+		IndexSets.checkRange(fromIndex, toIndex, 256);
+		present0 ^= IndexSets.rangeMask(0, fromIndex, toIndex);
+		present1 ^= IndexSets.rangeMask(1, fromIndex, toIndex);
+		present2 ^= IndexSets.rangeMask(2, fromIndex, toIndex);
+		present3 ^= IndexSets.rangeMask(3, fromIndex, toIndex);
+	}
+	
+	@Override
+	public void complement() {
+		present0 = ~present0;
+		present1 = ~present1;
+		present2 = ~present2;
+		present3 = ~present3;
+	}
+	
+	@Override
+	public int wordCount() {
+		return 4;
+	}
+	
+	@Override
+	public long wordAt(int wordIndex) {
+		IndexSets.checkWordIndex(wordIndex, 256);
+		switch (wordIndex) {
+		case 0:
+			return present0;
+		case 1:
+			return present1;
+		case 2:
+			return present2;
+		default:
+			return present3;
+		}
+	}
+	
+	@Override
+	public long[] toLongArray() {
+		return new long[] { present0, present1, present2, present3 };
+	}
+	
+	@Override
+	public void setWords(long[] words, int offset) {
+		IndexSets.checkWords(words, offset, 256);
+		present0 = words[offset];
+		present1 = words[offset + 1];
+		present2 = words[offset + 2];
+		present3 = words[offset + 3];
+	}
+	
+	@Override
+	public void clear() {
+		present0 = 0;
+		present1 = 0;
+		present2 = 0;
+		present3 = 0;
+	}
+
+	@Override
+	public LargeIndexSet cloneEmpty() {
+		return new LargeIndexSet(0, 0, 0, 0);
+	}
+	
+	@Override
+	public LargeIndexSet clone() {
+		return new LargeIndexSet(present0, present1, present2, present3);
+	}
+	
+	private long word(int elem, int index) {
+		switch (elem) {
+		case 0:
+			return present0;
+		case 1:
+			return present1;
+		case 2:
+			return present2;
+		case 3:
+			return present3;
+		default:
+			throw outOfBounds(index);
+		}
+	}
+	
+	private static IndexOutOfBoundsException outOfBounds(int index) {
+		return new IndexOutOfBoundsException("Index (" + index + ") must be between 0 and 255");
+	}
+}
@@ -0,0 +1,249 @@
+package org.emmef.cheapsets.indexsets;
+
+import org.emmef.cheapsets.IndexConsumer;
+import org.emmef.cheapsets.IndexCursor;
+import org.emmef.cheapsets.IndexSet;
+
+/**
+ * Implementation of {@link IndexSet} that has a bound of 128,
+ * and thus supports indices between 0 and 127.
+ * <p>
+ * The bits are kept in two fields instead of an array, so there is no 
+ * array header, bounds check or indirection.
+ */
+class MediumIndexSet implements IndexSet {
+	private long present0;
+	private long present1;
+
+	private MediumIndexSet(long present0, long present1) {
+		this.present0 = present0;
+		this.present1 = present1;
+	}
+	
+	MediumIndexSet() {
+		this(0, 0);
+	}
+
+	@Override
+	public int count() {
+		return Long.bitCount(present0) + Long.bitCount(present1);
+	}
+	
+	@Override
+	public int bound() {
+		return 128;
+	}
+	
+	@Override
+	public boolean isEmpty() {
+		return (present0 | present1) == 0;
+	}
+
+	@Override
+	public boolean presentAt(int index) {
+		return (word(index) & (1L << index)) != 0;
+	}
+
+	@Override
+	public boolean setAt(int index) {
+		long bit = 1L << index;
+		long old;
+		switch (index >> 6) {
+		case 0:
+			old = present0;
+			present0 |= bit;
+			return old != present0;
+		case 1:
+			old = present1;
+			present1 |= bit;
+			return old != present1;
+		default:
+			throw outOfBounds(index);
+		}
+	}
+
+	@Override
+	public boolean removeAt(int index) {
+		long mask = -1L ^ (1L << index);
+		long old;
+		switch (index >> 6) {
+		case 0:
+			old = present0;
+			present0 &= mask;
+			return old != present0;
+		case 1:
+			old = present1;
+			present1 &= mask;
+			return old != present1;
+		default:
+			throw outOfBounds(index);
+		}
+	}
+	
+	@Override
+	public int nextPresent(int fromIndex) {
+		if (fromIndex < 0) {
+			throw new IndexOutOfBoundsException("Index (" + fromIndex + ") must not be negative");
+		}
+		if (fromIndex < 64) {
+			long remaining = present0 & (-1L << fromIndex);
+			if (remaining != 0) {
+				return Long.numberOfTrailingZeros(remaining);
+			}
+			return present1 != 0 ? 64 + Long.numberOfTrailingZeros(present1) : -1;
+		}
+		if (fromIndex < 128) {
+			long remaining = present1 & (-1L << fromIndex);
+			return remaining != 0 ? 64 + Long.numberOfTrailingZeros(remaining) : -1;
+		}
+		return -1;
+	}
+	
+	@Override
+	public void forEachIndex(IndexConsumer consumer) {
+		long remaining = present0;
+		while (remaining != 0) {
+			consumer.accept(Long.numberOfTrailingZeros(remaining));
+			remaining &= remaining - 1;
+		}
+		remaining = present1;
+		while (remaining != 0) {
+			consumer.accept(64 + Long.numberOfTrailingZeros(remaining));
+			remaining &= remaining - 1;
+		}
+	}
+	
+	@Override
+	public IndexCursor cursor() {
+		return new NextPresentCursor(this);
+	}
+
+	@Override
+	public boolean containsAll(IndexSet indexSet) {
+		if (!(indexSet instanceof MediumIndexSet)) {
+			return IndexSets.containsAll(this, indexSet);
+		}
+		MediumIndexSet set = (MediumIndexSet)indexSet;
+		return ((set.present0 & ~present0) | (set.present1 & ~present1)) == 0;
+	}
+
+	@Override
+	public boolean addAll(IndexSet indexSet) {
+		if (!(indexSet instanceof MediumIndexSet)) {
+			return IndexSets.addAll(this, indexSet);
+		}
+		MediumIndexSet set = (MediumIndexSet)indexSet;
+		long old0 = present0;
+		long old1 = present1;
+		present0 |= set.present0;
+		present1 |= set.present1;
+		return ((old0 ^ present0) | (old1 ^ present1)) != 0;
+	}
+
+	@Override
+	public boolean retainAll(IndexSet indexSet) {
+		if (!(indexSet instanceof MediumIndexSet)) {
+			return IndexSets.retainAll(this, indexSet);
+		}
+		MediumIndexSet set = (MediumIndexSet)indexSet;
+		long old0 = present0;
+		long old1 = present1;
+		present0 &= set.present0;
+		present1 &= set.present1;
+		return ((old0 ^ present0) | (old1 ^ present1)) != 0;
+	}
+
+	@Override
+	public boolean removeAll(IndexSet indexSet) {
+		if (!(indexSet instanceof MediumIndexSet)) {
+			return IndexSets.removeAll(this, indexSet);
+		}
+		MediumIndexSet set = (MediumIndexSet)indexSet;
+		long old0 = present0;
+		long old1 = present1;
+		present0 &= ~set.present0;
+		present1 &= ~set.present1;
+		return ((old0 ^ present0) | (old1 ^ present1)) != 0;
+	}
+	
+	@Override
+	public void setRange(int fromIndex, int toIndex) {
+		IndexSets.checkRange(fromIndex, toIndex, 128);
+		present0 |= IndexSets.rangeMask(0, fromIndex, toIndex);
+		present1 |= IndexSets.rangeMask(1, fromIndex, toIndex);
+	}
+	
+	@Override
+	public void clearRange(int fromIndex, int toIndex) {
+		IndexSets.checkRange(fromIndex, toIndex, 128);
+		present0 &= ~IndexSets.rangeMask(0, fromIndex, toIndex);
+		present1 &= ~IndexSets.rangeMask(1, fromIndex, toIndex);
+	}
+	
+	@Override
+	public void flipRange(int fromIndex, int toIndex) {
+		IndexSets.checkRange(fromIndex, toIndex, 128);
+		present0 ^= IndexSets.rangeMask(0, fromIndex, toIndex);
+		present1 ^= IndexSets.rangeMask(1, fromIndex, toIndex);
+	}
+	
+	@Override
+	public void complement() {
+		present0 = ~present0;
+		present1 = ~present1;
+	}
+	
+	@Override
+	public int wordCount() {
+		return 2;
+	}
+	
+	@Override
+	public long wordAt(int wordIndex) {
+		IndexSets.checkWordIndex(wordIndex, 128);
+		return wordIndex == 0 ? present0 : present1;
+	}
+	
+	@Override
+	public long[] toLongArray() {
+		return new long[] { present0, present1 };
+	}
+	
+	@Override
+	public void setWords(long[] words, int offset) {
+		IndexSets.checkWords(words, offset, 128);
+		present0 = words[offset];
+		present1 = words[offset + 1];
+	}
+	
+	@Override
+	public void clear() {
+		present0 = 0;
+		present1 = 0;
+	}
+
+	@Override
+	public MediumIndexSet cloneEmpty() {
+		return new MediumIndexSet(0, 0);
+	}
+	
+	@Override
+	public MediumIndexSet clone() {
+		return new MediumIndexSet(present0, present1);
+	}
+	
+	private long word(int index) {
+		switch (index >> 6) {
+		case 0:
+			return present0;
+		case 1:
+			return present1;
+		default:
+			throw outOfBounds(index);
+		}
+	}
+	
+	private static IndexOutOfBoundsException outOfBounds(int index) {
+		return new IndexOutOfBoundsException("Index (" + index + ") must be between 0 and 127");
+	}
+}
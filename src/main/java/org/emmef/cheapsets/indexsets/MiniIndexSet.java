@@ -1,14 +1,20 @@
 package org.emmef.cheapsets.indexsets;
 
+import org.emmef.cheapsets.IndexConsumer;
+import org.emmef.cheapsets.IndexCursor;
 import org.emmef.cheapsets.IndexSet;
 
 /**
  * Implementation of {@link IndexSet} that has a bound of 32,
  * and thus supports indices between 0 and 31.
+ * <p>
+ * The class is final, so that callers that know the exact type get 
+ * statically bound, inlinable calls. Instances are created through 
+ * {@link IndexSetBuilder}.
  * 
  * @documented 2013-07-26
  */
-class MiniIndexSet implements IndexSet {
+public final class MiniIndexSet implements IndexSet {
 	private int present;
 
 	private MiniIndexSet(int present) {
@@ -24,6 +30,11 @@ class MiniIndexSet implements IndexSet {
 		return Integer.bitCount(present);
 	}
 	
+	@Override
+	public int bound() {
+		return 32;
+	}
+	
 	@Override
 	public boolean isEmpty() {
 		return present == 0;
@@ -48,14 +59,47 @@ class MiniIndexSet implements IndexSet {
 		return old != present;
 	}
 
+	@Override
+	public int nextPresent(int fromIndex) {
+		if (fromIndex < 0) {
+			throw new IndexOutOfBoundsException("Index (" + fromIndex + ") must not be negative");
+		}
+		if (fromIndex >= 32) {
+			return -1;
+		}
+		int remaining = present & (-1 << fromIndex);
+		
+		return remaining != 0 ? Integer.numberOfTrailingZeros(remaining) : -1;
+	}
+	
+	@Override
+	public void forEachIndex(IndexConsumer consumer) {
+		int remaining = present;
+		while (remaining != 0) {
+			consumer.accept(Integer.numberOfTrailingZeros(remaining));
+			remaining &= remaining - 1;
+		}
+	}
+	
+	@Override
+	public IndexCursor cursor() {
+		return new NextPresentCursor(this);
+	}
+
 	@Override
 	public boolean containsAll(IndexSet indexSet) {
+		if (!(indexSet instanceof MiniIndexSet)) {
+			return IndexSets.containsAll(this, indexSet);
+		}
 		MiniIndexSet set = (MiniIndexSet)indexSet;
 		return (set.present & present) == set.present;
 	}
 
 	@Override
 	public boolean addAll(IndexSet indexSet) {
+		if (!(indexSet instanceof MiniIndexSet)) {
+			return IndexSets.addAll(this, indexSet);
+		}
 		MiniIndexSet set = (MiniIndexSet)indexSet;
 		long old = present;
 		present |= set.present;
@@ -64,6 +108,9 @@ class MiniIndexSet implements IndexSet {
 
 	@Override
 	public boolean retainAll(IndexSet indexSet) {
+		if (!(indexSet instanceof MiniIndexSet)) {
+			return IndexSets.retainAll(this, indexSet);
+		}
 		MiniIndexSet set = (MiniIndexSet)indexSet;
 		long old = present;
 		present &= set.present;
@@ -72,12 +119,60 @@ class MiniIndexSet implements IndexSet {
 
 	@Override
 	public boolean removeAll(IndexSet indexSet) {
+		if (!(indexSet instanceof MiniIndexSet)) {
+			return IndexSets.removeAll(this, indexSet);
+		}
 		MiniIndexSet set = (MiniIndexSet)indexSet;
 		long old = present;
 		present &= -1L ^ set.present;
 		return old != present;
 	}
 	
+	@Override
+	public void setRange(int fromIndex, int toIndex) {
+		IndexSets.checkRange(fromIndex, toIndex, 32);
+		present |= (int)IndexSets.rangeMask(0, fromIndex, toIndex);
+	}
+	
+	@Override
+	public void clearRange(int fromIndex, int toIndex) {
+		IndexSets.checkRange(fromIndex, toIndex, 32);
+		present &= ~(int)IndexSets.rangeMask(0, fromIndex, toIndex);
+	}
+	
+	@Override
+	public void flipRange(int fromIndex, int toIndex) {
+		IndexSets.checkRange(fromIndex, toIndex, 32);
+		present ^= (int)IndexSets.rangeMask(0, fromIndex, toIndex);
+	}
+	
+	@Override
+	public void complement() {
+		present = ~present;
+	}
+	
+	@Override
+	public int wordCount() {
+		return 1;
+	}
+	
+	@Override
+	public long wordAt(int wordIndex) {
+		IndexSets.checkWordIndex(wordIndex, 32);
+		return present & 0xffffffffL;
+	}
+	
+	@Override
+	public long[] toLongArray() {
+		return new long[] { present & 0xffffffffL };
+	}
+	
+	@Override
+	public void setWords(long[] words, int offset) {
+		IndexSets.checkWords(words, offset, 32);
+		present = (int)words[offset];
+	}
+	
 	@Override
 	public void clear() {
 		present = 0;
@@ -0,0 +1,36 @@
+package org.emmef.cheapsets.indexsets;
+
+import org.emmef.cheapsets.IndexCursor;
+import org.emmef.cheapsets.IndexSet;
+
+/**
+ * Cursor for {@link IndexSet} implementations that can efficiently find 
+ * the next present index through {@link IndexSet#nextPresent(int)}.
+ * 
+ * @see IndexCursor
+ */
+final class NextPresentCursor implements IndexCursor {
+	private final IndexSet set;
+	private int position;
+
+	NextPresentCursor(IndexSet set) {
+		this.set = set;
+		this.position = 0;
+	}
+	
+	@Override
+	public int next() {
+		if (position < 0) {
+			return -1;
+		}
+		int next = set.nextPresent(position);
+		position = next >= 0 ? next + 1 : -1;
+		
+		return next;
+	}
+
+	@Override
+	public void reset() {
+		position = 0;
+	}
+}
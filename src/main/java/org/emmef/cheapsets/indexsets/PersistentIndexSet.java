@@ -0,0 +1,398 @@
+package org.emmef.cheapsets.indexsets;
+
+import org.emmef.cheapsets.IndexConsumer;
+import org.emmef.cheapsets.IndexCursor;
+import org.emmef.cheapsets.IndexSet;
+
+/**
+ * Implementation of {@link IndexSet} that shares its words with its clones
+ * until they are modified.
+ * <p>
+ * The words are grouped in chunks of 16 words (1024 indices). A clone shares
+ * the table of chunks and is created in constant time. The first modification
+ * of either set after cloning copies the table and each modification copies
+ * only the chunk that it touches, if that chunk is still shared. Chunks
+ * without present indices are not allocated.
+ * <p>
+ * This suits sets that are snapshot often for readers, while the writer
+ * continues to modify them.
+ */
+public final class PersistentIndexSet implements IndexSet {
+	private static final int CHUNK_SHIFT = 4;
+	private static final int CHUNK_WORDS = 1 << CHUNK_SHIFT;
+	private static final int CHUNK_MASK = CHUNK_WORDS - 1;
+
+	private final int bound;
+	private long[][] chunks;
+	private Object[] owners;
+	private boolean sharedTable;
+	private Object owner;
+	private int count;
+
+	PersistentIndexSet(int bound) {
+		if (bound < 1) {
+			throw new IllegalArgumentException(PersistentIndexSet.class.getSimpleName() + ": bound (" + bound + ") must positive");
+		}
+		this.bound = bound;
+		int chunkCount = (IndexSets.wordCount(bound) + CHUNK_MASK) >>> CHUNK_SHIFT;
+		this.chunks = new long[chunkCount][];
+		this.owners = new Object[chunkCount];
+		this.owner = new Object();
+	}
+
+	private PersistentIndexSet(PersistentIndexSet source) {
+		this.bound = source.bound;
+		this.chunks = source.chunks;
+		this.owners = source.owners;
+		this.sharedTable = true;
+		this.owner = new Object();
+		this.count = source.count;
+	}
+
+	@Override
+	public int count() {
+		return count;
+	}
+
+	@Override
+	public int bound() {
+		return bound;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return count == 0;
+	}
+
+	@Override
+	public boolean presentAt(int index) {
+		int validIndex = validIndex(index);
+		
+		return (word(validIndex >> 6) & (1L << validIndex)) != 0;
+	}
+
+	@Override
+	public boolean setAt(int index) {
+		int validIndex = validIndex(index);
+		int wordIndex = validIndex >> 6;
+		long word = word(wordIndex);
+		long newWord = word | (1L << validIndex);
+		if (word == newWord) {
+			return false;
+		}
+		writableChunk(wordIndex >> CHUNK_SHIFT)[wordIndex & CHUNK_MASK] = newWord;
+		count++;
+		
+		return true;
+	}
+
+	@Override
+	public boolean removeAt(int index) {
+		int validIndex = validIndex(index);
+		int wordIndex = validIndex >> 6;
+		long word = word(wordIndex);
+		long newWord = word & ~(1L << validIndex);
+		if (word == newWord) {
+			return false;
+		}
+		writableChunk(wordIndex >> CHUNK_SHIFT)[wordIndex & CHUNK_MASK] = newWord;
+		count--;
+		
+		return true;
+	}
+
+	@Override
+	public int nextPresent(int fromIndex) {
+		if (fromIndex < 0) {
+			throw new IndexOutOfBoundsException("Index (" + fromIndex + ") must not be negative");
+		}
+		if (fromIndex >= bound) {
+			return -1;
+		}
+		int wordCount = IndexSets.wordCount(bound);
+		int wordIndex = fromIndex >> 6;
+		long word = word(wordIndex) & (-1L << fromIndex);
+		while (true) {
+			if (word != 0) {
+				return (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+			}
+			if (++wordIndex >= wordCount) {
+				return -1;
+			}
+			long[] chunk = chunks[wordIndex >> CHUNK_SHIFT];
+			if (chunk == null) {
+				wordIndex |= CHUNK_MASK;
+				word = 0;
+			}
+			else {
+				word = chunk[wordIndex & CHUNK_MASK];
+			}
+		}
+	}
+
+	@Override
+	public void forEachIndex(IndexConsumer consumer) {
+		for (int chunkIndex = 0; chunkIndex < chunks.length; chunkIndex++) {
+			long[] chunk = chunks[chunkIndex];
+			if (chunk == null) {
+				continue;
+			}
+			for (int i = 0; i < CHUNK_WORDS; i++) {
+				long word = chunk[i];
+				int offset = ((chunkIndex << CHUNK_SHIFT) + i) << 6;
+				while (word != 0) {
+					consumer.accept(offset + Long.numberOfTrailingZeros(word));
+					word &= word - 1;
+				}
+			}
+		}
+	}
+
+	@Override
+	public IndexCursor cursor() {
+		return new NextPresentCursor(this);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Chunks that are shared with {@code indexSet} are not compared.
+	 */
+	@Override
+	public boolean containsAll(IndexSet indexSet) {
+		if (!isPersistentWithSameBound(indexSet)) {
+			return IndexSets.containsAll(this, indexSet);
+		}
+		PersistentIndexSet set = (PersistentIndexSet)indexSet;
+		for (int chunkIndex = 0; chunkIndex < chunks.length; chunkIndex++) {
+			long[] chunk = chunks[chunkIndex];
+			long[] other = set.chunks[chunkIndex];
+			if (other == null || other == chunk) {
+				continue;
+			}
+			for (int i = 0; i < CHUNK_WORDS; i++) {
+				long word = chunk != null ? chunk[i] : 0L;
+				if ((other[i] & word) != other[i]) {
+					return false;
+				}
+			}
+		}
+		
+		return true;
+	}
+
+	@Override
+	public boolean addAll(IndexSet indexSet) {
+		if (!isPersistentWithSameBound(indexSet)) {
+			return IndexSets.addAll(this, indexSet);
+		}
+		PersistentIndexSet set = (PersistentIndexSet)indexSet;
+		int oldCount = count;
+		for (int chunkIndex = 0; chunkIndex < chunks.length; chunkIndex++) {
+			long[] other = set.chunks[chunkIndex];
+			if (other == null || other == chunks[chunkIndex]) {
+				continue;
+			}
+			int offset = chunkIndex << CHUNK_SHIFT;
+			for (int i = 0; i < CHUNK_WORDS; i++) {
+				if (other[i] != 0) {
+					setWord(offset + i, word(offset + i) | other[i]);
+				}
+			}
+		}
+		
+		return count != oldCount;
+	}
+
+	@Override
+	public boolean retainAll(IndexSet indexSet) {
+		if (!isPersistentWithSameBound(indexSet)) {
+			return IndexSets.retainAll(this, indexSet);
+		}
+		PersistentIndexSet set = (PersistentIndexSet)indexSet;
+		int oldCount = count;
+		for (int chunkIndex = 0; chunkIndex < chunks.length; chunkIndex++) {
+			long[] chunk = chunks[chunkIndex];
+			long[] other = set.chunks[chunkIndex];
+			if (chunk == null || other == chunk) {
+				continue;
+			}
+			int offset = chunkIndex << CHUNK_SHIFT;
+			for (int i = 0; i < CHUNK_WORDS; i++) {
+				setWord(offset + i, chunk[i] & (other != null ? other[i] : 0L));
+			}
+		}
+		
+		return count != oldCount;
+	}
+
+	@Override
+	public boolean removeAll(IndexSet indexSet) {
+		if (!isPersistentWithSameBound(indexSet)) {
+			return IndexSets.removeAll(this, indexSet);
+		}
+		PersistentIndexSet set = (PersistentIndexSet)indexSet;
+		int oldCount = count;
+		for (int chunkIndex = 0; chunkIndex < chunks.length; chunkIndex++) {
+			long[] chunk = chunks[chunkIndex];
+			long[] other = set.chunks[chunkIndex];
+			if (chunk == null || other == null) {
+				continue;
+			}
+			int offset = chunkIndex << CHUNK_SHIFT;
+			for (int i = 0; i < CHUNK_WORDS; i++) {
+				setWord(offset + i, chunk[i] & ~other[i]);
+			}
+		}
+		
+		return count != oldCount;
+	}
+
+	@Override
+	public void setRange(int fromIndex, int toIndex) {
+		IndexSets.checkRange(fromIndex, toIndex, bound);
+		if (fromIndex < toIndex) {
+			for (int i = fromIndex >> 6; i <= (toIndex - 1) >> 6; i++) {
+				setWord(i, word(i) | IndexSets.rangeMask(i, fromIndex, toIndex));
+			}
+		}
+	}
+
+	@Override
+	public void clearRange(int fromIndex, int toIndex) {
+		IndexSets.checkRange(fromIndex, toIndex, bound);
+		if (fromIndex < toIndex) {
+			for (int i = fromIndex >> 6; i <= (toIndex - 1) >> 6; i++) {
+				setWord(i, word(i) & ~IndexSets.rangeMask(i, fromIndex, toIndex));
+			}
+		}
+	}
+
+	@Override
+	public void flipRange(int fromIndex, int toIndex) {
+		IndexSets.checkRange(fromIndex, toIndex, bound);
+		if (fromIndex < toIndex) {
+			for (int i = fromIndex >> 6; i <= (toIndex - 1) >> 6; i++) {
+				setWord(i, word(i) ^ IndexSets.rangeMask(i, fromIndex, toIndex));
+			}
+		}
+	}
+
+	@Override
+	public void complement() {
+		flipRange(0, bound);
+	}
+
+	@Override
+	public int wordCount() {
+		return IndexSets.wordCount(bound);
+	}
+
+	@Override
+	public long wordAt(int wordIndex) {
+		IndexSets.checkWordIndex(wordIndex, bound);
+		return word(wordIndex);
+	}
+
+	@Override
+	public long[] toLongArray() {
+		long[] words = new long[IndexSets.wordCount(bound)];
+		for (int chunkIndex = 0; chunkIndex < chunks.length; chunkIndex++) {
+			long[] chunk = chunks[chunkIndex];
+			if (chunk != null) {
+				int offset = chunkIndex << CHUNK_SHIFT;
+				System.arraycopy(chunk, 0, words, offset, Math.min(CHUNK_WORDS, words.length - offset));
+			}
+		}
+		
+		return words;
+	}
+
+	@Override
+	public void setWords(long[] words, int offset) {
+		IndexSets.checkWords(words, offset, bound);
+		int wordCount = IndexSets.wordCount(bound);
+		for (int i = 0; i < wordCount; i++) {
+			setWord(i, words[offset + i]);
+		}
+	}
+
+	@Override
+	public void clear() {
+		chunks = new long[chunks.length][];
+		owners = new Object[chunks.length];
+		sharedTable = false;
+		count = 0;
+	}
+
+	@Override
+	public PersistentIndexSet cloneEmpty() {
+		return new PersistentIndexSet(bound);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The clone shares all chunks with this set and is created in constant
+	 * time. Both sets copy a chunk when they first modify it.
+	 */
+	@Override
+	public PersistentIndexSet clone() {
+		sharedTable = true;
+		owner = new Object();
+		
+		return new PersistentIndexSet(this);
+	}
+
+	private long word(int wordIndex) {
+		long[] chunk = chunks[wordIndex >> CHUNK_SHIFT];
+		
+		return chunk != null ? chunk[wordIndex & CHUNK_MASK] : 0L;
+	}
+
+	private void setWord(int wordIndex, long newWord) {
+		long word = word(wordIndex);
+		if (word != newWord) {
+			writableChunk(wordIndex >> CHUNK_SHIFT)[wordIndex & CHUNK_MASK] = newWord;
+			count += Long.bitCount(newWord) - Long.bitCount(word);
+		}
+	}
+
+	/**
+	 * Returns the chunk at {@code chunkIndex}, after copying the table and the
+	 * chunk if they are shared.
+	 */
+	private long[] writableChunk(int chunkIndex) {
+		if (sharedTable) {
+			chunks = chunks.clone();
+			owners = owners.clone();
+			sharedTable = false;
+		}
+		long[] chunk = chunks[chunkIndex];
+		if (chunk == null) {
+			chunk = new long[CHUNK_WORDS];
+		}
+		else if (owners[chunkIndex] != owner) {
+			chunk = chunk.clone();
+		}
+		else {
+			return chunk;
+		}
+		chunks[chunkIndex] = chunk;
+		owners[chunkIndex] = owner;
+		
+		return chunk;
+	}
+
+	private boolean isPersistentWithSameBound(IndexSet indexSet) {
+		return indexSet instanceof PersistentIndexSet && ((PersistentIndexSet)indexSet).bound == bound;
+	}
+
+	private int validIndex(int index) {
+		if (index >= 0 && index < bound) {
+			return index;
+		}
+		
+		throw new IndexOutOfBoundsException("Index (" + index + ") must be between 0 and " + (bound - 1));
+	}
+}
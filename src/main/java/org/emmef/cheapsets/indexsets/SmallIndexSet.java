@@ -1,5 +1,7 @@
 package org.emmef.cheapsets.indexsets;
 
+import org.emmef.cheapsets.IndexConsumer;
+import org.emmef.cheapsets.IndexCursor;
 import org.emmef.cheapsets.IndexSet;
 
 /**
@@ -24,6 +26,11 @@ class SmallIndexSet implements IndexSet {
 		return Long.bitCount(present);
 	}
 	
+	@Override
+	public int bound() {
+		return 64;
+	}
+	
 	@Override
 	public boolean isEmpty() {
 		return present == 0;
@@ -48,14 +55,47 @@ class SmallIndexSet implements IndexSet {
 		return old != present;
 	}
 
+	@Override
+	public int nextPresent(int fromIndex) {
+		if (fromIndex < 0) {
+			throw new IndexOutOfBoundsException("Index (" + fromIndex + ") must not be negative");
+		}
+		if (fromIndex >= 64) {
+			return -1;
+		}
+		long remaining = present & (-1L << fromIndex);
+		
+		return remaining != 0 ? Long.numberOfTrailingZeros(remaining) : -1;
+	}
+	
+	@Override
+	public void forEachIndex(IndexConsumer consumer) {
+		long remaining = present;
+		while (remaining != 0) {
+			consumer.accept(Long.numberOfTrailingZeros(remaining));
+			remaining &= remaining - 1;
+		}
+	}
+	
+	@Override
+	public IndexCursor cursor() {
+		return new NextPresentCursor(this);
+	}
+
 	@Override
 	public boolean containsAll(IndexSet indexSet) {
+		if (!(indexSet instanceof SmallIndexSet)) {
+			return IndexSets.containsAll(this, indexSet);
+		}
 		SmallIndexSet set = (SmallIndexSet)indexSet;
 		return (set.present & present) == set.present;
 	}
 
 	@Override
 	public boolean addAll(IndexSet indexSet) {
+		if (!(indexSet instanceof SmallIndexSet)) {
+			return IndexSets.addAll(this, indexSet);
+		}
 		SmallIndexSet set = (SmallIndexSet)indexSet;
 		long old = present;
 		present |= set.present;
@@ -64,6 +104,9 @@ class SmallIndexSet implements IndexSet {
 
 	@Override
 	public boolean retainAll(IndexSet indexSet) {
+		if (!(indexSet instanceof SmallIndexSet)) {
+			return IndexSets.retainAll(this, indexSet);
+		}
 		SmallIndexSet set = (SmallIndexSet)indexSet;
 		long old = present;
 		present &= set.present;
@@ -72,12 +115,60 @@ class SmallIndexSet implements IndexSet {
 
 	@Override
 	public boolean removeAll(IndexSet indexSet) {
+		if (!(indexSet instanceof SmallIndexSet)) {
+			return IndexSets.removeAll(this, indexSet);
+		}
 		SmallIndexSet set = (SmallIndexSet)indexSet;
 		long old = present;
 		present &= -1L ^ set.present;
 		return old != present;
 	}
 	
+	@Override
+	public void setRange(int fromIndex, int toIndex) {
+		IndexSets.checkRange(fromIndex, toIndex, 64);
+		present |= IndexSets.rangeMask(0, fromIndex, toIndex);
+	}
+	
+	@Override
+	public void clearRange(int fromIndex, int toIndex) {
+		IndexSets.checkRange(fromIndex, toIndex, 64);
+		present &= ~IndexSets.rangeMask(0, fromIndex, toIndex);
+	}
+	
+	@Override
+	public void flipRange(int fromIndex, int toIndex) {
+		IndexSets.checkRange(fromIndex, toIndex, 64);
+		present ^= IndexSets.rangeMask(0, fromIndex, toIndex);
+	}
+	
+	@Override
+	public void complement() {
+		present = ~present;
+	}
+	
+	@Override
+	public int wordCount() {
+		return 1;
+	}
+	
+	@Override
+	public long wordAt(int wordIndex) {
+		IndexSets.checkWordIndex(wordIndex, 64);
+		return present;
+	}
+	
+	@Override
+	public long[] toLongArray() {
+		return new long[] { present };
+	}
+	
+	@Override
+	public void setWords(long[] words, int offset) {
+		IndexSets.checkWords(words, offset, 64);
+		present = words[offset];
+	}
+	
 	@Override
 	public void clear() {
 		present = 0;
@@ -0,0 +1,256 @@
+package org.emmef.cheapsets.indexsets;
+
+import org.emmef.cheapsets.IndexConsumer;
+import org.emmef.cheapsets.IndexCursor;
+import org.emmef.cheapsets.IndexSet;
+
+/**
+ * Implementation of {@link IndexSet} as a sparse set, as described by 
+ * Briggs and Torczon.
+ * <p>
+ * The present indices are kept in a dense array, and for each index a 
+ * sparse array records its position in the dense array. Neither array needs 
+ * to be initialized, so {@link #clear()}, {@link #setAt(int)}, 
+ * {@link #removeAt(int)} and {@link #presentAt(int)} take constant time and 
+ * iteration only visits the present indices. This suits scratch sets that 
+ * are cleared often and only ever contain a few indices of a large universe.
+ * <p>
+ * Indices are visited in no particular order. The set uses two integers per
+ * index of the bound, which is considerably more than a bitmap does.
+ */
+class SparseIndexSet implements IndexSet {
+	private final int[] dense;
+	private final int[] sparse;
+	private int count;
+	
+	SparseIndexSet(int bound) {
+		if (bound < 1) {
+			throw new IllegalArgumentException(SparseIndexSet.class.getSimpleName() + ": bound (" + bound + ") must positive");
+		}
+		this.dense = new int[bound];
+		this.sparse = new int[bound];
+		this.count = 0;
+	}
+	
+	private SparseIndexSet(SparseIndexSet source) {
+		this.dense = source.dense.clone();
+		this.sparse = source.sparse.clone();
+		this.count = source.count;
+	}
+
+	@Override
+	public int count() {
+		return count;
+	}
+
+	@Override
+	public int bound() {
+		return dense.length;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return count == 0;
+	}
+
+	@Override
+	public boolean presentAt(int index) {
+		int position = sparse[validIndex(index)];
+		
+		return position < count && dense[position] == index;
+	}
+
+	@Override
+	public boolean setAt(int index) {
+		if (presentAt(index)) {
+			return false;
+		}
+		dense[count] = index;
+		sparse[index] = count;
+		count++;
+		
+		return true;
+	}
+
+	@Override
+	public boolean removeAt(int index) {
+		if (!presentAt(index)) {
+			return false;
+		}
+		int position = sparse[index];
+		int last = dense[--count];
+		dense[position] = last;
+		sparse[last] = position;
+		
+		return true;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This takes time proportional to the number of present indices or the 
+	 * number of indices after {@code fromIndex}, whichever is smaller. Use 
+	 * {@link #cursor()} or {@link #forEachIndex(IndexConsumer)} to visit all 
+	 * indices.
+	 */
+	@Override
+	public int nextPresent(int fromIndex) {
+		if (fromIndex < 0) {
+			throw new IndexOutOfBoundsException("Index (" + fromIndex + ") must not be negative");
+		}
+		if (fromIndex >= dense.length) {
+			return -1;
+		}
+		if (count < dense.length - fromIndex) {
+			int next = -1;
+			for (int i = 0; i < count; i++) {
+				int index = dense[i];
+				if (index >= fromIndex && (next == -1 || index < next)) {
+					next = index;
+				}
+			}
+			return next;
+		}
+		for (int index = fromIndex; index < dense.length; index++) {
+			if (presentAt(index)) {
+				return index;
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	public void forEachIndex(IndexConsumer consumer) {
+		for (int i = 0; i < count; i++) {
+			consumer.accept(dense[i]);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The cursor walks the dense array from the end, so that removing the 
+	 * index that was last returned, which moves the last present index into
+	 * its place, does not cause indices to be skipped.
+	 */
+	@Override
+	public IndexCursor cursor() {
+		return new IndexCursor() {
+			private int position = count;
+
+			@Override
+			public int next() {
+				if (position > count) {
+					position = count;
+				}
+				return position > 0 ? dense[--position] : -1;
+			}
+
+			@Override
+			public void reset() {
+				position = count;
+			}
+		};
+	}
+
+	@Override
+	public boolean containsAll(IndexSet set) {
+		return IndexSets.containsAll(this, set);
+	}
+
+	@Override
+	public boolean addAll(IndexSet set) {
+		return IndexSets.addAll(this, set);
+	}
+
+	@Override
+	public boolean retainAll(IndexSet set) {
+		return IndexSets.retainAll(this, set);
+	}
+
+	@Override
+	public boolean removeAll(IndexSet set) {
+		if (set.count() < count) {
+			return IndexSets.removeAll(this, set);
+		}
+		boolean changed = false;
+		for (int i = count - 1; i >= 0; i--) {
+			int index = dense[i];
+			if (set.presentAt(index)) {
+				removeAt(index);
+				changed = true;
+			}
+		}
+		
+		return changed;
+	}
+
+	@Override
+	public void setRange(int fromIndex, int toIndex) {
+		IndexSets.setRange(this, fromIndex, toIndex);
+	}
+	
+	@Override
+	public void clearRange(int fromIndex, int toIndex) {
+		IndexSets.checkRange(fromIndex, toIndex, dense.length);
+		for (int i = count - 1; i >= 0; i--) {
+			int index = dense[i];
+			if (index >= fromIndex && index < toIndex) {
+				removeAt(index);
+			}
+		}
+	}
+	
+	@Override
+	public void flipRange(int fromIndex, int toIndex) {
+		IndexSets.flipRange(this, fromIndex, toIndex);
+	}
+	
+	@Override
+	public void complement() {
+		flipRange(0, dense.length);
+	}
+
+	@Override
+	public int wordCount() {
+		return IndexSets.wordCount(dense.length);
+	}
+
+	@Override
+	public long wordAt(int wordIndex) {
+		return IndexSets.wordAt(this, wordIndex);
+	}
+
+	@Override
+	public long[] toLongArray() {
+		return IndexSets.toLongArray(this);
+	}
+
+	@Override
+	public void setWords(long[] words, int offset) {
+		IndexSets.setWords(this, words, offset);
+	}
+
+	@Override
+	public void clear() {
+		count = 0;
+	}
+
+	@Override
+	public SparseIndexSet cloneEmpty() {
+		return new SparseIndexSet(dense.length);
+	}
+
+	@Override
+	public SparseIndexSet clone() {
+		return new SparseIndexSet(this);
+	}
+	
+	private int validIndex(int index) {
+		if (index >= 0 && index < dense.length) {
+			return index;
+		}
+		
+		throw new IndexOutOfBoundsException("Index (" + index + ") must be between 0 and " + (dense.length - 1)); 
+	}
+}
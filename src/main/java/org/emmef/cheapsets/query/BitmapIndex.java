@@ -0,0 +1,155 @@
+package org.emmef.cheapsets.query;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.emmef.cheapsets.ElementNotInUniverseException;
+import org.emmef.cheapsets.IndexedUniverse;
+import org.emmef.cheapsets.UniverseBasedSet;
+import org.emmef.cheapsets.UniverseBasedSets;
+
+/**
+ * Index from attribute values to the entities that have them, where the
+ * entities are elements of a shared {@link IndexedUniverse}.
+ * <p>
+ * Each attribute value has a {@link UniverseBasedSet} of entities. Filters on
+ * the values are expressed as a {@link Query}, for example
+ * <pre>
+ * colors.eq(RED).and(sizes.in(ImmutableSet.of(S, M))).andNot(discontinued.eq(true))
+ * </pre>
+ * Indexes over the same universe can be combined in one query, that is
+ * evaluated in a single pass without creating intermediate sets. An entity
+ * can have more than one value in the same index.
+ *
+ * @param <E> type of entities
+ * @param <A> type of attribute values
+ * @see Query
+ */
+public final class BitmapIndex<E, A> {
+	private final IndexedUniverse<E> universe;
+	private final Map<A, UniverseBasedSet<E>> entities = new LinkedHashMap<>();
+
+	/**
+	 * Creates an empty index for entities from {@code universe}.
+	 *
+	 * @param universe universe of the entities
+	 * @throws NullPointerException if {@code universe} is {@code null}
+	 */
+	public BitmapIndex(IndexedUniverse<E> universe) {
+		this.universe = checkNotNull(universe, "universe");
+	}
+
+	/**
+	 * Returns the universe of the entities in this index.
+	 */
+	public IndexedUniverse<E> universe() {
+		return universe;
+	}
+
+	/**
+	 * Records that {@code entity} has attribute value {@code value}.
+	 *
+	 * @return {@code true} if the entity did not have the value yet
+	 * @throws NullPointerException if {@code value} is {@code null}
+	 * @throws ElementNotInUniverseException if {@code entity} is not in the
+	 *     universe of this index
+	 */
+	public boolean add(E entity, A value) {
+		checkNotNull(value, "value");
+		UniverseBasedSet<E> set = entities.get(value);
+		if (set == null) {
+			set = UniverseBasedSets.create(universe);
+			entities.put(value, set);
+		}
+		return set.add(entity);
+	}
+
+	/**
+	 * Records that {@code entity} no longer has attribute value {@code value}.
+	 *
+	 * @return {@code true} if the entity had the value
+	 */
+	public boolean remove(E entity, A value) {
+		UniverseBasedSet<E> set = entities.get(value);
+		
+		return set != null && set.remove(entity);
+	}
+
+	/**
+	 * Removes {@code entity} from all attribute values.
+	 *
+	 * @return {@code true} if the entity had any value
+	 */
+	public boolean removeEntity(E entity) {
+		boolean changed = false;
+		for (UniverseBasedSet<E> set : entities.values()) {
+			changed |= set.remove(entity);
+		}
+		
+		return changed;
+	}
+
+	/**
+	 * Returns the number of entities that have attribute value {@code value}.
+	 */
+	public int count(A value) {
+		UniverseBasedSet<E> set = entities.get(value);
+		
+		return set != null ? set.size() : 0;
+	}
+
+	/**
+	 * Returns the attribute values in this index, in the order in which they
+	 *     were first added.
+	 *
+	 * @return a {@code non-null}, unmodifiable view
+	 */
+	public Set<A> values() {
+		return Collections.unmodifiableSet(entities.keySet());
+	}
+
+	/**
+	 * Returns a query that matches the entities that have attribute value
+	 *     {@code value}.
+	 * <p>
+	 * The query reflects later changes to the entities with the value. If no
+	 * entity had the value when the query was created, it matches nothing.
+	 *
+	 * @return a {@code non-null} {@link Query}
+	 */
+	public Query<E> eq(A value) {
+		UniverseBasedSet<E> set = entities.get(value);
+		
+		return set != null ? Query.of(set) : Query.none(universe);
+	}
+
+	/**
+	 * Returns a query that matches the entities that have any of the attribute
+	 *     values in {@code values}, see {@link #eq(Object)}.
+	 *
+	 * @return a {@code non-null} {@link Query}
+	 * @throws NullPointerException if {@code values} is {@code null}
+	 */
+	public Query<E> in(Iterable<? extends A> values) {
+		Query<E> query = null;
+		for (A value : checkNotNull(values, "values")) {
+			UniverseBasedSet<E> set = entities.get(value);
+			if (set != null) {
+				query = query != null ? query.or(Query.of(set)) : Query.of(set);
+			}
+		}
+		
+		return query != null ? query : Query.none(universe);
+	}
+
+	/**
+	 * Removes all attribute values.
+	 */
+	public void clear() {
+		entities.clear();
+	}
+}
@@ -0,0 +1,75 @@
+package org.emmef.cheapsets.query;
+
+import org.emmef.cheapsets.IndexedUniverse;
+
+/**
+ * Query that matches the elements of the universe that do not match its 
+ * operand.
+ * <p>
+ * Only indices that have an element are matched. For a universe without 
+ * gaps in its indices these are all indices below the index boundary, 
+ * otherwise the indices that have an element are recorded once, when the 
+ * query is created.
+ *
+ * @param <E> type of elements
+ */
+final class ComplementQuery<E> extends Query<E> {
+	private final Query<E> operand;
+	private final long[] elementWords;
+
+	ComplementQuery(Query<E> operand) {
+		this(operand, elementWords(operand.universe()));
+	}
+
+	private ComplementQuery(Query<E> operand, long[] elementWords) {
+		super(operand.universe());
+		this.operand = operand;
+		this.elementWords = elementWords;
+	}
+
+	@Override
+	public Query<E> not() {
+		return operand;
+	}
+
+	@Override
+	Query<E> forPass() {
+		Query<E> passOperand = operand.forPass();
+		
+		return passOperand != operand ? new ComplementQuery<>(passOperand, elementWords) : this;
+	}
+
+	@Override
+	long evaluate(int wordIndex) {
+		return ~operand.evaluate(wordIndex) & elementWord(wordIndex);
+	}
+
+	@Override
+	boolean matchesIndex(int index) {
+		return (elementWord(index >> 6) & (1L << index)) != 0 && !operand.matchesIndex(index);
+	}
+
+	private long elementWord(int wordIndex) {
+		if (elementWords != null) {
+			return wordIndex < elementWords.length ? elementWords[wordIndex] : 0L;
+		}
+		int end = universe().indexBoundary() - (wordIndex << 6);
+		
+		return end >= 64 ? -1L : end > 0 ? ~(-1L << end) : 0L;
+	}
+
+	private static long[] elementWords(IndexedUniverse<?> universe) {
+		int boundary = universe.indexBoundary();
+		if (universe.size() == boundary) {
+			return null;
+		}
+		long[] words = new long[(boundary + 63) >>> 6];
+		for (int i = 0; i < boundary; i++) {
+			if (universe.elementAt(i) != null) {
+				words[i >> 6] |= 1L << i;
+			}
+		}
+		
+		return words;
+	}
+}
@@ -0,0 +1,38 @@
+package org.emmef.cheapsets.query;
+
+/**
+ * Query that matches the elements that match its first operand and not its 
+ * second.
+ *
+ * @param <E> type of elements
+ */
+final class DifferenceQuery<E> extends Query<E> {
+	private final Query<E> included;
+	private final Query<E> excluded;
+
+	DifferenceQuery(Query<E> included, Query<E> excluded) {
+		super(included.universe());
+		this.included = included;
+		this.excluded = excluded;
+	}
+
+	@Override
+	Query<E> forPass() {
+		Query<E> passIncluded = included.forPass();
+		Query<E> passExcluded = excluded.forPass();
+		
+		return passIncluded != included || passExcluded != excluded ? new DifferenceQuery<>(passIncluded, passExcluded) : this;
+	}
+
+	@Override
+	long evaluate(int wordIndex) {
+		long word = included.evaluate(wordIndex);
+		
+		return word != 0 ? word & ~excluded.evaluate(wordIndex) : 0L;
+	}
+
+	@Override
+	boolean matchesIndex(int index) {
+		return included.matchesIndex(index) && !excluded.matchesIndex(index);
+	}
+}
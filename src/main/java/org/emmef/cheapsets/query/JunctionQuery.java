@@ -0,0 +1,85 @@
+package org.emmef.cheapsets.query;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Query that matches the elements that match all of its operands 
+ * (conjunction) or any of them (disjunction).
+ * <p>
+ * Combining a junction with another operand of the same kind adds the 
+ * operand, so that chains of {@link Query#and(Query)} or 
+ * {@link Query#or(Query)} are evaluated as one node.
+ *
+ * @param <E> type of elements
+ */
+final class JunctionQuery<E> extends Query<E> {
+	private final Query<E>[] operands;
+	private final boolean conjunction;
+
+	private JunctionQuery(List<Query<E>> operands, boolean conjunction) {
+		super(operands.get(0).universe());
+		@SuppressWarnings("unchecked")
+		Query<E>[] array = (Query<E>[])operands.toArray(new Query<?>[operands.size()]);
+		this.operands = array;
+		this.conjunction = conjunction;
+	}
+
+	static <E> Query<E> combine(Query<E> first, Query<E> second, boolean conjunction) {
+		List<Query<E>> operands = new ArrayList<>();
+		addOperands(operands, first, conjunction);
+		addOperands(operands, second, conjunction);
+		
+		return new JunctionQuery<>(operands, conjunction);
+	}
+
+	@Override
+	Query<E> forPass() {
+		List<Query<E>> passOperands = new ArrayList<>(operands.length);
+		boolean changed = false;
+		for (Query<E> operand : operands) {
+			Query<E> passOperand = operand.forPass();
+			passOperands.add(passOperand);
+			changed |= passOperand != operand;
+		}
+		
+		return changed ? new JunctionQuery<>(passOperands, conjunction) : this;
+	}
+
+	@Override
+	long evaluate(int wordIndex) {
+		if (conjunction) {
+			long word = operands[0].evaluate(wordIndex);
+			for (int i = 1; i < operands.length && word != 0; i++) {
+				word &= operands[i].evaluate(wordIndex);
+			}
+			return word;
+		}
+		long word = 0L;
+		for (int i = 0; i < operands.length && word != -1L; i++) {
+			word |= operands[i].evaluate(wordIndex);
+		}
+		return word;
+	}
+
+	@Override
+	boolean matchesIndex(int index) {
+		for (Query<E> operand : operands) {
+			if (operand.matchesIndex(index) != conjunction) {
+				return !conjunction;
+			}
+		}
+		return conjunction;
+	}
+
+	private static <E> void addOperands(List<Query<E>> operands, Query<E> query, boolean conjunction) {
+		if (query instanceof JunctionQuery && ((JunctionQuery<E>)query).conjunction == conjunction) {
+			for (Query<E> operand : ((JunctionQuery<E>)query).operands) {
+				operands.add(operand);
+			}
+		}
+		else {
+			operands.add(query);
+		}
+	}
+}
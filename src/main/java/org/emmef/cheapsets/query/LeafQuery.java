@@ -0,0 +1,45 @@
+package org.emmef.cheapsets.query;
+
+import org.emmef.cheapsets.UniverseBasedSet;
+
+/**
+ * Query that matches the elements of a set.
+ * <p>
+ * If the set has no {@link UniverseBasedSet#hasWordAccess() word access},
+ * a pass over all words evaluates a copy of its words that is made once, in
+ * {@link #forPass()}.
+ *
+ * @param <E> type of elements
+ */
+final class LeafQuery<E> extends Query<E> {
+	private final UniverseBasedSet<E> set;
+	private final long[] words;
+
+	LeafQuery(UniverseBasedSet<E> set) {
+		this(set, null);
+	}
+
+	private LeafQuery(UniverseBasedSet<E> set, long[] words) {
+		super(set.subSet());
+		this.set = set;
+		this.words = words;
+	}
+
+	@Override
+	Query<E> forPass() {
+		return words == null && !set.hasWordAccess() ? new LeafQuery<>(set, set.toLongArray()) : this;
+	}
+
+	@Override
+	long evaluate(int wordIndex) {
+		if (words != null) {
+			return wordIndex < words.length ? words[wordIndex] : 0L;
+		}
+		return wordIndex < set.wordCount() ? set.wordAt(wordIndex) : 0L;
+	}
+
+	@Override
+	boolean matchesIndex(int index) {
+		return set.containsIndex(index);
+	}
+}
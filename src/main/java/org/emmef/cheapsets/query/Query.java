@@ -0,0 +1,423 @@
+package org.emmef.cheapsets.query;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.emmef.cheapsets.IndexConsumer;
+import org.emmef.cheapsets.IndexedUniverse;
+import org.emmef.cheapsets.UniverseBasedSet;
+import org.emmef.cheapsets.UniverseBasedSets;
+import org.emmef.cheapsets.universes.UniverseHashes;
+
+import com.google.common.collect.UnmodifiableIterator;
+
+/**
+ * Boolean expression over {@link UniverseBasedSet}s of the same universe,
+ * that is evaluated word by word.
+ * <p>
+ * Queries are combined with {@link #and(Query)}, {@link #or(Query)},
+ * {@link #andNot(Query)}, {@link #xor(Query)} and {@link #not()}. The
+ * result is only computed when it is asked for, by {@link #count()},
+ * {@link #page(int, int)}, {@link #toSet()} or
+ * {@link #forEachIndex(IndexConsumer)}. These evaluate the whole expression
+ * in a single pass over the words of the operands, one word at a time,
+ * without creating intermediate sets. A conjunction stops evaluating its
+ * operands for a word as soon as that word is empty.
+ * <p>
+ * The operands are not copied: the result reflects the contents of the
+ * operand sets at the time of evaluation. Operand sets without
+ * {@link UniverseBasedSet#hasWordAccess() word access} are read into words
+ * once at the start of each pass, so an iterator reflects their contents at
+ * the time it was created.
+ * <p>
+ * A query is also an unmodifiable {@link Set} view of the matching elements.
+ * {@link #contains(Object)} only evaluates the expression for the index of the
+ * element and iteration evaluates one word at a time, so a view can be used
+ * in place of a set that would otherwise be computed with copies and bulk
+ * operations. Views of sets can be combined into trees with
+ * {@link #of(Set)} and the methods above, and {@link #toSet()} or
+ * {@link #materializeInto(UniverseBasedSet)} materialize the whole tree in a
+ * single pass.
+ *
+ * @param <E> type of elements
+ * @see BitmapIndex
+ * @see UniverseBasedSets#union(Set, Set)
+ */
+public abstract class Query<E> extends AbstractSet<E> {
+	private final IndexedUniverse<E> universe;
+
+	Query(IndexedUniverse<E> universe) {
+		this.universe = checkNotNull(universe, "universe");
+	}
+
+	/**
+	 * Returns a query that matches the elements of {@code set}.
+	 *
+	 * @param set set whose elements to match
+	 * @return a {@code non-null} {@link Query}
+	 * @throws NullPointerException if {@code set} is {@code null}
+	 */
+	public static <E> Query<E> of(UniverseBasedSet<E> set) {
+		return new LeafQuery<>(checkNotNull(set, "set"));
+	}
+
+	/**
+	 * Returns {@code set} if it is a query, or a query that matches the
+	 *     elements of {@code set} if it is a {@link UniverseBasedSet}.
+	 *
+	 * @param set query or set whose elements to match
+	 * @return a {@code non-null} {@link Query}
+	 * @throws NullPointerException if {@code set} is {@code null}
+	 * @throws IllegalArgumentException if {@code set} is neither a query nor a
+	 *     {@link UniverseBasedSet}
+	 */
+	public static <E> Query<E> of(Set<E> set) {
+		if (set instanceof Query) {
+			return (Query<E>)set;
+		}
+		checkArgument(checkNotNull(set, "set") instanceof UniverseBasedSet, "Set must be a %s or a %s", Query.class.getSimpleName(), UniverseBasedSet.class.getSimpleName());
+		
+		return of((UniverseBasedSet<E>)set);
+	}
+
+	/**
+	 * Returns a query that matches no element of {@code universe}.
+	 *
+	 * @param universe universe of possible elements
+	 * @return a {@code non-null} {@link Query}
+	 * @throws NullPointerException if {@code universe} is {@code null}
+	 */
+	public static <E> Query<E> none(IndexedUniverse<E> universe) {
+		return new LeafQuery<>(UniverseBasedSets.create(checkNotNull(universe, "universe")));
+	}
+
+	/**
+	 * Returns a query that matches all elements of {@code universe}.
+	 *
+	 * @param universe universe of possible elements
+	 * @return a {@code non-null} {@link Query}
+	 * @throws NullPointerException if {@code universe} is {@code null}
+	 */
+	public static <E> Query<E> all(IndexedUniverse<E> universe) {
+		return none(universe).not();
+	}
+
+	/**
+	 * Returns a query that matches the elements that match both this query
+	 *     and {@code other}.
+	 *
+	 * @throws IllegalArgumentException if {@code other} is over another universe
+	 */
+	public Query<E> and(Query<E> other) {
+		return JunctionQuery.combine(this, compatible(other), true);
+	}
+
+	/**
+	 * Returns a query that matches the elements that match this query or
+	 *     {@code other}.
+	 *
+	 * @throws IllegalArgumentException if {@code other} is over another universe
+	 */
+	public Query<E> or(Query<E> other) {
+		return JunctionQuery.combine(this, compatible(other), false);
+	}
+
+	/**
+	 * Returns a query that matches the elements that match this query and
+	 *     not {@code other}.
+	 *
+	 * @throws IllegalArgumentException if {@code other} is over another universe
+	 */
+	public Query<E> andNot(Query<E> other) {
+		return new DifferenceQuery<>(this, compatible(other));
+	}
+
+	/**
+	 * Returns a query that matches the elements that match either this query
+	 *     or {@code other}, but not both.
+	 *
+	 * @throws IllegalArgumentException if {@code other} is over another universe
+	 */
+	public Query<E> xor(Query<E> other) {
+		return new SymmetricDifferenceQuery<>(this, compatible(other));
+	}
+
+	/**
+	 * Returns a query that matches the elements of the universe that do not
+	 *     match this query.
+	 */
+	public Query<E> not() {
+		return new ComplementQuery<>(this);
+	}
+
+	/**
+	 * Returns the universe of the elements that this query matches.
+	 */
+	public final IndexedUniverse<E> universe() {
+		return universe;
+	}
+
+	/**
+	 * Returns the number of matching elements, without looking them up.
+	 *
+	 * @return a zero or positive number
+	 */
+	public int count() {
+		Query<E> pass = forPass();
+		int wordCount = wordCount();
+		int count = 0;
+		for (int wordIndex = 0; wordIndex < wordCount; wordIndex++) {
+			count += Long.bitCount(pass.evaluate(wordIndex));
+		}
+		
+		return count;
+	}
+
+	/**
+	 * Returns the number of matching elements, see {@link #count()}.
+	 */
+	@Override
+	public int size() {
+		return count();
+	}
+
+	/**
+	 * Returns whether no element matches, see {@link #matchesNone()}.
+	 */
+	@Override
+	public boolean isEmpty() {
+		return matchesNone();
+	}
+
+	/**
+	 * Returns whether {@code o} is an element of the universe that matches,
+	 *     evaluating the expression only for the index of {@code o}.
+	 */
+	@Override
+	public boolean contains(Object o) {
+		int index = universe.indexOf(o);
+		
+		return index >= 0 && matchesIndex(index);
+	}
+
+	/**
+	 * Returns an iterator over the matching elements, in the order of their
+	 *     universe indices, that evaluates the expression one word at a time.
+	 *
+	 * @return a {@code non-null}, unmodifiable {@link Iterator}
+	 */
+	@Override
+	public Iterator<E> iterator() {
+		return new UnmodifiableIterator<E>() {
+			private final Query<E> pass = forPass();
+			private final int wordCount = wordCount();
+			private int wordIndex = -1;
+			private long word;
+			
+			@Override
+			public boolean hasNext() {
+				while (word == 0) {
+					if (wordIndex + 1 >= wordCount) {
+						return false;
+					}
+					word = pass.evaluate(++wordIndex);
+				}
+				return true;
+			}
+			
+			@Override
+			public E next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				int index = (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+				word &= word - 1;
+				
+				return universe.elementAt(index);
+			}
+		};
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The hash code is computed word by word from the element hash codes that
+	 * are cached per universe, see {@link UniverseHashes}.
+	 */
+	@Override
+	public int hashCode() {
+		UniverseHashes hashes = UniverseHashes.of(universe);
+		Query<E> pass = forPass();
+		int wordCount = wordCount();
+		int hash = 0;
+		for (int wordIndex = 0; wordIndex < wordCount; wordIndex++) {
+			hash += hashes.sumOfWord(wordIndex, pass.evaluate(wordIndex));
+		}
+		
+		return hash;
+	}
+
+	/**
+	 * Returns whether no element matches, stopping at the first match.
+	 */
+	public boolean matchesNone() {
+		Query<E> pass = forPass();
+		int wordCount = wordCount();
+		for (int wordIndex = 0; wordIndex < wordCount; wordIndex++) {
+			if (pass.evaluate(wordIndex) != 0) {
+				return false;
+			}
+		}
+		
+		return true;
+	}
+
+	/**
+	 * Returns at most {@code limit} matching elements, in the order of their
+	 *     universe indices, after skipping the first {@code offset} matches.
+	 * <p>
+	 * Skipped words are only counted and evaluation stops as soon as the page
+	 * is full.
+	 *
+	 * @param offset number of matching elements to skip
+	 * @param limit maximum number of elements to return
+	 * @return a new, {@code non-null} {@link List}
+	 * @throws IllegalArgumentException if {@code offset} or {@code limit} is negative
+	 */
+	public List<E> page(int offset, int limit) {
+		checkArgument(offset >= 0, "Offset (%s) must not be negative", offset);
+		checkArgument(limit >= 0, "Limit (%s) must not be negative", limit);
+		List<E> page = new ArrayList<>(Math.min(limit, 16));
+		Query<E> pass = forPass();
+		int wordCount = wordCount();
+		int skip = offset;
+		for (int wordIndex = 0; wordIndex < wordCount && page.size() < limit; wordIndex++) {
+			long word = pass.evaluate(wordIndex);
+			int bits = Long.bitCount(word);
+			if (skip >= bits) {
+				skip -= bits;
+				continue;
+			}
+			for (; skip > 0; skip--) {
+				word &= word - 1;
+			}
+			int base = wordIndex << 6;
+			while (word != 0 && page.size() < limit) {
+				page.add(universe.elementAt(base + Long.numberOfTrailingZeros(word)));
+				word &= word - 1;
+			}
+		}
+		
+		return page;
+	}
+
+	/**
+	 * Returns at most {@code limit} matching elements, in the order of their
+	 *     universe indices, see {@link #page(int, int)}.
+	 */
+	public List<E> first(int limit) {
+		return page(0, limit);
+	}
+
+	/**
+	 * Passes the universe index of each matching element to the provided
+	 * consumer, in ascending order.
+	 *
+	 * @param consumer receives the index of each matching element
+	 * @throws NullPointerException if {@code consumer} is {@code null}
+	 */
+	public void forEachIndex(IndexConsumer consumer) {
+		checkNotNull(consumer, "consumer");
+		Query<E> pass = forPass();
+		int wordCount = wordCount();
+		for (int wordIndex = 0; wordIndex < wordCount; wordIndex++) {
+			long word = pass.evaluate(wordIndex);
+			int base = wordIndex << 6;
+			while (word != 0) {
+				consumer.accept(base + Long.numberOfTrailingZeros(word));
+				word &= word - 1;
+			}
+		}
+	}
+
+	/**
+	 * Returns a new set with the matching elements.
+	 * <p>
+	 * The words of the result are computed in a single pass and copied into
+	 * the new set as a whole.
+	 *
+	 * @return a new {@link UniverseBasedSet}
+	 */
+	public UniverseBasedSet<E> toSet() {
+		Query<E> pass = forPass();
+		long[] words = new long[wordCount()];
+		for (int wordIndex = 0; wordIndex < words.length; wordIndex++) {
+			words[wordIndex] = pass.evaluate(wordIndex);
+		}
+		
+		return UniverseBasedSets.fromWords(universe, words, 0);
+	}
+
+	/**
+	 * Replaces the elements of {@code target} by the matching elements.
+	 * <p>
+	 * The expression is evaluated in a single pass and each word is written 
+	 * into the target with {@link UniverseBasedSet#setWordAt(int, long)}, 
+	 * without allocating an intermediate set. As each word of the result only 
+	 * depends on the same word of the operands, the target may be one of the 
+	 * operands, for example to add the elements of another set.
+	 *
+	 * @param target set that receives the matching elements
+	 * @return {@code true} if {@code target} changed
+	 * @throws NullPointerException if {@code target} is {@code null}
+	 * @throws IllegalArgumentException if {@code target} is over another universe
+	 */
+	public boolean materializeInto(UniverseBasedSet<E> target) {
+		checkArgument(checkNotNull(target, "target").subSet() == universe, "Target must be over the same universe");
+		Query<E> pass = forPass();
+		int wordCount = wordCount();
+		int targetWordCount = target.wordCount();
+		boolean changed = false;
+		for (int wordIndex = 0; wordIndex < targetWordCount; wordIndex++) {
+			changed |= target.setWordAt(wordIndex, wordIndex < wordCount ? pass.evaluate(wordIndex) : 0L);
+		}
+		
+		return changed;
+	}
+
+	/**
+	 * Returns the query to evaluate in a single pass over all words, in which
+	 * operand sets without word access are replaced by a copy of their words.
+	 * Returns this query if no operand needs to be copied.
+	 */
+	Query<E> forPass() {
+		return this;
+	}
+
+	/**
+	 * Returns the matching indices from {@code 64 * wordIndex} up to
+	 * {@code 64 * (wordIndex + 1)} as a word.
+	 */
+	abstract long evaluate(int wordIndex);
+
+	/**
+	 * Returns whether the element at {@code index} matches.
+	 */
+	abstract boolean matchesIndex(int index);
+
+	final int wordCount() {
+		return (universe.indexBoundary() + 63) >>> 6;
+	}
+
+	private Query<E> compatible(Query<E> other) {
+		checkArgument(checkNotNull(other, "other").universe == universe, "Queries must be over the same universe");
+		return other;
+	}
+}
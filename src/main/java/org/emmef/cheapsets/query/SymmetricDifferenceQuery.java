@@ -0,0 +1,35 @@
+package org.emmef.cheapsets.query;
+
+/**
+ * Query that matches the elements that match exactly one of its operands.
+ *
+ * @param <E> type of elements
+ */
+final class SymmetricDifferenceQuery<E> extends Query<E> {
+	private final Query<E> first;
+	private final Query<E> second;
+
+	SymmetricDifferenceQuery(Query<E> first, Query<E> second) {
+		super(first.universe());
+		this.first = first;
+		this.second = second;
+	}
+
+	@Override
+	Query<E> forPass() {
+		Query<E> passFirst = first.forPass();
+		Query<E> passSecond = second.forPass();
+		
+		return passFirst != first || passSecond != second ? new SymmetricDifferenceQuery<>(passFirst, passSecond) : this;
+	}
+
+	@Override
+	long evaluate(int wordIndex) {
+		return first.evaluate(wordIndex) ^ second.evaluate(wordIndex);
+	}
+
+	@Override
+	boolean matchesIndex(int index) {
+		return first.matchesIndex(index) != second.matchesIndex(index);
+	}
+}
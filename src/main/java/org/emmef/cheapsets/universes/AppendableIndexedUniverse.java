@@ -0,0 +1,243 @@
+package org.emmef.cheapsets.universes;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.emmef.cheapsets.IndexedUniverse;
+
+/**
+ * Universe that only grows: new elements get the next free index and
+ *     existing elements keep their index.
+ * <p>
+ * Index sets for this universe, see
+ * {@link org.emmef.cheapsets.indexsets.IndexSetBuilder#emptyFor(IndexedUniverse)},
+ * grow with it, so sets and maps that were created before an element was
+ * appended stay valid and can contain that element.
+ * <p>
+ * Appending is synchronized. Lookups do not lock and can run concurrently
+ * with appends: an index that a lookup returns always lies below the
+ * boundary that is seen afterwards. Use {@link #snapshot()} for a universe
+ * that does not change.
+ *
+ * @param <T> element type
+ */
+public final class AppendableIndexedUniverse<T> implements IndexedUniverse<T> {
+	private static final int INITIAL_CAPACITY = 16;
+
+	private final ConcurrentMap<Object, Integer> indices = new ConcurrentHashMap<>();
+	private volatile Object[] elements = new Object[INITIAL_CAPACITY];
+	private volatile int size;
+
+	/**
+	 * Creates an empty universe.
+	 */
+	public AppendableIndexedUniverse() {
+	}
+
+	/**
+	 * Creates a universe that contains {@code elements}, in iteration order.
+	 *
+	 * @param elements initial elements
+	 */
+	public AppendableIndexedUniverse(Iterable<? extends T> elements) {
+		for (T element : checkNotNull(elements, "elements")) {
+			append(element);
+		}
+	}
+
+	/**
+	 * Adds {@code element} to this universe, if it is not in it yet.
+	 *
+	 * @param element element to add
+	 * @return the index of the element
+	 */
+	public synchronized int append(T element) {
+		checkNotNull(element, IndexedUniverse.class.getSimpleName() + " cannot contain null elements");
+		Integer existing = indices.get(element);
+		if (existing != null) {
+			return existing;
+		}
+		int index = size;
+		Object[] current = elements;
+		if (index == current.length) {
+			current = Arrays.copyOf(current, current.length * 2);
+		}
+		current[index] = element;
+		elements = current;
+		size = index + 1;
+		indices.put(element, index);
+		
+		return index;
+	}
+
+	/**
+	 * Returns a universe that contains the elements of this universe as they
+	 *     are now, with the same indices, and that does not change when
+	 *     elements are appended later.
+	 */
+	public IndexedUniverse<T> snapshot() {
+		int snapshotSize = size;
+		
+		return new Snapshot<>(this, elements, snapshotSize);
+	}
+
+	@Override
+	public int indexOf(Object element) {
+		if (element == null) {
+			return -1;
+		}
+		Integer index = indices.get(element);
+		
+		return index != null ? index : -1;
+	}
+
+	@Override
+	public int indexOfAll(Object[] elements, int[] indices) {
+		IndexedUniverses.checkBatch(elements.length, indices.length);
+		int misses = 0;
+		for (int i = 0; i < elements.length; i++) {
+			int index = indexOf(elements[i]);
+			indices[i] = index;
+			if (index < 0) {
+				misses++;
+			}
+		}
+		
+		return misses;
+	}
+
+	@Override
+	public int elementsAt(int[] indices, Object[] elements) {
+		IndexedUniverses.checkBatch(indices.length, elements.length);
+		int boundary = size;
+		Object[] current = this.elements;
+		int misses = 0;
+		for (int i = 0; i < indices.length; i++) {
+			int index = indices[i];
+			if (index < -1 || index >= boundary) {
+				throw new IndexOutOfBoundsException("Index " + index + " must lie within [-1, " + boundary + ")");
+			}
+			Object element = index != -1 ? current[index] : null;
+			elements[i] = element;
+			if (element == null) {
+				misses++;
+			}
+		}
+		
+		return misses;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This is the number of elements, which grows as elements are appended.
+	 */
+	@Override
+	public int indexBoundary() {
+		return size;
+	}
+
+	@Override
+	public T elementAt(int index) {
+		int boundary = size;
+		if (index < 0 || index >= boundary) {
+			throw new IndexOutOfBoundsException("Index " + index + " must lie within [0, " + boundary + ")");
+		}
+		@SuppressWarnings("unchecked")
+		T element = (T)elements[index];
+		
+		return element;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public String toString() {
+		return IndexedUniverses.toString(this);
+	}
+
+	/**
+	 * Fixed prefix of an appendable universe.
+	 */
+	private static final class Snapshot<T> implements IndexedUniverse<T> {
+		private final AppendableIndexedUniverse<T> source;
+		private final Object[] elements;
+		private final int size;
+		
+		Snapshot(AppendableIndexedUniverse<T> source, Object[] elements, int size) {
+			this.source = source;
+			this.elements = elements;
+			this.size = size;
+		}
+		
+		@Override
+		public int indexOf(Object element) {
+			int index = source.indexOf(element);
+			
+			return index < size ? index : -1;
+		}
+		
+		@Override
+		public int indexOfAll(Object[] elements, int[] indices) {
+			IndexedUniverses.checkBatch(elements.length, indices.length);
+			int misses = 0;
+			for (int i = 0; i < elements.length; i++) {
+				int index = indexOf(elements[i]);
+				indices[i] = index;
+				if (index < 0) {
+					misses++;
+				}
+			}
+			
+			return misses;
+		}
+		
+		@Override
+		public int elementsAt(int[] indices, Object[] elements) {
+			IndexedUniverses.checkBatch(indices.length, elements.length);
+			int misses = 0;
+			for (int i = 0; i < indices.length; i++) {
+				int index = indices[i];
+				Object element = index != -1 ? elementAt(index) : null;
+				elements[i] = element;
+				if (element == null) {
+					misses++;
+				}
+			}
+			
+			return misses;
+		}
+		
+		@Override
+		public int indexBoundary() {
+			return size;
+		}
+		
+		@Override
+		public T elementAt(int index) {
+			if (index < 0 || index >= size) {
+				throw new IndexOutOfBoundsException("Index " + index + " must lie within [0, " + size + ")");
+			}
+			@SuppressWarnings("unchecked")
+			T element = (T)elements[index];
+			
+			return element;
+		}
+		
+		@Override
+		public int size() {
+			return size;
+		}
+		
+		@Override
+		public String toString() {
+			return IndexedUniverses.toString(this);
+		}
+	}
+}
@@ -0,0 +1,114 @@
+package org.emmef.cheapsets.universes;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.emmef.cheapsets.IndexedUniverse;
+
+/**
+ * Universe of classes that finds the index of a class through a
+ *     {@link ClassValue}.
+ * <p>
+ * The JVM keeps the value of a {@link ClassValue} with the class itself, so
+ * after the first lookup of a class, {@link #indexOf(Object)} neither
+ * computes a hash code nor compares classes. This suits dispatch tables that
+ * are keyed on the classes of objects.
+ *
+ * @see IndexedUniverses#forClasses(Set)
+ */
+public final class ClassIndexedUniverse implements IndexedUniverse<Class<?>> {
+	private final Class<?>[] classes;
+	private final ClassValue<Integer> indices;
+
+	ClassIndexedUniverse(Set<? extends Class<?>> classes) {
+		checkArgument(!checkNotNull(classes, "classes").isEmpty(), "Indexed universe needs at least one element");
+		this.classes = new Class<?>[classes.size()];
+		final Map<Class<?>, Integer> lookup = new IdentityHashMap<>();
+		int i = 0;
+		for (Class<?> type : classes) {
+			this.classes[i] = checkNotNull(type, IndexedUniverse.class.getSimpleName() + " cannot contain null elements");
+			lookup.put(type, i++);
+		}
+		this.indices = new ClassValue<Integer>() {
+			@Override
+			protected Integer computeValue(Class<?> type) {
+				Integer index = lookup.get(type);
+				
+				return index != null ? index : -1;
+			}
+		};
+	}
+
+	@Override
+	public int indexOf(Object element) {
+		return element instanceof Class ? indices.get((Class<?>)element) : -1;
+	}
+
+	/**
+	 * Returns the index of the class of {@code object}, or -1 if that class is
+	 *     not in this universe.
+	 *
+	 * @param object object to look up the class of
+	 * @return an integer {@code i}, where -1 &le; {@code i} &lt; {@link #indexBoundary()}.
+	 */
+	public int indexOfClassOf(Object object) {
+		return indices.get(object.getClass());
+	}
+
+	@Override
+	public int indexOfAll(Object[] elements, int[] indices) {
+		IndexedUniverses.checkBatch(elements.length, indices.length);
+		int misses = 0;
+		for (int i = 0; i < elements.length; i++) {
+			int index = indexOf(elements[i]);
+			indices[i] = index;
+			if (index < 0) {
+				misses++;
+			}
+		}
+		
+		return misses;
+	}
+
+	@Override
+	public int elementsAt(int[] indices, Object[] elements) {
+		IndexedUniverses.checkBatch(indices.length, elements.length);
+		int misses = 0;
+		for (int i = 0; i < indices.length; i++) {
+			int index = indices[i];
+			if (index == -1) {
+				elements[i] = null;
+				misses++;
+			}
+			else {
+				elements[i] = elementAt(index);
+			}
+		}
+		
+		return misses;
+	}
+
+	@Override
+	public int indexBoundary() {
+		return classes.length;
+	}
+
+	@Override
+	public Class<?> elementAt(int index) {
+		return classes[index];
+	}
+
+	@Override
+	public int size() {
+		return classes.length;
+	}
+
+	@Override
+	public String toString() {
+		return IndexedUniverses.toString(this);
+	}
+}
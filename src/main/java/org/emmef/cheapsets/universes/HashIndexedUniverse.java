@@ -1,9 +1,12 @@
 package org.emmef.cheapsets.universes;
 
 import org.emmef.cheapsets.IndexedUniverse;
+import org.emmef.cheapsets.UniverseIndexed;
 import org.emmef.cheapsets.hash.HashFunction;
 
 public final class HashIndexedUniverse<T> implements IndexedUniverse<T> {
+	private static final int BATCH_BLOCK_SIZE = 256;
+	
 	private final int elementCount;
 	private final Object[] universe;
 	private final int size;
@@ -20,6 +23,12 @@ public final class HashIndexedUniverse<T> implements IndexedUniverse<T> {
 
 	@Override
 	public int indexOf(Object element) {
+		if (element instanceof UniverseIndexed) {
+			int carried = IndexedUniverses.carriedIndexOf(this, (UniverseIndexed)element, universe);
+			if (carried >= 0) {
+				return carried;
+			}
+		}
 		int index = mask & hashFunction.hashCode(element);
 		
 		if (universe[index] != null && universe[index].equals(element)) {
@@ -29,6 +38,50 @@ public final class HashIndexedUniverse<T> implements IndexedUniverse<T> {
 		return -1;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The elements are processed in blocks: all slots of a block are hashed 
+	 * first and verified in a second pass, so that the loads of the slots
+	 * for different elements do not wait for each other.
+	 */
+	@Override
+	public int indexOfAll(Object[] elements, int[] indices) {
+		IndexedUniverses.checkBatch(elements.length, indices.length);
+		int misses = 0;
+		for (int blockStart = 0; blockStart < elements.length; blockStart += BATCH_BLOCK_SIZE) {
+			int blockEnd = Math.min(elements.length, blockStart + BATCH_BLOCK_SIZE);
+			for (int i = blockStart; i < blockEnd; i++) {
+				indices[i] = mask & hashFunction.hashCode(elements[i]);
+			}
+			for (int i = blockStart; i < blockEnd; i++) {
+				Object candidate = universe[indices[i]];
+				if (candidate == null || !candidate.equals(elements[i])) {
+					indices[i] = -1;
+					misses++;
+				}
+			}
+		}
+		
+		return misses;
+	}
+	
+	@Override
+	public int elementsAt(int[] indices, Object[] elements) {
+		IndexedUniverses.checkBatch(indices.length, elements.length);
+		int misses = 0;
+		for (int i = 0; i < indices.length; i++) {
+			int index = indices[i];
+			Object element = index != -1 ? universe[index] : null;
+			elements[i] = element;
+			if (element == null) {
+				misses++;
+			}
+		}
+		
+		return misses;
+	}
+
 	@Override
 	public int indexBoundary() {
 		return size;
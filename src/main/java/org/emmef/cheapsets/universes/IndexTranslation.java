@@ -0,0 +1,120 @@
+package org.emmef.cheapsets.universes;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.concurrent.ConcurrentMap;
+
+import org.emmef.cheapsets.IndexedUniverse;
+
+import com.google.common.collect.MapMaker;
+
+/**
+ * Maps the indices of one universe to the indices of the same elements in
+ *     another universe.
+ * <p>
+ * Sets and maps over different universes use translations for bulk
+ * operations, so that they don't have to look up every element by hash.
+ * Translations are created once per pair of universes and cached for as long
+ * as both universes are in use, except for universes that can grow.
+ *
+ * @see #between(IndexedUniverse, IndexedUniverse)
+ */
+public final class IndexTranslation {
+	private static final int BATCH_BLOCK_SIZE = 1024;
+	private static final ConcurrentMap<IndexedUniverse<?>, ConcurrentMap<IndexedUniverse<?>, IndexTranslation>> CACHE = new MapMaker().weakKeys().makeMap();
+
+	private final int[] targetIndices;
+	private final int unmapped;
+
+	private IndexTranslation(IndexedUniverse<?> source, IndexedUniverse<?> target) {
+		int boundary = source.indexBoundary();
+		this.targetIndices = new int[boundary];
+		int[] sourceIndices = new int[Math.min(boundary, BATCH_BLOCK_SIZE)];
+		Object[] elements = new Object[sourceIndices.length];
+		int[] blockIndices = new int[sourceIndices.length];
+		int unmapped = 0;
+		for (int blockStart = 0; blockStart < boundary; blockStart += BATCH_BLOCK_SIZE) {
+			int blockLength = Math.min(BATCH_BLOCK_SIZE, boundary - blockStart);
+			if (blockLength < sourceIndices.length) {
+				sourceIndices = new int[blockLength];
+				elements = new Object[blockLength];
+			}
+			for (int i = 0; i < blockLength; i++) {
+				sourceIndices[i] = blockStart + i;
+			}
+			source.elementsAt(sourceIndices, elements);
+			target.indexOfAll(elements, blockIndices);
+			for (int i = 0; i < blockLength; i++) {
+				targetIndices[blockStart + i] = blockIndices[i];
+				if (blockIndices[i] < 0 && elements[i] != null) {
+					unmapped++;
+				}
+			}
+		}
+		this.unmapped = unmapped;
+	}
+
+	/**
+	 * Returns the translation from {@code source} to {@code target}, creating
+	 *     it if it is not cached yet.
+	 *
+	 * @param source universe to translate indices from
+	 * @param target universe to translate indices to
+	 * @return a {@code non-null} translation
+	 */
+	public static IndexTranslation between(IndexedUniverse<?> source, IndexedUniverse<?> target) {
+		checkNotNull(source, "source");
+		checkNotNull(target, "target");
+		
+		if (source instanceof AppendableIndexedUniverse || target instanceof AppendableIndexedUniverse) {
+			// a cached translation would go stale when elements are appended
+			return new IndexTranslation(source, target);
+		}
+		ConcurrentMap<IndexedUniverse<?>, IndexTranslation> fromSource = CACHE.get(source);
+		if (fromSource == null) {
+			ConcurrentMap<IndexedUniverse<?>, IndexTranslation> created = new MapMaker().weakKeys().makeMap();
+			fromSource = CACHE.putIfAbsent(source, created);
+			if (fromSource == null) {
+				fromSource = created;
+			}
+		}
+		IndexTranslation translation = fromSource.get(target);
+		if (translation == null) {
+			translation = new IndexTranslation(source, target);
+			IndexTranslation raced = fromSource.putIfAbsent(target, translation);
+			if (raced != null) {
+				translation = raced;
+			}
+		}
+		
+		return translation;
+	}
+
+	/**
+	 * Returns the index in the target universe of the element at
+	 *     {@code sourceIndex} in the source universe, or -1 if there is no
+	 *     element at {@code sourceIndex} or if the target universe does not
+	 *     contain it.
+	 *
+	 * @throws IndexOutOfBoundsException if {@code sourceIndex} lies outside the
+	 *     index boundary of the source universe
+	 */
+	public int translate(int sourceIndex) {
+		return targetIndices[sourceIndex];
+	}
+
+	/**
+	 * Returns the index boundary of the source universe.
+	 */
+	public int sourceBoundary() {
+		return targetIndices.length;
+	}
+
+	/**
+	 * Returns the number of elements of the source universe that are not in
+	 *     the target universe.
+	 */
+	public int unmappedCount() {
+		return unmapped;
+	}
+}
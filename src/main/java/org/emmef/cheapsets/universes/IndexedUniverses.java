@@ -2,15 +2,20 @@ package org.emmef.cheapsets.universes;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 
+import org.emmef.cheapsets.ElementNotInUniverseException;
 import org.emmef.cheapsets.IndexedUniverse;
 import org.emmef.cheapsets.UniverseBasedSet;
+import org.emmef.cheapsets.UniverseBasedSets;
+import org.emmef.cheapsets.UniverseIndexed;
 
 import com.google.common.collect.ImmutableList;
 
 public class IndexedUniverses {
+	private static final int BATCH_BLOCK_SIZE = 1024;
 	private static final List<UniverseCreator> DEFAULT_CREATOR_STRATEGY = ImmutableList.of(NaiveUniverseCreator.DEFAULT, HashedUniverseCreator.DEFAULT);
 
 	public static <E> IndexedUniverse<E> createAlways(Set<E> universe, UniverseCreator... creators) {
@@ -47,8 +52,26 @@ public class IndexedUniverses {
 		return new MapIndexedUniverse<E>(universe);
 	}
 	
+	/**
+	 * Returns an indexed universe for the elements in {@code universe}, using 
+	 *     the default creator strategy.
+	 * <p>
+	 * Universes are interned in {@link UniverseRegistry#DEFAULT}, so that equal 
+	 * sets of elements yield the same universe instance, as long as that 
+	 * universe is in use. Use {@link #createAlways(Set, List)} to always create 
+	 * a new universe.
+	 * 
+	 * @param universe elements of the universe
+	 * @return a {@code non-null} universe
+	 */
 	public static <E> IndexedUniverse<E> create(Set<E> universe) {
-		return createAlways(universe, DEFAULT_CREATOR_STRATEGY);
+		checkNotNull(universe, "universe");
+		
+		if (universe instanceof UniverseBasedSet) {
+			return ((UniverseBasedSet<E>)universe).subSet();
+		}
+		
+		return UniverseRegistry.DEFAULT.intern(universe, DEFAULT_CREATOR_STRATEGY);
 	}
 	
 	
@@ -62,6 +85,49 @@ public class IndexedUniverses {
 		return new SortedIndexedUniverse<>(universe);
 	}
 	
+	/**
+	 * Returns the universe of all tuples that combine one element of each of 
+	 *     the provided universes, see {@link ProductIndexedUniverse}.
+	 * 
+	 * @param components two or more component universes
+	 * @return a {@code non-null} universe
+	 * @throws IllegalArgumentException if there are less than two components, 
+	 *     or if the product of their index boundaries is too large
+	 */
+	public static ProductIndexedUniverse product(IndexedUniverse<?>... components) {
+		return new ProductIndexedUniverse(components);
+	}
+	
+	/**
+	 * Returns a universe with dense indices that contains the elements of 
+	 *     {@code subset}, that must all be in {@code universe}.
+	 * <p>
+	 * Sets over the projection can be converted to and from sets over the 
+	 * parent universe with {@link UniverseBasedSets#project(UniverseBasedSet, ProjectedIndexedUniverse)} 
+	 * and {@link UniverseBasedSets#expand(UniverseBasedSet, ProjectedIndexedUniverse)}.
+	 * 
+	 * @param universe parent universe
+	 * @param subset elements of the projection
+	 * @return a {@code non-null} projection
+	 * @throws ElementNotInUniverseException if an element of {@code subset} is not in {@code universe}
+	 * @throws IllegalArgumentException if {@code subset} is empty
+	 */
+	public static <E> ProjectedIndexedUniverse<E> project(IndexedUniverse<E> universe, Iterable<? extends E> subset) {
+		return new ProjectedIndexedUniverse<>(universe, subset);
+	}
+	
+	/**
+	 * Returns a universe of the provided classes that looks up indices through 
+	 *     a {@link ClassValue}, see {@link ClassIndexedUniverse}.
+	 * 
+	 * @param classes classes of the universe
+	 * @return a {@code non-null} universe
+	 * @throws IllegalArgumentException if {@code classes} is empty
+	 */
+	public static ClassIndexedUniverse forClasses(Set<? extends Class<?>> classes) {
+		return new ClassIndexedUniverse(classes);
+	}
+	
 	private static <V> IndexedUniverse<V> getEasyUniverseFromNullChecked(Set<V> universe) {
 		checkNotNull(universe, "universe");
 		
@@ -81,6 +147,82 @@ public class IndexedUniverses {
 		return null;
 	}
 	
+	/**
+	 * Looks up the index of each element that is returned by {@code elements} 
+	 *     and stores it in {@code indices}, in iteration order.
+	 * <p>
+	 * Elements are collected in blocks and passed to 
+	 * {@link IndexedUniverse#indexOfAll(Object[], int[])}, so that the universe 
+	 * can process them in bulk.
+	 * 
+	 * @param universe universe to look up indices in
+	 * @param elements elements to look up
+	 * @param indices receives the index of each element, or -1 for elements not in the universe
+	 * @return the number of elements that are not in the universe
+	 * @throws IllegalArgumentException if {@code elements} returns more elements than fit in {@code indices}
+	 */
+	public static int indexOfAll(IndexedUniverse<?> universe, Iterator<?> elements, int[] indices) {
+		checkNotNull(universe, "universe");
+		checkNotNull(elements, "elements");
+		checkNotNull(indices, "indices");
+		
+		Object[] block = new Object[Math.min(indices.length, BATCH_BLOCK_SIZE)];
+		int[] blockIndices = new int[block.length];
+		int misses = 0;
+		int count = 0;
+		while (elements.hasNext()) {
+			int blockCount = 0;
+			while (blockCount < block.length && elements.hasNext()) {
+				block[blockCount++] = elements.next();
+			}
+			if (count + blockCount > indices.length || (blockCount == 0 && elements.hasNext())) {
+				throw new IllegalArgumentException("More elements than the number of indices (" + indices.length + ")");
+			}
+			if (blockCount < block.length) {
+				Object[] lastBlock = new Object[blockCount];
+				System.arraycopy(block, 0, lastBlock, 0, blockCount);
+				block = lastBlock;
+			}
+			misses += universe.indexOfAll(block, blockIndices);
+			System.arraycopy(blockIndices, 0, indices, count, blockCount);
+			count += blockCount;
+		}
+		
+		return misses;
+	}
+	
+	/**
+	 * Returns the index that a {@link UniverseIndexed} element reports for 
+	 * {@code universe}, if {@code elements} holds that very element at that 
+	 * index, and -1 otherwise.
+	 */
+	static int carriedIndexOf(IndexedUniverse<?> universe, UniverseIndexed element, Object[] elements) {
+		int index = element.indexIn(universe);
+		
+		return index >= 0 && index < elements.length && elements[index] == element ? index : -1;
+	}
+	
+	static void checkBatch(int inputLength, int outputLength) {
+		if (outputLength < inputLength) {
+			throw new IllegalArgumentException("Output length (" + outputLength + ") is smaller than input length (" + inputLength + ")");
+		}
+	}
+	
+	/**
+	 * Returns {@code universe} if its index boundary cannot change.
+	 * 
+	 * @param universe universe to check
+	 * @return {@code universe}
+	 * @throws IllegalArgumentException if {@code universe} is an 
+	 *     {@link AppendableIndexedUniverse}
+	 */
+	public static <T> IndexedUniverse<T> checkNotGrowing(IndexedUniverse<T> universe) {
+		if (universe instanceof AppendableIndexedUniverse) {
+			throw new IllegalArgumentException("Needs a universe that cannot grow: " + universe.getClass().getSimpleName());
+		}
+		return universe;
+	}
+	
 	public static String toString(IndexedUniverse<?> universe) {
 		return universe != null ? appendTo(null, universe).toString() : "null";
 	}
@@ -11,6 +11,7 @@ import java.util.SortedSet;
 import java.util.TreeMap;
 
 import org.emmef.cheapsets.IndexedUniverse;
+import org.emmef.cheapsets.UniverseIndexed;
 
 import com.google.common.collect.Maps;
 
@@ -46,6 +47,12 @@ public class MapIndexedUniverse<T> implements IndexedUniverse<T> {
 	
 	@Override
 	public int indexOf(Object element) {
+		if (element instanceof UniverseIndexed) {
+			int carried = IndexedUniverses.carriedIndexOf(this, (UniverseIndexed)element, array);
+			if (carried >= 0) {
+				return carried;
+			}
+		}
 		Integer indexObj = elementToIndex.get(element);
 		
 		int indexOf = indexObj != null ? indexObj.intValue() : -1;
@@ -59,6 +66,39 @@ public class MapIndexedUniverse<T> implements IndexedUniverse<T> {
 		return elem != null && elem.equals(element) ? indexOf : -1;  
 	}
 
+	@Override
+	public int indexOfAll(Object[] elements, int[] indices) {
+		IndexedUniverses.checkBatch(elements.length, indices.length);
+		int misses = 0;
+		for (int i = 0; i < elements.length; i++) {
+			int index = indexOf(elements[i]);
+			indices[i] = index;
+			if (index < 0) {
+				misses++;
+			}
+		}
+		
+		return misses;
+	}
+	
+	@Override
+	public int elementsAt(int[] indices, Object[] elements) {
+		IndexedUniverses.checkBatch(indices.length, elements.length);
+		int misses = 0;
+		for (int i = 0; i < indices.length; i++) {
+			int index = indices[i];
+			if (index != -1) {
+				elements[i] = array[index];
+			}
+			else {
+				elements[i] = null;
+				misses++;
+			}
+		}
+		
+		return misses;
+	}
+
 	@Override
 	public int indexBoundary() {
 		return elementToIndex.size();
@@ -5,6 +5,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import java.util.Set;
 
 import org.emmef.cheapsets.IndexedUniverse;
+import org.emmef.cheapsets.UniverseIndexed;
 
 public class NaiveArrayUniverse<T> implements IndexedUniverse<T> {
 	private final Object[] universe;
@@ -24,6 +25,12 @@ public class NaiveArrayUniverse<T> implements IndexedUniverse<T> {
 		if (element == null) {
 			return -1;
 		}
+		if (element instanceof UniverseIndexed) {
+			int carried = IndexedUniverses.carriedIndexOf(this, (UniverseIndexed)element, universe);
+			if (carried >= 0) {
+				return carried;
+			}
+		}
 		for (int i = 0; i < universe.length; i++) {
 			if (universe[i].equals(element)) {
 				return i;
@@ -32,6 +39,39 @@ public class NaiveArrayUniverse<T> implements IndexedUniverse<T> {
 		return -1;
 	}
 
+	@Override
+	public int indexOfAll(Object[] elements, int[] indices) {
+		IndexedUniverses.checkBatch(elements.length, indices.length);
+		int misses = 0;
+		for (int i = 0; i < elements.length; i++) {
+			int index = indexOf(elements[i]);
+			indices[i] = index;
+			if (index < 0) {
+				misses++;
+			}
+		}
+		
+		return misses;
+	}
+	
+	@Override
+	public int elementsAt(int[] indices, Object[] elements) {
+		IndexedUniverses.checkBatch(indices.length, elements.length);
+		int misses = 0;
+		for (int i = 0; i < indices.length; i++) {
+			int index = indices[i];
+			if (index != -1) {
+				elements[i] = universe[index];
+			}
+			else {
+				elements[i] = null;
+				misses++;
+			}
+		}
+		
+		return misses;
+	}
+
 	@Override
 	public int indexBoundary() {
 		return universe.length;
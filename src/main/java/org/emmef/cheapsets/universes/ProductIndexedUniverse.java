@@ -0,0 +1,258 @@
+package org.emmef.cheapsets.universes;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.List;
+
+import org.emmef.cheapsets.IndexedUniverse;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Universe of all tuples that combine one element of each of two or more
+ *     component universes, with tuples represented as lists.
+ * <p>
+ * The index of a tuple is derived from the indices of its components,
+ * where the first component varies slowest: for two components this is
+ * {@code index1 * boundary2 + index2}. All tuples with the same first
+ * component therefore occupy one consecutive range of indices, see
+ * {@link #leadingRangeStart(Object)}.
+ * <p>
+ * Use {@link #indexOf(Object, Object)}, {@link #indexOfComponents(Object...)}
+ * and {@link #componentAt(int, int)} to go between tuples and indices without
+ * creating tuples. Only {@link #elementAt(int)} creates them.
+ *
+ * @see IndexedUniverses#product(IndexedUniverse...)
+ */
+public final class ProductIndexedUniverse implements IndexedUniverse<List<?>> {
+	private final IndexedUniverse<?>[] components;
+	private final int[] strides;
+	private final int boundary;
+	private final int size;
+
+	ProductIndexedUniverse(IndexedUniverse<?>... components) {
+		checkArgument(checkNotNull(components, "components").length >= 2, "Product needs at least two component universes");
+		this.components = components.clone();
+		this.strides = new int[components.length];
+		long boundary = 1;
+		long size = 1;
+		for (int i = components.length - 1; i >= 0; i--) {
+			IndexedUniverse<?> component = checkNotNull(this.components[i], "component");
+			strides[i] = (int)boundary;
+			boundary *= component.indexBoundary();
+			size *= component.size();
+			checkArgument(boundary <= Integer.MAX_VALUE, "Product of index boundaries too large: %s", boundary);
+		}
+		this.boundary = (int)boundary;
+		this.size = (int)size;
+	}
+
+	/**
+	 * Returns the number of component universes.
+	 */
+	public int dimensions() {
+		return components.length;
+	}
+
+	/**
+	 * Returns the component universe of {@code dimension}.
+	 */
+	public IndexedUniverse<?> component(int dimension) {
+		return components[dimension];
+	}
+
+	@Override
+	public int indexOf(Object element) {
+		if (!(element instanceof List)) {
+			return -1;
+		}
+		List<?> tuple = (List<?>)element;
+		if (tuple.size() != components.length) {
+			return -1;
+		}
+		int index = 0;
+		for (int i = 0; i < components.length; i++) {
+			int componentIndex = components[i].indexOf(tuple.get(i));
+			if (componentIndex < 0) {
+				return -1;
+			}
+			index += componentIndex * strides[i];
+		}
+		
+		return index;
+	}
+
+	/**
+	 * Returns the index of the tuple {@code (first, second)}, without creating it.
+	 *
+	 * @return the index, or -1 if a component is not in its universe
+	 * @throws IllegalStateException if this universe does not have two dimensions
+	 */
+	public int indexOf(Object first, Object second) {
+		if (components.length != 2) {
+			throw new IllegalStateException("Universe has " + components.length + " dimensions, not 2");
+		}
+		int firstIndex = components[0].indexOf(first);
+		if (firstIndex < 0) {
+			return -1;
+		}
+		int secondIndex = components[1].indexOf(second);
+		
+		return secondIndex >= 0 ? firstIndex * strides[0] + secondIndex : -1;
+	}
+
+	/**
+	 * Returns the index of the tuple with the provided components, without
+	 *     creating it.
+	 *
+	 * @return the index, or -1 if a component is not in its universe
+	 * @throws IllegalArgumentException if the number of components does not
+	 *     match the number of dimensions
+	 */
+	public int indexOfComponents(Object... tupleComponents) {
+		checkArgument(tupleComponents.length == components.length, "Expected %s components, not %s", components.length, tupleComponents.length);
+		int index = 0;
+		for (int i = 0; i < components.length; i++) {
+			int componentIndex = components[i].indexOf(tupleComponents[i]);
+			if (componentIndex < 0) {
+				return -1;
+			}
+			index += componentIndex * strides[i];
+		}
+		
+		return index;
+	}
+
+	/**
+	 * Returns the index of the tuple whose components have the provided
+	 *     indices in their universes.
+	 *
+	 * @throws IllegalArgumentException if the number of indices does not match
+	 *     the number of dimensions
+	 * @throws IndexOutOfBoundsException if an index lies outside the index
+	 *     boundary of its universe
+	 */
+	public int indexOfComponentIndices(int... componentIndices) {
+		checkArgument(componentIndices.length == components.length, "Expected %s indices, not %s", components.length, componentIndices.length);
+		int index = 0;
+		for (int i = 0; i < components.length; i++) {
+			int componentIndex = componentIndices[i];
+			if (componentIndex < 0 || componentIndex >= components[i].indexBoundary()) {
+				throw new IndexOutOfBoundsException("Index " + componentIndex + " of dimension " + i + " must lie within [0, " + components[i].indexBoundary() + ")");
+			}
+			index += componentIndex * strides[i];
+		}
+		
+		return index;
+	}
+
+	/**
+	 * Returns the index within its own universe of component {@code dimension}
+	 *     of the tuple at {@code index}.
+	 */
+	public int componentIndexAt(int index, int dimension) {
+		checkIndex(index);
+		
+		return (index / strides[dimension]) % components[dimension].indexBoundary();
+	}
+
+	/**
+	 * Returns component {@code dimension} of the tuple at {@code index},
+	 *     without creating the tuple.
+	 */
+	public Object componentAt(int index, int dimension) {
+		return components[dimension].elementAt(componentIndexAt(index, dimension));
+	}
+
+	/**
+	 * Returns the first index of the tuples that have {@code leadingComponent}
+	 *     as their first component, or -1 if it is not in the first universe.
+	 * <p>
+	 * These tuples occupy the indices from the returned index up to that index
+	 * plus {@link #leadingRangeLength()}.
+	 */
+	public int leadingRangeStart(Object leadingComponent) {
+		int leadingIndex = components[0].indexOf(leadingComponent);
+		
+		return leadingIndex >= 0 ? leadingIndex * strides[0] : -1;
+	}
+
+	/**
+	 * Returns the number of indices that share the same first component.
+	 */
+	public int leadingRangeLength() {
+		return strides[0];
+	}
+
+	@Override
+	public int indexOfAll(Object[] elements, int[] indices) {
+		IndexedUniverses.checkBatch(elements.length, indices.length);
+		int misses = 0;
+		for (int i = 0; i < elements.length; i++) {
+			int index = indexOf(elements[i]);
+			indices[i] = index;
+			if (index < 0) {
+				misses++;
+			}
+		}
+		
+		return misses;
+	}
+
+	@Override
+	public int elementsAt(int[] indices, Object[] elements) {
+		IndexedUniverses.checkBatch(indices.length, elements.length);
+		int misses = 0;
+		for (int i = 0; i < indices.length; i++) {
+			Object element = indices[i] != -1 ? elementAt(indices[i]) : null;
+			elements[i] = element;
+			if (element == null) {
+				misses++;
+			}
+		}
+		
+		return misses;
+	}
+
+	@Override
+	public int indexBoundary() {
+		return boundary;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This creates a new tuple on each call.
+	 */
+	@Override
+	public List<?> elementAt(int index) {
+		checkIndex(index);
+		Object[] tuple = new Object[components.length];
+		for (int i = 0; i < components.length; i++) {
+			Object component = components[i].elementAt((index / strides[i]) % components[i].indexBoundary());
+			if (component == null) {
+				return null;
+			}
+			tuple[i] = component;
+		}
+		
+		return ImmutableList.copyOf(tuple);
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public String toString() {
+		return IndexedUniverses.toString(this);
+	}
+
+	private void checkIndex(int index) {
+		if (index < 0 || index >= boundary) {
+			throw new IndexOutOfBoundsException("Index " + index + " must lie within [0, " + boundary + ")");
+		}
+	}
+}
@@ -0,0 +1,150 @@
+package org.emmef.cheapsets.universes;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Arrays;
+
+import org.emmef.cheapsets.ElementNotInUniverseException;
+import org.emmef.cheapsets.IndexedUniverse;
+
+/**
+ * Universe that contains some of the elements of a parent universe, with
+ *     dense indices.
+ * <p>
+ * The elements keep the order of their indices in the parent universe. As the
+ * indices are dense, sets over a small projection of a large universe use
+ * small index sets. {@link #parentIndexOf(int)} and
+ * {@link #projectedIndexOf(int)} map indices in both directions without
+ * looking up elements.
+ *
+ * @param <T> element type
+ * @see IndexedUniverses#project(IndexedUniverse, Iterable)
+ */
+public final class ProjectedIndexedUniverse<T> implements IndexedUniverse<T> {
+	private final IndexedUniverse<T> parent;
+	private final int[] toParent;
+	private final int[] toProjection;
+
+	ProjectedIndexedUniverse(IndexedUniverse<T> parent, Iterable<?> subset) {
+		this.parent = checkNotNull(parent, "parent");
+		int[] parentIndices = new int[16];
+		int count = 0;
+		for (Object element : checkNotNull(subset, "subset")) {
+			int parentIndex = parent.indexOf(element);
+			if (parentIndex < 0) {
+				throw new ElementNotInUniverseException("Element is not backed by " + IndexedUniverse.class.getSimpleName() + ": " + element);
+			}
+			if (count == parentIndices.length) {
+				parentIndices = Arrays.copyOf(parentIndices, count * 2);
+			}
+			parentIndices[count++] = parentIndex;
+		}
+		Arrays.sort(parentIndices, 0, count);
+		int unique = 0;
+		for (int i = 0; i < count; i++) {
+			if (unique == 0 || parentIndices[unique - 1] != parentIndices[i]) {
+				parentIndices[unique++] = parentIndices[i];
+			}
+		}
+		if (unique == 0) {
+			throw new IllegalArgumentException("Projection needs at least one element");
+		}
+		this.toParent = Arrays.copyOf(parentIndices, unique);
+		this.toProjection = new int[parent.indexBoundary()];
+		Arrays.fill(toProjection, -1);
+		for (int i = 0; i < unique; i++) {
+			toProjection[toParent[i]] = i;
+		}
+	}
+
+	/**
+	 * Returns the universe that this universe is a projection of.
+	 */
+	public IndexedUniverse<T> parent() {
+		return parent;
+	}
+
+	/**
+	 * Returns the index in the parent universe of the element at
+	 *     {@code projectedIndex} in this universe.
+	 *
+	 * @throws IndexOutOfBoundsException if {@code projectedIndex} lies outside
+	 *     the index boundary of this universe
+	 */
+	public int parentIndexOf(int projectedIndex) {
+		return toParent[projectedIndex];
+	}
+
+	/**
+	 * Returns the index in this universe of the element at
+	 *     {@code parentIndex} in the parent universe, or -1 if this universe
+	 *     does not contain that element.
+	 * <p>
+	 * Elements that were appended to a growing parent after this projection
+	 * was created are not in this universe.
+	 *
+	 * @throws IndexOutOfBoundsException if {@code parentIndex} is negative
+	 */
+	public int projectedIndexOf(int parentIndex) {
+		return parentIndex < toProjection.length ? toProjection[parentIndex] : -1;
+	}
+
+	@Override
+	public int indexOf(Object element) {
+		int parentIndex = parent.indexOf(element);
+		
+		return parentIndex >= 0 ? projectedIndexOf(parentIndex) : -1;
+	}
+
+	@Override
+	public int indexOfAll(Object[] elements, int[] indices) {
+		int misses = parent.indexOfAll(elements, indices);
+		for (int i = 0; i < elements.length; i++) {
+			int parentIndex = indices[i];
+			if (parentIndex >= 0) {
+				indices[i] = projectedIndexOf(parentIndex);
+				if (indices[i] < 0) {
+					misses++;
+				}
+			}
+		}
+		
+		return misses;
+	}
+
+	@Override
+	public int elementsAt(int[] indices, Object[] elements) {
+		IndexedUniverses.checkBatch(indices.length, elements.length);
+		int misses = 0;
+		for (int i = 0; i < indices.length; i++) {
+			int index = indices[i];
+			Object element = index != -1 ? parent.elementAt(toParent[index]) : null;
+			elements[i] = element;
+			if (element == null) {
+				misses++;
+			}
+		}
+		
+		return misses;
+	}
+
+	@Override
+	public int indexBoundary() {
+		return toParent.length;
+	}
+
+	@Override
+	public T elementAt(int index) {
+		return parent.elementAt(toParent[index]);
+	}
+
+	@Override
+	public int size() {
+		return toParent.length;
+	}
+
+	@Override
+	public String toString() {
+		return IndexedUniverses.toString(this);
+	}
+}
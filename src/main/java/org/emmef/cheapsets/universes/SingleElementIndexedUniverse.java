@@ -16,6 +16,44 @@ public class SingleElementIndexedUniverse<T> implements IndexedUniverse<T> {
 		return this.element.equals(element) ? 0 : -1;
 	}
 
+	@Override
+	public int indexOfAll(Object[] elements, int[] indices) {
+		IndexedUniverses.checkBatch(elements.length, indices.length);
+		int misses = 0;
+		for (int i = 0; i < elements.length; i++) {
+			if (element.equals(elements[i])) {
+				indices[i] = 0;
+			}
+			else {
+				indices[i] = -1;
+				misses++;
+			}
+		}
+		
+		return misses;
+	}
+	
+	@Override
+	public int elementsAt(int[] indices, Object[] elements) {
+		IndexedUniverses.checkBatch(indices.length, elements.length);
+		int misses = 0;
+		for (int i = 0; i < indices.length; i++) {
+			switch (indices[i]) {
+			case 0:
+				elements[i] = element;
+				break;
+			case -1:
+				elements[i] = null;
+				misses++;
+				break;
+			default:
+				throw new IndexOutOfBoundsException();
+			}
+		}
+		
+		return misses;
+	}
+
 	@Override
 	public int indexBoundary() {
 		return 1;
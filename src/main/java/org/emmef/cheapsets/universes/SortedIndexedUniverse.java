@@ -6,6 +6,7 @@ import java.util.Arrays;
 import java.util.Set;
 
 import org.emmef.cheapsets.IndexedUniverse;
+import org.emmef.cheapsets.UniverseIndexed;
 
 public final class SortedIndexedUniverse<T extends Comparable<T>> implements IndexedUniverse<T> {
 	private final Object[] universe;
@@ -29,9 +30,72 @@ public final class SortedIndexedUniverse<T extends Comparable<T>> implements Ind
 		if (element == null) {
 			return -1;
 		}
-		int search = Arrays.binarySearch(this.universe, element);
+		if (element instanceof UniverseIndexed) {
+			int carried = IndexedUniverses.carriedIndexOf(this, (UniverseIndexed)element, this.universe);
+			if (carried >= 0) {
+				return carried;
+			}
+		}
+		try {
+			int search = Arrays.binarySearch(this.universe, element);
+			
+			return search >= 0 ? search : -1;
+		}
+		catch (ClassCastException e) {
+			// element cannot be compared with the universe, so it is not in it
+			return -1;
+		}
+	}
+
+	@Override
+	public int indexOfAll(Object[] elements, int[] indices) {
+		IndexedUniverses.checkBatch(elements.length, indices.length);
+		int misses = 0;
+		for (int i = 0; i < elements.length; i++) {
+			int index = indexOf(elements[i]);
+			indices[i] = index;
+			if (index < 0) {
+				misses++;
+			}
+		}
+		
+		return misses;
+	}
+	
+	@Override
+	public int elementsAt(int[] indices, Object[] elements) {
+		IndexedUniverses.checkBatch(indices.length, elements.length);
+		int misses = 0;
+		for (int i = 0; i < indices.length; i++) {
+			int index = indices[i];
+			if (index != -1) {
+				elements[i] = universe[index];
+			}
+			else {
+				elements[i] = null;
+				misses++;
+			}
+		}
+		
+		return misses;
+	}
+
+	/**
+	 * Returns the index of the smallest element that is greater than or equal to 
+	 *     {@code element}, or {@link #size()} if there is no such element.
+	 * <p>
+	 * As the elements are indexed in their natural order, all elements with a 
+	 * lower index are smaller than {@code element}.
+	 * 
+	 * @param element element to compare with
+	 * @return an index between 0 and {@link #size()}, inclusive
+	 * @throws NullPointerException if {@code element} is {@code null}
+	 * @throws ClassCastException if {@code element} cannot be compared with the elements
+	 */
+	public int indexAtOrAbove(Object element) {
+		int search = Arrays.binarySearch(this.universe, checkNotNull(element, "element"));
 		
-		return search >= 0 ? search : -1;
+		return search >= 0 ? search : -search - 1;
 	}
 
 	@Override
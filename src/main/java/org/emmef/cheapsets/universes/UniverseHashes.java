@@ -0,0 +1,137 @@
+package org.emmef.cheapsets.universes;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.concurrent.ConcurrentMap;
+
+import org.emmef.cheapsets.IndexedUniverse;
+
+import com.google.common.collect.MapMaker;
+
+/**
+ * Hash codes of the elements of a universe, by index.
+ * <p>
+ * Sets and maps use these to maintain their hash code while elements are
+ * added and removed, without calling {@link Object#hashCode()} on the
+ * elements. The hash codes are computed once per universe and cached for as
+ * long as the universe is in use. For a universe that can grow, the hash
+ * codes are not cached but computed on each call.
+ * <p>
+ * The elements of a {@link ProductIndexedUniverse} are created on each call, 
+ * so their hash codes are not stored per index either. They are computed 
+ * from the cached hash codes of the components, with the formula of 
+ * {@link java.util.List#hashCode()}.
+ *
+ * @see #of(IndexedUniverse)
+ */
+public final class UniverseHashes {
+	private static final ConcurrentMap<IndexedUniverse<?>, UniverseHashes> CACHE = new MapMaker().weakKeys().makeMap();
+
+	private final int[] hashes;
+	private final IndexedUniverse<?> growing;
+	private final ProductIndexedUniverse product;
+	private final UniverseHashes[] componentHashes;
+	private final boolean[] gappedComponents;
+
+	private UniverseHashes(int[] hashes, IndexedUniverse<?> growing) {
+		this.hashes = hashes;
+		this.growing = growing;
+		this.product = null;
+		this.componentHashes = null;
+		this.gappedComponents = null;
+	}
+
+	private UniverseHashes(ProductIndexedUniverse product) {
+		int dimensions = product.dimensions();
+		this.hashes = null;
+		this.growing = null;
+		this.product = product;
+		this.componentHashes = new UniverseHashes[dimensions];
+		this.gappedComponents = new boolean[dimensions];
+		for (int i = 0; i < dimensions; i++) {
+			IndexedUniverse<?> component = product.component(i);
+			componentHashes[i] = of(component);
+			gappedComponents[i] = component.size() != component.indexBoundary();
+		}
+	}
+
+	/**
+	 * Returns the element hash codes of {@code universe}.
+	 *
+	 * @param universe universe to return the element hash codes of
+	 * @return a {@code non-null} {@link UniverseHashes}
+	 */
+	public static UniverseHashes of(IndexedUniverse<?> universe) {
+		checkNotNull(universe, "universe");
+		if (universe instanceof AppendableIndexedUniverse) {
+			return new UniverseHashes(null, universe);
+		}
+		UniverseHashes cached = CACHE.get(universe);
+		if (cached != null) {
+			return cached;
+		}
+		UniverseHashes created;
+		if (universe instanceof ProductIndexedUniverse) {
+			created = new UniverseHashes((ProductIndexedUniverse)universe);
+		}
+		else {
+			int[] hashes = new int[universe.indexBoundary()];
+			for (int i = 0; i < hashes.length; i++) {
+				Object element = universe.elementAt(i);
+				hashes[i] = element != null ? element.hashCode() : 0;
+			}
+			created = new UniverseHashes(hashes, null);
+		}
+		UniverseHashes raced = CACHE.putIfAbsent(universe, created);
+		
+		return raced != null ? raced : created;
+	}
+
+	/**
+	 * Returns the hash code of the element at {@code index}, or 0 if there is
+	 *     no element at that index.
+	 *
+	 * @throws IndexOutOfBoundsException if {@code index} lies outside the index
+	 *     boundary of the universe
+	 */
+	public int hashAt(int index) {
+		if (hashes != null) {
+			return hashes[index];
+		}
+		if (product != null) {
+			return productHashAt(index);
+		}
+		Object element = growing.elementAt(index);
+		
+		return element != null ? element.hashCode() : 0;
+	}
+
+	/**
+	 * Returns the sum of the hash codes of the elements whose indices are set
+	 *     in {@code word}, where bit 0 of the word is index
+	 *     {@code 64 * wordIndex}.
+	 */
+	public int sumOfWord(int wordIndex, long word) {
+		int offset = wordIndex << 6;
+		int sum = 0;
+		while (word != 0) {
+			sum += hashAt(offset + Long.numberOfTrailingZeros(word));
+			word &= word - 1;
+		}
+		
+		return sum;
+	}
+
+	private int productHashAt(int index) {
+		int hash = 1;
+		for (int i = 0; i < componentHashes.length; i++) {
+			int componentIndex = product.componentIndexAt(index, i);
+			if (gappedComponents[i] && product.component(i).elementAt(componentIndex) == null) {
+				return 0;
+			}
+			hash = 31 * hash + componentHashes[i].hashAt(componentIndex);
+		}
+		
+		return hash;
+	}
+}
@@ -0,0 +1,175 @@
+package org.emmef.cheapsets.universes;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.emmef.cheapsets.IndexedUniverse;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.MapMaker;
+
+/**
+ * Interns indexed universes, so that universes that are created from equal
+ * sets of elements with the same creator strategy are the same instance.
+ * <p>
+ * Sets and maps only use their fast paths for bulk operations if their
+ * universes are the same instance, so interning lets independently created
+ * sets over equal elements use them.
+ * <p>
+ * A lookup hashes the elements in a single pass and compares them with 
+ * those of the interned universe; they are only copied when a new universe
+ * is created. Universes that number their elements in iteration order, like
+ * {@link NaiveArrayUniverse} and {@link MapIndexedUniverse}, are only 
+ * returned for elements in the same order, so that an interned universe 
+ * has the same indices as a newly created one would have.
+ * <p>
+ * Universes are referenced weakly: a universe that is no longer used by
+ * anything else is removed from the registry. The registry is thread-safe.
+ *
+ * @see IndexedUniverses#create(Set)
+ */
+public final class UniverseRegistry {
+	/**
+	 * Registry that is used by {@link IndexedUniverses#create(Set)}.
+	 */
+	public static final UniverseRegistry DEFAULT = new UniverseRegistry();
+
+	private final ConcurrentMap<Key, IndexedUniverse<?>> universes = new MapMaker().weakValues().makeMap();
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * Returns the canonical universe for the elements in {@code universe} and
+	 *     the provided creator strategy, creating it with
+	 *     {@link IndexedUniverses#createAlways(Set, List)} if there is none yet.
+	 *
+	 * @param universe elements of the universe
+	 * @param creators creator strategy to create a new universe with
+	 * @return a {@code non-null} universe
+	 */
+	public <E> IndexedUniverse<E> intern(Set<E> universe, List<UniverseCreator> creators) {
+		checkNotNull(universe, "universe");
+		ImmutableList<UniverseCreator> creatorList = ImmutableList.copyOf(checkNotNull(creators, "creators"));
+		int setHash = 0;
+		int listHash = 1;
+		for (E element : universe) {
+			int hash = element.hashCode();
+			setHash += hash;
+			listHash = 31 * listHash + hash;
+		}
+		
+		@SuppressWarnings("unchecked")
+		IndexedUniverse<E> existing = (IndexedUniverse<E>)universes.get(new Key(universe, creatorList, false, setHash));
+		if (existing == null) {
+			@SuppressWarnings("unchecked")
+			IndexedUniverse<E> ordered = (IndexedUniverse<E>)universes.get(new Key(universe, creatorList, true, listHash));
+			existing = ordered;
+		}
+		if (existing != null) {
+			hits.incrementAndGet();
+			return existing;
+		}
+		
+		misses.incrementAndGet();
+		IndexedUniverse<E> created = IndexedUniverses.createAlways(universe, creators);
+		boolean ordered = created instanceof NaiveArrayUniverse || created instanceof MapIndexedUniverse;
+		Key key = new Key(ImmutableSet.copyOf(universe), creatorList, ordered, ordered ? listHash : setHash);
+		@SuppressWarnings("unchecked")
+		IndexedUniverse<E> raced = (IndexedUniverse<E>)universes.putIfAbsent(key, created);
+		
+		return raced != null ? raced : created;
+	}
+
+	/**
+	 * Returns the number of calls to {@link #intern(Set, List)} that returned an
+	 *     existing universe.
+	 */
+	public long hits() {
+		return hits.get();
+	}
+
+	/**
+	 * Returns the number of calls to {@link #intern(Set, List)} that had to
+	 *     create a universe.
+	 */
+	public long misses() {
+		return misses.get();
+	}
+
+	/**
+	 * Returns the number of universes in this registry, which can include
+	 *     universes that are no longer used but are not removed yet.
+	 */
+	public int size() {
+		return universes.size();
+	}
+
+	/**
+	 * Removes all universes from this registry and resets the counters.
+	 */
+	public void clear() {
+		universes.clear();
+		hits.set(0);
+		misses.set(0);
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "[size=" + size() + ", hits=" + hits() + ", misses=" + misses() + "]";
+	}
+
+	/**
+	 * Key of an interned universe. The elements are the caller's set for a 
+	 * lookup and a copy for an interned universe. If the key is ordered, the 
+	 * elements must also be in the same iteration order to be equal.
+	 */
+	private static final class Key {
+		private final Set<?> elements;
+		private final ImmutableList<UniverseCreator> creators;
+		private final boolean ordered;
+		private final int hashCode;
+		
+		Key(Set<?> elements, ImmutableList<UniverseCreator> creators, boolean ordered, int elementHash) {
+			this.elements = elements;
+			this.creators = creators;
+			this.ordered = ordered;
+			this.hashCode = 31 * (31 * elementHash + creators.hashCode()) + (ordered ? 1 : 0);
+		}
+		
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+		
+		@Override
+		public boolean equals(Object obj) {
+			if (obj == this) {
+				return true;
+			}
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key)obj;
+			if (hashCode != other.hashCode || ordered != other.ordered || elements.size() != other.elements.size() || !creators.equals(other.creators)) {
+				return false;
+			}
+			if (!ordered) {
+				return other.elements.containsAll(elements);
+			}
+			Iterator<?> otherElements = other.elements.iterator();
+			for (Object element : elements) {
+				if (!element.equals(otherElements.next())) {
+					return false;
+				}
+			}
+			
+			return true;
+		}
+	}
+}
@@ -0,0 +1,95 @@
+package org.emmef.cheapsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.emmef.cheapsets.universes.AppendableIndexedUniverse;
+import org.emmef.cheapsets.universes.IndexedUniverses;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+public class AppendableIndexedUniverseTest {
+
+	@Test
+	public void testSetsAndMapsSurviveAppends() {
+		AppendableIndexedUniverse<String> universe = new AppendableIndexedUniverse<>(ImmutableList.of("Aap", "Noot"));
+		UniverseBasedSet<String> set = UniverseBasedSets.create(universe);
+		UniverseBasedMap<String, Integer> map = new UniverseBasedMap<>(universe);
+		set.add("Aap");
+		map.put("Noot", 1);
+
+		for (int i = 0; i < 200; i++) {
+			assertEquals(i + 2, universe.append("word" + i));
+		}
+		assertEquals(1, universe.append("Noot"));
+		assertFalse(set.contains("word150"));
+		assertTrue(set.add("word150"));
+		map.put("word199", 2);
+
+		assertEquals(ImmutableSet.of("Aap", "word150"), set);
+		assertEquals(ImmutableMap.of("Noot", 1, "word199", 2), map);
+
+		UniverseBasedSet<String> other = UniverseBasedSets.create(universe);
+		other.add("word3");
+		other.addAll(set);
+		assertTrue(other.containsAll(set));
+		assertEquals(3, other.size());
+	}
+
+	@Test
+	public void testSnapshotDoesNotGrow() {
+		AppendableIndexedUniverse<String> universe = new AppendableIndexedUniverse<>(ImmutableList.of("Aap", "Noot"));
+		IndexedUniverse<String> snapshot = universe.snapshot();
+		universe.append("Mies");
+
+		assertEquals(2, snapshot.indexBoundary());
+		assertEquals(-1, snapshot.indexOf("Mies"));
+		assertEquals(1, snapshot.indexOf("Noot"));
+		assertEquals(3, universe.indexBoundary());
+	}
+
+	@Test
+	public void testPrimitiveMapsGrowWithUniverse() {
+		AppendableIndexedUniverse<String> universe = new AppendableIndexedUniverse<>(ImmutableList.of("Aap"));
+		UniverseBasedIntMap<String> ints = new UniverseBasedIntMap<>(universe);
+		UniverseBasedLongMap<String> longs = new UniverseBasedLongMap<>(universe);
+		UniverseBasedDoubleMap<String> doubles = new UniverseBasedDoubleMap<>(universe);
+		for (int i = 0; i < 100; i++) {
+			universe.append("x" + i);
+		}
+		assertEquals(0, ints.get("x99"));
+		assertFalse(ints.containsKey("x99"));
+
+		ints.put("x99", 1);
+		longs.addTo("x99", 2L);
+		doubles.put("x99", 3.0);
+		assertEquals(1, ints.get("x99"));
+		assertEquals(2L, longs.get("x99"));
+		assertEquals(3.0, doubles.get("x99"), 0.0);
+		assertEquals(1, ints.size());
+	}
+
+	@Test
+	public void testFixedSizeStructuresRejectGrowingUniverses() {
+		final AppendableIndexedUniverse<String> universe = new AppendableIndexedUniverse<>(ImmutableList.of("Aap"));
+		final IndexedUniverse<Integer> fixed = IndexedUniverses.create(ImmutableSet.of(1, 2));
+		for (Runnable creator : ImmutableList.<Runnable>of(
+				new Runnable() { @Override public void run() { new UniverseBasedMultiset<>(universe); } },
+				new Runnable() { @Override public void run() { new UniverseBasedTable<String, Integer, String>(universe, fixed); } },
+				new Runnable() { @Override public void run() { UniverseBasedTable.sparse(fixed, universe); } },
+				new Runnable() { @Override public void run() { new UniverseBasedDoubleTable<>(universe, fixed); } })) {
+			try {
+				creator.run();
+				fail("Expected " + IllegalArgumentException.class.getSimpleName());
+			}
+			catch (IllegalArgumentException e) {
+				// expected
+			}
+		}
+	}
+}
@@ -0,0 +1,117 @@
+package org.emmef.cheapsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+public class FrozenUniverseBasedSetTest {
+	private static final Set<String> BASE = ImmutableSet.of("Aap", "Noot", "Mies", "Wim", "Zus", "Jet", "Diederik", "Knoopsgat", "Volledig", "Knip");
+
+	@Test
+	public void testPoolReturnsCanonicalInstance() {
+		for (int size : IndexType.UNIVERSE_SIZES) {
+			List<String> elements = ImmutableList.copyOf(IndexType.paddedUniverse(BASE, size));
+			IndexedUniverse<String> universe = IndexType.HASH.create(ImmutableSet.copyOf(elements));
+			FrozenSetPool pool = new FrozenSetPool();
+			UniverseBasedSet<String> first = UniverseBasedSets.create(universe);
+			UniverseBasedSet<String> second = SetFlavor.SPARSE.create(universe);
+			for (int i = 0; i < size; i += 3) {
+				first.add(elements.get(i));
+				second.add(elements.get(i));
+			}
+			
+			FrozenUniverseBasedSet<String> interned = pool.intern(first);
+			assertSame(interned, pool.intern(second));
+			assertSame(interned, pool.intern(interned));
+			assertEquals(1, pool.misses());
+			assertEquals(2, pool.hits());
+			assertEquals(first, interned);
+			assertEquals(interned, first);
+			assertEquals(new HashSet<>(first).hashCode(), interned.hashCode());
+			
+			second.remove(elements.get(0));
+			FrozenUniverseBasedSet<String> other = pool.intern(second);
+			assertNotSame(interned, other);
+			assertFalse(interned.equals(other));
+			assertEquals(second, other);
+			
+			FrozenUniverseBasedSet<String> frozen = UniverseBasedSets.freeze(first);
+			assertNotSame(interned, frozen);
+			assertEquals(interned, frozen);
+			assertTrue(frozen.equals(interned));
+		}
+	}
+
+	@Test
+	public void testSnapshotsAreIsolated() {
+		for (SetFlavor flavor : ImmutableList.of(SetFlavor.SNAPSHOTS, SetFlavor.SPECIALIZED)) {
+			List<String> elements = ImmutableList.copyOf(IndexType.paddedUniverse(BASE, 200));
+			UniverseBasedSet<String> set = flavor.create(IndexType.HASH.create(ImmutableSet.copyOf(elements)));
+			set.addAll(elements.subList(0, 50));
+			FrozenUniverseBasedSet<String> first = set.snapshot();
+			set.removeAll(elements.subList(0, 10));
+			set.add(elements.get(150));
+			FrozenUniverseBasedSet<String> second = set.snapshot();
+			set.clear();
+			
+			assertEquals(ImmutableSet.copyOf(elements.subList(0, 50)), first);
+			assertEquals(new HashSet<>(elements.subList(0, 50)).hashCode(), first.hashCode());
+			assertEquals(41, second.size());
+			assertTrue(second.contains(elements.get(150)));
+			assertFalse(second.contains(elements.get(0)));
+			assertSame(second, second.snapshot());
+			assertTrue(set.isEmpty());
+		}
+	}
+	
+	@Test
+	public void testFrozenSetCannotBeModified() {
+		UniverseBasedSet<String> set = UniverseBasedSets.create(IndexType.SORTED.create(BASE));
+		set.add("Aap");
+		set.add("Noot");
+		FrozenUniverseBasedSet<String> frozen = UniverseBasedSets.freeze(set);
+		set.add("Mies");
+		assertEquals(ImmutableSet.of("Aap", "Noot"), frozen);
+		
+		try {
+			frozen.add("Mies");
+			fail();
+		}
+		catch (UnsupportedOperationException expected) {
+		}
+		try {
+			frozen.retainAll(ImmutableSet.of());
+			fail();
+		}
+		catch (UnsupportedOperationException expected) {
+		}
+		try {
+			frozen.indexRange(0, BASE.size()).clear();
+			fail();
+		}
+		catch (UnsupportedOperationException expected) {
+		}
+		try {
+			Iterator<String> iterator = frozen.iterator();
+			iterator.next();
+			iterator.remove();
+			fail();
+		}
+		catch (UnsupportedOperationException expected) {
+		}
+		assertEquals(ImmutableSet.of("Aap", "Noot"), frozen);
+	}
+}
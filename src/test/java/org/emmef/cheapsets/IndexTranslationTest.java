@@ -0,0 +1,130 @@
+package org.emmef.cheapsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.emmef.cheapsets.indexsets.IndexSetBuilder;
+import org.emmef.cheapsets.universes.IndexTranslation;
+import org.emmef.cheapsets.universes.IndexedUniverses;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+public class IndexTranslationTest {
+	private static final Set<String> BASE = ImmutableSet.of("Aap", "Noot", "Mies", "Wim", "Zus", "Jet", "Diederik", "Knoopsgat", "Volledig", "Knip");
+	private static final Set<String> SUBSET = ImmutableSet.of("Noot", "Zus", "Jet", "Knip");
+
+	@Test
+	public void testTranslationIsCachedAndCorrect() {
+		IndexedUniverse<String> sub = IndexedUniverses.createAlways(SUBSET);
+		IndexedUniverse<String> base = IndexedUniverses.createAlways(BASE);
+		IndexTranslation translation = IndexTranslation.between(sub, base);
+
+		assertSame(translation, IndexTranslation.between(sub, base));
+		assertEquals(0, translation.unmappedCount());
+		assertEquals(BASE.size() - SUBSET.size(), IndexTranslation.between(base, sub).unmappedCount());
+		for (String element : SUBSET) {
+			assertEquals(base.indexOf(element), translation.translate(sub.indexOf(element)));
+		}
+	}
+
+	@Test
+	public void testBulkOperationsBetweenUniverses() {
+		for (IndexType type : IndexType.values()) {
+			UniverseBasedSet<String> sub = UniverseBasedSets.create(type.create(SUBSET));
+			sub.addAll(ImmutableSet.of("Noot", "Jet"));
+			UniverseBasedSet<String> base = UniverseBasedSets.create(IndexedUniverses.createAlways(BASE));
+			base.addAll(ImmutableSet.of("Aap", "Jet", "Knip"));
+			Set<String> expected = new HashSet<>(base);
+
+			expected.addAll(sub);
+			base.addAll(sub);
+			assertEquals(expected, base);
+			assertTrue(base.containsAll(sub));
+			assertFalse(sub.containsAll(base));
+
+			expected.retainAll(SUBSET);
+			base.retainAll(setOf(type, SUBSET));
+			assertEquals(expected, base);
+			assertEquals(base, setOf(type, expected));
+
+			expected.removeAll(sub);
+			base.removeAll(sub);
+			assertEquals(expected, base);
+		}
+	}
+
+	@Test
+	public void testBulkOperationsBetweenUniversesOnSparseSets() {
+		IndexedUniverse<String> subUniverse = IndexedUniverses.createAlways(SUBSET);
+		IndexedUniverse<String> baseUniverse = IndexedUniverses.createAlways(BASE);
+		UniverseBasedSet<String> sub = UniverseBasedSets.create(subUniverse, IndexSetBuilder.sparseFor(subUniverse));
+		sub.addAll(ImmutableSet.of("Noot", "Jet"));
+		UniverseBasedSet<String> base = UniverseBasedSets.create(baseUniverse, IndexSetBuilder.sparseFor(baseUniverse));
+		base.addAll(ImmutableSet.of("Aap", "Mies", "Jet", "Knip"));
+		Set<String> expected = new HashSet<>(base);
+
+		expected.addAll(sub);
+		base.addAll(sub);
+		assertEquals(expected, base);
+		assertEquals(expected.hashCode(), base.hashCode());
+		assertTrue(base.containsAll(sub));
+		assertFalse(sub.containsAll(base));
+
+		expected.retainAll(SUBSET);
+		assertTrue(base.retainAll(setOf(IndexType.HASH, SUBSET)));
+		assertEquals(expected, base);
+		assertEquals(expected.hashCode(), base.hashCode());
+
+		expected.removeAll(sub);
+		base.removeAll(sub);
+		assertEquals(expected, base);
+		assertEquals(expected.hashCode(), base.hashCode());
+		
+		UniverseBasedMap<String, Integer> subMap = UniverseBasedMap.withEpochClear(subUniverse);
+		subMap.put("Zus", 1);
+		subMap.put("Knip", 2);
+		UniverseBasedMap<String, Integer> baseMap = UniverseBasedMap.withEpochClear(baseUniverse);
+		baseMap.put("Knip", 3);
+		baseMap.putAll(subMap);
+		assertEquals(ImmutableMap.of("Zus", 1, "Knip", 2), baseMap);
+		assertEquals(ImmutableMap.of("Zus", 1, "Knip", 2).hashCode(), baseMap.hashCode());
+	}
+
+	@Test(expected = ElementNotInUniverseException.class)
+	public void testAddAllRejectsElementsNotInUniverse() {
+		UniverseBasedSet<String> base = UniverseBasedSets.create(IndexedUniverses.createAlways(BASE));
+		base.add("Aap");
+		UniverseBasedSets.create(IndexedUniverses.createAlways(SUBSET)).addAll(base);
+	}
+
+	@Test
+	public void testMapPutAllAndEqualsBetweenUniverses() {
+		UniverseBasedMap<String, Integer> sub = new UniverseBasedMap<>(IndexedUniverses.createAlways(SUBSET));
+		sub.put("Zus", 1);
+		sub.put("Knip", 2);
+		UniverseBasedMap<String, Integer> base = new UniverseBasedMap<>(IndexedUniverses.createAlways(BASE));
+
+		base.putAll(sub);
+		assertEquals(ImmutableMap.of("Zus", 1, "Knip", 2), base);
+		assertEquals(sub, base);
+		assertEquals(base, sub);
+
+		base.put("Knip", 3);
+		assertFalse(sub.equals(base));
+		assertFalse(base.equals(sub));
+	}
+
+	private static UniverseBasedSet<String> setOf(IndexType type, Set<String> elements) {
+		UniverseBasedSet<String> set = UniverseBasedSets.create(type.create(SUBSET));
+		set.addAll(elements);
+		
+		return set;
+	}
+}
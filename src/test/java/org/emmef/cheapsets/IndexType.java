@@ -2,6 +2,8 @@ package org.emmef.cheapsets;
 
 import java.util.Set;
 
+import com.google.common.collect.ImmutableSet;
+
 import org.emmef.cheapsets.universes.HashedUniverseCreator;
 import org.emmef.cheapsets.universes.MapIndexedUniverse;
 import org.emmef.cheapsets.universes.NaiveArrayUniverse;
@@ -16,6 +18,24 @@ public enum IndexType {
 	MAPPED,
 	;
 	
+	/**
+	 * Universe sizes that cover the different index set implementations.
+	 */
+	public static final int[] UNIVERSE_SIZES = { 10, 100, 200 };
+	
+	/**
+	 * Returns a universe that contains all elements of {@code base} and 
+	 * is padded with generated elements until it has {@code size} elements.
+	 */
+	public static Set<String> paddedUniverse(Set<String> base, int size) {
+		ImmutableSet.Builder<String> builder = ImmutableSet.builder();
+		builder.addAll(base);
+		for (int i = base.size(); i < size; i++) {
+			builder.add("Element" + i);
+		}
+		return builder.build();
+	}
+	
 	public IndexedUniverse<String> create(Set<String> universe) {
 		switch (this) {
 		case HASH:
@@ -0,0 +1,59 @@
+package org.emmef.cheapsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+import java.util.Set;
+
+import org.emmef.cheapsets.universes.IndexedUniverses;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableSet;
+
+public class IndexedUniverseBatchTest {
+	private static final Set<String> BASE = ImmutableSet.of("Aap", "Noot", "Mies", "Wim", "Zus", "Jet", "Diederik", "Knoopsgat", "Volledig", "Knip");
+
+	@Test
+	public void testIndexOfAllAndElementsAtMatchSingleLookups() {
+		for (IndexType type : IndexType.values()) {
+			for (int size : IndexType.UNIVERSE_SIZES) {
+				IndexedUniverse<String> universe = type.create(IndexType.paddedUniverse(BASE, size));
+				Object[] elements = new Object[3 * size];
+				int expectedMisses = 0;
+				for (int i = 0; i < elements.length; i++) {
+					elements[i] = i % 3 == 2 ? "Missing" + i : "Element" + (i % size);
+					if (universe.indexOf(elements[i]) < 0) {
+						expectedMisses++;
+					}
+				}
+				
+				int[] indices = new int[elements.length];
+				assertEquals(expectedMisses, universe.indexOfAll(elements, indices));
+				for (int i = 0; i < elements.length; i++) {
+					assertEquals(universe.indexOf(elements[i]), indices[i]);
+				}
+				
+				Object[] decoded = new Object[indices.length];
+				assertEquals(expectedMisses, universe.elementsAt(indices, decoded));
+				for (int i = 0; i < elements.length; i++) {
+					if (indices[i] < 0) {
+						assertNull(decoded[i]);
+					}
+					else {
+						assertEquals(elements[i], decoded[i]);
+					}
+				}
+				
+				int[] iterated = new int[elements.length];
+				assertEquals(expectedMisses, IndexedUniverses.indexOfAll(universe, Arrays.asList(elements).iterator(), iterated));
+				assertEquals(Arrays.toString(indices), Arrays.toString(iterated));
+			}
+		}
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testIndexOfAllRejectsShortOutput() {
+		IndexType.NAIVE.create(BASE).indexOfAll(new Object[] { "Aap", "Noot" }, new int[1]);
+	}
+}
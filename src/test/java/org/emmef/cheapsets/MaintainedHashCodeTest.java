@@ -0,0 +1,184 @@
+package org.emmef.cheapsets;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.emmef.cheapsets.indexsets.IndexSetBuilder;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+public class MaintainedHashCodeTest {
+	private static final Set<String> BASE = ImmutableSet.of("Aap", "Noot", "Mies", "Wim", "Zus", "Jet", "Diederik", "Knoopsgat", "Volledig", "Knip");
+
+	@Test
+	public void testSetHashCodeFollowsMutations() {
+		Random random = new Random(46);
+		for (SetFlavor flavor : SetFlavor.values()) {
+			for (int size : IndexType.UNIVERSE_SIZES) {
+				List<String> elements = ImmutableList.copyOf(IndexType.paddedUniverse(BASE, size));
+				IndexedUniverse<String> universe = IndexType.HASH.create(ImmutableSet.copyOf(elements));
+				UniverseBasedSet<String> set = flavor.create(universe);
+				Set<String> reference = new HashSet<>();
+				for (int step = 0; step < 400; step++) {
+					UniverseBasedSet<String> other = random.nextBoolean() ? UniverseBasedSets.create(universe) : UniverseBasedSets.create(universe, IndexSetBuilder.epochFor(universe));
+					for (int i = random.nextInt(size / 2); i > 0; i--) {
+						other.add(elements.get(random.nextInt(size)));
+					}
+					String element = elements.get(random.nextInt(size));
+					switch (random.nextInt(9)) {
+					case 0:
+					case 1:
+						set.add(element);
+						reference.add(element);
+						break;
+					case 2:
+						set.remove(element);
+						reference.remove(element);
+						break;
+					case 3:
+						set.addAll(other);
+						reference.addAll(other);
+						break;
+					case 4:
+						set.removeAll(other);
+						reference.removeAll(other);
+						break;
+					case 5:
+						set.retainAll(random.nextBoolean() ? other : new HashSet<>(other));
+						reference.retainAll(other);
+						break;
+					case 6:
+						int from = random.nextInt(size);
+						int to = from + random.nextInt(size - from + 1);
+						Set<String> range = set.indexRange(from, to);
+						if (random.nextBoolean()) {
+							range.clear();
+						}
+						else {
+							for (Iterator<String> iterator = range.iterator(); iterator.hasNext();) {
+								if (random.nextBoolean()) {
+									iterator.next();
+								}
+								else {
+									iterator.next();
+									iterator.remove();
+								}
+							}
+						}
+						reference.retainAll(set);
+						break;
+					case 7:
+						if (random.nextInt(10) == 0) {
+							set.clear();
+							reference.clear();
+						}
+						break;
+					default:
+						for (Iterator<String> iterator = set.iterator(); iterator.hasNext();) {
+							if (iterator.next().length() % 3 == 0) {
+								iterator.remove();
+							}
+						}
+						reference.retainAll(set);
+						break;
+					}
+					assertEquals(reference, set);
+					assertEquals(reference.hashCode(), set.hashCode());
+				}
+				assertEquals(reference.hashCode(), UniverseBasedSet.copyOf(set).hashCode());
+			}
+		}
+	}
+
+	@Test
+	public void testMapHashCodeFollowsMutations() {
+		Random random = new Random(46);
+		for (MapFlavor flavor : MapFlavor.values()) {
+			for (int size : IndexType.UNIVERSE_SIZES) {
+				List<String> elements = ImmutableList.copyOf(IndexType.paddedUniverse(BASE, size));
+				IndexedUniverse<String> universe = IndexType.HASH.create(ImmutableSet.copyOf(elements));
+				UniverseBasedMap<String, Integer> map = flavor.create(universe);
+				Map<String, Integer> reference = new HashMap<>();
+				for (int step = 0; step < 400; step++) {
+					String key = elements.get(random.nextInt(size));
+					Integer value = random.nextInt(5);
+					switch (random.nextInt(7)) {
+					case 0:
+					case 1:
+						map.put(key, value);
+						reference.put(key, value);
+						break;
+					case 2:
+						map.remove(key);
+						reference.remove(key);
+						break;
+					case 3:
+						UniverseBasedMap<String, Integer> other = new UniverseBasedMap<>(universe);
+						other.put(key, value);
+						other.put(elements.get(random.nextInt(size)), value + 1);
+						map.putAll(other);
+						reference.putAll(other);
+						break;
+					case 4:
+						map.keySet().remove(key);
+						reference.remove(key);
+						break;
+					case 5:
+						UniverseBasedSet<String> keys = UniverseBasedSets.create(universe);
+						keys.add(key);
+						if (random.nextBoolean()) {
+							map.keySet().removeAll(keys);
+						}
+						else {
+							map.keySet().retainAll(keys);
+						}
+						reference.keySet().retainAll(map.keySet());
+						break;
+					default:
+						if (random.nextInt(10) == 0) {
+							map.clear();
+							reference.clear();
+						}
+						else {
+							for (Map.Entry<String, Integer> entry : map.entrySet()) {
+								entry.setValue(entry.getValue() + 1);
+								reference.put(entry.getKey(), entry.getValue());
+							}
+						}
+						break;
+					}
+					assertEquals(reference, map);
+					assertEquals(reference.hashCode(), map.hashCode());
+					assertEquals(reference.keySet().hashCode(), map.keySet().hashCode());
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testMapHashCodeSurvivesMutatedValues() {
+		UniverseBasedMap<String, List<Integer>> map = new UniverseBasedMap<>(IndexType.HASH.create(BASE));
+		map.put("Aap", new ArrayList<Integer>());
+		map.put("Noot", new ArrayList<Integer>());
+		map.get("Aap").add(42);
+		map.remove("Aap");
+		assertEquals(new HashMap<>(map).hashCode(), map.hashCode());
+
+		map.put("Mies", new ArrayList<Integer>());
+		map.get("Mies").add(7);
+		map.keySet().remove("Mies");
+		map.put("Noot", new ArrayList<Integer>(ImmutableList.of(1)));
+		assertEquals(new HashMap<>(map), map);
+		assertEquals(new HashMap<>(map).hashCode(), map.hashCode());
+	}
+}
@@ -0,0 +1,23 @@
+package org.emmef.cheapsets;
+
+/**
+ * The different ways a {@link UniverseBasedMap} can be created.
+ */
+public enum MapFlavor {
+	PLAIN,
+	EPOCH,
+	NULL_VALUES,
+	;
+	
+	public <K, V> UniverseBasedMap<K, V> create(IndexedUniverse<K> universe) {
+		switch (this) {
+		case PLAIN:
+			return new UniverseBasedMap<K, V>(universe);
+		case EPOCH:
+			return UniverseBasedMap.withEpochClear(universe);
+		case NULL_VALUES:
+			return UniverseBasedMap.withNullValues(universe);
+		}
+		throw new IllegalStateException("");
+	}
+}
@@ -0,0 +1,138 @@
+package org.emmef.cheapsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.emmef.cheapsets.universes.HashedUniverseCreator;
+import org.emmef.cheapsets.universes.IndexedUniverses;
+import org.emmef.cheapsets.universes.ProductIndexedUniverse;
+import org.emmef.cheapsets.universes.UniverseHashes;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+
+public class ProductIndexedUniverseTest {
+	private static final Set<String> REGIONS = ImmutableSet.of("North", "East", "South", "West");
+	private static final Set<String> PRODUCTS = ImmutableSet.of("Aap", "Noot", "Mies", "Wim", "Zus", "Jet", "Diederik", "Knoopsgat", "Volledig", "Knip");
+
+	@Test
+	public void testIndicesMatchTuples() {
+		ProductIndexedUniverse universe = IndexedUniverses.product(IndexedUniverses.create(REGIONS), IndexedUniverses.create(PRODUCTS));
+		assertEquals(REGIONS.size() * PRODUCTS.size(), universe.size());
+
+		Set<Integer> indices = Sets.newHashSet();
+		for (String region : REGIONS) {
+			for (String product : PRODUCTS) {
+				int index = universe.indexOf(region, product);
+				assertTrue(indices.add(index));
+				assertEquals(index, universe.indexOf(ImmutableList.of(region, product)));
+				assertEquals(index, universe.indexOfComponents(region, product));
+				assertEquals(ImmutableList.of(region, product), universe.elementAt(index));
+				assertEquals(region, universe.componentAt(index, 0));
+				assertEquals(product, universe.componentAt(index, 1));
+			}
+		}
+		assertEquals(-1, universe.indexOf("North", "Teun"));
+		assertEquals(-1, universe.indexOf(ImmutableList.of("North")));
+		assertEquals(-1, universe.indexOf("North"));
+	}
+
+	@Test
+	public void testWithLeadingIsRangeOfFirstComponent() {
+		ProductIndexedUniverse universe = IndexedUniverses.product(IndexedUniverses.create(REGIONS), IndexedUniverses.create(PRODUCTS));
+		UniverseBasedSet<List<?>> set = new UniverseBasedSet<List<?>>(universe);
+		for (String region : REGIONS) {
+			set.add(ImmutableList.of(region, "Aap"));
+			set.add(ImmutableList.of(region, "Jet"));
+		}
+
+		Set<List<?>> north = set.withLeading("North");
+		assertEquals(ImmutableSet.of(ImmutableList.of("North", "Aap"), ImmutableList.of("North", "Jet")), north);
+
+		north.clear();
+		assertEquals(6, set.size());
+		assertFalse(set.containsIndex(universe.indexOf("North", "Aap")));
+		assertTrue(set.containsIndex(universe.indexOf("East", "Aap")));
+	}
+
+	@Test
+	public void testRetainLeadingMatchesElementWise() {
+		ProductIndexedUniverse universe = IndexedUniverses.product(IndexedUniverses.create(REGIONS), IndexedUniverses.create(PRODUCTS));
+		Random random = new Random(40);
+		for (String region : REGIONS) {
+			UniverseBasedSet<List<?>> set = new UniverseBasedSet<List<?>>(universe);
+			UniverseBasedSet<List<?>> other = new UniverseBasedSet<List<?>>(universe);
+			for (String leading : REGIONS) {
+				for (String product : PRODUCTS) {
+					if (random.nextBoolean()) {
+						set.add(ImmutableList.of(leading, product));
+					}
+					if (random.nextBoolean()) {
+						other.add(ImmutableList.of(leading, product));
+					}
+				}
+			}
+			Set<List<?>> expectedOwn = new HashSet<>();
+			Set<List<?>> expectedOther = new HashSet<>();
+			for (List<?> tuple : set) {
+				if (tuple.get(0).equals(region)) {
+					expectedOwn.add(tuple);
+					if (other.contains(tuple)) {
+						expectedOther.add(tuple);
+					}
+				}
+			}
+
+			UniverseBasedSet<List<?>> copy = UniverseBasedSet.copyOf(set);
+			assertEquals(set.size() != expectedOther.size(), copy.retainAll(other.withLeading(region)));
+			assertEquals(expectedOther, copy);
+			assertEquals(expectedOther.hashCode(), copy.hashCode());
+
+			assertEquals(set.size() != expectedOwn.size(), set.retainAll(set.withLeading(region)));
+			assertEquals(expectedOwn, set);
+			assertEquals(expectedOwn.hashCode(), set.hashCode());
+			assertFalse(set.retainIndexRange(0, universe.indexBoundary()));
+			assertEquals(expectedOwn, set);
+		}
+	}
+
+	@Test
+	public void testHashesMatchTuplesWithoutStoringThem() {
+		ProductIndexedUniverse universe = IndexedUniverses.product(IndexedUniverses.createAlways(REGIONS, HashedUniverseCreator.DEFAULT), IndexedUniverses.create(PRODUCTS));
+		UniverseHashes hashes = UniverseHashes.of(universe);
+		for (int i = 0; i < universe.indexBoundary(); i++) {
+			List<?> tuple = universe.elementAt(i);
+			assertEquals(tuple != null ? tuple.hashCode() : 0, hashes.hashAt(i));
+		}
+
+		Set<Integer> large = new LinkedHashSet<>();
+		for (int i = 0; i < 10000; i++) {
+			large.add(i);
+		}
+		IndexedUniverse<Integer> component = IndexedUniverses.create(large);
+		ProductIndexedUniverse product = IndexedUniverses.product(component, component);
+		UniverseBasedSet<List<?>> set = new UniverseBasedSet<List<?>>(product);
+		set.add(ImmutableList.of(1234, 5678));
+		assertEquals(ImmutableSet.of(ImmutableList.of(1234, 5678)).hashCode(), set.hashCode());
+	}
+
+	@Test
+	public void testMapLookupByIndex() {
+		ProductIndexedUniverse universe = IndexedUniverses.product(IndexedUniverses.create(REGIONS), IndexedUniverses.create(PRODUCTS));
+		UniverseBasedMap<List<?>, Integer> map = new UniverseBasedMap<>(universe);
+		map.put(ImmutableList.of("West", "Zus"), 3);
+
+		assertTrue(map.containsIndex(universe.indexOf("West", "Zus")));
+		assertEquals(Integer.valueOf(3), map.getByIndex(universe.indexOf("West", "Zus")));
+		assertEquals(null, map.getByIndex(universe.indexOf("West", "Wim")));
+	}
+}
@@ -0,0 +1,105 @@
+package org.emmef.cheapsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Set;
+
+import org.emmef.cheapsets.indexsets.IndexSetBuilder;
+import org.emmef.cheapsets.universes.AppendableIndexedUniverse;
+import org.emmef.cheapsets.universes.HashedUniverseCreator;
+import org.emmef.cheapsets.universes.IndexedUniverses;
+import org.emmef.cheapsets.universes.ProjectedIndexedUniverse;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+public class ProjectedIndexedUniverseTest {
+	private static final Set<String> BASE = ImmutableSet.of("Aap", "Noot", "Mies", "Wim", "Zus", "Jet", "Diederik", "Knoopsgat", "Volledig", "Knip");
+
+	@Test
+	public void testProjectionHasDenseIndicesInParentOrder() {
+		for (IndexType type : IndexType.values()) {
+			for (int size : IndexType.UNIVERSE_SIZES) {
+				ImmutableList<String> elements = ImmutableList.copyOf(IndexType.paddedUniverse(BASE, size));
+				IndexedUniverse<String> parent = type.create(ImmutableSet.copyOf(elements));
+				ImmutableList<String> subset = ImmutableList.of(elements.get(size - 1), elements.get(0), elements.get(size / 2));
+				ProjectedIndexedUniverse<String> projection = IndexedUniverses.project(parent, subset);
+
+				assertEquals(ImmutableSet.copyOf(subset).size(), projection.indexBoundary());
+				int previousParentIndex = -1;
+				for (int i = 0; i < projection.indexBoundary(); i++) {
+					int parentIndex = projection.parentIndexOf(i);
+					assertTrue(parentIndex > previousParentIndex);
+					assertEquals(i, projection.projectedIndexOf(parentIndex));
+					assertEquals(parent.elementAt(parentIndex), projection.elementAt(i));
+					assertEquals(i, projection.indexOf(projection.elementAt(i)));
+					previousParentIndex = parentIndex;
+				}
+				assertEquals(-1, projection.indexOf(elements.get(1)));
+			}
+		}
+	}
+
+	@Test
+	public void testProjectAndExpandSets() {
+		for (int size : IndexType.UNIVERSE_SIZES) {
+			ImmutableList<String> elements = ImmutableList.copyOf(IndexType.paddedUniverse(BASE, size));
+			IndexedUniverse<String> parent = IndexedUniverses.createAlways(ImmutableSet.copyOf(elements), HashedUniverseCreator.DEFAULT);
+			ProjectedIndexedUniverse<String> projection = IndexedUniverses.project(parent, elements.subList(0, 3));
+			UniverseBasedSet<String> set = UniverseBasedSets.create(parent);
+			set.add(elements.get(1));
+			set.add(elements.get(size - 1));
+
+			UniverseBasedSet<String> projected = UniverseBasedSets.project(set, projection);
+			assertEquals(ImmutableSet.of(elements.get(1)), projected);
+			projected.add(elements.get(2));
+
+			UniverseBasedSet<String> expanded = UniverseBasedSets.expand(projected, projection);
+			assertEquals(ImmutableSet.of(elements.get(1), elements.get(2)), expanded);
+		}
+	}
+
+	@Test
+	public void testProjectAndExpandSetsWithoutWordAccess() {
+		for (int size : IndexType.UNIVERSE_SIZES) {
+			ImmutableList<String> elements = ImmutableList.copyOf(IndexType.paddedUniverse(BASE, size));
+			IndexedUniverse<String> parent = IndexedUniverses.createAlways(ImmutableSet.copyOf(elements), HashedUniverseCreator.DEFAULT);
+			ProjectedIndexedUniverse<String> projection = IndexedUniverses.project(parent, elements.subList(0, 3));
+			UniverseBasedSet<String> set = UniverseBasedSets.create(parent, IndexSetBuilder.sparseFor(parent));
+			set.add(elements.get(size - 1));
+			set.add(elements.get(1));
+
+			UniverseBasedSet<String> projected = UniverseBasedSets.project(set, projection);
+			assertEquals(ImmutableSet.of(elements.get(1)), projected);
+			assertEquals(ImmutableSet.of(elements.get(1)).hashCode(), projected.hashCode());
+
+			UniverseBasedSet<String> epochProjected = UniverseBasedSets.withEpochClear(projection);
+			epochProjected.add(elements.get(2));
+			epochProjected.add(elements.get(0));
+			UniverseBasedSet<String> expanded = UniverseBasedSets.expand(epochProjected, projection);
+			assertEquals(ImmutableSet.of(elements.get(0), elements.get(2)), expanded);
+			assertEquals(ImmutableSet.of(elements.get(0), elements.get(2)).hashCode(), expanded.hashCode());
+		}
+	}
+
+	@Test
+	public void testProjectionOfGrowingParent() {
+		AppendableIndexedUniverse<String> parent = new AppendableIndexedUniverse<>(BASE);
+		ProjectedIndexedUniverse<String> projection = IndexedUniverses.project(parent, ImmutableList.of("Noot", "Wim"));
+		int appended = parent.append("Teun");
+
+		assertEquals(-1, projection.indexOf("Teun"));
+		assertEquals(-1, projection.projectedIndexOf(appended));
+		int[] indices = new int[2];
+		assertEquals(1, projection.indexOfAll(new Object[] { "Teun", "Wim" }, indices));
+		assertEquals(-1, indices[0]);
+		assertEquals(1, indices[1]);
+
+		UniverseBasedSet<String> set = UniverseBasedSets.create(parent);
+		set.add("Teun");
+		set.add("Noot");
+		assertEquals(ImmutableSet.of("Noot"), UniverseBasedSets.project(set, projection));
+	}
+}
@@ -0,0 +1,34 @@
+package org.emmef.cheapsets;
+
+import org.emmef.cheapsets.indexsets.IndexSetBuilder;
+
+/**
+ * The different ways a {@link UniverseBasedSet} can be created.
+ */
+public enum SetFlavor {
+	PLAIN,
+	SPECIALIZED,
+	SPARSE,
+	ADAPTIVE,
+	EPOCH,
+	SNAPSHOTS,
+	;
+	
+	public <E> UniverseBasedSet<E> create(IndexedUniverse<E> universe) {
+		switch (this) {
+		case PLAIN:
+			return new UniverseBasedSet<E>(universe);
+		case SPECIALIZED:
+			return UniverseBasedSets.create(universe);
+		case SPARSE:
+			return UniverseBasedSets.create(universe, IndexSetBuilder.sparseFor(universe));
+		case ADAPTIVE:
+			return UniverseBasedSets.create(universe, IndexSetBuilder.adaptiveFor(universe));
+		case EPOCH:
+			return UniverseBasedSets.withEpochClear(universe);
+		case SNAPSHOTS:
+			return UniverseBasedSets.withSnapshots(universe);
+		}
+		throw new IllegalStateException("");
+	}
+}
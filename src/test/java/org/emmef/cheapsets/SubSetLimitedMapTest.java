@@ -17,17 +17,21 @@ public class SubSetLimitedMapTest {
 		TestSuite generatedSuite = new TestSuite(SubSetLimitedMapTest.class.getSimpleName());
 		
 		for (IndexType type : IndexType.values()) {
-			TestCheapMapGenerator generator = new TestCheapMapGenerator(type);
-			
-			TestSuite singleSuite = MapTestSuiteBuilder.using(generator)
-					.named(generator.getName())
-					.withFeatures(generator.features())
-					.createTestSuite();
-			
-			Enumeration<Test> tests = singleSuite.tests();
-			
-			while (tests.hasMoreElements()) {
-				generatedSuite.addTest(tests.nextElement());
+			for (int universeSize : IndexType.UNIVERSE_SIZES) {
+				for (MapFlavor flavor : MapFlavor.values()) {
+					TestCheapMapGenerator generator = new TestCheapMapGenerator(type, universeSize, flavor);
+					
+					TestSuite singleSuite = MapTestSuiteBuilder.using(generator)
+							.named(generator.getName())
+							.withFeatures(generator.features())
+							.createTestSuite();
+					
+					Enumeration<Test> tests = singleSuite.tests();
+					
+					while (tests.hasMoreElements()) {
+						generatedSuite.addTest(tests.nextElement());
+					}
+				}
 			}
 		}
 		return generatedSuite;
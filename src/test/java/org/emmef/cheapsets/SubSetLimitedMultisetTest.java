@@ -0,0 +1,40 @@
+package org.emmef.cheapsets;
+
+import java.util.Enumeration;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.junit.runner.RunWith;
+import org.junit.runners.AllTests;
+
+import com.google.common.collect.testing.google.MultisetTestSuiteBuilder;
+
+@RunWith(AllTests.class)
+public class SubSetLimitedMultisetTest {
+	private static final int[] BITS_PER_COUNTER = { 32, 4 };
+
+	public static TestSuite suite() {
+		TestSuite generatedSuite = new TestSuite(SubSetLimitedMultisetTest.class.getSimpleName());
+		
+		for (IndexType type : IndexType.values()) {
+			for (int universeSize : IndexType.UNIVERSE_SIZES) {
+				for (int bitsPerCounter : BITS_PER_COUNTER) {
+					TestCheapMultisetGenerator generator = new TestCheapMultisetGenerator(type, universeSize, bitsPerCounter);
+					
+					TestSuite singleSuite = MultisetTestSuiteBuilder.using(generator)
+							.named(generator.getName())
+							.withFeatures(generator.features())
+							.createTestSuite();
+					
+					Enumeration<Test> tests = singleSuite.tests();
+					
+					while (tests.hasMoreElements()) {
+						generatedSuite.addTest(tests.nextElement());
+					}
+				}
+			}
+		}
+		return generatedSuite;
+	}
+}
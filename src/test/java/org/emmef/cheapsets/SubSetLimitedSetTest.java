@@ -17,17 +17,21 @@ public class SubSetLimitedSetTest {
 		TestSuite generatedSuite = new TestSuite(SubSetLimitedSetTest.class.getSimpleName());
 		
 		for (IndexType type : IndexType.values()) {
-			TestCheapSetGenerator generator = new TestCheapSetGenerator(type);
-			
-			TestSuite singleSuite = SetTestSuiteBuilder.using(generator)
-					.named(generator.getName())
-					.withFeatures(generator.features())
-					.createTestSuite();
-			
-			Enumeration<Test> tests = singleSuite.tests();
-			
-			while (tests.hasMoreElements()) {
-				generatedSuite.addTest(tests.nextElement());
+			for (int universeSize : IndexType.UNIVERSE_SIZES) {
+				for (SetFlavor flavor : SetFlavor.values()) {
+					TestCheapSetGenerator generator = new TestCheapSetGenerator(type, universeSize, flavor);
+					
+					TestSuite singleSuite = SetTestSuiteBuilder.using(generator)
+							.named(generator.getName())
+							.withFeatures(generator.features())
+							.createTestSuite();
+					
+					Enumeration<Test> tests = singleSuite.tests();
+					
+					while (tests.hasMoreElements()) {
+						generatedSuite.addTest(tests.nextElement());
+					}
+				}
 			}
 		}
 		return generatedSuite;
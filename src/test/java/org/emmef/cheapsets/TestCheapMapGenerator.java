@@ -29,8 +29,13 @@ public final class TestCheapMapGenerator implements TestMapGenerator<String, Str
 			CollectionFeature.REMOVE_OPERATIONS, 
 			CollectionFeature.SUPPORTS_ADD, 
 			CollectionSize.ANY);
+	private static final ImmutableList<Feature<?>> NULL_VALUE_FEATURES = ImmutableList.<Feature<?>>builder()
+			.addAll(FEATURES)
+			.add(MapFeature.ALLOWS_NULL_VALUES)
+			.build();
 			
 	private static final Set<String> UNIVERSE = ImmutableSet.of("Aap", "Noot", "Mies", "Wim", "Zus", "Jet", "Diederik", "Knoopsgat", "Volledig", "Knip");
+	public static final int DEFAULT_UNIVERSE_SIZE = UNIVERSE.size();
 	private static final Set<String> VALUES = ImmutableSet.<String>builder().addAll(UNIVERSE).add("Pokemon", "6^%$^%565", "Test3").build();
 	
 	private static final List<String> UNIVERSE_LIST = ImmutableList.copyOf(UNIVERSE);
@@ -39,6 +44,8 @@ public final class TestCheapMapGenerator implements TestMapGenerator<String, Str
 	private static final SampleElements<Entry<String, String>> SAMPLE_ELEMENTS = createSampleElements();
 
 	private final IndexType indexType;
+	private final Set<String> universe;
+	private final MapFlavor flavor;
 	
 	@Override
 	public SampleElements<Entry<String, String>> samples() {
@@ -46,7 +53,13 @@ public final class TestCheapMapGenerator implements TestMapGenerator<String, Str
 	}
 	
 	public TestCheapMapGenerator(IndexType indexType) {
+		this(indexType, DEFAULT_UNIVERSE_SIZE, MapFlavor.PLAIN);
+	}
+	
+	public TestCheapMapGenerator(IndexType indexType, int universeSize, MapFlavor flavor) {
 		this.indexType = checkNotNull(indexType, "indexType");
+		this.universe = IndexType.paddedUniverse(UNIVERSE, universeSize);
+		this.flavor = checkNotNull(flavor, "flavor");
 	}
 
 	@SuppressWarnings("unchecked")
@@ -58,7 +71,8 @@ public final class TestCheapMapGenerator implements TestMapGenerator<String, Str
 
 	@Override
 	public Map<String, String> create(Object... elements) {
-		UniverseBasedMap<String, String> created = new UniverseBasedMap<String,String>(indexType.create(UNIVERSE));
+		IndexedUniverse<String> indexedUniverse = indexType.create(universe);
+		UniverseBasedMap<String, String> created = flavor.create(indexedUniverse);
 		for (Object element : elements) {
 			@SuppressWarnings("unchecked")
 			Entry<String,String> entry = (Entry<String,String>)element;
@@ -70,12 +84,12 @@ public final class TestCheapMapGenerator implements TestMapGenerator<String, Str
 	
 	@Override
 	public Iterable<Feature<?>> features() {
-		return FEATURES; 
+		return flavor == MapFlavor.NULL_VALUES ? NULL_VALUE_FEATURES : FEATURES; 
 	}
 	
 	@Override
 	public String getName() {
-		return UniverseBasedMap.class.getSimpleName() + "Test; index-type=" + indexType;
+		return UniverseBasedMap.class.getSimpleName() + "Test; index-type=" + indexType + "; universe-size=" + universe.size() + "; flavor=" + flavor;
 	}
 
 	@Override
@@ -0,0 +1,81 @@
+package org.emmef.cheapsets;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import org.emmef.cheapsets.UniverseBasedMultiset.Overflow;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Multiset;
+import com.google.common.collect.testing.SampleElements;
+import com.google.common.collect.testing.features.CollectionFeature;
+import com.google.common.collect.testing.features.CollectionSize;
+import com.google.common.collect.testing.features.Feature;
+import com.google.common.collect.testing.google.TestMultisetGenerator;
+
+public final class TestCheapMultisetGenerator implements TestMultisetGenerator<String>, TestFeatures {
+	private static final ImmutableList<Feature<?>> FEATURES = ImmutableList.<Feature<?>>of(
+			CollectionFeature.ALLOWS_NULL_QUERIES, 
+			CollectionFeature.SUPPORTS_ADD, 
+			CollectionFeature.SUPPORTS_REMOVE, 
+			CollectionSize.ANY);
+			
+	private static final Set<String> UNIVERSE = ImmutableSet.of("Aap", "Noot", "Mies", "Wim", "Zus", "Jet", "Diederik", "Knoopsgat", "Volledig", "Knip");
+	
+	private final IndexType indexType;
+	private final Set<String> universe;
+	private final int bitsPerCounter;
+
+	/**
+	 * @param bitsPerCounter 32 for plain counters, or 4, 8 or 16 for packed counters that promote
+	 */
+	public TestCheapMultisetGenerator(IndexType indexType, int universeSize, int bitsPerCounter) {
+		this.indexType = checkNotNull(indexType, "indexType");
+		this.universe = IndexType.paddedUniverse(UNIVERSE, universeSize);
+		this.bitsPerCounter = bitsPerCounter;
+	}
+
+	@Override
+	public SampleElements<String> samples() {
+		Iterator<String> iterator = UNIVERSE.iterator();
+		return new SampleElements<String>(iterator.next(), iterator.next(), iterator.next(), iterator.next(), iterator.next());
+	}
+
+	@Override
+	public String[] createArray(int length) {
+		return new String[length];
+	}
+
+	@Override
+	public Iterable<String> order(List<String> insertionOrder) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public Multiset<String> create(Object... elements) {
+		IndexedUniverse<String> indexedUniverse = indexType.create(universe);
+		UniverseBasedMultiset<String> created = bitsPerCounter == 32 
+				? new UniverseBasedMultiset<>(indexedUniverse) 
+				: UniverseBasedMultiset.packed(indexedUniverse, bitsPerCounter, Overflow.PROMOTE);
+		
+		for (Object element : elements) {
+			created.add((String)element);
+		}
+		
+		return created;
+	}
+	
+	@Override
+	public Iterable<Feature<?>> features() {
+		return FEATURES; 
+	}
+	
+	@Override
+	public String getName() {
+		return UniverseBasedMultiset.class.getSimpleName() + "Test; index-type=" + indexType + "; universe-size=" + universe.size() + "; bits-per-counter=" + bitsPerCounter;
+	}
+}
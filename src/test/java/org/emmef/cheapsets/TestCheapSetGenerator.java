@@ -22,11 +22,20 @@ public final class TestCheapSetGenerator implements TestSetGenerator<String>, Te
 			CollectionSize.ANY);
 			
 	private static final Set<String> UNIVERSE = ImmutableSet.of("Aap", "Noot", "Mies", "Wim", "Zus", "Jet", "Diederik", "Knoopsgat", "Volledig", "Knip");
+	public static final int DEFAULT_UNIVERSE_SIZE = UNIVERSE.size();
 	
 	private final IndexType indexType;
+	private final Set<String> universe;
+	private final SetFlavor flavor;
 
 	public TestCheapSetGenerator(IndexType indexType) {
+		this(indexType, DEFAULT_UNIVERSE_SIZE, SetFlavor.PLAIN);
+	}
+	
+	public TestCheapSetGenerator(IndexType indexType, int universeSize, SetFlavor flavor) {
 		this.indexType = checkNotNull(indexType, "indexType");
+		this.universe = IndexType.paddedUniverse(UNIVERSE, universeSize);
+		this.flavor = checkNotNull(flavor, "flavor");
 	}
 
 	@Override
@@ -47,7 +56,8 @@ public final class TestCheapSetGenerator implements TestSetGenerator<String>, Te
 
 	@Override
 	public Set<String> create(Object... elements) {
-		UniverseBasedSet<String> created = new UniverseBasedSet<String>(indexType.create(UNIVERSE));
+		IndexedUniverse<String> indexedUniverse = indexType.create(universe);
+		UniverseBasedSet<String> created = flavor.create(indexedUniverse);
 		
 		for (Object element : elements) {
 			created.add((String)element);
@@ -63,6 +73,6 @@ public final class TestCheapSetGenerator implements TestSetGenerator<String>, Te
 	
 	@Override
 	public String getName() {
-		return UniverseBasedSet.class.getSimpleName() + "Test; index-type=" + indexType;
+		return UniverseBasedSet.class.getSimpleName() + "Test; index-type=" + indexType + "; universe-size=" + universe.size() + "; flavor=" + flavor;
 	}
 }
\ No newline at end of file
@@ -0,0 +1,115 @@
+package org.emmef.cheapsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+
+public class UniverseBasedMapTest {
+	private static final Set<String> BASE = ImmutableSet.of("Aap", "Noot", "Mies", "Wim", "Zus", "Jet", "Diederik", "Knoopsgat", "Volledig", "Knip");
+
+	@Test
+	public void testKeySetSharesPresentKeys() {
+		IndexedUniverse<String> universe = IndexType.HASH.create(BASE);
+		UniverseBasedMap<String, Integer> map = new UniverseBasedMap<>(universe);
+		map.put("Aap", 1);
+		map.put("Noot", 2);
+		map.put("Mies", 3);
+		
+		UniverseBasedSet<String> selection = UniverseBasedSets.create(universe);
+		selection.add("Noot");
+		selection.add("Wim");
+		UniverseBasedSet<String> keys = map.keySet();
+		assertTrue(keys.retainAll(selection));
+		assertEquals(1, map.size());
+		assertNull(map.get("Aap"));
+		assertEquals(Integer.valueOf(2), map.get("Noot"));
+		assertEquals(ImmutableSet.of("Noot"), keys);
+		
+		map.put("Zus", 4);
+		assertTrue(keys.contains("Zus"));
+		assertEquals(ImmutableSet.of("Aap", "Mies", "Wim", "Jet", "Diederik", "Knoopsgat", "Volledig", "Knip"), UniverseBasedSet.complementOf(keys));
+	}
+	
+	@Test
+	public void testIterationWithoutEntries() {
+		UniverseBasedMap<String, Integer> map = new UniverseBasedMap<>(IndexType.SORTED.create(BASE));
+		map.put("Aap", 1);
+		map.put("Noot", 2);
+		map.put("Mies", 3);
+		
+		final StringBuilder visited = new StringBuilder();
+		map.forEach(new EntryConsumer<String, Integer>() {
+			@Override
+			public void accept(String key, Integer value) {
+				visited.append(key).append(value);
+			}
+		});
+		assertEquals("Aap1Mies3Noot2", visited.toString());
+		
+		map.replaceAll(new Maps.EntryTransformer<String, Integer, Integer>() {
+			@Override
+			public Integer transformEntry(String key, Integer value) {
+				return value * 10;
+			}
+		});
+		assertEquals(ImmutableMap.of("Aap", 10, "Noot", 20, "Mies", 30), map);
+		
+		MapCursor<String, Integer> cursor = map.cursor();
+		while (cursor.next()) {
+			if (cursor.key().equals("Mies")) {
+				cursor.remove();
+			}
+			else {
+				assertEquals(Integer.valueOf(cursor.value()), cursor.setValue(cursor.value() + 1));
+			}
+		}
+		assertEquals(ImmutableMap.of("Aap", 11, "Noot", 21), map);
+		
+		cursor.reset();
+		assertTrue(cursor.next());
+		assertEquals("Aap", cursor.key());
+		assertEquals(map.keySet().subSet().indexOf("Aap"), cursor.index());
+	}
+	
+	@Test
+	public void testNullValuesArePresent() {
+		UniverseBasedMap<String, Integer> map = UniverseBasedMap.withNullValues(IndexType.SORTED.create(BASE));
+		map.put("Aap", null);
+		assertTrue(map.containsKey("Aap"));
+		assertTrue(map.containsValue(null));
+		assertEquals(1, map.size());
+		assertNull(map.remove("Aap"));
+		assertFalse(map.containsKey("Aap"));
+		assertTrue(map.isEmpty());
+	}
+	
+	@Test
+	public void testRemovingKeysReleasesValues() {
+		IndexedUniverse<String> universe = IndexType.HASH.create(BASE);
+		UniverseBasedMap<String, Integer> map = new UniverseBasedMap<>(universe);
+		map.put("Aap", 1);
+		map.put("Noot", 2);
+		map.put("Mies", 3);
+		map.put("Wim", 4);
+		
+		map.keySet().remove("Aap");
+		assertNull(map.valueAt(universe.indexOf("Aap")));
+		map.keySet().removeAll(ImmutableSet.of("Noot"));
+		assertNull(map.valueAt(universe.indexOf("Noot")));
+		assertEquals(Integer.valueOf(3), map.valueAt(universe.indexOf("Mies")));
+		map.keySet().clear();
+		for (String key : BASE) {
+			assertNull(map.valueAt(universe.indexOf(key)));
+		}
+		assertEquals(0, map.hashCode());
+	}
+}
@@ -0,0 +1,90 @@
+package org.emmef.cheapsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Set;
+
+import org.emmef.cheapsets.UniverseBasedMultiset.Overflow;
+import org.junit.Assume;
+import org.junit.Test;
+
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.ImmutableSet;
+
+public class UniverseBasedMultisetTest {
+	private static final Set<String> BASE = ImmutableSet.of("Aap", "Noot", "Mies", "Wim", "Zus", "Jet", "Diederik", "Knoopsgat", "Volledig", "Knip");
+
+	@Test
+	public void testSaturatingCountersKeepMaximum() {
+		UniverseBasedMultiset<String> multiset = UniverseBasedMultiset.packed(IndexType.HASH.create(BASE), 4, Overflow.SATURATE);
+		multiset.add("Noot", 3);
+		multiset.add("Mies", 20);
+		multiset.add("Mies", 20);
+		
+		assertEquals(4, multiset.bitsPerCounter());
+		assertEquals(3, multiset.count("Noot"));
+		assertEquals(15, multiset.count("Mies"));
+		assertEquals(18, multiset.size());
+		assertEquals(0, multiset.count("Aap"));
+		
+		multiset.remove("Mies", 5);
+		assertEquals(10, multiset.count("Mies"));
+	}
+	
+	@Test
+	public void testPromotingCountersWiden() {
+		for (IndexType type : IndexType.values()) {
+			for (int size : IndexType.UNIVERSE_SIZES) {
+				Set<String> elements = IndexType.paddedUniverse(BASE, size);
+				UniverseBasedMultiset<String> multiset = UniverseBasedMultiset.packed(type.create(elements), 4, Overflow.PROMOTE);
+				HashMultiset<String> reference = HashMultiset.create();
+				int i = 0;
+				for (String element : elements) {
+					multiset.add(element, i % 7);
+					reference.add(element, i % 7);
+					i++;
+				}
+				assertEquals(4, multiset.bitsPerCounter());
+				assertEquals(reference, multiset);
+				
+				multiset.add("Wim", 300);
+				reference.add("Wim", 300);
+				assertEquals(16, multiset.bitsPerCounter());
+				assertEquals(reference, multiset);
+				
+				multiset.add("Zus", 70000);
+				reference.add("Zus", 70000);
+				assertEquals(32, multiset.bitsPerCounter());
+				assertEquals(reference, multiset);
+				assertEquals(reference.hashCode(), multiset.hashCode());
+			}
+		}
+	}
+	
+	@Test
+	public void testAddAndCountDoNotAllocate() {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean)bean;
+		Assume.assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+		UniverseBasedMultiset<String> multiset = new UniverseBasedMultiset<>(IndexType.HASH.create(BASE));
+		long thread = Thread.currentThread().getId();
+		long total = 0;
+		for (int round = 0; round < 5; round++) {
+			multiset.setCount("Wim", 0);
+			long before = threads.getThreadAllocatedBytes(thread);
+			for (int i = 0; i < 10000; i++) {
+				multiset.add("Wim", 1000);
+				total += multiset.count("Wim");
+			}
+			long allocated = threads.getThreadAllocatedBytes(thread) - before;
+			if (round == 4) {
+				assertTrue("Allocated " + allocated + " bytes", allocated < 10000);
+			}
+		}
+		assertTrue(total > 0);
+	}
+}
@@ -0,0 +1,96 @@
+package org.emmef.cheapsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+public class UniverseBasedPrimitiveMapTest {
+	private static final Set<String> BASE = ImmutableSet.of("Aap", "Noot", "Mies", "Wim", "Zus", "Jet", "Diederik", "Knoopsgat", "Volledig", "Knip");
+
+	@Test
+	public void testIntMapMatchesReference() {
+		for (IndexType type : IndexType.values()) {
+			for (int size : IndexType.UNIVERSE_SIZES) {
+				ImmutableList<String> keys = ImmutableList.copyOf(IndexType.paddedUniverse(BASE, size));
+				UniverseBasedIntMap<String> map = new UniverseBasedIntMap<>(type.create(ImmutableSet.copyOf(keys)));
+				Map<String, Integer> reference = new HashMap<>();
+				Random random = new Random(size);
+				for (int i = 0; i < 4 * size; i++) {
+					String key = keys.get(random.nextInt(size));
+					Integer previous = reference.get(key);
+					int expected = previous != null ? previous : 0;
+					switch (random.nextInt(3)) {
+					case 0:
+						reference.put(key, i % 3);
+						assertEquals(expected, map.put(key, i % 3));
+						break;
+					case 1:
+						reference.put(key, expected + 2);
+						assertEquals(expected, map.addTo(key, 2));
+						break;
+					default:
+						reference.remove(key);
+						assertEquals(expected, map.remove(key));
+					}
+					assertEquals(reference.size(), map.size());
+				}
+				for (String key : keys) {
+					assertEquals(reference.containsKey(key), map.containsKey(key));
+					assertEquals(reference.containsKey(key) ? reference.get(key) : -1, map.getOrDefault(key, -1));
+				}
+				assertEquals(reference.keySet(), map.keySet());
+			}
+		}
+	}
+	
+	@Test
+	public void testZeroIsAValue() {
+		UniverseBasedLongMap<String> map = new UniverseBasedLongMap<>(BASE);
+		map.put("Aap", 0L);
+		assertTrue(map.containsKey("Aap"));
+		assertEquals(0L, map.getOrDefault("Aap", 5L));
+		assertEquals(5L, map.getOrDefault("Noot", 5L));
+		assertEquals("[Aap=0]", map.toString());
+		
+		UniverseBasedDoubleMap<String> doubles = new UniverseBasedDoubleMap<>(BASE);
+		doubles.addTo("Mies", 0.5);
+		doubles.addTo("Mies", 0.25);
+		assertEquals(0.75, doubles.get("Mies"), 0.0);
+		UniverseBasedDoubleMap<String> other = new UniverseBasedDoubleMap<>(BASE);
+		other.put("Mies", 0.75);
+		assertEquals(other, doubles);
+		assertEquals(other.hashCode(), doubles.hashCode());
+	}
+	
+	@Test
+	public void testKeySetSharesPresence() {
+		UniverseBasedIntMap<String> map = new UniverseBasedIntMap<>(BASE);
+		map.put("Aap", 1);
+		map.put("Noot", 2);
+		map.put("Mies", 3);
+		
+		UniverseBasedSet<String> keys = map.keySet();
+		assertTrue(keys.retainAll(ImmutableSet.of("Noot", "Wim")));
+		assertEquals(1, map.size());
+		assertFalse(map.containsKey("Aap"));
+		assertEquals(2, map.get("Noot"));
+		
+		map.put("Aap", 4);
+		assertEquals(ImmutableSet.of("Aap", "Noot"), keys);
+	}
+	
+	@Test(expected = UnsupportedOperationException.class)
+	public void testKeySetRejectsAdd() {
+		new UniverseBasedIntMap<>(BASE).keySet().add("Aap");
+	}
+}
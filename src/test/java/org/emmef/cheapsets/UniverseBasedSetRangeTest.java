@@ -0,0 +1,72 @@
+package org.emmef.cheapsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.emmef.cheapsets.universes.SortedIndexedUniverse;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableSet;
+
+public class UniverseBasedSetRangeTest {
+	private static final Set<String> BASE = ImmutableSet.of("Aap", "Noot", "Mies", "Wim", "Zus", "Jet", "Diederik", "Knoopsgat", "Volledig", "Knip");
+
+	@Test
+	public void testComplementOfContainsAllOtherUniverseElements() {
+		for (IndexType type : IndexType.values()) {
+			for (int size : IndexType.UNIVERSE_SIZES) {
+				Set<String> elements = IndexType.paddedUniverse(BASE, size);
+				UniverseBasedSet<String> set = UniverseBasedSets.create(type.create(elements));
+				int i = 0;
+				for (String element : elements) {
+					if (i++ % 3 == 0) {
+						set.add(element);
+					}
+				}
+				
+				UniverseBasedSet<String> complement = UniverseBasedSet.complementOf(set);
+				Set<String> expected = new HashSet<>(elements);
+				expected.removeAll(set);
+				assertEquals(expected, complement);
+				assertEquals(expected.size(), complement.size());
+			}
+		}
+	}
+	
+	@Test
+	public void testHeadAndTailSetsOfSortedUniverse() {
+		TreeSet<String> reference = new TreeSet<>(IndexType.paddedUniverse(BASE, 100));
+		UniverseBasedSet<String> set = UniverseBasedSets.create(new SortedIndexedUniverse<>(reference));
+		set.addAll(reference);
+		
+		assertEquals(reference.headSet("Knip"), set.headSet("Knip"));
+		assertEquals(reference.headSet("Element5"), set.headSet("Element5"));
+		assertEquals(reference.tailSet("Knip"), set.tailSet("Knip"));
+		assertEquals(reference.tailSet("Element5"), set.tailSet("Element5"));
+		
+		Set<String> head = set.headSet("Knip");
+		assertFalse(head.contains("Noot"));
+		assertFalse(head.remove("Noot"));
+		assertTrue(head.remove("Aap"));
+		assertFalse(set.contains("Aap"));
+		head.clear();
+		assertTrue(head.isEmpty());
+		assertEquals(reference.tailSet("Knip"), set);
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testRangeViewRejectsElementOutsideRange() {
+		UniverseBasedSet<String> set = UniverseBasedSets.create(new SortedIndexedUniverse<>(BASE));
+		set.headSet("Knip").add("Noot");
+	}
+	
+	@Test(expected = UnsupportedOperationException.class)
+	public void testHeadSetRequiresSortedUniverse() {
+		UniverseBasedSets.create(IndexType.NAIVE.create(BASE)).headSet("Knip");
+	}
+}
@@ -0,0 +1,137 @@
+package org.emmef.cheapsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.emmef.cheapsets.universes.HashedUniverseCreator;
+import org.emmef.cheapsets.universes.IndexedUniverses;
+import org.emmef.cheapsets.universes.NaiveUniverseCreator;
+import org.junit.Test;
+
+import com.google.common.collect.HashBasedTable;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Table;
+
+public class UniverseBasedTableTest {
+	private static final Set<String> ROWS = ImmutableSet.of("Aap", "Noot", "Mies", "Wim", "Zus");
+	private static final Set<Integer> COLUMNS = ImmutableSet.of(1, 2, 3, 5, 8, 13, 21);
+
+	@Test
+	public void testDenseAndSparseMatchReference() {
+		IndexedUniverse<String> rows = IndexedUniverses.create(ROWS);
+		IndexedUniverse<Integer> columns = IndexedUniverses.create(COLUMNS);
+		for (boolean sparse : new boolean[] { false, true }) {
+			UniverseBasedTable<String, Integer, String> table = sparse
+					? UniverseBasedTable.<String, Integer, String>sparse(rows, columns)
+					: new UniverseBasedTable<String, Integer, String>(rows, columns);
+			Table<String, Integer, String> reference = HashBasedTable.create();
+			ImmutableList<String> rowKeys = ImmutableList.copyOf(ROWS);
+			ImmutableList<Integer> columnKeys = ImmutableList.copyOf(COLUMNS);
+			Random random = new Random(sparse ? 1 : 2);
+			for (int i = 0; i < 200; i++) {
+				String row = rowKeys.get(random.nextInt(rowKeys.size()));
+				Integer column = columnKeys.get(random.nextInt(columnKeys.size()));
+				switch (random.nextInt(6)) {
+				case 0:
+				case 1:
+				case 2:
+					assertEquals(reference.put(row, column, "v" + i), table.put(row, column, "v" + i));
+					break;
+				case 3:
+					assertEquals(reference.remove(row, column), table.remove(row, column));
+					break;
+				case 4:
+					assertEquals(reference.row(row).remove(column), table.row(row).remove(column));
+					break;
+				default:
+					assertEquals(reference.column(column).put(row, "c" + i), table.column(column).put(row, "c" + i));
+				}
+				assertEquals(reference.size(), table.size());
+				assertEquals(reference, table);
+				assertEquals(table, reference);
+				assertEquals(reference.hashCode(), table.hashCode());
+			}
+			assertEquals(reference.rowKeySet(), table.rowKeySet());
+			assertEquals(reference.columnKeySet(), table.columnKeySet());
+			assertEquals(reference.rowMap(), table.rowMap());
+			assertEquals(reference.columnMap(), table.columnMap());
+			assertEquals(ImmutableSet.copyOf(reference.values()), ImmutableSet.copyOf(table.values()));
+		}
+	}
+
+	@Test
+	public void testViewsWriteThrough() {
+		UniverseBasedTable<String, Integer, String> table = new UniverseBasedTable<>(IndexedUniverses.create(ROWS), IndexedUniverses.create(COLUMNS));
+		table.put("Aap", 1, "a1");
+		table.put("Aap", 2, "a2");
+		table.put("Noot", 2, "n2");
+
+		Map<Integer, String> row = table.row("Aap");
+		for (Map.Entry<Integer, String> entry : row.entrySet()) {
+			entry.setValue(entry.getValue().toUpperCase());
+		}
+		assertEquals("A1", table.get("Aap", 1));
+
+		Iterator<Table.Cell<String, Integer, String>> cells = table.cellSet().iterator();
+		cells.next();
+		cells.remove();
+		assertFalse(table.contains("Aap", 1));
+		assertEquals(2, table.size());
+
+		assertEquals(ImmutableSet.of("Aap", "Noot"), table.column(2).keySet());
+		table.columnKeySet().remove(2);
+		assertTrue(table.isEmpty());
+		assertFalse(table.containsRow("Aap"));
+		assertNull(table.rowMap().get("Aap"));
+	}
+
+	@Test
+	public void testDoubleTable() {
+		UniverseBasedDoubleTable<String, Integer> table = new UniverseBasedDoubleTable<>(IndexedUniverses.create(ROWS), IndexedUniverses.create(COLUMNS));
+		assertEquals(0.0, table.addTo("Aap", 1, 1.5), 0.0);
+		assertEquals(1.5, table.addTo("Aap", 1, 1.5), 0.0);
+		table.put("Aap", 3, 0.0);
+		table.put("Mies", 3, 4.0);
+
+		assertEquals(3, table.size());
+		assertTrue(table.contains("Aap", 3));
+		assertEquals(-1.0, table.getOrDefault("Aap", 2, -1.0), 0.0);
+		assertEquals(3.0, table.rowSum("Aap"), 0.0);
+		assertEquals(4.0, table.columnSum(3), 0.0);
+		assertEquals(ImmutableSet.of(1, 3), table.columnKeySet("Aap"));
+
+		table.columnKeySet("Aap").remove(1);
+		assertEquals(0.0, table.remove("Aap", 1), 0.0);
+		assertEquals(4.0, table.remove("Mies", 3), 0.0);
+		assertEquals(1, table.size());
+	}
+
+	@Test
+	public void testDoubleTableWithGappedRows() {
+		ImmutableSet.Builder<String> rowKeys = ImmutableSet.builder();
+		for (int i = 0; i < 38; i++) {
+			rowKeys.add("row" + i);
+		}
+		IndexedUniverse<String> rows = IndexedUniverses.createAlways(rowKeys.build(), HashedUniverseCreator.DEFAULT);
+		assertTrue(rows.indexBoundary() > rows.size());
+		UniverseBasedDoubleTable<String, Integer> table = new UniverseBasedDoubleTable<>(rows, IndexedUniverses.create(COLUMNS));
+		UniverseBasedDoubleTable<String, Integer> dense = new UniverseBasedDoubleTable<>(IndexedUniverses.createAlways(rowKeys.build(), NaiveUniverseCreator.ALL), IndexedUniverses.create(COLUMNS));
+		for (UniverseBasedDoubleTable<String, Integer> t : ImmutableList.of(table, dense)) {
+			t.put("row3", 5, 2.5);
+			t.put("row17", 8, -1.0);
+			t.put("row17", 13, 4.0);
+		}
+
+		assertEquals(dense, table);
+		assertEquals(dense.hashCode(), table.hashCode());
+		assertTrue(table.toString().contains("row17={8=-1.0, 13=4.0}"));
+	}
+}
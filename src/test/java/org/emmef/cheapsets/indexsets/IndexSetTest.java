@@ -0,0 +1,368 @@
+package org.emmef.cheapsets.indexsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.emmef.cheapsets.IndexConsumer;
+import org.emmef.cheapsets.IndexCursor;
+import org.emmef.cheapsets.IndexSet;
+import org.junit.Test;
+
+public class IndexSetTest {
+	private static final int[] BOUNDS = { 20, 50, 100, 200, 300 };
+	
+	static List<IndexSet> emptySets(int bound) {
+		List<IndexSet> sets = new ArrayList<>();
+		sets.add(IndexSetBuilder.emptyFor(bound));
+		sets.add(IndexSetBuilder.sparseFor(bound));
+		sets.add(IndexSetBuilder.adaptiveFor(bound));
+		sets.add(IndexSetBuilder.epochFor(bound));
+		sets.add(IndexSetBuilder.persistentFor(bound));
+		return sets;
+	}
+
+	@Test
+	public void testSetAndRemoveMatchReference() {
+		for (int bound : BOUNDS) {
+			for (IndexSet set : emptySets(bound)) {
+				TreeSet<Integer> reference = new TreeSet<>();
+				Random random = new Random(bound);
+				for (int i = 0; i < 4 * bound; i++) {
+					int index = random.nextInt(bound);
+					if (random.nextBoolean()) {
+						assertEquals(reference.add(index), set.setAt(index));
+					}
+					else {
+						assertEquals(reference.remove(index), set.removeAt(index));
+					}
+					assertEquals(reference.size(), set.count());
+					assertEquals(reference.isEmpty(), set.isEmpty());
+				}
+				for (int i = 0; i < bound; i++) {
+					assertEquals(reference.contains(i), set.presentAt(i));
+				}
+				assertEquals(reference, indicesOf(set));
+			}
+		}
+	}
+	
+	@Test
+	public void testNextPresent() {
+		for (int bound : BOUNDS) {
+			for (IndexSet set : emptySets(bound)) {
+				assertEquals(-1, set.nextPresent(0));
+				set.setAt(3);
+				set.setAt(bound - 1);
+				assertEquals(3, set.nextPresent(0));
+				assertEquals(3, set.nextPresent(3));
+				assertEquals(bound - 1, set.nextPresent(4));
+				assertEquals(-1, set.nextPresent(bound));
+				assertEquals(-1, set.nextPresent(set.bound()));
+			}
+		}
+	}
+	
+	@Test
+	public void testCursorAllowsRemovalAndReset() {
+		for (int bound : BOUNDS) {
+			for (IndexSet set : emptySets(bound)) {
+				for (int i = 0; i < bound; i += 3) {
+					set.setAt(i);
+				}
+				TreeSet<Integer> expected = indicesOf(set);
+				IndexCursor cursor = set.cursor();
+				TreeSet<Integer> visited = new TreeSet<>();
+				for (int i = cursor.next(); i >= 0; i = cursor.next()) {
+					visited.add(i);
+					set.removeAt(i);
+				}
+				assertEquals(expected, visited);
+				assertTrue(set.isEmpty());
+				
+				set.setAt(bound / 2);
+				cursor.reset();
+				assertEquals(bound / 2, cursor.next());
+				assertEquals(-1, cursor.next());
+			}
+		}
+	}
+
+	@Test
+	public void testBulkOperations() {
+		for (int bound : BOUNDS) {
+			List<IndexSet> firsts = emptySets(bound);
+			List<IndexSet> seconds = emptySets(bound);
+			for (IndexSet first : firsts) {
+				for (IndexSet second : seconds) {
+					first.clear();
+					second.clear();
+					for (int i = 0; i < bound; i += 2) {
+						first.setAt(i);
+					}
+					for (int i = 0; i < bound; i += 4) {
+						second.setAt(i);
+					}
+					assertTrue(first.containsAll(second));
+					assertFalse(second.containsAll(first));
+					
+					IndexSet union = second.clone();
+					assertTrue(union.addAll(first));
+					assertFalse(union.addAll(first));
+					assertEquals(indicesOf(first), indicesOf(union));
+					
+					IndexSet intersection = first.clone();
+					assertTrue(intersection.retainAll(second));
+					assertFalse(intersection.retainAll(second));
+					assertEquals(indicesOf(second), indicesOf(intersection));
+					
+					IndexSet difference = first.clone();
+					assertTrue(difference.removeAll(second));
+					assertFalse(difference.removeAll(second));
+					assertEquals(first.count() - second.count(), difference.count());
+					for (int i = difference.nextPresent(0); i >= 0; i = difference.nextPresent(i + 1)) {
+						assertEquals(2, i % 4);
+					}
+					
+					assertTrue(first.cloneEmpty().isEmpty());
+				}
+			}
+		}
+	}
+	
+	@Test
+	public void testRangeOperationsMatchReference() {
+		for (int bound : BOUNDS) {
+			for (IndexSet set : emptySets(bound)) {
+				TreeSet<Integer> reference = new TreeSet<>();
+				Random random = new Random(bound);
+				for (int i = 0; i < 20; i++) {
+					int from = random.nextInt(set.bound() + 1);
+					int to = from + random.nextInt(set.bound() - from + 1);
+					switch (i % 4) {
+					case 0:
+						set.setRange(from, to);
+						for (int j = from; j < to; j++) {
+							reference.add(j);
+						}
+						break;
+					case 1:
+						set.clearRange(from, to);
+						reference.subSet(from, to).clear();
+						break;
+					case 2:
+						set.flipRange(from, to);
+						for (int j = from; j < to; j++) {
+							if (!reference.remove(j)) {
+								reference.add(j);
+							}
+						}
+						break;
+					default:
+						set.complement();
+						for (int j = 0; j < set.bound(); j++) {
+							if (!reference.remove(j)) {
+								reference.add(j);
+							}
+						}
+					}
+					assertEquals(reference, indicesOf(set));
+				}
+			}
+		}
+	}
+	
+	@Test
+	public void testWordsMatchPresentIndices() {
+		for (int bound : BOUNDS) {
+			List<IndexSet> copies = emptySets(bound);
+			for (IndexSet set : emptySets(bound)) {
+				Random random = new Random(bound);
+				for (int i = 0; i < bound / 2; i++) {
+					set.setAt(random.nextInt(bound));
+				}
+				long[] words = set.toLongArray();
+				assertEquals(set.wordCount(), words.length);
+				assertEquals((set.bound() + 63) / 64, words.length);
+				for (int i = 0; i < words.length; i++) {
+					assertEquals(words[i], set.wordAt(i));
+				}
+				BitSet bits = IndexSetBuilder.toBitSet(set);
+				assertEquals(indicesOf(set), indicesOf(bits));
+				
+				for (IndexSet copy : copies) {
+					long[] padded = new long[copy.wordCount() + 1];
+					System.arraycopy(words, 0, padded, 1, Math.min(words.length, copy.wordCount()));
+					copy.setRange(0, copy.bound());
+					copy.setWords(padded, 1);
+					assertEquals(indicesOf(set), indicesOf(copy));
+				}
+			}
+		}
+	}
+	
+	@Test
+	public void testWordsOfFewIndicesAtWordEdges() {
+		for (int bound : BOUNDS) {
+			for (IndexSet set : emptySets(bound)) {
+				long[] expected = new long[(bound + 63) / 64];
+				for (int index : new int[] { 0, 63, 64, 127, bound - 1 }) {
+					if (index < bound) {
+						set.setAt(index);
+						expected[index >> 6] |= 1L << index;
+					}
+				}
+				for (int i = 0; i < expected.length; i++) {
+					assertEquals(expected[i], set.wordAt(i));
+				}
+				assertEquals(Arrays.toString(expected), Arrays.toString(set.toLongArray()));
+			}
+		}
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testSetWordsRejectsIndicesBeyondBound() {
+		IndexSetBuilder.sparseFor(100).setWords(new long[] { 0, 1L << 36 }, 0);
+	}
+	
+	@Test
+	public void testWrapSharesWords() {
+		long[] words = new long[3];
+		IndexSet set = IndexSetBuilder.wrap(words);
+		assertEquals(192, set.bound());
+		set.setAt(130);
+		assertEquals(4L, words[2]);
+		words[0] = 3L;
+		assertTrue(set.presentAt(1));
+		assertEquals(3, set.count());
+	}
+	
+	@Test
+	public void testPersistentClonesAreIsolated() {
+		PersistentIndexSet set = IndexSetBuilder.persistentFor(5000);
+		TreeSet<Integer> reference = new TreeSet<>();
+		List<IndexSet> clones = new ArrayList<>();
+		List<TreeSet<Integer>> expected = new ArrayList<>();
+		Random random = new Random(48);
+		for (int i = 0; i < 2000; i++) {
+			int index = random.nextInt(set.bound());
+			if (random.nextInt(3) > 0) {
+				set.setAt(index);
+				reference.add(index);
+			}
+			else {
+				set.removeAt(index);
+				reference.remove(index);
+			}
+			if (i % 100 == 0) {
+				clones.add(set.clone());
+				expected.add(new TreeSet<>(reference));
+			}
+			if (i % 500 == 0) {
+				set.clearRange(index / 2, index);
+				reference.subSet(index / 2, index).clear();
+			}
+		}
+		IndexSet last = clones.get(clones.size() - 1);
+		last.setRange(0, 100);
+		expected.get(clones.size() - 1).addAll(indicesOf(last).headSet(100));
+		
+		assertEquals(reference, indicesOf(set));
+		for (int i = 0; i < clones.size(); i++) {
+			assertEquals(expected.get(i), indicesOf(clones.get(i)));
+			assertEquals(expected.get(i).size(), clones.get(i).count());
+		}
+		assertTrue(set.clone().containsAll(set));
+	}
+	
+	@Test
+	public void testAdaptiveConvertsWithHysteresis() {
+		AdaptiveIndexSet set = IndexSetBuilder.adaptiveFor(6400);
+		long toBitmap = AdaptiveIndexSet.toBitmapConversions();
+		long toSorted = AdaptiveIndexSet.toSortedConversions();
+		for (int i = 0; i < 200; i++) {
+			set.setAt(i * 32);
+		}
+		assertFalse(set.isBitmap());
+		set.setAt(1);
+		assertTrue(set.isBitmap());
+		assertEquals(toBitmap + 1, AdaptiveIndexSet.toBitmapConversions());
+		
+		for (int i = 0; i < 100; i++) {
+			set.removeAt(i * 32);
+		}
+		assertTrue(set.isBitmap());
+		for (int i = 100; i < 200; i++) {
+			set.removeAt(i * 32);
+		}
+		assertFalse(set.isBitmap());
+		assertEquals(toSorted + 1, AdaptiveIndexSet.toSortedConversions());
+		assertEquals(1, set.count());
+		assertTrue(set.presentAt(1));
+	}
+	
+	@Test
+	public void testAdaptiveDoesNotConvertOnClearAndRefill() {
+		for (int bound : new int[] { 20, 6400 }) {
+			AdaptiveIndexSet set = IndexSetBuilder.adaptiveFor(bound);
+			for (int i = 0; i < bound; i += 2) {
+				set.setAt(i);
+			}
+			long toBitmap = AdaptiveIndexSet.toBitmapConversions();
+			long toSorted = AdaptiveIndexSet.toSortedConversions();
+			for (int cycle = 0; cycle < 10; cycle++) {
+				set.clear();
+				assertTrue(set.isEmpty());
+				for (int i = 0; i < bound; i += 2) {
+					set.setAt(i);
+				}
+				assertEquals(bound / 2, set.count());
+			}
+			assertEquals(toBitmap, AdaptiveIndexSet.toBitmapConversions());
+			assertEquals(toSorted, AdaptiveIndexSet.toSortedConversions());
+		}
+		
+		AdaptiveIndexSet tiny = IndexSetBuilder.adaptiveFor(20);
+		long toBitmap = AdaptiveIndexSet.toBitmapConversions();
+		for (int cycle = 0; cycle < 10; cycle++) {
+			tiny.setAt(cycle);
+			tiny.setAt(19);
+			tiny.clear();
+		}
+		assertFalse(tiny.isBitmap());
+		assertEquals(toBitmap, AdaptiveIndexSet.toBitmapConversions());
+	}
+	
+	static TreeSet<Integer> indicesOf(BitSet bits) {
+		TreeSet<Integer> indices = new TreeSet<>();
+		for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+			indices.add(i);
+		}
+		return indices;
+	}
+	
+	static TreeSet<Integer> indicesOf(IndexSet set) {
+		final TreeSet<Integer> indices = new TreeSet<>();
+		set.forEachIndex(new IndexConsumer() {
+			@Override
+			public void accept(int index) {
+				indices.add(index);
+			}
+		});
+		TreeSet<Integer> scanned = new TreeSet<>();
+		for (int i = set.nextPresent(0); i >= 0; i = set.nextPresent(i + 1)) {
+			scanned.add(i);
+		}
+		assertEquals(indices, scanned);
+		assertEquals(indices.size(), set.count());
+		
+		return indices;
+	}
+}
@@ -0,0 +1,67 @@
+package org.emmef.cheapsets.query;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.emmef.cheapsets.IndexedUniverse;
+import org.emmef.cheapsets.universes.HashedUniverseCreator;
+import org.emmef.cheapsets.universes.IndexedUniverses;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+public class BitmapIndexTest {
+	private static final List<String> COLORS = ImmutableList.of("red", "green", "blue");
+
+	@Test
+	public void testQueriesMatchReference() {
+		for (int size : new int[] { 20, 100, 1000 }) {
+			List<Integer> ids = new ArrayList<>();
+			for (int i = 0; i < size; i++) {
+				ids.add(i * 7);
+			}
+			IndexedUniverse<Integer> universe = IndexedUniverses.createAlways(ImmutableSet.copyOf(ids), HashedUniverseCreator.DEFAULT);
+			BitmapIndex<Integer, String> colors = new BitmapIndex<>(universe);
+			BitmapIndex<Integer, Boolean> flags = new BitmapIndex<>(universe);
+			Random random = new Random(size);
+			for (Integer id : ids) {
+				colors.add(id, COLORS.get(random.nextInt(COLORS.size())));
+				if (random.nextBoolean()) {
+					flags.add(id, true);
+				}
+			}
+			
+			Query<Integer> query = colors.in(ImmutableList.of("red", "blue")).and(flags.eq(true)).or(colors.eq("green").andNot(flags.eq(true)));
+			Set<Integer> expected = new HashSet<>();
+			for (Integer id : ids) {
+				boolean flagged = flags.eq(true).toSet().contains(id);
+				boolean green = colors.eq("green").toSet().contains(id);
+				if (!green && flagged || green && !flagged) {
+					expected.add(id);
+				}
+			}
+			assertEquals(expected, query.toSet());
+			assertEquals(expected.size(), query.count());
+			assertEquals(expected, colors.eq("green").xor(flags.eq(true)).toSet());
+			assertEquals(size - expected.size(), query.not().count());
+			assertEquals(size, Query.all(universe).count());
+			assertTrue(colors.eq("purple").matchesNone());
+			
+			List<Integer> all = query.page(0, size);
+			assertEquals(expected.size(), all.size());
+			assertEquals(all.subList(3, 8), query.page(3, 5));
+			assertEquals(all.subList(0, 4), query.first(4));
+			assertEquals(ImmutableList.of(), query.page(expected.size(), 5));
+			
+			colors.removeEntity(all.get(0));
+			assertEquals(expected.size() - 1, query.count());
+		}
+	}
+}
@@ -0,0 +1,139 @@
+package org.emmef.cheapsets.query;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.emmef.cheapsets.IndexedUniverse;
+import org.emmef.cheapsets.UniverseBasedSet;
+import org.emmef.cheapsets.UniverseBasedSets;
+import org.emmef.cheapsets.indexsets.IndexSetBuilder;
+import org.emmef.cheapsets.universes.HashedUniverseCreator;
+import org.emmef.cheapsets.universes.IndexedUniverses;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+
+public class SetViewTest {
+	@Test
+	public void testViewsMatchReference() {
+		for (int size : new int[] { 10, 100, 1000 }) {
+			List<Integer> elements = new ArrayList<>();
+			for (int i = 0; i < size; i++) {
+				elements.add(i * 3);
+			}
+			IndexedUniverse<Integer> universe = IndexedUniverses.createAlways(ImmutableSet.copyOf(elements), HashedUniverseCreator.DEFAULT);
+			Random random = new Random(size);
+			UniverseBasedSet<Integer> a = randomSet(universe, elements, random);
+			UniverseBasedSet<Integer> b = randomSet(universe, elements, random);
+			UniverseBasedSet<Integer> c = randomSet(universe, elements, random);
+			Set<Integer> ha = new HashSet<>(a);
+			Set<Integer> hb = new HashSet<>(b);
+			Set<Integer> hc = new HashSet<>(c);
+			
+			assertView(Sets.union(ha, hb), UniverseBasedSets.union(a, b), elements);
+			assertView(Sets.intersection(ha, hb), UniverseBasedSets.intersection(a, b), elements);
+			assertView(Sets.difference(ha, hb), UniverseBasedSets.difference(a, b), elements);
+			assertView(Sets.symmetricDifference(ha, hb), UniverseBasedSets.symmetricDifference(a, b), elements);
+			
+			Set<Integer> tree = UniverseBasedSets.difference(UniverseBasedSets.union(UniverseBasedSets.intersection(a, b), c), UniverseBasedSets.symmetricDifference(a, c));
+			Set<Integer> expected = Sets.difference(Sets.union(Sets.intersection(ha, hb), hc), Sets.symmetricDifference(ha, hc));
+			assertView(expected, tree, elements);
+			
+			UniverseBasedSet<Integer> target = randomSet(universe, elements, random);
+			Query<Integer> union = UniverseBasedSets.union(a, b);
+			assertEquals(!target.equals(union), union.materializeInto(target));
+			assertEquals(union, target);
+			assertEquals(union.hashCode(), target.hashCode());
+			assertFalse(union.materializeInto(target));
+			Set<Integer> expectedA = Sets.newHashSet(Sets.symmetricDifference(ha, hc));
+			UniverseBasedSets.symmetricDifference(a, c).materializeInto(a);
+			assertEquals(expectedA, a);
+			assertEquals(expectedA.hashCode(), a.hashCode());
+			
+			a.add(elements.get(0));
+			b.add(elements.get(0));
+			assertTrue(UniverseBasedSets.intersection(a, b).contains(elements.get(0)));
+		}
+	}
+
+	@Test
+	public void testViewsOfSetsWithoutWordAccess() {
+		List<Integer> elements = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			elements.add(i * 3);
+		}
+		IndexedUniverse<Integer> universe = IndexedUniverses.createAlways(ImmutableSet.copyOf(elements), HashedUniverseCreator.DEFAULT);
+		Random random = new Random(1);
+		UniverseBasedSet<Integer> a = UniverseBasedSets.create(universe, IndexSetBuilder.sparseFor(universe));
+		UniverseBasedSet<Integer> b = UniverseBasedSets.withEpochClear(universe);
+		UniverseBasedSet<Integer> c = randomSet(universe, elements, random);
+		for (Integer element : elements) {
+			if (random.nextInt(3) == 0) {
+				a.add(element);
+			}
+			if (random.nextInt(3) == 0) {
+				b.add(element);
+			}
+		}
+		assertFalse(a.hasWordAccess());
+		assertFalse(b.hasWordAccess());
+		assertTrue(c.hasWordAccess());
+		Set<Integer> ha = new HashSet<>(a);
+		Set<Integer> hb = new HashSet<>(b);
+		Set<Integer> hc = new HashSet<>(c);
+		
+		Query<Integer> tree = Query.of(a).and(Query.of(b).not()).or(Query.of(c).xor(Query.of(a))).andNot(Query.of(b));
+		Set<Integer> notB = Sets.difference(new HashSet<>(elements), hb);
+		Set<Integer> expected = Sets.difference(Sets.union(Sets.intersection(ha, notB), Sets.symmetricDifference(hc, ha)), hb);
+		assertView(expected, tree, elements);
+		assertEquals(Sets.newHashSet(expected), Sets.newHashSet(tree.page(0, elements.size())));
+		
+		Set<Integer> expectedA = Sets.newHashSet(Sets.symmetricDifference(ha, hc));
+		assertEquals(!expectedA.equals(ha), UniverseBasedSets.symmetricDifference(a, c).materializeInto(a));
+		assertEquals(expectedA, a);
+		assertEquals(expectedA.hashCode(), a.hashCode());
+		assertFalse(a.hasWordAccess());
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testViewsAreUnmodifiable() {
+		IndexedUniverse<String> universe = IndexedUniverses.createAlways(ImmutableSet.of("a", "b", "c"), HashedUniverseCreator.DEFAULT);
+		UniverseBasedSet<String> set = UniverseBasedSets.create(universe);
+		set.add("a");
+		
+		UniverseBasedSets.union(set, set).add("b");
+	}
+
+	private static void assertView(Set<Integer> expected, Set<Integer> view, List<Integer> elements) {
+		assertEquals(expected, view);
+		assertEquals(view, expected);
+		assertEquals(expected.hashCode(), view.hashCode());
+		assertEquals(expected.size(), view.size());
+		assertEquals(expected.isEmpty(), view.isEmpty());
+		assertEquals(expected, ((Query<Integer>)view).toSet());
+		for (Integer element : elements) {
+			assertEquals(expected.contains(element), view.contains(element));
+		}
+		assertFalse(view.contains(-1));
+		assertFalse(view.contains("other"));
+	}
+
+	private static UniverseBasedSet<Integer> randomSet(IndexedUniverse<Integer> universe, List<Integer> elements, Random random) {
+		UniverseBasedSet<Integer> set = UniverseBasedSets.create(universe);
+		for (Integer element : elements) {
+			if (random.nextInt(3) == 0) {
+				set.add(element);
+			}
+		}
+		
+		return set;
+	}
+}
@@ -0,0 +1,82 @@
+package org.emmef.cheapsets.universes;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+import java.util.Set;
+
+import org.emmef.cheapsets.IndexedUniverse;
+import org.emmef.cheapsets.UniverseIndexed;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+public class CarriedIndexTest {
+
+	@Test
+	public void testCarriedIndexIsUsedOnlyWhenVerified() {
+		List<Entity> entities = ImmutableList.of(new Entity("Aap"), new Entity("Noot"), new Entity("Mies"));
+		for (UniverseCreator creator : ImmutableList.of(NaiveUniverseCreator.ALL, HashedUniverseCreator.DEFAULT)) {
+			IndexedUniverse<Entity> universe = IndexedUniverses.createAlways(ImmutableSet.copyOf(entities), creator);
+			for (int i = 0; i < universe.indexBoundary(); i++) {
+				Entity entity = universe.elementAt(i);
+				if (entity != null) {
+					entity.bind(universe, i);
+				}
+			}
+			for (Entity entity : entities) {
+				assertEquals(entity.index, universe.indexOf(entity));
+				assertEquals(entity.index, universe.indexOf(new Entity(entity.name)));
+			}
+
+			Entity liar = new Entity("Aap");
+			liar.bind(universe, entities.get(1).index);
+			assertEquals(entities.get(0).index, universe.indexOf(liar));
+		}
+	}
+
+	@Test
+	public void testClassUniverse() {
+		Set<Class<?>> classes = ImmutableSet.<Class<?>>of(String.class, Integer.class, Long.class);
+		ClassIndexedUniverse universe = IndexedUniverses.forClasses(classes);
+
+		for (Class<?> type : classes) {
+			assertEquals(type, universe.elementAt(universe.indexOf(type)));
+		}
+		assertEquals(universe.indexOf(Long.class), universe.indexOfClassOf(3L));
+		assertEquals(-1, universe.indexOf(Double.class));
+		assertEquals(-1, universe.indexOfClassOf(3.0));
+		assertEquals(-1, universe.indexOf("String"));
+	}
+
+	private static final class Entity implements UniverseIndexed {
+		private final String name;
+		private IndexedUniverse<?> universe;
+		private int index = -1;
+
+		Entity(String name) {
+			this.name = name;
+		}
+
+		void bind(IndexedUniverse<?> universe, int index) {
+			this.universe = universe;
+			this.index = index;
+		}
+
+		@Override
+		public int indexIn(IndexedUniverse<?> universe) {
+			return universe == this.universe ? index : -1;
+		}
+
+		@Override
+		public int hashCode() {
+			return name.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof Entity && ((Entity)obj).name.equals(name);
+		}
+	}
+}
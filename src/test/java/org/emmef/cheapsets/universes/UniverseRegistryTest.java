@@ -0,0 +1,73 @@
+package org.emmef.cheapsets.universes;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.emmef.cheapsets.IndexedUniverse;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+public class UniverseRegistryTest {
+	private static final Set<String> BASE = ImmutableSet.of("Aap", "Noot", "Mies", "Wim", "Zus", "Jet", "Diederik", "Knoopsgat", "Volledig", "Knip", "Teun");
+	private static final List<UniverseCreator> HASHED = ImmutableList.of(HashedUniverseCreator.DEFAULT);
+
+	@Test
+	public void testEqualElementsYieldSameUniverse() {
+		UniverseRegistry registry = new UniverseRegistry();
+		IndexedUniverse<String> first = registry.intern(BASE, HASHED);
+		IndexedUniverse<String> second = registry.intern(new HashSet<>(BASE), HASHED);
+
+		assertSame(first, second);
+		assertEquals(1, registry.hits());
+		assertEquals(1, registry.misses());
+	}
+
+	@Test
+	public void testCreatorStrategyIsPartOfKey() {
+		UniverseRegistry registry = new UniverseRegistry();
+		IndexedUniverse<String> hashed = registry.intern(BASE, HASHED);
+		IndexedUniverse<String> naive = registry.intern(BASE, ImmutableList.<UniverseCreator>of(NaiveUniverseCreator.ALL));
+
+		assertNotSame(hashed, naive);
+		assertEquals(2, registry.misses());
+	}
+
+	@Test
+	public void testIterationOrderIsPartOfKeyForNaiveUniverses() {
+		UniverseRegistry registry = new UniverseRegistry();
+		List<UniverseCreator> naive = ImmutableList.<UniverseCreator>of(NaiveUniverseCreator.ALL);
+		IndexedUniverse<String> forward = registry.intern(ImmutableSet.of("Aap", "Noot", "Mies"), naive);
+		IndexedUniverse<String> backward = registry.intern(ImmutableSet.of("Mies", "Noot", "Aap"), naive);
+
+		assertNotSame(forward, backward);
+		assertEquals(0, forward.indexOf("Aap"));
+		assertEquals(0, backward.indexOf("Mies"));
+		assertSame(forward, registry.intern(new LinkedHashSet<>(ImmutableList.of("Aap", "Noot", "Mies")), naive));
+		assertEquals(1, registry.hits());
+		assertEquals(2, registry.misses());
+	}
+
+	@Test
+	public void testSameHashDifferentElementsYieldDifferentUniverses() {
+		UniverseRegistry registry = new UniverseRegistry();
+		IndexedUniverse<String> first = registry.intern(ImmutableSet.of("Aa", "Noot"), HASHED);
+		IndexedUniverse<String> second = registry.intern(ImmutableSet.of("BB", "Noot"), HASHED);
+
+		assertNotSame(first, second);
+		assertEquals(-1, second.indexOf("Aa"));
+		assertEquals(2, registry.misses());
+	}
+
+	@Test
+	public void testCreateUsesDefaultRegistry() {
+		assertSame(IndexedUniverses.create(BASE), IndexedUniverses.create(new HashSet<>(BASE)));
+	}
+}